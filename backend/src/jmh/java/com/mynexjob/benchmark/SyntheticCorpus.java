@@ -0,0 +1,170 @@
+package com.mynexjob.benchmark;
+
+import com.mynexjob.entity.Job;
+import com.mynexjob.entity.User;
+import com.mynexjob.entity.UserProfile;
+import com.mynexjob.enums.JobType;
+import com.mynexjob.enums.UserRole;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Seeded generator of jobs, profiles and candidates for the benchmarks. The same seed and size
+ * always give the same corpus, so results stay comparable between runs.
+ */
+public final class SyntheticCorpus {
+
+    public static final long DEFAULT_SEED = 42L;
+
+    private static final int SKILL_VOCABULARY = 500;
+
+    private static final LocalDateTime EPOCH = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    private static final String[] SENIORITY = {
+        "", "Junior ", "Senior ", "Lead ", "Principal ", "Head of ", "Assistant "
+    };
+
+    private static final String[] ROLES = {
+        "Software Engineer", "Backend Developer", "Data Scientist", "DevOps Engineer", "QA Analyst",
+        "Product Manager", "UI/UX Designer", "Cloud Architect", "Database Administrator", "Android Developer",
+        "Sales Executive", "Accountant", "Nurse", "Store Manager", "Marketing Coordinator",
+        "Customer Service Representative", "Warehouse Associate", "HR Generalist", "Chef", "Electrician"
+    };
+
+    private static final String[] LOCATIONS = {
+        "Bangalore", "Mumbai", "Delhi", "Hyderabad", "Pune", "Chennai", "London", "Berlin", "New York", "Remote"
+    };
+
+    private static final String[] WORDS = {
+        "team", "build", "customer", "design", "deliver", "quality", "process", "support", "manage", "system",
+        "growth", "experience", "communication", "ownership", "scale", "report", "analysis", "service", "plan", "lead"
+    };
+
+    private SyntheticCorpus() {
+    }
+
+    public static List<Job> jobs(int count, long seed) {
+        Random random = new Random(seed);
+        List<Job> jobs = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            jobs.add(job(random, i));
+        }
+        return jobs;
+    }
+
+    /**
+     * The same jobs as {@link #jobs(int, long)}, handed over in batches so corpora too large to
+     * hold in memory can be written out
+     */
+    public static void jobs(int count, long seed, int batchSize, Consumer<List<Job>> sink) {
+        Random random = new Random(seed);
+        List<Job> batch = new ArrayList<>(batchSize);
+        for (int i = 0; i < count; i++) {
+            batch.add(job(random, i));
+            if (batch.size() == batchSize || i == count - 1) {
+                sink.accept(batch);
+                batch = new ArrayList<>(batchSize);
+            }
+        }
+    }
+
+    public static List<UserProfile> profiles(int count, long seed) {
+        Random random = new Random(seed);
+        List<UserProfile> profiles = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            UserProfile profile = new UserProfile();
+            profile.setId("profile-" + i);
+            profile.setUserId("user-" + i);
+            profile.setTitle(title(random));
+            profile.setSummary(sentences(random, 3));
+            profile.setSkills(skills(random, 5, 20));
+            profile.setExperienceYears(random.nextInt(15));
+            profile.setExpectedSalary(BigDecimal.valueOf(300_000 + random.nextInt(30) * 100_000));
+            profile.setIsOpenToRemote(random.nextBoolean());
+            profile.setMatchingEnabled(true);
+            profiles.add(profile);
+        }
+        return profiles;
+    }
+
+    public static List<User> candidates(int count, long seed) {
+        Random random = new Random(seed);
+        List<User> candidates = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            User candidate = new User();
+            candidate.setId("user-" + i);
+            candidate.setEmail("candidate" + i + "@example.com");
+            candidate.setRole(UserRole.USER);
+            candidate.setLocation(LOCATIONS[random.nextInt(LOCATIONS.length)]);
+            candidates.add(candidate);
+        }
+        return candidates;
+    }
+
+    public static List<String> titles(int count, long seed) {
+        Random random = new Random(seed);
+        List<String> titles = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            titles.add(title(random));
+        }
+        return titles;
+    }
+
+    private static Job job(Random random, int i) {
+        Job job = new Job();
+        job.setId("job-" + i);
+        job.setTitle(title(random));
+        job.setDescription(sentences(random, 6));
+        job.setRequirements(sentences(random, 4));
+        job.setResponsibilities(sentences(random, 4));
+        job.setRequiredSkills(skills(random, 5, 12));
+        job.setLocation(LOCATIONS[random.nextInt(LOCATIONS.length)]);
+        job.setIsRemote(random.nextInt(4) == 0);
+        job.setJobType(JobType.values()[random.nextInt(JobType.values().length)]);
+        job.setExperienceMin(random.nextInt(8));
+        int salaryMin = 300_000 + random.nextInt(20) * 100_000;
+        job.setSalaryMin(BigDecimal.valueOf(salaryMin));
+        job.setSalaryMax(BigDecimal.valueOf(salaryMin + 200_000 + random.nextInt(10) * 100_000));
+        job.setPostedAt(EPOCH.plusMinutes(i));
+        job.setIsActive(true);
+        job.setMatchingEnabled(true);
+        return job;
+    }
+
+    private static String title(Random random) {
+        return SENIORITY[random.nextInt(SENIORITY.length)] + ROLES[random.nextInt(ROLES.length)];
+    }
+
+    private static List<String> skills(Random random, int min, int max) {
+        int count = min + random.nextInt(max - min + 1);
+        Set<String> skills = new LinkedHashSet<>();
+        while (skills.size() < count) {
+            // Skew towards the head of the vocabulary, like real skill popularity
+            int rank = (int) (SKILL_VOCABULARY * Math.pow(random.nextDouble(), 2));
+            skills.add("skill-" + rank);
+        }
+        return new ArrayList<>(skills);
+    }
+
+    private static String sentences(Random random, int count) {
+        StringBuilder text = new StringBuilder();
+        for (int s = 0; s < count; s++) {
+            int words = 8 + random.nextInt(12);
+            for (int w = 0; w < words; w++) {
+                if (s > 0 || w > 0) {
+                    text.append(' ');
+                }
+                text.append(WORDS[random.nextInt(WORDS.length)]);
+            }
+            text.append('.');
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,49 @@
+package com.mynexjob.enums;
+
+import com.mynexjob.benchmark.SyntheticCorpus;
+import com.mynexjob.entity.Job;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+
+/**
+ * Keyword categorization of synthetic jobs, a mix of IT and non-IT roles, on the title alone
+ * and on the title, description and requirements together
+ */
+@State(Scope.Thread)
+public class JobCategoryBenchmark {
+
+    @Param({"1000", "10000"})
+    private int corpusSize;
+
+    private List<String> titles;
+    private List<Job> jobs;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        titles = SyntheticCorpus.titles(corpusSize, SyntheticCorpus.DEFAULT_SEED);
+        jobs = SyntheticCorpus.jobs(corpusSize, SyntheticCorpus.DEFAULT_SEED);
+    }
+
+    @Benchmark
+    public JobCategory categorizeJob() {
+        return JobCategory.categorizeJob(titles.get(nextIndex()));
+    }
+
+    @Benchmark
+    public JobCategory categorizeJobWithText() {
+        Job job = jobs.get(nextIndex());
+        return JobCategory.categorizeJob(job.getTitle(), job.getDescription(), job.getRequirements());
+    }
+
+    private int nextIndex() {
+        int i = next;
+        next = i + 1 == corpusSize ? 0 : i + 1;
+        return i;
+    }
+}
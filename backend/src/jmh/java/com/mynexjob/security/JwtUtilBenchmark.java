@@ -0,0 +1,56 @@
+package com.mynexjob.security;
+
+import com.mynexjob.benchmark.SyntheticCorpus;
+import com.mynexjob.entity.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+/**
+ * Parsing and validation of signed access tokens, as done by the authentication filter on every request
+ */
+@State(Scope.Thread)
+public class JwtUtilBenchmark {
+
+    @Param({"1000"})
+    private int corpusSize;
+
+    private JwtUtil jwtUtil;
+    private String[] tokens;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "jwtSecret", "benchmarkSecretKeyThatIsLongEnoughForTheHS256Algorithm");
+        ReflectionTestUtils.setField(jwtUtil, "jwtExpiration", 86_400_000L);
+        ReflectionTestUtils.setField(jwtUtil, "refreshExpiration", 604_800_000L);
+
+        List<User> users = SyntheticCorpus.candidates(corpusSize, SyntheticCorpus.DEFAULT_SEED);
+        tokens = new String[corpusSize];
+        for (int i = 0; i < corpusSize; i++) {
+            tokens[i] = jwtUtil.generateToken(users.get(i));
+        }
+    }
+
+    @Benchmark
+    public String extractUsername() {
+        return jwtUtil.extractUsername(nextToken());
+    }
+
+    @Benchmark
+    public Boolean validateToken() {
+        return jwtUtil.validateToken(nextToken());
+    }
+
+    private String nextToken() {
+        int i = next;
+        next = i + 1 == corpusSize ? 0 : i + 1;
+        return tokens[i];
+    }
+}
@@ -0,0 +1,74 @@
+package com.mynexjob.service;
+
+import com.mynexjob.benchmark.SyntheticCorpus;
+import com.mynexjob.dto.matching.MatchResult;
+import com.mynexjob.entity.Job;
+import com.mynexjob.entity.User;
+import com.mynexjob.entity.UserProfile;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+/**
+ * Rule-based scoring of candidate-job pairs drawn from a synthetic corpus. Each invocation scores
+ * the next pair, cycling through the corpus.
+ */
+@State(Scope.Thread)
+public class MatchingServiceBenchmark {
+
+    @Param({"1000", "10000"})
+    private int corpusSize;
+
+    private MatchingService matchingService;
+    private List<User> candidates;
+    private List<UserProfile> profiles;
+    private List<Job> jobs;
+    private int[][] candidateSkillCodes;
+    private int[][] requiredSkillCodes;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        SkillDictionaryService skillDictionaryService = new SkillDictionaryService(null);
+        // AI scoring is disabled, so the AI service is never consulted
+        matchingService = new MatchingService(null, skillDictionaryService);
+        ReflectionTestUtils.setField(matchingService, "minimumMatchThreshold", 70.0);
+        ReflectionTestUtils.setField(matchingService, "enableAI", false);
+        ReflectionTestUtils.setField(matchingService, "twoPhaseEnabled", false);
+
+        candidates = SyntheticCorpus.candidates(corpusSize, SyntheticCorpus.DEFAULT_SEED);
+        profiles = SyntheticCorpus.profiles(corpusSize, SyntheticCorpus.DEFAULT_SEED);
+        // Different seed for jobs so pair i is not trivially correlated
+        jobs = SyntheticCorpus.jobs(corpusSize, SyntheticCorpus.DEFAULT_SEED + 1);
+
+        candidateSkillCodes = new int[corpusSize][];
+        requiredSkillCodes = new int[corpusSize][];
+        for (int i = 0; i < corpusSize; i++) {
+            candidateSkillCodes[i] = skillDictionaryService.skillCodesOf(profiles.get(i));
+            requiredSkillCodes[i] = skillDictionaryService.skillCodesOf(jobs.get(i));
+        }
+    }
+
+    @Benchmark
+    public MatchResult calculateMatch() {
+        int i = nextIndex();
+        return matchingService.calculateMatch(candidates.get(i), profiles.get(i), jobs.get(i));
+    }
+
+    @Benchmark
+    public double calculateSkillsMatch() {
+        int i = nextIndex();
+        return MatchingService.calculateSkillsMatch(candidateSkillCodes[i], requiredSkillCodes[i]);
+    }
+
+    private int nextIndex() {
+        int i = next;
+        next = i + 1 == corpusSize ? 0 : i + 1;
+        return i;
+    }
+}
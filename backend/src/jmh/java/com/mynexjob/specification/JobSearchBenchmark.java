@@ -0,0 +1,88 @@
+package com.mynexjob.specification;
+
+import com.mongodb.ConnectionString;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.mynexjob.benchmark.SyntheticCorpus;
+import com.mynexjob.dto.job.JobSearchRequest;
+import com.mynexjob.entity.Job;
+import com.mynexjob.enums.SearchMode;
+import com.mynexjob.service.MongoIndexService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.IndexResolver;
+import org.springframework.data.mongodb.core.query.Query;
+
+/**
+ * Keyword search over a synthetic jobs collection in a real MongoDB, as JobService.searchJobs runs
+ * it: the first page sorted by posting date, plus the total. Compares the regex mode with the
+ * weighted text index. The corpus is written once to the database given by the
+ * benchmark.mongodb.uri system property and reused while its size matches.
+ */
+@State(Scope.Benchmark)
+public class JobSearchBenchmark {
+
+    private static final String[] KEYWORDS = {
+        "engineer", "nurse", "accountant", "developer", "electrician", "architect", "designer", "chef"
+    };
+
+    private static final Pageable FIRST_PAGE = PageRequest.of(0, 20, Sort.by(Sort.Direction.DESC, "postedAt"));
+
+    @Param({"1000000"})
+    private int corpusSize;
+
+    @Param({"REGEX", "TEXT"})
+    private SearchMode mode;
+
+    private MongoClient mongoClient;
+    private MongoTemplate mongoTemplate;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ConnectionString uri = new ConnectionString(
+                System.getProperty("benchmark.mongodb.uri", "mongodb://localhost:27017/mynexjob_benchmark"));
+        mongoClient = MongoClients.create(uri);
+        mongoTemplate = new MongoTemplate(mongoClient, uri.getDatabase());
+
+        if (mongoTemplate.count(new Query(), Job.class) != corpusSize) {
+            mongoTemplate.dropCollection(Job.class);
+            SyntheticCorpus.jobs(corpusSize, SyntheticCorpus.DEFAULT_SEED, 10_000,
+                                 batch -> mongoTemplate.insert(batch, Job.class));
+        }
+
+        // The indexes the application creates: those of the Job mapping, then the weighted text index
+        IndexOperations indexOps = mongoTemplate.indexOps(Job.class);
+        IndexResolver.create(mongoTemplate.getConverter().getMappingContext())
+                .resolveIndexFor(Job.class)
+                .forEach(indexOps::ensureIndex);
+        MongoIndexService.ensureJobTextIndex(mongoTemplate);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        mongoClient.close();
+    }
+
+    @Benchmark
+    public void search(Blackhole blackhole) {
+        JobSearchRequest searchRequest = new JobSearchRequest();
+        searchRequest.setKeyword(KEYWORDS[next]);
+        next = (next + 1) % KEYWORDS.length;
+
+        Query query = JobSpecification.withCriteria(searchRequest, mode).with(FIRST_PAGE);
+        blackhole.consume(mongoTemplate.find(query, Job.class));
+        blackhole.consume(mongoTemplate.count(query.skip(0).limit(0), Job.class));
+    }
+}
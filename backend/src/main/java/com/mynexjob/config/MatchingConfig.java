@@ -1,7 +1,9 @@
 package com.mynexjob.config;
 
+import com.theokanning.openai.client.OpenAiApi;
 import com.theokanning.openai.service.OpenAiService;
 import lombok.extern.slf4j.Slf4j;
+import okhttp3.OkHttpClient;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -18,13 +20,27 @@ public class MatchingConfig {
     @Value("${app.openai.timeout:60}")
     private int timeoutSeconds;
 
+    @Value("${app.openai.resilience.call-timeout-ms:20000}")
+    private long callTimeoutMillis;
+
     @Bean
     public OpenAiService openAiService() {
         if (openAiApiKey == null || openAiApiKey.trim().isEmpty()) {
             log.warn("OpenAI API key not configured. AI matching will use fallback scoring.");
             return null;
         }
-        
-        return new OpenAiService(openAiApiKey, Duration.ofSeconds(timeoutSeconds));
+
+        // The HTTP call ends no later than ResilientOpenAiClient stops waiting for it, so an
+        // abandoned call does not keep holding its bulkhead permit
+        Duration callTimeout = Duration.ofMillis(callTimeoutMillis);
+        Duration readTimeout = Duration.ofSeconds(timeoutSeconds).compareTo(callTimeout) < 0
+                ? Duration.ofSeconds(timeoutSeconds)
+                : callTimeout;
+        OkHttpClient client = OpenAiService.defaultClient(openAiApiKey, readTimeout).newBuilder()
+                .callTimeout(callTimeout)
+                .build();
+        OpenAiApi api = OpenAiService.defaultRetrofit(client, OpenAiService.defaultObjectMapper())
+                .create(OpenAiApi.class);
+        return new OpenAiService(api, client.dispatcher().executorService());
     }
 }
@@ -122,12 +122,13 @@ public class MongoIndexConfig {
                 .on("salaryMin", org.springframework.data.domain.Sort.Direction.ASC)
                 .on("salaryMax", org.springframework.data.domain.Sort.Direction.ASC));
         
-        // Text index for full-text search on title, description, requirements
+        // Weighted text index for full-text search, the same one MongoIndexService creates at startup
         TextIndexDefinition textIndex = TextIndexDefinition.builder()
-                .onField("title")
+                .named("Job_TextIndex")
+                .onField("title", 10F)
+                .onField("skills", 5F)
+                .onField("requirements", 2F)
                 .onField("description")
-                .onField("requirements")
-                .onField("responsibilities")
                 .build();
         jobIndexOps.ensureIndex(textIndex);
     }
@@ -3,6 +3,7 @@ package com.mynexjob.controller;
 import com.mynexjob.dto.common.ApiResponse;
 import com.mynexjob.dto.common.PagedResponse;
 import com.mynexjob.dto.matching.JobMatchDto;
+import com.mynexjob.dto.matching.MatchCountDto;
 import com.mynexjob.service.CandidateJobDiscoveryService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
@@ -30,20 +31,22 @@ public class CandidateController {
 
     @GetMapping("/recommended-jobs")
     @Operation(summary = "Get recommended jobs for candidate", 
-               description = "Returns jobs that match candidate profile with 70%+ match score",
+               description = "Returns jobs that match candidate profile with 70%+ match score. " +
+                             "Pass the returned nextCursor to read further pages of the same ranking.",
                security = @SecurityRequirement(name = "bearerAuth"))
     public ResponseEntity<ApiResponse<PagedResponse<JobMatchDto>>> getRecommendedJobs(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size,
             @RequestParam(defaultValue = "matchPercentage") String sortBy,
             @RequestParam(defaultValue = "desc") String sortDirection,
+            @RequestParam(required = false) String cursor,
             Authentication authentication) {
         
         Sort sort = Sort.by(Sort.Direction.fromString(sortDirection), sortBy);
         Pageable pageable = PageRequest.of(page, size, sort);
         
         PagedResponse<JobMatchDto> recommendedJobs = candidateJobDiscoveryService
-                .getRecommendedJobs(authentication.getName(), pageable);
+                .getRecommendedJobs(authentication.getName(), pageable, cursor);
         
         return ResponseEntity.ok(ApiResponse.success(recommendedJobs));
     }
@@ -77,11 +80,14 @@ public class CandidateController {
 
     @GetMapping("/matching-jobs-count")
     @Operation(summary = "Get count of matching jobs",
-               description = "Returns the total number of jobs that match the candidate's profile",
+               description = "Returns the number of jobs that match the candidate's profile and when it was counted. " +
+                             "With approximate=true the count is estimated from strict filters and rule-based scores.",
                security = @SecurityRequirement(name = "bearerAuth"))
-    public ResponseEntity<ApiResponse<Long>> getMatchingJobsCount(Authentication authentication) {
+    public ResponseEntity<ApiResponse<MatchCountDto>> getMatchingJobsCount(
+            @RequestParam(defaultValue = "false") boolean approximate,
+            Authentication authentication) {
         
-        long count = candidateJobDiscoveryService.getMatchingJobsCount(authentication.getName());
+        MatchCountDto count = candidateJobDiscoveryService.getMatchingJobsCount(authentication.getName(), approximate);
         
         return ResponseEntity.ok(ApiResponse.success("Matching jobs count retrieved", count));
     }
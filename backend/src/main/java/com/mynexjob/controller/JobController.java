@@ -4,6 +4,7 @@ import com.mynexjob.dto.common.ApiResponse;
 import com.mynexjob.dto.common.PagedResponse;
 import com.mynexjob.dto.job.CreateJobRequest;
 import com.mynexjob.dto.job.JobDto;
+import com.mynexjob.dto.job.JobSummary;
 import com.mynexjob.dto.job.JobSearchRequest;
 import com.mynexjob.service.JobService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -32,14 +33,14 @@ public class JobController {
 
     @GetMapping("/search")
     @Operation(summary = "Search jobs with filters")
-    public ResponseEntity<ApiResponse<PagedResponse<JobDto>>> searchJobs(
+    public ResponseEntity<ApiResponse<PagedResponse<JobSummary>>> searchJobs(
             @ModelAttribute JobSearchRequest searchRequest) {
         
         Sort sort = Sort.by(Sort.Direction.fromString(searchRequest.getSortDirection()), 
                            searchRequest.getSortBy());
         Pageable pageable = PageRequest.of(searchRequest.getPage(), searchRequest.getSize(), sort);
         
-        PagedResponse<JobDto> jobs = jobService.searchJobs(searchRequest, pageable);
+        PagedResponse<JobSummary> jobs = jobService.searchJobs(searchRequest, pageable);
         return ResponseEntity.ok(ApiResponse.success(jobs));
     }
 
@@ -81,31 +82,33 @@ public class JobController {
 
     @GetMapping("/company/{companyId}")
     @Operation(summary = "Get jobs by company")
-    public ResponseEntity<ApiResponse<PagedResponse<JobDto>>> getJobsByCompany(
+    public ResponseEntity<ApiResponse<PagedResponse<JobSummary>>> getJobsByCompany(
             @PathVariable String companyId,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size,
             @RequestParam(defaultValue = "postedAt") String sortBy,
-            @RequestParam(defaultValue = "desc") String sortDirection) {
+            @RequestParam(defaultValue = "desc") String sortDirection,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "false") boolean includeTotal) {
         
         Sort sort = Sort.by(Sort.Direction.fromString(sortDirection), sortBy);
         Pageable pageable = PageRequest.of(page, size, sort);
         
-        PagedResponse<JobDto> jobs = jobService.getJobsByCompany(companyId, pageable);
+        PagedResponse<JobSummary> jobs = jobService.getJobsByCompany(companyId, pageable, cursor, includeTotal);
         return ResponseEntity.ok(ApiResponse.success(jobs));
     }
 
     @GetMapping("/featured")
     @Operation(summary = "Get featured jobs")
-    public ResponseEntity<ApiResponse<List<JobDto>>> getFeaturedJobs() {
-        List<JobDto> jobs = jobService.getFeaturedJobs();
+    public ResponseEntity<ApiResponse<List<JobSummary>>> getFeaturedJobs() {
+        List<JobSummary> jobs = jobService.getFeaturedJobs();
         return ResponseEntity.ok(ApiResponse.success(jobs));
     }
 
     @GetMapping("/latest")
     @Operation(summary = "Get latest jobs")
-    public ResponseEntity<ApiResponse<List<JobDto>>> getLatestJobs() {
-        List<JobDto> jobs = jobService.getLatestJobs();
+    public ResponseEntity<ApiResponse<List<JobSummary>>> getLatestJobs() {
+        List<JobSummary> jobs = jobService.getLatestJobs();
         return ResponseEntity.ok(ApiResponse.success(jobs));
     }
 }
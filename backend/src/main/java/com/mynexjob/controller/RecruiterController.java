@@ -3,6 +3,7 @@ package com.mynexjob.controller;
 import com.mynexjob.dto.common.ApiResponse;
 import com.mynexjob.dto.common.PagedResponse;
 import com.mynexjob.dto.matching.CandidateMatchDto;
+import com.mynexjob.dto.matching.MatchCountDto;
 import com.mynexjob.service.RecruiterCandidateDiscoveryService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
@@ -30,7 +31,8 @@ public class RecruiterController {
 
     @GetMapping("/jobs/{jobId}/matching-candidates")
     @Operation(summary = "Get matching candidates for a job", 
-               description = "Returns candidates that match job requirements with 70%+ match score",
+               description = "Returns candidates that match job requirements with 70%+ match score. " +
+                             "Pass the returned nextCursor to read further pages of the same ranking.",
                security = @SecurityRequirement(name = "bearerAuth"))
     public ResponseEntity<ApiResponse<PagedResponse<CandidateMatchDto>>> getMatchingCandidates(
             @PathVariable UUID jobId,
@@ -38,13 +40,14 @@ public class RecruiterController {
             @RequestParam(defaultValue = "20") int size,
             @RequestParam(defaultValue = "matchPercentage") String sortBy,
             @RequestParam(defaultValue = "desc") String sortDirection,
+            @RequestParam(required = false) String cursor,
             Authentication authentication) {
         
         Sort sort = Sort.by(Sort.Direction.fromString(sortDirection), sortBy);
         Pageable pageable = PageRequest.of(page, size, sort);
         
         PagedResponse<CandidateMatchDto> matchingCandidates = recruiterCandidateDiscoveryService
-                .getMatchingCandidates(authentication.getName(), jobId, pageable);
+                .getMatchingCandidates(authentication.getName(), jobId, pageable, cursor);
         
         return ResponseEntity.ok(ApiResponse.success(matchingCandidates));
     }
@@ -87,14 +90,16 @@ public class RecruiterController {
 
     @GetMapping("/jobs/{jobId}/matching-candidates-count")
     @Operation(summary = "Get count of matching candidates",
-               description = "Returns the total number of candidates that match the job requirements",
+               description = "Returns the number of candidates that match the job requirements and when it was counted. " +
+                             "With approximate=true the count is estimated from strict filters and rule-based scores.",
                security = @SecurityRequirement(name = "bearerAuth"))
-    public ResponseEntity<ApiResponse<Long>> getMatchingCandidatesCount(
+    public ResponseEntity<ApiResponse<MatchCountDto>> getMatchingCandidatesCount(
             @PathVariable UUID jobId,
+            @RequestParam(defaultValue = "false") boolean approximate,
             Authentication authentication) {
         
-        long count = recruiterCandidateDiscoveryService
-                .getMatchingCandidatesCount(authentication.getName(), jobId);
+        MatchCountDto count = recruiterCandidateDiscoveryService
+                .getMatchingCandidatesCount(authentication.getName(), jobId, approximate);
         
         return ResponseEntity.ok(ApiResponse.success("Matching candidates count retrieved", count));
     }
@@ -166,4 +166,50 @@ public class MongoIndexController {
                     .body(ApiResponse.error("Failed to log index information: " + e.getMessage()));
         }
     }
+
+    /**
+     * Convert string-typed expected salaries to Decimal128 so strict filters can run in queries
+     */
+    @PostMapping("/migrations/expected-salary")
+    public ResponseEntity<ApiResponse<Long>> migrateExpectedSalaries() {
+        try {
+            long converted = mongoIndexService.migrateExpectedSalaryToDecimal();
+            return ResponseEntity.ok(ApiResponse.success("Converted expected salaries to Decimal128", converted));
+        } catch (Exception e) {
+            log.error("Error migrating expected salaries: {}", e.getMessage());
+            return ResponseEntity.internalServerError()
+                    .body(ApiResponse.error("Failed to migrate expected salaries: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * Replace skill IDs left in jobs.skills with skill names, so text search sees them
+     */
+    @PostMapping("/migrations/job-skill-names")
+    public ResponseEntity<ApiResponse<Long>> migrateJobSkillNames() {
+        try {
+            long updated = mongoIndexService.migrateJobSkillNames();
+            return ResponseEntity.ok(ApiResponse.success("Replaced skill IDs with names in jobs", updated));
+        } catch (Exception e) {
+            log.error("Error migrating job skills: {}", e.getMessage());
+            return ResponseEntity.internalServerError()
+                    .body(ApiResponse.error("Failed to migrate job skills: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * Re-categorize all jobs with the current IT keyword list, e.g. after the list changed
+     */
+    @PostMapping("/migrations/job-category")
+    public ResponseEntity<ApiResponse<Long>> recategorizeJobs(
+            @RequestParam(defaultValue = "false") boolean includeText) {
+        try {
+            long updated = mongoIndexService.recategorizeJobs(includeText);
+            return ResponseEntity.ok(ApiResponse.success("Re-categorized jobs", updated));
+        } catch (Exception e) {
+            log.error("Error re-categorizing jobs: {}", e.getMessage());
+            return ResponseEntity.internalServerError()
+                    .body(ApiResponse.error("Failed to re-categorize jobs: " + e.getMessage()));
+        }
+    }
 }
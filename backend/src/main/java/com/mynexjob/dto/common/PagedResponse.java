@@ -6,6 +6,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.util.List;
+import java.util.Map;
 
 @Data
 @NoArgsConstructor
@@ -15,10 +16,40 @@ public class PagedResponse<T> {
     private List<T> content;
     private int page;
     private int size;
+    // -1 on cursor pages that did not ask for a total
     private long totalElements;
     private int totalPages;
     private boolean first;
     private boolean last;
     private boolean hasNext;
     private boolean hasPrevious;
+
+    // Opaque token for the next page of cursor-paginated listings; null on the last page
+    private String nextCursor;
+
+    // Facet name to value to count over all results, for searches that asked for facets; null otherwise
+    private Map<String, Map<String, Long>> facets;
+
+    // True on match rankings cut short by the scoring deadline, which cover only the pairs scored in time
+    private boolean partial;
+
+    /**
+     * Page metadata for a slice starting at an arbitrary offset, as served by cursor pagination
+     */
+    public static <T> PagedResponse<T> ofOffset(List<T> content, long offset, int size, long totalElements,
+                                                String nextCursor) {
+        boolean hasNext = offset + size < totalElements;
+        return PagedResponse.<T>builder()
+                .content(content)
+                .page(size > 0 ? (int) (offset / size) : 0)
+                .size(size)
+                .totalElements(totalElements)
+                .totalPages(size > 0 ? (int) ((totalElements + size - 1) / size) : 1)
+                .first(offset == 0)
+                .last(!hasNext)
+                .hasNext(hasNext)
+                .hasPrevious(offset > 0)
+                .nextCursor(hasNext ? nextCursor : null)
+                .build();
+    }
 }
@@ -1,6 +1,7 @@
 package com.mynexjob.dto.job;
 
 import com.mynexjob.enums.JobType;
+import com.mynexjob.enums.SearchMode;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -27,6 +28,10 @@ public class JobSearchRequest {
     private Boolean isRemote;
     private Boolean isHybrid;
     private Boolean isFeatured;
+    private SearchMode searchMode; // null = app.search.default-mode
+    private Boolean includeFacets; // counts by job type, location, remote, hybrid and salary band
+    private String cursor; // nextCursor of the previous page; pages postedAt sorts by (postedAt, _id) instead of page, without facets
+    private Boolean includeTotal; // count all matches on cursor pages too; offset pages always count
     private String sortBy = "postedAt";
     private String sortDirection = "desc";
     private Integer page = 0;
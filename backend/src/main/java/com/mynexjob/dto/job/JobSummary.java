@@ -0,0 +1,73 @@
+package com.mynexjob.dto.job;
+
+import com.mynexjob.dto.skill.SkillDto;
+import com.mynexjob.enums.JobType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * A job as shown in search results and listings. The long texts live only on {@link JobDto}, served
+ * by GET /jobs/{jobId}; list queries load just the fields below (JobRepository.SUMMARY_FIELDS), and
+ * the description is cut to an excerpt for the job cards.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class JobSummary {
+
+    public static final int DESCRIPTION_EXCERPT_LENGTH = 200;
+
+    private UUID id;
+    private String companyId;
+    private String title;
+    private String description; // at most DESCRIPTION_EXCERPT_LENGTH characters plus an ellipsis
+    private JobType jobType;
+    private String location;
+    private Boolean isRemote;
+    private Boolean isHybrid;
+    private BigDecimal salaryMin;
+    private BigDecimal salaryMax;
+    private String currency;
+    private Integer experienceMin;
+    private Integer experienceMax;
+    private LocalDate applicationDeadline;
+    private LocalDateTime postedAt;
+    private Boolean isActive;
+    private Boolean isFeatured;
+    private Long viewsCount;
+    private Long applicationsCount;
+    private List<SkillDto> requiredSkills;
+    private Boolean isSaved;
+    private Boolean hasApplied;
+
+    public String getSalaryRange() {
+        if (salaryMin != null && salaryMax != null) {
+            return String.format("%s %,.0f - %,.0f", currency, salaryMin, salaryMax);
+        } else if (salaryMin != null) {
+            return String.format("%s %,.0f+", currency, salaryMin);
+        } else if (salaryMax != null) {
+            return String.format("Up to %s %,.0f", currency, salaryMax);
+        }
+        return "Salary not disclosed";
+    }
+
+    public String getExperienceRange() {
+        if (experienceMin != null && experienceMax != null) {
+            return String.format("%d - %d years", experienceMin, experienceMax);
+        } else if (experienceMin != null) {
+            return String.format("%d+ years", experienceMin);
+        } else if (experienceMax != null) {
+            return String.format("Up to %d years", experienceMax);
+        }
+        return "Experience not specified";
+    }
+}
@@ -1,6 +1,7 @@
 package com.mynexjob.dto.matching;
 
 import com.mynexjob.dto.user.UserDto;
+import com.mynexjob.enums.ScoreSource;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -18,6 +19,7 @@ public class CandidateMatchDto {
     private Double matchPercentage;
     private MatchResult.MatchBreakdown breakdown;
     private String matchExplanation;
+    private ScoreSource scoreSource; // RULE until the AI refinement has been stored
     
     // Visible to recruiters only
     private BigDecimal expectedSalary;
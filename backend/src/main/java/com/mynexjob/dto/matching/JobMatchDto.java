@@ -1,6 +1,7 @@
 package com.mynexjob.dto.matching;
 
 import com.mynexjob.dto.job.JobDto;
+import com.mynexjob.enums.ScoreSource;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -16,6 +17,7 @@ public class JobMatchDto {
     private Double matchPercentage;
     private MatchResult.MatchBreakdown breakdown;
     private String matchExplanation;
+    private ScoreSource scoreSource; // RULE until the AI refinement has been stored
     
     // Hide sensitive information from candidates
     private Boolean salaryMatches; // Don't show actual offered salary
@@ -0,0 +1,23 @@
+package com.mynexjob.dto.matching;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class MatchCountDto {
+
+    private Long count;
+
+    // True when estimated from strict filters and rule-based scores rather than the match store
+    private Boolean approximate;
+
+    // When the count was computed
+    private LocalDateTime asOf;
+}
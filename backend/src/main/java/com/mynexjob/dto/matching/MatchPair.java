@@ -0,0 +1,20 @@
+package com.mynexjob.dto.matching;
+
+import com.mynexjob.entity.Job;
+import com.mynexjob.entity.User;
+import com.mynexjob.entity.UserProfile;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class MatchPair {
+
+    private User candidate;
+    private UserProfile profile;
+    private Job job;
+}
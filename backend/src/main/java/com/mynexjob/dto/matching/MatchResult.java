@@ -1,5 +1,6 @@
 package com.mynexjob.dto.matching;
 
+import com.mynexjob.enums.ScoreSource;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -19,6 +20,7 @@ public class MatchResult {
     private Double matchPercentage;
     private Boolean passesStrictFilters;
     private Boolean meetsMinimumThreshold;
+    private ScoreSource scoreSource;
     
     // Breakdown of match components
     private MatchBreakdown breakdown;
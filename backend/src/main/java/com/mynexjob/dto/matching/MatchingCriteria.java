@@ -26,11 +26,17 @@ public class MatchingCriteria {
     private String candidateExperienceSummary;
     private String candidateSummary;
     
+    // Job ID and version, identifying the rendered job section of a prompt
+    private String jobKey;
     private String jobTitle;
     private String jobDescription;
     private String jobRequirements;
     private String jobResponsibilities;
     private String requiredSkills;
+
+    // Sorted skill dictionary codes for rule-based overlap
+    private int[] candidateSkillCodes;
+    private int[] requiredSkillCodes;
     
     // Additional context
     private String jobLocation;
@@ -0,0 +1,33 @@
+package com.mynexjob.entity;
+
+import com.mynexjob.dto.matching.MatchResult;
+import lombok.*;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/**
+ * Cached AI match breakdown. The document ID is the SHA-256 digest of the scoring inputs,
+ * prompt and model, so identical inputs resolve to the same entry on every node.
+ */
+@Document(collection = "ai_match_cache")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AiMatchCacheEntry extends BaseEntity {
+
+    private MatchResult.MatchBreakdown breakdown;
+
+    private String model;
+
+    // MongoDB removes the entry once this time has passed
+    @Indexed(name = "expires_at_ttl", expireAfterSeconds = 0)
+    private LocalDateTime expiresAt;
+
+    public boolean isExpired() {
+        return expiresAt != null && expiresAt.isBefore(LocalDateTime.now());
+    }
+}
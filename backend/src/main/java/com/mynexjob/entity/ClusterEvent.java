@@ -0,0 +1,33 @@
+package com.mynexjob.entity;
+
+import lombok.*;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/**
+ * Domain event relayed to the other nodes of the cluster, which pick it up from a change stream
+ * on this collection. Entries only need to live long enough to be delivered.
+ */
+@Document(collection = "cluster_events")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ClusterEvent extends BaseEntity {
+
+    // Node that published the event, which skips it when it comes back through the stream
+    private String origin;
+
+    // Simple class name of the event
+    private String type;
+
+    // The event as JSON
+    private String payload;
+
+    // MongoDB removes the entry once this time has passed
+    @Indexed(name = "expires_at_ttl", expireAfterSeconds = 0)
+    private LocalDateTime expiresAt;
+}
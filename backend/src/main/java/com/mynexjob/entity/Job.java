@@ -3,9 +3,11 @@ package com.mynexjob.entity;
 import com.mynexjob.enums.JobType;
 import com.mynexjob.enums.JobCategory;
 import lombok.*;
+import org.springframework.data.annotation.Transient;
 import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.TextScore;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
@@ -17,6 +19,8 @@ import java.util.List;
 @CompoundIndex(name = "active_company_idx", def = "{'isActive': 1, 'companyId': 1, 'createdAt': -1}")
 @CompoundIndex(name = "search_idx", def = "{'isActive': 1, 'jobCategory': 1, 'location': 1}")
 @CompoundIndex(name = "salary_idx", def = "{'isActive': 1, 'salaryMin': 1, 'salaryMax': 1}")
+@CompoundIndex(name = "active_posted_keyset_idx", def = "{'isActive': 1, 'postedAt': -1, '_id': -1}")
+@CompoundIndex(name = "company_posted_keyset_idx", def = "{'isActive': 1, 'companyId': 1, 'postedAt': -1, '_id': -1}")
 @Getter
 @Setter
 @NoArgsConstructor
@@ -26,6 +30,8 @@ public class Job extends BaseEntity {
 
     private String companyId; // Reference to Company document
 
+    // title, skills, requirements and description are covered by the weighted text index that
+    // MongoIndexService maintains
     @Indexed
     private String title;
 
@@ -97,11 +103,19 @@ public class Job extends BaseEntity {
     @Builder.Default
     private List<String> requiredSkillIds = new ArrayList<>();
 
-    // Skills as strings for easy searching
+    // Names of the required skills, for text search; jobs saved before may still hold their IDs
     @Indexed
     @Builder.Default
     private List<String> skills = new ArrayList<>();
 
+    // Sorted skill dictionary codes of requiredSkillIds, filled by SkillDictionaryService; not persisted
+    @Transient
+    private int[] skillCodes;
+
+    // Relevance of a text search result; only set on results of a $text query, not persisted
+    @TextScore
+    private Float score;
+
     public void incrementViewsCount() {
         this.viewsCount++;
     }
@@ -114,6 +128,7 @@ public class Job extends BaseEntity {
     public void setRequiredSkills(List<String> requiredSkills) {
         this.requiredSkillIds = requiredSkills != null ? requiredSkills : new ArrayList<>();
         this.skills = requiredSkills != null ? requiredSkills : new ArrayList<>();
+        this.skillCodes = null;
     }
 
     public List<String> getRequiredSkills() {
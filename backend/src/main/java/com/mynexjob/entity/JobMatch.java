@@ -0,0 +1,61 @@
+package com.mynexjob.entity;
+
+import com.mynexjob.dto.matching.MatchResult;
+import com.mynexjob.enums.ScoreSource;
+import lombok.*;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Materialized match score for a (candidate, job) pair. The document ID is derived from the pair
+ * so saving a recomputed match replaces the previous one.
+ */
+@Document(collection = "job_matches")
+@CompoundIndex(name = "candidate_score_idx", def = "{'candidateId': 1, 'qualifies': 1, 'matchPercentage': -1}")
+@CompoundIndex(name = "job_score_idx", def = "{'jobId': 1, 'qualifies': 1, 'matchPercentage': -1}")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class JobMatch extends BaseEntity {
+
+    private String candidateId; // Reference to User document
+
+    private String jobId; // Reference to Job document
+
+    private Double matchPercentage;
+
+    private Boolean passesStrictFilters;
+
+    private Boolean meetsMinimumThreshold;
+
+    // Passes strict filters and meets the threshold; the only rows discovery reads
+    private Boolean qualifies;
+
+    private MatchResult.MatchBreakdown breakdown;
+
+    private ScoreSource scoreSource;
+
+    @Builder.Default
+    private List<String> filterReasons = new ArrayList<>();
+
+    // Version stamps of the inputs this score was computed from
+    private Long jobVersion;
+    private Long profileVersion;
+
+    private LocalDateTime computedAt;
+
+    public static String idFor(String candidateId, String jobId) {
+        return candidateId + "_" + jobId;
+    }
+
+    public boolean isComputedFrom(Long jobVersion, Long profileVersion) {
+        return jobVersion != null && jobVersion.equals(this.jobVersion) &&
+               profileVersion != null && profileVersion.equals(this.profileVersion);
+    }
+}
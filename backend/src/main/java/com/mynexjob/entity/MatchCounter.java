@@ -0,0 +1,32 @@
+package com.mynexjob.entity;
+
+import lombok.*;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/**
+ * Number of qualifying stored matches of a candidate or a job, kept in step with job_matches so
+ * counts are a single document read. The document ID is derived from the owner.
+ */
+@Document(collection = "match_counters")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class MatchCounter extends BaseEntity {
+
+    private Long count;
+
+    // When the count was last recomputed or adjusted
+    private LocalDateTime countedAt;
+
+    public static String candidateKey(String candidateId) {
+        return "candidate:" + candidateId;
+    }
+
+    public static String jobKey(String jobId) {
+        return "job:" + jobId;
+    }
+}
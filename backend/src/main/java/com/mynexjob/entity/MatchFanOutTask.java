@@ -0,0 +1,52 @@
+package com.mynexjob.entity;
+
+import com.mynexjob.enums.FanOutStatus;
+import lombok.*;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/**
+ * Background scoring of a newly posted job against every matching-enabled candidate. The document
+ * ID is the job ID. Candidates are visited in _id order and the last one scored is checkpointed
+ * after every batch, so a task interrupted by a restart resumes where it stopped.
+ */
+@Document(collection = "match_fanout_tasks")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class MatchFanOutTask extends BaseEntity {
+
+    @Indexed
+    private FanOutStatus status;
+
+    // Version of the job being fanned out
+    private Long jobVersion;
+
+    // Checkpoint: the last profile whose batch was stored
+    private String lastProfileId;
+
+    @Builder.Default
+    private Long scannedCount = 0L;
+
+    @Builder.Default
+    private Long qualifiedCount = 0L;
+
+    @Builder.Default
+    private Long notifiedCount = 0L;
+
+    // Node running the task and when it last reported progress; a stale heartbeat frees the task
+    private String owner;
+    private LocalDateTime heartbeatAt;
+
+    // Failed runs so far; a failed task is retried after an exponential backoff until max-attempts
+    @Builder.Default
+    private Integer attempts = 0;
+    private LocalDateTime retryAt;
+
+    private LocalDateTime completedAt;
+    private String error;
+}
@@ -0,0 +1,32 @@
+package com.mynexjob.entity;
+
+import com.mynexjob.enums.NotificationStatus;
+import lombok.*;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/**
+ * Queued notice to a candidate that a newly posted job is a strong match. The document ID is
+ * derived from the pair, so queuing the same match twice leaves one notification.
+ */
+@Document(collection = "match_notifications")
+@CompoundIndex(name = "status_created_idx", def = "{'status': 1, 'createdAt': 1}")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class MatchNotification extends BaseEntity {
+
+    private String candidateId; // Reference to User document
+
+    private String jobId; // Reference to Job document
+
+    private Double matchPercentage;
+
+    private NotificationStatus status;
+
+    private LocalDateTime sentAt;
+}
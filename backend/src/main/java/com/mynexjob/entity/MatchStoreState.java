@@ -0,0 +1,25 @@
+package com.mynexjob.entity;
+
+import lombok.*;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/**
+ * Marks the stored matches of a candidate or a job as complete: a full refresh scored it against
+ * every counterpart and stored the result. Rows written for it by the other side's refreshes or by
+ * a job's fan-out do not make it complete. The document ID is the entity's MatchCounter key.
+ */
+@Document(collection = "match_store_state")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class MatchStoreState extends BaseEntity {
+
+    // Version of the candidate's profile or of the job the full refresh ran against
+    private Long inputVersion;
+
+    private LocalDateTime completedAt;
+}
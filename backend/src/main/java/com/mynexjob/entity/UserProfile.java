@@ -1,8 +1,12 @@
 package com.mynexjob.entity;
 
 import lombok.*;
+import org.springframework.data.annotation.Transient;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Field;
+import org.springframework.data.mongodb.core.mapping.FieldType;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
@@ -10,6 +14,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Document(collection = "user_profiles")
+@CompoundIndex(name = "matching_salary_experience_idx", def = "{'matchingEnabled': 1, 'expectedSalary': 1, 'experienceYears': 1}")
 @Getter
 @Setter
 @NoArgsConstructor
@@ -24,6 +29,9 @@ public class UserProfile extends BaseEntity {
     private String summary;
     private Integer experienceYears;
     private BigDecimal currentSalary;
+
+    // Stored as Decimal128 so the strict salary filter can range-compare it in queries
+    @Field(targetType = FieldType.DECIMAL128)
     private BigDecimal expectedSalary;
 
     @Builder.Default
@@ -60,6 +68,10 @@ public class UserProfile extends BaseEntity {
     @Builder.Default
     private List<String> skills = new ArrayList<>();
 
+    // Sorted skill dictionary codes of skills, filled by SkillDictionaryService; not persisted
+    @Transient
+    private int[] skillCodes;
+
     // Work Experience IDs (stored as list of work experience IDs)
     @Builder.Default
     private List<String> workExperienceIds = new ArrayList<>();
@@ -72,6 +84,11 @@ public class UserProfile extends BaseEntity {
     @Builder.Default
     private List<String> certificationIds = new ArrayList<>();
 
+    public void setSkills(List<String> skills) {
+        this.skills = skills;
+        this.skillCodes = null;
+    }
+
     /**
      * Calculate profile completion percentage
      */
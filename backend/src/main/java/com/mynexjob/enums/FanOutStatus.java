@@ -0,0 +1,11 @@
+package com.mynexjob.enums;
+
+/**
+ * Progress of a match fan-out task
+ */
+public enum FanOutStatus {
+    PENDING,
+    RUNNING,
+    COMPLETED,
+    FAILED
+}
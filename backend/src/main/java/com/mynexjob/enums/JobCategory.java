@@ -1,5 +1,7 @@
 package com.mynexjob.enums;
 
+import com.mynexjob.util.KeywordAutomaton;
+
 import java.util.Arrays;
 import java.util.List;
 
@@ -23,8 +25,8 @@ public enum JobCategory {
         return displayName;
     }
 
-    // IT job titles that require subscription
-    private static final List<String> IT_JOB_KEYWORDS = Arrays.asList(
+    // IT job titles that require subscription; package-private for JobCategoryTest
+    static final List<String> IT_JOB_KEYWORDS = Arrays.asList(
         "software", "developer", "engineer", "programmer", "architect", "devops",
         "frontend", "backend", "fullstack", "full stack", "full-stack",
         "react", "angular", "vue", "node", "java", "python", "javascript",
@@ -41,16 +43,19 @@ public enum JobCategory {
         "system admin", "network", "infrastructure", "it support"
     );
 
+    // All keywords in one automaton, so a title is scanned once rather than once per keyword
+    private static final KeywordAutomaton IT_KEYWORD_MATCHER = KeywordAutomaton.of(IT_JOB_KEYWORDS);
+
     public static JobCategory categorizeJob(String jobTitle) {
-        if (jobTitle == null) {
-            return NON_IT;
-        }
-        
-        String lowerTitle = jobTitle.toLowerCase();
-        boolean isIT = IT_JOB_KEYWORDS.stream()
-            .anyMatch(keyword -> lowerTitle.contains(keyword.toLowerCase()));
-        
-        return isIT ? IT : NON_IT;
+        return IT_KEYWORD_MATCHER.containsAny(jobTitle) ? IT : NON_IT;
+    }
+
+    /**
+     * Categorize on the title, description and requirements together: IT when any of them
+     * mentions an IT keyword. Null fields are ignored.
+     */
+    public static JobCategory categorizeJob(String jobTitle, String description, String requirements) {
+        return IT_KEYWORD_MATCHER.containsAny(jobTitle, description, requirements) ? IT : NON_IT;
     }
 
     public boolean requiresSubscription() {
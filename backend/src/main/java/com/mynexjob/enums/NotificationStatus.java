@@ -0,0 +1,9 @@
+package com.mynexjob.enums;
+
+/**
+ * Delivery state of a queued notification
+ */
+public enum NotificationStatus {
+    PENDING,
+    SENT
+}
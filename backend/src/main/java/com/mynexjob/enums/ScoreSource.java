@@ -0,0 +1,9 @@
+package com.mynexjob.enums;
+
+/**
+ * Where a match score came from: the rule-based scorer or the AI model
+ */
+public enum ScoreSource {
+    RULE,
+    AI
+}
@@ -0,0 +1,12 @@
+package com.mynexjob.enums;
+
+/**
+ * How the keyword of a job search is matched: a case-insensitive regex over title and
+ * description, the weighted MongoDB text index, or the in-process full-text index, each of the
+ * last two with results ordered by relevance
+ */
+public enum SearchMode {
+    REGEX,
+    TEXT,
+    INDEX
+}
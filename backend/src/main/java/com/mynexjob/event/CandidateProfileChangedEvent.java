@@ -0,0 +1,22 @@
+package com.mynexjob.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * A candidate's profile was created or updated, or their matching was switched on or off
+ */
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+public class CandidateProfileChangedEvent extends DomainEvent {
+
+    public enum Type {
+        PROFILE_UPDATED, MATCHING_ENABLED, MATCHING_DISABLED
+    }
+
+    private Type type;
+    private String userId;
+    private String profileId;
+}
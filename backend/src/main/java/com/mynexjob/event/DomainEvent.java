@@ -0,0 +1,19 @@
+package com.mynexjob.event;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Change to domain data that other components, on this node and on the rest of the cluster,
+ * react to. Events are published locally through the application event publisher and relayed
+ * to other nodes by ClusterEventBus.
+ */
+@Getter
+@Setter
+public abstract class DomainEvent {
+
+    // Set on events received from another node, so they are not relayed again
+    @JsonIgnore
+    private boolean remote;
+}
@@ -0,0 +1,24 @@
+package com.mynexjob.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * A job was created, updated or deleted. Carries the searchable state of the job before and
+ * after the change; before is null for a created job, after is null for a deleted one.
+ */
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+public class JobChangedEvent extends DomainEvent {
+
+    public enum Type {
+        CREATED, UPDATED, DELETED
+    }
+
+    private Type type;
+    private String jobId;
+    private JobSnapshot before;
+    private JobSnapshot after;
+}
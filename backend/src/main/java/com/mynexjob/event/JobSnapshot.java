@@ -0,0 +1,65 @@
+package com.mynexjob.event;
+
+import com.mynexjob.entity.Job;
+import com.mynexjob.enums.JobType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The fields of a job that decide whether it appears in a search, featured or latest listing
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class JobSnapshot {
+
+    private String id;
+    private String companyId;
+    private String title;
+    private String description;
+    private String requirements;
+    private List<String> skills;
+    private String location;
+    private JobType jobType;
+    private List<String> requiredSkills;
+    private BigDecimal salaryMin;
+    private BigDecimal salaryMax;
+    private Integer experienceMin;
+    private Integer experienceMax;
+    private Boolean isRemote;
+    private Boolean isHybrid;
+    private Boolean isFeatured;
+    private Boolean isActive;
+    private LocalDateTime postedAt;
+
+    public static JobSnapshot of(Job job) {
+        return JobSnapshot.builder()
+                .id(job.getId())
+                .companyId(job.getCompanyId())
+                .title(job.getTitle())
+                .description(job.getDescription())
+                .requirements(job.getRequirements())
+                .skills(job.getSkills() != null ? new ArrayList<>(job.getSkills()) : null)
+                .location(job.getLocation())
+                .jobType(job.getJobType())
+                .requiredSkills(new ArrayList<>(job.getRequiredSkills()))
+                .salaryMin(job.getSalaryMin())
+                .salaryMax(job.getSalaryMax())
+                .experienceMin(job.getExperienceMin())
+                .experienceMax(job.getExperienceMax())
+                .isRemote(job.getIsRemote())
+                .isHybrid(job.getIsHybrid())
+                .isFeatured(job.getIsFeatured())
+                .isActive(job.getIsActive())
+                .postedAt(job.getPostedAt())
+                .build();
+    }
+}
@@ -0,0 +1,16 @@
+package com.mynexjob.exception;
+
+/**
+ * The AI service could not take or complete a call: it is not configured, the circuit breaker
+ * is open, a concurrency or rate limit was hit, or the call failed or timed out. Callers are
+ * expected to fall back to rule-based scoring.
+ */
+public class AiServiceUnavailableException extends RuntimeException {
+    public AiServiceUnavailableException(String message) {
+        super(message);
+    }
+
+    public AiServiceUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -1,6 +1,7 @@
 package com.mynexjob.mapper;
 
 import com.mynexjob.dto.job.JobDto;
+import com.mynexjob.dto.job.JobSummary;
 import com.mynexjob.dto.skill.SkillDto;
 import com.mynexjob.entity.Job;
 import org.mapstruct.Mapper;
@@ -19,8 +20,31 @@ public interface JobMapper {
     @Mapping(target = "requiredSkills", expression = "java(mapSkillsToDto(job.getRequiredSkills()))")
     JobDto toDto(Job job);
 
+    // Reads only the fields of JobRepository.SUMMARY_FIELDS, so it also maps partially loaded jobs
+    @Mapping(target = "isSaved", ignore = true)
+    @Mapping(target = "hasApplied", ignore = true)
+    @Mapping(target = "requiredSkills", expression = "java(mapSkillsToDto(job.getRequiredSkills()))")
+    @Mapping(target = "description", expression = "java(excerpt(job.getDescription()))")
+    JobSummary toSummary(Job job);
+
     Job toEntity(JobDto jobDto);
 
+    // Start of a description for job cards, cut at the last word that fits
+    default String excerpt(String description) {
+        if (description == null || description.length() <= JobSummary.DESCRIPTION_EXCERPT_LENGTH) {
+            return description;
+        }
+
+        int end = description.lastIndexOf(' ', JobSummary.DESCRIPTION_EXCERPT_LENGTH);
+        if (end <= 0) {
+            end = JobSummary.DESCRIPTION_EXCERPT_LENGTH;
+            if (Character.isHighSurrogate(description.charAt(end - 1))) {
+                end--;
+            }
+        }
+        return description.substring(0, end).trim() + "...";
+    }
+
     // Helper method for skill mapping
     default List<SkillDto> mapSkillsToDto(List<String> skills) {
         if (skills == null) return null;
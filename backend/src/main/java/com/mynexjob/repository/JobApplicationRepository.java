@@ -9,6 +9,7 @@ import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -31,6 +32,12 @@ public interface JobApplicationRepository extends MongoRepository<JobApplication
 
     boolean existsByUserIdAndJobId(String userId, String jobId);
 
+    @Query(value = "{ 'jobId': ?0, 'userId': { $in: ?1 } }", fields = "{ 'userId': 1, 'status': 1 }")
+    List<JobApplication> findStatusesByJobIdAndUserIdIn(String jobId, Collection<String> userIds);
+
+    @Query(value = "{ 'jobId': ?0 }", fields = "{ 'userId': 1, 'status': 1 }")
+    List<JobApplication> findStatusesByJobId(String jobId);
+
     long countByUserId(String userId);
 
     long countByJobId(String jobId);
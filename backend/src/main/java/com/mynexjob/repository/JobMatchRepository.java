@@ -0,0 +1,31 @@
+package com.mynexjob.repository;
+
+import com.mynexjob.entity.JobMatch;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface JobMatchRepository extends MongoRepository<JobMatch, String> {
+
+    List<JobMatch> findByJobId(String jobId);
+
+    List<JobMatch> findByCandidateId(String candidateId);
+
+    Page<JobMatch> findByCandidateIdAndQualifiesTrue(String candidateId, Pageable pageable);
+
+    List<JobMatch> findByCandidateIdAndQualifiesTrue(String candidateId);
+
+    List<JobMatch> findByJobIdAndQualifiesTrue(String jobId);
+
+    long countByCandidateIdAndQualifiesTrue(String candidateId);
+
+    long countByJobIdAndQualifiesTrue(String jobId);
+
+    void deleteByJobId(String jobId);
+
+    void deleteByCandidateId(String candidateId);
+}
@@ -9,12 +9,22 @@ import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface JobRepository extends MongoRepository<Job, String> {
 
+    // Fields a JobSummary is mapped from; list queries load only these and leave the rest of the job unset
+    String SUMMARY_FIELDS = "{ 'companyId': 1, 'title': 1, 'description': 1, 'jobType': 1, 'location': 1, 'isRemote': 1, 'isHybrid': 1, " +
+            "'salaryMin': 1, 'salaryMax': 1, 'currency': 1, 'experienceMin': 1, 'experienceMax': 1, " +
+            "'applicationDeadline': 1, 'postedAt': 1, 'isActive': 1, 'isFeatured': 1, 'viewsCount': 1, " +
+            "'applicationsCount': 1, 'requiredSkillIds': 1 }";
+
+    // Batch lookup by ID, as a List
+    List<Job> findAllById(Iterable<String> ids);
+
     Page<Job> findByIsActiveTrue(Pageable pageable);
 
     Page<Job> findByIsActiveTrueAndIsFeaturedTrue(Pageable pageable);
@@ -23,12 +33,18 @@ public interface JobRepository extends MongoRepository<Job, String> {
 
     Page<Job> findByCompanyIdAndIsActiveTrue(String companyId, Pageable pageable);
 
+    // Summary fields only, see SUMMARY_FIELDS
+    @Query(value = "{ 'companyId': ?0, 'isActive': true }", fields = SUMMARY_FIELDS)
+    Page<Job> findSummariesByCompanyId(String companyId, Pageable pageable);
+
+    // Unanchored regex, scans every active job; prefer searchMode=TEXT, served by the weighted text index
     @Query("{ 'isActive': true, $or: [ " +
            "{ 'title': { $regex: ?0, $options: 'i' } }, " +
            "{ 'description': { $regex: ?0, $options: 'i' } } " +
            "] }")
     Page<Job> searchJobs(String keyword, Pageable pageable);
 
+    // Unanchored regex as well; location is a filter, not part of the text index
     @Query("{ 'isActive': true, 'location': { $regex: ?0, $options: 'i' } }")
     Page<Job> findByLocation(String location, Pageable pageable);
 
@@ -53,10 +69,12 @@ public interface JobRepository extends MongoRepository<Job, String> {
     @Query("{ 'createdAt': { $gte: ?0 } }")
     long countByCreatedAtAfter(LocalDateTime startDate);
 
-    @Query(value = "{ 'isActive': true }", sort = "{ 'postedAt': -1 }")
+    // Summary fields only, see SUMMARY_FIELDS
+    @Query(value = "{ 'isActive': true }", sort = "{ 'postedAt': -1 }", fields = SUMMARY_FIELDS)
     List<Job> findLatestJobs(Pageable pageable);
 
-    @Query(value = "{ 'isActive': true, 'isFeatured': true }", sort = "{ 'postedAt': -1 }")
+    // Summary fields only, see SUMMARY_FIELDS
+    @Query(value = "{ 'isActive': true, 'isFeatured': true }", sort = "{ 'postedAt': -1 }", fields = SUMMARY_FIELDS)
     List<Job> findFeaturedJobs(Pageable pageable);
 
     Optional<Job> findByIdAndIsActiveTrue(String id);
@@ -68,6 +86,8 @@ public interface JobRepository extends MongoRepository<Job, String> {
 
     List<Job> findByIsActiveTrueAndIsFeaturedFalseAndMatchingEnabledTrue();
 
+    List<Job> findByIdInAndIsActiveTrueAndMatchingEnabledTrue(Collection<String> ids);
+
     // Additional methods for compatibility
     default long countActiveJobs() {
         return countByIsActiveTrue();
@@ -0,0 +1,15 @@
+package com.mynexjob.repository;
+
+import com.mynexjob.entity.MatchFanOutTask;
+import com.mynexjob.enums.FanOutStatus;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface MatchFanOutTaskRepository extends MongoRepository<MatchFanOutTask, String> {
+
+    List<MatchFanOutTask> findByStatusIn(Collection<FanOutStatus> statuses);
+}
@@ -0,0 +1,9 @@
+package com.mynexjob.repository;
+
+import com.mynexjob.entity.MatchStoreState;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface MatchStoreStateRepository extends MongoRepository<MatchStoreState, String> {
+}
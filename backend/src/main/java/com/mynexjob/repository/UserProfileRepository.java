@@ -8,6 +8,7 @@ import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -16,10 +17,9 @@ public interface UserProfileRepository extends MongoRepository<UserProfile, Stri
 
     Optional<UserProfile> findByUserId(String userId);
 
-    Page<UserProfile> findByMatchingEnabledTrue(Pageable pageable);
+    List<UserProfile> findByUserIdIn(Collection<String> userIds);
 
-    @Query("{ 'matchingEnabled': true, 'expectedSalary': { $lte: ?0 }, 'experienceYears': { $gte: ?1 } }")
-    Page<UserProfile> findMatchingCandidates(BigDecimal maxSalary, Integer minExperience, Pageable pageable);
+    Page<UserProfile> findByMatchingEnabledTrue(Pageable pageable);
 
     Page<UserProfile> findByIsProfileCompleteTrue(Pageable pageable);
 
@@ -15,6 +15,9 @@ import java.util.Optional;
 @Repository
 public interface UserRepository extends MongoRepository<User, String> {
 
+    // Batch lookup by ID, as a List
+    List<User> findAllById(Iterable<String> ids);
+
     Optional<User> findByEmail(String email);
 
     Optional<User> findByEmailVerificationToken(String token);
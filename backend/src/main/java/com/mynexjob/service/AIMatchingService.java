@@ -2,6 +2,7 @@ package com.mynexjob.service;
 
 import com.mynexjob.dto.matching.MatchResult;
 import com.mynexjob.dto.matching.MatchingCriteria;
+import com.mynexjob.exception.AiServiceUnavailableException;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -9,63 +10,246 @@ import com.theokanning.openai.completion.chat.ChatCompletionRequest;
 import com.theokanning.openai.completion.chat.ChatCompletionResult;
 import com.theokanning.openai.completion.chat.ChatMessage;
 import com.theokanning.openai.completion.chat.ChatMessageRole;
-import com.theokanning.openai.service.OpenAiService;
-import org.springframework.beans.factory.annotation.Autowired;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.cache.annotation.Cacheable;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
 
 @Service
+@RequiredArgsConstructor
 @Slf4j
 public class AIMatchingService {
 
-    private final OpenAiService openAiService;
+    private final ResilientOpenAiClient openAiClient;
     private final ObjectMapper objectMapper;
+    private final AiMatchCacheService aiMatchCacheService;
+    private final MeterRegistry meterRegistry;
+    private final MatchPromptBuilder promptBuilder;
 
-    public AIMatchingService(@Autowired(required = false) OpenAiService openAiService, ObjectMapper objectMapper) {
-        this.openAiService = openAiService;
-        this.objectMapper = objectMapper;
+    @Value("${app.openai.model:gpt-3.5-turbo}")
+    private String model;
+
+    @Value("${app.openai.batch-size:10}")
+    private int batchSize;
+
+    // AI calls in flight by cache key, so concurrent requests for the same pair share one call
+    private final ConcurrentHashMap<String, CompletableFuture<MatchResult.MatchBreakdown>> inFlight = new ConcurrentHashMap<>();
+    private Counter coalescedCalls;
+
+    @PostConstruct
+    public void init() {
+        coalescedCalls = Counter.builder("ai.match.coalesced")
+                .description("AI match requests that waited for an identical call already in flight")
+                .register(meterRegistry);
+        Gauge.builder("ai.match.inflight", inFlight, Map::size)
+                .description("Distinct AI match calls currently in flight")
+                .register(meterRegistry);
+    }
+
+    public boolean isAvailable() {
+        return openAiClient.isAvailable();
+    }
+
+    /**
+     * Whether AI calls are currently being rejected by the circuit breaker
+     */
+    public boolean isCircuitOpen() {
+        return openAiClient.isCircuitOpen();
     }
 
-    @Cacheable(value = "ai-matches", key = "#criteria.hashCode()")
     public MatchResult.MatchBreakdown calculateAIMatch(MatchingCriteria criteria) {
-        if (openAiService == null) {
+        if (!openAiClient.isAvailable()) {
             log.warn("OpenAI service not available, using fallback matching");
             return createFallbackMatch(criteria);
         }
 
+        String prompt = buildMatchingPrompt(criteria);
+        String cacheKey = aiMatchCacheService.keyFor(criteria, prompt, model);
+        MatchResult.MatchBreakdown cached = aiMatchCacheService.get(cacheKey);
+        if (cached != null) {
+            return cached;
+        }
+
+        // Concurrent requests for the same pair wait for the call already in flight
+        CompletableFuture<MatchResult.MatchBreakdown> flight = new CompletableFuture<>();
+        CompletableFuture<MatchResult.MatchBreakdown> leader = inFlight.putIfAbsent(cacheKey, flight);
+        if (leader != null) {
+            coalescedCalls.increment();
+            return awaitFlight(leader);
+        }
+
+        try {
+            // The previous flight for this key may have finished between the cache check and claiming it
+            MatchResult.MatchBreakdown breakdown = aiMatchCacheService.get(cacheKey);
+            if (breakdown == null) {
+                breakdown = parseMatchingResponse(callOpenAI(prompt));
+                aiMatchCacheService.put(cacheKey, breakdown, model);
+            }
+            flight.complete(breakdown);
+            return breakdown;
+        } catch (AiServiceUnavailableException e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } catch (Exception e) {
+            log.error("Error in AI matching calculation", e);
+            RuntimeException failure = new RuntimeException("AI matching failed", e);
+            flight.completeExceptionally(failure);
+            throw failure;
+        } finally {
+            inFlight.remove(cacheKey, flight);
+        }
+    }
+
+    public int getBatchSize() {
+        return Math.max(1, batchSize);
+    }
+
+    /**
+     * Score several pairs with one chat completion per chunk of up to batch-size pairs.
+     * Cached pairs are answered from the cache and only the misses are sent to the model.
+     * Returns one breakdown per input, in order, with null for pairs the model did not score.
+     */
+    public List<MatchResult.MatchBreakdown> calculateAIMatchBatch(List<MatchingCriteria> criteriaList) {
+        List<MatchResult.MatchBreakdown> breakdowns = new ArrayList<>(Collections.nCopies(criteriaList.size(), null));
+
+        if (!openAiClient.isAvailable()) {
+            log.warn("OpenAI service not available, using fallback matching");
+            for (int i = 0; i < criteriaList.size(); i++) {
+                breakdowns.set(i, createFallbackMatch(criteriaList.get(i)));
+            }
+            return breakdowns;
+        }
+
+        // Cache keys use the single-pair prompt so batched and single scoring share entries
+        List<String> cacheKeys = new ArrayList<>(criteriaList.size());
+        List<Integer> missIndexes = new ArrayList<>();
+        Map<Integer, CompletableFuture<MatchResult.MatchBreakdown>> ownFlights = new HashMap<>();
+        Map<Integer, CompletableFuture<MatchResult.MatchBreakdown>> joinedFlights = new HashMap<>();
+        for (int i = 0; i < criteriaList.size(); i++) {
+            MatchingCriteria criteria = criteriaList.get(i);
+            String cacheKey = aiMatchCacheService.keyFor(criteria, buildMatchingPrompt(criteria), model);
+            cacheKeys.add(cacheKey);
+
+            MatchResult.MatchBreakdown cached = aiMatchCacheService.get(cacheKey);
+            if (cached != null) {
+                breakdowns.set(i, cached);
+                continue;
+            }
+
+            // Pairs another request is already scoring are awaited rather than sent again
+            CompletableFuture<MatchResult.MatchBreakdown> flight = new CompletableFuture<>();
+            CompletableFuture<MatchResult.MatchBreakdown> leader = inFlight.putIfAbsent(cacheKey, flight);
+            if (leader != null) {
+                coalescedCalls.increment();
+                joinedFlights.put(i, leader);
+            } else {
+                ownFlights.put(i, flight);
+                missIndexes.add(i);
+            }
+        }
+
+        try {
+            for (int start = 0; start < missIndexes.size(); start += getBatchSize()) {
+                List<Integer> chunkIndexes = missIndexes.subList(start, Math.min(start + getBatchSize(), missIndexes.size()));
+                List<MatchingCriteria> chunk = new ArrayList<>(chunkIndexes.size());
+                chunkIndexes.forEach(index -> chunk.add(criteriaList.get(index)));
+
+                List<MatchResult.MatchBreakdown> scored = chunk.size() == 1
+                        ? Collections.singletonList(calculateSinglePairSafely(chunk.get(0)))
+                        : calculateChunkSafely(chunk);
+
+                for (int i = 0; i < chunkIndexes.size(); i++) {
+                    MatchResult.MatchBreakdown breakdown = scored.get(i);
+                    int index = chunkIndexes.get(i);
+                    if (breakdown != null) {
+                        breakdowns.set(index, breakdown);
+                        aiMatchCacheService.put(cacheKeys.get(index), breakdown, model);
+                    }
+                    ownFlights.get(index).complete(breakdown);
+                }
+            }
+        } finally {
+            // Waiters on pairs that were not scored get null and fall back like this request does
+            ownFlights.forEach((index, flight) -> {
+                flight.complete(null);
+                inFlight.remove(cacheKeys.get(index), flight);
+            });
+        }
+
+        joinedFlights.forEach((index, flight) -> breakdowns.set(index, awaitFlightQuietly(flight)));
+        return breakdowns;
+    }
+
+    private MatchResult.MatchBreakdown awaitFlight(CompletableFuture<MatchResult.MatchBreakdown> flight) {
+        try {
+            MatchResult.MatchBreakdown breakdown = flight.join();
+            if (breakdown == null) {
+                throw new AiServiceUnavailableException("Coalesced AI match call returned no score");
+            }
+            return breakdown;
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private MatchResult.MatchBreakdown awaitFlightQuietly(CompletableFuture<MatchResult.MatchBreakdown> flight) {
+        try {
+            return flight.join();
+        } catch (CompletionException e) {
+            return null;
+        }
+    }
+
+    private List<MatchResult.MatchBreakdown> calculateChunkSafely(List<MatchingCriteria> chunk) {
+        try {
+            String prompt = buildBatchMatchingPrompt(chunk);
+            String response = callOpenAI(prompt, Math.min(4000, 350 * chunk.size()));
+            return parseBatchMatchingResponse(response, chunk.size());
+        } catch (AiServiceUnavailableException e) {
+            log.warn("AI matching unavailable for {} pairs: {}", chunk.size(), e.getMessage());
+            return Collections.nCopies(chunk.size(), null);
+        } catch (Exception e) {
+            log.error("Error in batched AI matching for {} pairs", chunk.size(), e);
+            return Collections.nCopies(chunk.size(), null);
+        }
+    }
+
+    private MatchResult.MatchBreakdown calculateSinglePairSafely(MatchingCriteria criteria) {
         try {
-            String prompt = buildMatchingPrompt(criteria);
-            String response = callOpenAI(prompt);
-            return parseMatchingResponse(response);
+            return parseMatchingResponse(callOpenAI(buildMatchingPrompt(criteria)));
+        } catch (AiServiceUnavailableException e) {
+            log.warn("AI matching unavailable: {}", e.getMessage());
+            return null;
         } catch (Exception e) {
             log.error("Error in AI matching calculation", e);
-            throw new RuntimeException("AI matching failed", e);
+            return null;
         }
     }
 
     private String buildMatchingPrompt(MatchingCriteria criteria) {
-        return String.format(
-            "You are an expert HR professional and job matching specialist. Analyze the compatibility between this candidate and job position.\n\n" +
+        return "You are an expert HR professional and job matching specialist. Analyze the compatibility between this candidate and job position.\n\n" +
             "CANDIDATE PROFILE:\n" +
-            "- Skills: %s\n" +
-            "- Education: %s\n" +
-            "- Experience Summary: %s\n" +
-            "- Years of Experience: %d\n" +
-            "- Location: %s\n" +
-            "- Open to Remote: %s\n\n" +
+            promptBuilder.candidateSection(criteria) + "\n" +
             "JOB POSITION:\n" +
-            "- Title: %s\n" +
-            "- Description: %s\n" +
-            "- Requirements: %s\n" +
-            "- Responsibilities: %s\n" +
-            "- Required Skills: %s\n" +
-            "- Location: %s\n" +
-            "- Remote Available: %s\n" +
-            "- Job Type: %s\n\n" +
+            promptBuilder.jobSection(criteria) + "\n" +
             "Please provide a detailed analysis and return ONLY a valid JSON response with the following structure:\n" +
             "{\n" +
             "    \"skillsMatch\": <percentage 0-100>,\n" +
@@ -86,25 +270,61 @@ public class AIMatchingService {
             "3. Educational background fit\n" +
             "4. Ability to handle responsibilities\n" +
             "5. Location/remote work compatibility\n\n" +
-            "Be realistic and thorough in your assessment. The overall match should be a weighted average considering all factors.",
-            criteria.getCandidateSkills(),
-            criteria.getCandidateEducation(),
-            criteria.getCandidateExperienceSummary(),
-            criteria.getCandidateExperience() != null ? criteria.getCandidateExperience() : 0,
-            criteria.getCandidateLocation(),
-            criteria.getCandidateOpenToRemote(),
-            criteria.getJobTitle(),
-            criteria.getJobDescription(),
-            criteria.getJobRequirements(),
-            criteria.getJobResponsibilities(),
-            criteria.getRequiredSkills(),
-            criteria.getJobLocation(),
-            criteria.getIsRemoteJob(),
-            criteria.getJobType()
-        );
+            "Be realistic and thorough in your assessment. The overall match should be a weighted average considering all factors.";
+    }
+
+    /**
+     * Build one prompt for several pairs. When every pair shares the same job (or the same candidate)
+     * that side is written once in a shared header instead of being repeated per pair.
+     */
+    private String buildBatchMatchingPrompt(List<MatchingCriteria> chunk) {
+        List<String> candidateSections = chunk.stream().map(promptBuilder::candidateSection).collect(Collectors.toList());
+        List<String> jobSections = chunk.stream().map(promptBuilder::jobSection).collect(Collectors.toList());
+        boolean sharedJob = allSame(jobSections);
+        boolean sharedCandidate = !sharedJob && allSame(candidateSections);
+
+        StringBuilder prompt = new StringBuilder()
+                .append("You are an expert HR professional and job matching specialist. ")
+                .append("Analyze the compatibility of each numbered candidate-job pair below.\n\n");
+
+        if (sharedJob) {
+            prompt.append("JOB POSITION (shared by all pairs):\n").append(jobSections.get(0)).append("\n");
+        } else if (sharedCandidate) {
+            prompt.append("CANDIDATE PROFILE (shared by all pairs):\n").append(candidateSections.get(0)).append("\n");
+        }
+
+        for (int i = 0; i < chunk.size(); i++) {
+            prompt.append("PAIR ").append(i).append(":\n");
+            if (!sharedCandidate) {
+                prompt.append("CANDIDATE PROFILE:\n").append(candidateSections.get(i));
+            }
+            if (!sharedJob) {
+                prompt.append("JOB POSITION:\n").append(jobSections.get(i));
+            }
+            prompt.append("\n");
+        }
+
+        return prompt
+                .append("Return ONLY a valid JSON array with one object per pair, using this structure:\n")
+                .append("[{\"pair\": <pair number>, \"skillsMatch\": <0-100>, \"experienceMatch\": <0-100>, ")
+                .append("\"educationMatch\": <0-100>, \"responsibilitiesMatch\": <0-100>, \"locationMatch\": <0-100>, ")
+                .append("\"overallMatch\": <0-100>, \"skillsExplanation\": \"<brief>\", \"experienceExplanation\": \"<brief>\", ")
+                .append("\"educationExplanation\": \"<brief>\", \"responsibilitiesExplanation\": \"<brief>\", ")
+                .append("\"overallExplanation\": \"<brief overall assessment>\"}]\n\n")
+                .append("Assess each pair independently on skills, experience, education, responsibilities and ")
+                .append("location/remote compatibility. The overall match should be a weighted average of all factors.")
+                .toString();
+    }
+
+    private static boolean allSame(List<String> sections) {
+        return sections.stream().allMatch(sections.get(0)::equals);
     }
 
     private String callOpenAI(String prompt) {
+        return callOpenAI(prompt, 1000);
+    }
+
+    private String callOpenAI(String prompt, int maxTokens) {
         List<ChatMessage> messages = Arrays.asList(
             new ChatMessage(ChatMessageRole.SYSTEM.value(), 
                 "You are an expert HR professional specializing in job-candidate matching. " +
@@ -113,13 +333,13 @@ public class AIMatchingService {
         );
 
         ChatCompletionRequest request = ChatCompletionRequest.builder()
-                .model("gpt-3.5-turbo")
+                .model(model)
                 .messages(messages)
-                .maxTokens(1000)
+                .maxTokens(maxTokens)
                 .temperature(0.3)
                 .build();
 
-        ChatCompletionResult result = openAiService.createChatCompletion(request);
+        ChatCompletionResult result = openAiClient.createChatCompletion(request);
         
         if (result.getChoices() == null || result.getChoices().isEmpty()) {
             throw new RuntimeException("No response from OpenAI");
@@ -130,38 +350,75 @@ public class AIMatchingService {
 
     private MatchResult.MatchBreakdown parseMatchingResponse(String response) throws JsonProcessingException {
         try {
-            // Clean the response to ensure it's valid JSON
-            String cleanedResponse = response.trim();
-            if (cleanedResponse.startsWith("```json")) {
-                cleanedResponse = cleanedResponse.substring(7);
-            }
-            if (cleanedResponse.endsWith("```")) {
-                cleanedResponse = cleanedResponse.substring(0, cleanedResponse.length() - 3);
-            }
-            cleanedResponse = cleanedResponse.trim();
-
-            JsonNode jsonNode = objectMapper.readTree(cleanedResponse);
-
-            return MatchResult.MatchBreakdown.builder()
-                    .skillsMatch(jsonNode.get("skillsMatch").asDouble())
-                    .experienceMatch(jsonNode.get("experienceMatch").asDouble())
-                    .educationMatch(jsonNode.get("educationMatch").asDouble())
-                    .responsibilitiesMatch(jsonNode.get("responsibilitiesMatch").asDouble())
-                    .locationMatch(jsonNode.get("locationMatch").asDouble())
-                    .overallMatch(jsonNode.get("overallMatch").asDouble())
-                    .skillsExplanation(jsonNode.get("skillsExplanation").asText())
-                    .experienceExplanation(jsonNode.get("experienceExplanation").asText())
-                    .educationExplanation(jsonNode.get("educationExplanation").asText())
-                    .responsibilitiesExplanation(jsonNode.get("responsibilitiesExplanation").asText())
-                    .overallExplanation(jsonNode.get("overallExplanation").asText())
-                    .build();
-
+            JsonNode jsonNode = objectMapper.readTree(cleanJsonResponse(response));
+            return toBreakdown(jsonNode);
         } catch (Exception e) {
             log.error("Failed to parse AI response: {}", response, e);
             throw new JsonProcessingException("Invalid AI response format") {};
         }
     }
 
+    /**
+     * Parse a batch response into one breakdown per pair. Pairs missing from the response,
+     * or with an invalid entry, are left null so only they fall back to rule-based scoring.
+     */
+    private List<MatchResult.MatchBreakdown> parseBatchMatchingResponse(String response, int pairCount)
+            throws JsonProcessingException {
+        List<MatchResult.MatchBreakdown> breakdowns = new ArrayList<>(Collections.nCopies(pairCount, null));
+
+        JsonNode root;
+        try {
+            root = objectMapper.readTree(cleanJsonResponse(response));
+        } catch (Exception e) {
+            log.error("Failed to parse batched AI response: {}", response, e);
+            throw new JsonProcessingException("Invalid AI batch response format") {};
+        }
+
+        JsonNode entries = root.isArray() ? root : root.path("matches");
+        for (JsonNode entry : entries) {
+            int pair = entry.path("pair").asInt(-1);
+            if (pair < 0 || pair >= pairCount || breakdowns.get(pair) != null) {
+                continue;
+            }
+
+            try {
+                breakdowns.set(pair, toBreakdown(entry));
+            } catch (Exception e) {
+                log.warn("Invalid AI match entry for pair {}: {}", pair, entry);
+            }
+        }
+
+        return breakdowns;
+    }
+
+    private String cleanJsonResponse(String response) {
+        // Clean the response to ensure it's valid JSON
+        String cleanedResponse = response.trim();
+        if (cleanedResponse.startsWith("```json")) {
+            cleanedResponse = cleanedResponse.substring(7);
+        }
+        if (cleanedResponse.endsWith("```")) {
+            cleanedResponse = cleanedResponse.substring(0, cleanedResponse.length() - 3);
+        }
+        return cleanedResponse.trim();
+    }
+
+    private MatchResult.MatchBreakdown toBreakdown(JsonNode jsonNode) {
+        return MatchResult.MatchBreakdown.builder()
+                .skillsMatch(jsonNode.get("skillsMatch").asDouble())
+                .experienceMatch(jsonNode.get("experienceMatch").asDouble())
+                .educationMatch(jsonNode.get("educationMatch").asDouble())
+                .responsibilitiesMatch(jsonNode.get("responsibilitiesMatch").asDouble())
+                .locationMatch(jsonNode.get("locationMatch").asDouble())
+                .overallMatch(jsonNode.get("overallMatch").asDouble())
+                .skillsExplanation(jsonNode.get("skillsExplanation").asText())
+                .experienceExplanation(jsonNode.get("experienceExplanation").asText())
+                .educationExplanation(jsonNode.get("educationExplanation").asText())
+                .responsibilitiesExplanation(jsonNode.get("responsibilitiesExplanation").asText())
+                .overallExplanation(jsonNode.get("overallExplanation").asText())
+                .build();
+    }
+
     private MatchResult.MatchBreakdown createFallbackMatch(MatchingCriteria criteria) {
         // Simple fallback matching based on basic criteria
         double skillsMatch = 75.0; // Default reasonable match
@@ -0,0 +1,178 @@
+package com.mynexjob.service;
+
+import com.mynexjob.dto.matching.MatchResult;
+import com.mynexjob.dto.matching.MatchingCriteria;
+import com.mynexjob.entity.AiMatchCacheEntry;
+import com.mynexjob.repository.AiMatchCacheEntryRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Content-addressed cache of AI match breakdowns. Entries are keyed by a SHA-256 digest of the
+ * normalized matching criteria, the prompt and the model, kept in a TTL-indexed Mongo collection
+ * so they survive restarts and are shared across nodes, and fronted by an in-process LRU.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class AiMatchCacheService {
+
+    private final AiMatchCacheEntryRepository cacheEntryRepository;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.openai.cache.enabled:true}")
+    private Boolean cacheEnabled;
+
+    @Value("${app.openai.cache.ttl-hours:168}")
+    private long ttlHours;
+
+    @Value("${app.openai.cache.local-size:10000}")
+    private int localSize;
+
+    private Map<String, AiMatchCacheEntry> localCache;
+    private Counter localHits;
+    private Counter storeHits;
+    private Counter misses;
+
+    @PostConstruct
+    public void init() {
+        localCache = Collections.synchronizedMap(new LinkedHashMap<String, AiMatchCacheEntry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, AiMatchCacheEntry> eldest) {
+                return size() > localSize;
+            }
+        });
+
+        localHits = Counter.builder("ai.match.cache").tag("result", "local-hit").register(meterRegistry);
+        storeHits = Counter.builder("ai.match.cache").tag("result", "store-hit").register(meterRegistry);
+        misses = Counter.builder("ai.match.cache").tag("result", "miss").register(meterRegistry);
+    }
+
+    /**
+     * Digest identifying one scoring request: every criteria field, the rendered prompt and the model
+     */
+    public String keyFor(MatchingCriteria criteria, String prompt, String model) {
+        StringBuilder input = new StringBuilder();
+        append(input, "expectedSalary", criteria.getExpectedSalary());
+        append(input, "offeredSalary", criteria.getOfferedSalary());
+        append(input, "candidateExperience", criteria.getCandidateExperience());
+        append(input, "requiredExperience", criteria.getRequiredExperience());
+        append(input, "candidateSkills", criteria.getCandidateSkills());
+        append(input, "candidateEducation", criteria.getCandidateEducation());
+        append(input, "candidateExperienceSummary", criteria.getCandidateExperienceSummary());
+        append(input, "candidateSummary", criteria.getCandidateSummary());
+        append(input, "jobTitle", criteria.getJobTitle());
+        append(input, "jobDescription", criteria.getJobDescription());
+        append(input, "jobRequirements", criteria.getJobRequirements());
+        append(input, "jobResponsibilities", criteria.getJobResponsibilities());
+        append(input, "requiredSkills", criteria.getRequiredSkills());
+        append(input, "jobLocation", criteria.getJobLocation());
+        append(input, "candidateLocation", criteria.getCandidateLocation());
+        append(input, "isRemoteJob", criteria.getIsRemoteJob());
+        append(input, "candidateOpenToRemote", criteria.getCandidateOpenToRemote());
+        append(input, "jobType", criteria.getJobType());
+        append(input, "candidatePreferredJobTypes", criteria.getCandidatePreferredJobTypes());
+        append(input, "prompt", prompt);
+        append(input, "model", model);
+        return sha256(input.toString());
+    }
+
+    /**
+     * Cached breakdown for a key, or null when absent, expired or the cache is disabled
+     */
+    public MatchResult.MatchBreakdown get(String key) {
+        if (!cacheEnabled) {
+            return null;
+        }
+
+        AiMatchCacheEntry entry = localCache.get(key);
+        if (entry != null && !entry.isExpired()) {
+            localHits.increment();
+            return entry.getBreakdown();
+        }
+
+        try {
+            Optional<AiMatchCacheEntry> stored = cacheEntryRepository.findById(key);
+            if (stored.isPresent() && !stored.get().isExpired()) {
+                localCache.put(key, stored.get());
+                storeHits.increment();
+                return stored.get().getBreakdown();
+            }
+        } catch (Exception e) {
+            log.warn("AI match cache lookup failed for key {}", key, e);
+        }
+
+        misses.increment();
+        return null;
+    }
+
+    public void put(String key, MatchResult.MatchBreakdown breakdown, String model) {
+        if (!cacheEnabled || breakdown == null) {
+            return;
+        }
+
+        AiMatchCacheEntry entry = AiMatchCacheEntry.builder()
+                .breakdown(breakdown)
+                .model(model)
+                .expiresAt(LocalDateTime.now().plusHours(ttlHours))
+                .build();
+        entry.setId(key);
+        localCache.put(key, entry);
+
+        try {
+            cacheEntryRepository.save(entry);
+        } catch (Exception e) {
+            log.warn("Failed to store AI match cache entry {}", key, e);
+        }
+    }
+
+    private static void append(StringBuilder input, String name, Object value) {
+        input.append(name).append('=').append(normalize(value)).append('\u0000');
+    }
+
+    private static String normalize(Object value) {
+        if (value == null) {
+            return "";
+        }
+        if (value instanceof BigDecimal) {
+            return ((BigDecimal) value).stripTrailingZeros().toPlainString();
+        }
+        if (value instanceof List) {
+            StringBuilder joined = new StringBuilder();
+            for (Object item : (List<?>) value) {
+                joined.append(normalize(item)).append('\u0001');
+            }
+            return joined.toString();
+        }
+        return value.toString().trim().replaceAll("\\s+", " ");
+    }
+
+    private static String sha256(String input) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(input.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(hash.length * 2);
+            for (byte b : hash) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
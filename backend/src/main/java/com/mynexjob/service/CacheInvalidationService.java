@@ -0,0 +1,192 @@
+package com.mynexjob.service;
+
+import com.mynexjob.dto.job.JobSearchRequest;
+import com.mynexjob.event.CandidateProfileChangedEvent;
+import com.mynexjob.event.JobChangedEvent;
+import com.mynexjob.event.JobSnapshot;
+import com.mynexjob.specification.JobSpecification;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Evicts exactly the cached job listings and ranking snapshots a job or profile change affects.
+ * Every entry this node puts in the jobs cache is recorded with the IDs of the jobs it lists
+ * (a tag index) and, for searches, its criteria. A job change then evicts the entries listing
+ * the job plus the searches the job matched before or after the change. Events arrive from this
+ * node and, through ClusterEventBus, from the others, so each node evicts the entries it wrote.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CacheInvalidationService {
+
+    public static final String JOBS_CACHE = "jobs";
+    public static final String FEATURED_KEY = "featured";
+    public static final String LATEST_KEY = "latest";
+
+    private final CacheManager cacheManager;
+    private final RankingSnapshotService rankingSnapshotService;
+
+    @Value("${app.cache.jobs.max-indexed-keys:10000}")
+    private int maxIndexedKeys;
+
+    // Cached search key to its compiled criteria, oldest first
+    private final LinkedHashMap<String, JobSpecification.Matcher> searches = new LinkedHashMap<>();
+    // Cached key to the IDs of the jobs it lists, and the reverse tag index
+    private final Map<String, Set<String>> jobsByKey = new HashMap<>();
+    private final Map<String, Set<String>> keysByJob = new HashMap<>();
+
+    /**
+     * Key of a cached search page, referenced by the @Cacheable on JobService.searchJobs
+     */
+    public static String searchKey(JobSearchRequest searchRequest, Pageable pageable) {
+        return searchRequest.toString() + "_" + pageable.toString();
+    }
+
+    /**
+     * Entries written by a node before it restarted are not in its index and could not be
+     * evicted precisely, so start from an empty jobs cache
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void clearUntrackedEntries() {
+        Cache cache = cacheManager.getCache(JOBS_CACHE);
+        if (cache != null) {
+            cache.clear();
+        }
+    }
+
+    /**
+     * Record a search page being cached with the jobs it lists
+     */
+    public void registerSearch(String key, JobSearchRequest searchRequest, Collection<String> jobIds) {
+        // Compiled once here, not on every job change
+        JobSpecification.Matcher criteria = JobSpecification.matcher(searchRequest);
+
+        synchronized (this) {
+            searches.remove(key);
+            searches.put(key, criteria);
+            tag(key, jobIds);
+
+            // Keep the index bounded; a key dropped from it leaves the cache too, so nothing cached goes untracked
+            while (searches.size() > maxIndexedKeys) {
+                evict(searches.keySet().iterator().next());
+            }
+        }
+    }
+
+    /**
+     * Record a fixed listing (featured or latest) being cached with the jobs it lists
+     */
+    public synchronized void registerListing(String key, Collection<String> jobIds) {
+        tag(key, jobIds);
+    }
+
+    @EventListener
+    public void onJobChanged(JobChangedEvent event) {
+        Set<String> evicted = evictAffectedListings(event);
+
+        String jobId = event.getJobId();
+        int snapshots = rankingSnapshotService.evictWhere(
+                owner -> owner.startsWith("matching-candidates:") && owner.endsWith(":" + jobId),
+                match -> jobId.equals(match.getJobId()));
+
+        log.debug("Job {} {}: evicted {} cached listings and {} ranking snapshots",
+                 jobId, event.getType(), evicted.size(), snapshots);
+    }
+
+    @EventListener
+    public void onCandidateProfileChanged(CandidateProfileChangedEvent event) {
+        String userId = event.getUserId();
+        int snapshots = rankingSnapshotService.evictWhere(
+                owner -> owner.equals("recommended-jobs:" + userId),
+                match -> userId.equals(match.getCandidateId()));
+
+        log.debug("Profile of user {} {}: evicted {} ranking snapshots", userId, event.getType(), snapshots);
+    }
+
+    private Set<String> evictAffectedListings(JobChangedEvent event) {
+        JobSnapshot before = event.getBefore();
+        JobSnapshot after = event.getAfter();
+
+        // Listings that show the job
+        Set<String> keys;
+        Map<String, JobSpecification.Matcher> cachedSearches;
+        synchronized (this) {
+            keys = new HashSet<>(keysByJob.getOrDefault(event.getJobId(), Set.of()));
+            cachedSearches = new LinkedHashMap<>(searches);
+        }
+
+        // Searches the job enters, leaves or moves within, matched outside the lock so registering
+        // searches does not wait on it
+        for (Map.Entry<String, JobSpecification.Matcher> search : cachedSearches.entrySet()) {
+            if ((before != null && search.getValue().matches(before))
+                    || (after != null && search.getValue().matches(after))) {
+                keys.add(search.getKey());
+            }
+        }
+
+        // Fixed listings the job newly qualifies for; leaving them is covered by the tags
+        if (isListed(after) && Boolean.TRUE.equals(after.getIsFeatured())
+                && !(isListed(before) && Boolean.TRUE.equals(before.getIsFeatured()))) {
+            keys.add(FEATURED_KEY);
+        }
+        if (isListed(after) && !isListed(before)) {
+            keys.add(LATEST_KEY);
+        }
+
+        synchronized (this) {
+            keys.forEach(this::evict);
+        }
+        return keys;
+    }
+
+    private static boolean isListed(JobSnapshot job) {
+        return job != null && Boolean.TRUE.equals(job.getIsActive());
+    }
+
+    private void tag(String key, Collection<String> jobIds) {
+        untag(key);
+        Set<String> jobs = new HashSet<>(jobIds);
+        jobsByKey.put(key, jobs);
+        for (String jobId : jobs) {
+            keysByJob.computeIfAbsent(jobId, id -> new HashSet<>()).add(key);
+        }
+    }
+
+    private void untag(String key) {
+        Set<String> jobs = jobsByKey.remove(key);
+        if (jobs == null) {
+            return;
+        }
+        for (String jobId : jobs) {
+            Set<String> keys = keysByJob.get(jobId);
+            if (keys != null && keys.remove(key) && keys.isEmpty()) {
+                keysByJob.remove(jobId);
+            }
+        }
+    }
+
+    private void evict(String key) {
+        searches.remove(key);
+        untag(key);
+
+        Cache cache = cacheManager.getCache(JOBS_CACHE);
+        if (cache != null) {
+            cache.evict(key);
+        }
+    }
+}
@@ -2,28 +2,36 @@ package com.mynexjob.service;
 
 import com.mynexjob.dto.common.PagedResponse;
 import com.mynexjob.dto.matching.JobMatchDto;
+import com.mynexjob.dto.matching.MatchCountDto;
+import com.mynexjob.dto.matching.MatchPair;
 import com.mynexjob.dto.matching.MatchResult;
 import com.mynexjob.entity.Job;
+import com.mynexjob.entity.JobMatch;
+import com.mynexjob.entity.MatchCounter;
 import com.mynexjob.entity.User;
 import com.mynexjob.entity.UserProfile;
+import com.mynexjob.enums.ScoreSource;
 import com.mynexjob.exception.BadRequestException;
 import com.mynexjob.exception.ResourceNotFoundException;
 import com.mynexjob.mapper.JobMapper;
 import com.mynexjob.repository.JobRepository;
 import com.mynexjob.repository.UserRepository;
+import com.mynexjob.util.TopKCollector;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.cache.annotation.Cacheable;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -34,14 +42,23 @@ public class CandidateJobDiscoveryService {
     private final JobRepository jobRepository;
     private final UserRepository userRepository;
     private final MatchingService matchingService;
+    private final MatchScoringEngine matchScoringEngine;
+    private final JobSkillIndexService jobSkillIndexService;
+    private final SemanticIndexService semanticIndexService;
+    private final MatchStoreService matchStoreService;
+    private final RankingSnapshotService rankingSnapshotService;
     private final JobMapper jobMapper;
 
     @Value("${app.matching.minimum-threshold:70.0}")
     private Double minimumMatchThreshold;
 
-    @Cacheable(value = "candidate-job-matches", key = "#userEmail + '_' + #pageable.toString()")
+    /**
+     * Recommended jobs, best match first. The first request ranks the jobs once and keeps the
+     * ranking as a short-lived snapshot; following pages pass the returned cursor and are sliced
+     * from that snapshot, so they stay consistent and cost only the page itself.
+     */
     @Transactional(readOnly = true)
-    public PagedResponse<JobMatchDto> getRecommendedJobs(String userEmail, Pageable pageable) {
+    public PagedResponse<JobMatchDto> getRecommendedJobs(String userEmail, Pageable pageable, String cursor) {
         log.info("Getting recommended jobs for candidate: {}", userEmail);
 
         User candidate = userRepository.findByEmail(userEmail)
@@ -53,58 +70,61 @@ public class CandidateJobDiscoveryService {
                     "Please complete your profile and enable matching to see job recommendations.");
         }
 
-        // Get all active jobs that have matching enabled
-        List<Job> allJobs = jobRepository.findByIsActiveTrueAndMatchingEnabledTrue();
-        
-        List<JobMatchDto> matchedJobs = new ArrayList<>();
-
-        for (Job job : allJobs) {
-            try {
-                MatchResult matchResult = matchingService.calculateMatch(candidate, job);
-                
-                // Only include jobs that pass strict filters and meet minimum threshold
-                if (matchResult.getPassesStrictFilters() && matchResult.getMeetsMinimumThreshold()) {
-                    JobMatchDto jobMatch = JobMatchDto.builder()
-                            .job(jobMapper.toDto(job))
-                            .matchPercentage(matchResult.getMatchPercentage())
-                            .breakdown(matchResult.getBreakdown())
-                            .matchExplanation(matchResult.getBreakdown() != null ? 
-                                    matchResult.getBreakdown().getOverallExplanation() : "Match calculated")
-                            .salaryMatches(true) // They passed salary filter
-                            .experienceMatches(true) // They passed experience filter
-                            .build();
-                    
-                    matchedJobs.add(jobMatch);
-                }
-            } catch (Exception e) {
-                log.error("Error calculating match for job {} and candidate {}", 
-                         job.getId(), candidate.getId(), e);
+        RankingSnapshotService.Cursor position = cursor != null ? rankingSnapshotService.decodeCursor(cursor) : null;
+        long offset = position != null ? position.getOffset() : pageable.getOffset();
+        int pageSize = pageable.getPageSize();
+        String owner = "recommended-jobs:" + candidate.getId();
+
+        if (position != null && position.getSnapshotId() != null) {
+            Optional<List<MatchResult>> ranking = rankingSnapshotService.find(position.getSnapshotId(), owner);
+            if (ranking.isPresent()) {
+                List<MatchResult> pageMatches = slice(ranking.get(), offset, pageSize);
+                List<Job> pageJobs = jobRepository.findAllById(pageMatches.stream()
+                        .map(MatchResult::getJobId)
+                        .collect(Collectors.toList()));
+                return PagedResponse.ofOffset(toJobMatchDtos(pageMatches, pageJobs), offset, pageSize,
+                        ranking.get().size(), rankingSnapshotService.encodeCursor(position.getSnapshotId(), offset + pageSize));
             }
+            // The snapshot expired or lives on another node: rank again and continue from the same offset
+        }
+
+        // Serve from the materialized match store once a full refresh has completed for this profile
+        if (matchStoreService.isCompleteForCandidate(candidate.getId(), profile)) {
+            return getStoredRecommendedJobs(candidate, profile, offset, pageSize);
         }
 
-        // Sort by match percentage (highest first)
-        matchedJobs.sort((a, b) -> Double.compare(b.getMatchPercentage(), a.getMatchPercentage()));
+        // Only score the jobs closest to the profile
+        List<Job> allJobs = findJobsToScore(profile);
+        
+        // Keep the best results up to the snapshot size; DTOs are built for the requested page only
+        TopKCollector<MatchResult> topMatches = TopKCollector.forMatches(rankingSnapshotService.getMaxEntries());
+
+        MatchScoringEngine.Scored scored = matchScoringEngine.scoreInBatches(allJobs, matchingService.getRequestBatchSize(),
+                batch -> calculateMatchesSafely(candidate, batch));
 
-        // Apply pagination
-        int start = (int) pageable.getOffset();
-        int end = Math.min(start + pageable.getPageSize(), matchedJobs.size());
-        List<JobMatchDto> paginatedJobs = matchedJobs.subList(start, end);
+        for (MatchResult matchResult : scored.getResults()) {
+            // Only include jobs that pass strict filters and meet minimum threshold
+            if (matchResult.getPassesStrictFilters() && matchResult.getMeetsMinimumThreshold()) {
+                topMatches.offer(matchResult);
+            }
+        }
 
-        Page<JobMatchDto> jobPage = new PageImpl<>(paginatedJobs, pageable, matchedJobs.size());
+        // Snapshot the ranked survivors (highest match first) and slice the requested page from it;
+        // a partial ranking is not snapshotted, so the next page ranks again
+        List<MatchResult> rankedMatches = topMatches.toSortedList();
+        String snapshotId = scored.isPartial() ? null : rankingSnapshotService.create(owner, rankedMatches);
+        List<JobMatchDto> paginatedJobs = toJobMatchDtos(slice(rankedMatches, offset, pageSize), allJobs);
 
-        log.info("Found {} matching jobs for candidate: {}", matchedJobs.size(), userEmail);
+        log.info("Found {} matching jobs for candidate: {}{}", topMatches.getOfferedCount(), userEmail,
+                 scored.isPartial() ? " (partial)" : "");
 
-        return PagedResponse.<JobMatchDto>builder()
-                .content(jobPage.getContent())
-                .page(jobPage.getNumber())
-                .size(jobPage.getSize())
-                .totalElements(jobPage.getTotalElements())
-                .totalPages(jobPage.getTotalPages())
-                .first(jobPage.isFirst())
-                .last(jobPage.isLast())
-                .hasNext(jobPage.hasNext())
-                .hasPrevious(jobPage.hasPrevious())
-                .build();
+        // Populate the match store so later requests are served by an indexed read
+        matchStoreService.refreshForCandidate(candidate, profile);
+
+        PagedResponse<JobMatchDto> response = PagedResponse.ofOffset(paginatedJobs, offset, pageSize, rankedMatches.size(),
+                rankingSnapshotService.encodeCursor(snapshotId, offset + pageSize));
+        response.setPartial(scored.isPartial());
+        return response;
     }
 
     @Transactional(readOnly = true)
@@ -140,6 +160,7 @@ public class CandidateJobDiscoveryService {
                 .breakdown(matchResult.getBreakdown())
                 .matchExplanation(matchResult.getBreakdown() != null ? 
                         matchResult.getBreakdown().getOverallExplanation() : "Match calculated")
+                .scoreSource(matchResult.getScoreSource())
                 .salaryMatches(true)
                 .experienceMatches(true)
                 .build();
@@ -168,59 +189,147 @@ public class CandidateJobDiscoveryService {
         allJobs.addAll(featuredJobs);
         allJobs.addAll(regularJobs);
 
-        List<JobMatchDto> topMatches = new ArrayList<>();
-
-        for (Job job : allJobs) {
-            try {
-                MatchResult matchResult = matchingService.calculateMatch(candidate, job);
-                
-                if (matchResult.getPassesStrictFilters() && matchResult.getMeetsMinimumThreshold()) {
-                    JobMatchDto jobMatch = JobMatchDto.builder()
-                            .job(jobMapper.toDto(job))
-                            .matchPercentage(matchResult.getMatchPercentage())
-                            .breakdown(matchResult.getBreakdown())
-                            .matchExplanation(matchResult.getBreakdown() != null ? 
-                                    matchResult.getBreakdown().getOverallExplanation() : "Match calculated")
-                            .salaryMatches(true)
-                            .experienceMatches(true)
-                            .build();
-                    
-                    topMatches.add(jobMatch);
-                }
-            } catch (Exception e) {
-                log.error("Error calculating match for job {} and candidate {}", 
-                         job.getId(), candidate.getId(), e);
+        TopKCollector<MatchResult> topMatches = TopKCollector.forMatches(limit);
+
+        List<MatchResult> matchResults = matchScoringEngine.scoreInBatches(allJobs, matchingService.getRequestBatchSize(),
+                batch -> calculateMatchesSafely(candidate, batch)).getResults();
+
+        for (MatchResult matchResult : matchResults) {
+            if (matchResult.getPassesStrictFilters() && matchResult.getMeetsMinimumThreshold()) {
+                topMatches.offer(matchResult);
             }
         }
 
-        // Sort by match percentage and return top matches
-        return topMatches.stream()
-                .sorted((a, b) -> Double.compare(b.getMatchPercentage(), a.getMatchPercentage()))
-                .limit(limit)
-                .collect(Collectors.toList());
+        // Build DTOs for the top matches only
+        return toJobMatchDtos(topMatches.toSortedList(), allJobs);
     }
 
+    /**
+     * Number of jobs matching the candidate. Served from the maintained match counter; when the
+     * match store is not complete for the profile, or an approximate count is asked for, the
+     * count is estimated from the strict filters and rule-based scores instead.
+     */
     @Transactional(readOnly = true)
-    public long getMatchingJobsCount(String userEmail) {
+    public MatchCountDto getMatchingJobsCount(String userEmail, boolean approximate) {
         User candidate = userRepository.findByEmail(userEmail)
                 .orElseThrow(() -> new ResourceNotFoundException("User not found"));
 
         UserProfile profile = candidate.getUserProfile();
         if (profile == null || !profile.getMatchingEnabled()) {
-            return 0;
+            return MatchCountDto.builder().count(0L).approximate(false).asOf(LocalDateTime.now()).build();
         }
 
-        List<Job> allJobs = jobRepository.findByIsActiveTrueAndMatchingEnabledTrue();
-        
-        return allJobs.stream()
-                .mapToLong(job -> {
-                    try {
-                        MatchResult matchResult = matchingService.calculateMatch(candidate, job);
-                        return (matchResult.getPassesStrictFilters() && matchResult.getMeetsMinimumThreshold()) ? 1 : 0;
-                    } catch (Exception e) {
-                        return 0;
-                    }
-                })
-                .sum();
+        if (!approximate) {
+            Optional<MatchCounter> counter = matchStoreService.findMatchCountForCandidate(candidate.getId(), profile);
+            if (counter.isPresent()) {
+                return MatchCountDto.builder()
+                        .count(counter.get().getCount())
+                        .approximate(false)
+                        .asOf(counter.get().getCountedAt())
+                        .build();
+            }
+
+            // Populate the match store so the next count is served by the counter
+            matchStoreService.refreshForCandidate(candidate, profile);
+        }
+
+        List<MatchPair> pairs = jobSkillIndexService.findCandidateJobs(profile).stream()
+                .map(job -> new MatchPair(candidate, profile, job))
+                .collect(Collectors.toList());
+        long count = matchingService.calculateRuleMatches(pairs).stream()
+                .filter(matchResult -> matchResult.getPassesStrictFilters() && matchResult.getMeetsMinimumThreshold())
+                .count();
+
+        return MatchCountDto.builder().count(count).approximate(true).asOf(LocalDateTime.now()).build();
+    }
+
+    /**
+     * Jobs worth scoring for a profile: its semantic nearest neighbours once that index is warm,
+     * otherwise every active job sharing at least one skill with it
+     */
+    private List<Job> findJobsToScore(UserProfile profile) {
+        if (!semanticIndexService.isReady()) {
+            return jobSkillIndexService.findCandidateJobs(profile);
+        }
+        return jobRepository.findByIdInAndIsActiveTrueAndMatchingEnabledTrue(semanticIndexService.findNearestJobIds(profile));
+    }
+
+    private List<MatchResult> calculateMatchesSafely(User candidate, List<Job> jobs) {
+        List<MatchPair> pairs = jobs.stream()
+                .map(job -> new MatchPair(candidate, candidate.getUserProfile(), job))
+                .collect(Collectors.toList());
+        try {
+            return matchingService.calculateRequestMatches(pairs);
+        } catch (Exception e) {
+            log.error("Error calculating matches for {} jobs and candidate {}", 
+                     jobs.size(), candidate.getId(), e);
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * Build DTOs for ranked match results, keeping their order
+     */
+    private List<JobMatchDto> toJobMatchDtos(List<MatchResult> matches, List<Job> jobs) {
+        Set<String> jobIds = matches.stream().map(MatchResult::getJobId).collect(Collectors.toSet());
+        Map<String, Job> jobsById = jobs.stream()
+                .filter(job -> jobIds.contains(job.getId()))
+                .collect(Collectors.toMap(Job::getId, Function.identity(), (a, b) -> a));
+
+        return matches.stream()
+                .map(matchResult -> JobMatchDto.builder()
+                        .job(jobMapper.toDto(jobsById.get(matchResult.getJobId())))
+                        .matchPercentage(matchResult.getMatchPercentage())
+                        .breakdown(matchResult.getBreakdown())
+                        .matchExplanation(matchResult.getBreakdown() != null ?
+                                matchResult.getBreakdown().getOverallExplanation() : "Match calculated")
+                        .scoreSource(matchResult.getScoreSource())
+                        .salaryMatches(true) // They passed salary filter
+                        .experienceMatches(true) // They passed experience filter
+                        .build())
+                .collect(Collectors.toList());
+    }
+
+    private PagedResponse<JobMatchDto> getStoredRecommendedJobs(User candidate, UserProfile profile, long offset, int pageSize) {
+        long total = matchStoreService.countQualifyingMatchesForCandidate(candidate.getId());
+        List<JobMatch> matches = matchStoreService.findQualifyingMatchesForCandidate(candidate.getId(), offset, pageSize);
+
+        Map<String, Job> jobsById = jobRepository.findAllById(matches.stream()
+                        .map(JobMatch::getJobId)
+                        .collect(Collectors.toList()))
+                .stream()
+                .collect(Collectors.toMap(Job::getId, Function.identity()));
+
+        List<JobMatchDto> content = matches.stream()
+                .filter(match -> jobsById.containsKey(match.getJobId()))
+                .map(match -> JobMatchDto.builder()
+                        .job(jobMapper.toDto(jobsById.get(match.getJobId())))
+                        .matchPercentage(match.getMatchPercentage())
+                        .breakdown(match.getBreakdown())
+                        .matchExplanation(match.getBreakdown() != null ?
+                                match.getBreakdown().getOverallExplanation() : "Match calculated")
+                        .scoreSource(match.getScoreSource())
+                        .salaryMatches(true)
+                        .experienceMatches(true)
+                        .build())
+                .collect(Collectors.toList());
+
+        // Rows still holding a rule-based score are refined with AI for later page loads
+        List<MatchPair> ruleScored = matches.stream()
+                .filter(match -> match.getScoreSource() == ScoreSource.RULE && jobsById.containsKey(match.getJobId()))
+                .map(match -> new MatchPair(candidate, profile, jobsById.get(match.getJobId())))
+                .collect(Collectors.toList());
+        if (!ruleScored.isEmpty()) {
+            matchStoreService.refineRuleScored(ruleScored);
+        }
+
+        // Stored rankings are read by index, so the cursor only carries the offset
+        return PagedResponse.ofOffset(content, offset, pageSize, total,
+                rankingSnapshotService.encodeCursor(null, offset + pageSize));
+    }
+
+    private static <T> List<T> slice(List<T> ranking, long offset, int pageSize) {
+        int start = (int) Math.min(offset, ranking.size());
+        return ranking.subList(start, Math.min(start + pageSize, ranking.size()));
     }
 }
@@ -0,0 +1,181 @@
+package com.mynexjob.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.MongoCommandException;
+import com.mongodb.client.ChangeStreamIterable;
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mynexjob.entity.ClusterEvent;
+import com.mynexjob.event.CandidateProfileChangedEvent;
+import com.mynexjob.event.DomainEvent;
+import com.mynexjob.event.JobChangedEvent;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Relays domain events between the nodes of the cluster. Events published on this node are
+ * written to the cluster_events collection; a change stream on that collection re-publishes the
+ * events of other nodes locally, flagged as remote. Change streams need a replica set; against a
+ * standalone server events stay local to the node that published them.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ClusterEventBus {
+
+    private static final int CHANGE_STREAM_UNSUPPORTED = 40573;
+    private static final int CHANGE_STREAM_HISTORY_LOST = 286;
+
+    private static final Map<String, Class<? extends DomainEvent>> EVENT_TYPES = Map.of(
+            JobChangedEvent.class.getSimpleName(), JobChangedEvent.class,
+            CandidateProfileChangedEvent.class.getSimpleName(), CandidateProfileChangedEvent.class
+    );
+
+    private final MongoTemplate mongoTemplate;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${app.cluster-events.enabled:true}")
+    private Boolean clusterEventsEnabled;
+
+    @Value("${app.cluster-events.retention-minutes:60}")
+    private long retentionMinutes;
+
+    @Value("${app.cluster-events.retry-delay-ms:5000}")
+    private long retryDelayMs;
+
+    private final String nodeId = UUID.randomUUID().toString();
+    private volatile boolean running = false;
+    private Thread watcher;
+
+    /**
+     * Write events published on this node to the collection the other nodes watch
+     */
+    @EventListener
+    public void relay(DomainEvent event) {
+        if (!clusterEventsEnabled || event.isRemote()) {
+            return;
+        }
+
+        try {
+            mongoTemplate.insert(ClusterEvent.builder()
+                    .origin(nodeId)
+                    .type(event.getClass().getSimpleName())
+                    .payload(objectMapper.writeValueAsString(event))
+                    .expiresAt(LocalDateTime.now().plusMinutes(retentionMinutes))
+                    .build());
+        } catch (Exception e) {
+            log.warn("Failed to relay {} to the cluster, other nodes will not see it", event.getClass().getSimpleName(), e);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!clusterEventsEnabled) {
+            return;
+        }
+
+        running = true;
+        watcher = new Thread(this::watch, "cluster-event-watcher");
+        watcher.setDaemon(true);
+        watcher.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (watcher != null) {
+            watcher.interrupt();
+        }
+    }
+
+    private void watch() {
+        String collection = mongoTemplate.getCollectionName(ClusterEvent.class);
+        BsonDocument resumeToken = null;
+
+        while (running) {
+            try {
+                ChangeStreamIterable<Document> changes = mongoTemplate.getCollection(collection)
+                        .watch(Collections.singletonList(Aggregates.match(Filters.eq("operationType", "insert"))))
+                        .maxAwaitTime(1, TimeUnit.SECONDS);
+                if (resumeToken != null) {
+                    changes = changes.resumeAfter(resumeToken);
+                }
+
+                try (MongoChangeStreamCursor<ChangeStreamDocument<Document>> cursor = changes.cursor()) {
+                    log.info("Watching {} for events from other nodes", collection);
+                    while (running) {
+                        ChangeStreamDocument<Document> change = cursor.tryNext();
+                        if (change != null) {
+                            resumeToken = change.getResumeToken();
+                            deliver(change.getFullDocument());
+                        }
+                    }
+                }
+            } catch (MongoCommandException e) {
+                if (e.getErrorCode() == CHANGE_STREAM_UNSUPPORTED) {
+                    log.warn("MongoDB does not support change streams (not a replica set), domain events stay local to this node");
+                    return;
+                }
+                if (e.getErrorCode() == CHANGE_STREAM_HISTORY_LOST) {
+                    // Too far behind to resume; later events still arrive
+                    resumeToken = null;
+                }
+                log.warn("Cluster event stream failed, retrying in {} ms", retryDelayMs, e);
+                pause();
+            } catch (Exception e) {
+                if (!running) {
+                    return;
+                }
+                log.warn("Cluster event stream failed, retrying in {} ms", retryDelayMs, e);
+                pause();
+            }
+        }
+    }
+
+    private void deliver(Document document) {
+        if (document == null) {
+            return;
+        }
+
+        try {
+            ClusterEvent clusterEvent = mongoTemplate.getConverter().read(ClusterEvent.class, document);
+            Class<? extends DomainEvent> type = EVENT_TYPES.get(clusterEvent.getType());
+            if (nodeId.equals(clusterEvent.getOrigin()) || type == null) {
+                return;
+            }
+
+            DomainEvent event = objectMapper.readValue(clusterEvent.getPayload(), type);
+            event.setRemote(true);
+            eventPublisher.publishEvent(event);
+        } catch (Exception e) {
+            log.warn("Failed to deliver cluster event {}", document.get("_id"), e);
+        }
+    }
+
+    private void pause() {
+        try {
+            Thread.sleep(retryDelayMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+}
@@ -0,0 +1,288 @@
+package com.mynexjob.service;
+
+import com.mongodb.MongoCommandException;
+import com.mongodb.client.ChangeStreamIterable;
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.FullDocument;
+import com.mongodb.client.model.changestream.OperationType;
+import com.mynexjob.dto.job.JobSearchRequest;
+import com.mynexjob.entity.Job;
+import com.mynexjob.event.JobChangedEvent;
+import com.mynexjob.event.JobSnapshot;
+import com.mynexjob.specification.JobSpecification;
+import com.mynexjob.util.InvertedIndex;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.util.CloseableIterator;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full-text search over active jobs from an in-process inverted index, ranked with BM25 and field
+ * boosts, so keyword searches stay off the database primary. The index is built from the jobs
+ * collection at startup and then follows a change stream on it, which also sees writes made
+ * outside JobService. Without change streams (a standalone server) it follows the job events of
+ * this node instead. Until the first build completes, searches fall back to MongoDB.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class JobSearchIndexService {
+
+    private static final int CHANGE_STREAM_UNSUPPORTED = 40573;
+    private static final int CHANGE_STREAM_HISTORY_LOST = 286;
+
+    private final MongoTemplate mongoTemplate;
+    private final SkillDictionaryService skillDictionary;
+
+    @Value("${app.search.index.enabled:true}")
+    private Boolean indexEnabled;
+
+    @Value("${app.search.index.boost.title:4.0}")
+    private float titleBoost;
+
+    @Value("${app.search.index.boost.skills:2.0}")
+    private float skillsBoost;
+
+    @Value("${app.search.index.boost.requirements:1.5}")
+    private float requirementsBoost;
+
+    @Value("${app.search.index.boost.description:1.0}")
+    private float descriptionBoost;
+
+    @Value("${app.search.index.retry-delay-ms:5000}")
+    private long retryDelayMs;
+
+    private volatile InvertedIndex index;
+    // Filterable fields of every indexed job, checked against the non-keyword criteria
+    private volatile Map<String, JobSnapshot> snapshots = new ConcurrentHashMap<>();
+    private volatile boolean ready = false;
+    private volatile boolean followEvents = false;
+    private volatile boolean running = false;
+    private Thread watcher;
+
+    public boolean isReady() {
+        return indexEnabled && ready;
+    }
+
+    /**
+     * The best matches of the keyword among the active jobs passing the other criteria
+     *
+     * @param limit number of hits to return, best first; the total counts every match
+     */
+    public InvertedIndex.Result search(JobSearchRequest searchRequest, int limit) {
+        Map<String, JobSnapshot> current = snapshots;
+        // Compiled once per search, not for every hit
+        JobSpecification.Matcher criteria = JobSpecification.matcher(searchRequest);
+        return index.search(searchRequest.getKeyword(), true, jobId -> {
+            JobSnapshot job = current.get(jobId);
+            return job != null && criteria.matchesFilters(job);
+        }, limit);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!indexEnabled) {
+            return;
+        }
+
+        running = true;
+        watcher = new Thread(this::watch, "job-search-indexer");
+        watcher.setDaemon(true);
+        watcher.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (watcher != null) {
+            watcher.interrupt();
+        }
+    }
+
+    /**
+     * Re-read a changed job when there is no change stream to deliver it
+     */
+    @EventListener
+    public void onJobChanged(JobChangedEvent event) {
+        if (!followEvents || !ready) {
+            return;
+        }
+
+        Job job = mongoTemplate.findById(event.getJobId(), Job.class);
+        if (job != null) {
+            indexJob(job);
+        } else {
+            removeJob(event.getJobId());
+        }
+    }
+
+    private void watch() {
+        String collection = mongoTemplate.getCollectionName(Job.class);
+        BsonDocument resumeToken = null;
+
+        while (running) {
+            try {
+                ChangeStreamIterable<Document> changes = mongoTemplate.getCollection(collection)
+                        .watch()
+                        .fullDocument(FullDocument.UPDATE_LOOKUP)
+                        .maxAwaitTime(1, TimeUnit.SECONDS);
+                if (resumeToken != null) {
+                    changes = changes.resumeAfter(resumeToken);
+                }
+
+                try (MongoChangeStreamCursor<ChangeStreamDocument<Document>> cursor = changes.cursor()) {
+                    // The stream is open before the scan starts, so writes made during it are replayed after
+                    if (!ready) {
+                        build();
+                    }
+                    while (running) {
+                        ChangeStreamDocument<Document> change = cursor.tryNext();
+                        if (change == null) {
+                            continue;
+                        }
+                        if (change.getOperationType() == OperationType.INVALIDATE) {
+                            // The collection was dropped or renamed; start over from what is there now
+                            resumeToken = null;
+                            ready = false;
+                            break;
+                        }
+                        resumeToken = change.getResumeToken();
+                        apply(change);
+                    }
+                }
+            } catch (MongoCommandException e) {
+                if (e.getErrorCode() == CHANGE_STREAM_UNSUPPORTED) {
+                    log.warn("MongoDB does not support change streams (not a replica set), the job search index follows local job events");
+                    buildAndFollowEvents();
+                    return;
+                }
+                if (e.getErrorCode() == CHANGE_STREAM_HISTORY_LOST) {
+                    // Changes were missed; rebuild from the collection once the stream is reopened
+                    resumeToken = null;
+                    ready = false;
+                }
+                log.warn("Job change stream failed, retrying in {} ms", retryDelayMs, e);
+                pause();
+            } catch (Exception e) {
+                if (!running) {
+                    return;
+                }
+                log.warn("Job change stream failed, retrying in {} ms", retryDelayMs, e);
+                pause();
+            }
+        }
+    }
+
+    private void buildAndFollowEvents() {
+        try {
+            followEvents = true;
+            build();
+        } catch (Exception e) {
+            log.error("Failed to build the job search index, keyword searches will use MongoDB", e);
+        }
+    }
+
+    /**
+     * Build a fresh index from the active jobs and swap it in
+     */
+    private void build() {
+        long started = System.currentTimeMillis();
+        InvertedIndex built = newIndex();
+        Map<String, JobSnapshot> builtSnapshots = new ConcurrentHashMap<>();
+
+        Query active = new Query(Criteria.where("isActive").is(true));
+        try (CloseableIterator<Job> jobs = mongoTemplate.stream(active, Job.class)) {
+            while (jobs.hasNext()) {
+                Job job = jobs.next();
+                put(built, builtSnapshots, job);
+            }
+        }
+
+        index = built;
+        snapshots = builtSnapshots;
+        ready = true;
+        log.info("Job search index built in {} ms: {} jobs, {} terms",
+                System.currentTimeMillis() - started, built.size(), built.termCount());
+    }
+
+    private void apply(ChangeStreamDocument<Document> change) {
+        OperationType operation = change.getOperationType();
+        if (operation == OperationType.DELETE) {
+            removeJob(idOf(change.getDocumentKey()));
+        } else if (operation == OperationType.INSERT || operation == OperationType.UPDATE
+                || operation == OperationType.REPLACE) {
+            // The full document is missing when the job was deleted before the lookup
+            Document document = change.getFullDocument();
+            if (document == null) {
+                removeJob(idOf(change.getDocumentKey()));
+            } else {
+                indexJob(mongoTemplate.getConverter().read(Job.class, document));
+            }
+        }
+    }
+
+    private void indexJob(Job job) {
+        if (Boolean.TRUE.equals(job.getIsActive())) {
+            put(index, snapshots, job);
+        } else {
+            removeJob(job.getId());
+        }
+    }
+
+    private void removeJob(String jobId) {
+        if (jobId == null) {
+            return;
+        }
+        snapshots.remove(jobId);
+        index.remove(jobId);
+    }
+
+    private void put(InvertedIndex target, Map<String, JobSnapshot> targetSnapshots, Job job) {
+        // Jobs saved before skills held names carry skill IDs there; index the names
+        String skills = String.join(" ", skillDictionary.namesOf(job.getSkills()));
+        target.put(job.getId(), job.getTitle(), skills, job.getRequirements(), job.getDescription());
+        targetSnapshots.put(job.getId(), JobSnapshot.of(job));
+    }
+
+    private InvertedIndex newIndex() {
+        LinkedHashMap<String, Float> boosts = new LinkedHashMap<>();
+        boosts.put("title", titleBoost);
+        boosts.put("skills", skillsBoost);
+        boosts.put("requirements", requirementsBoost);
+        boosts.put("description", descriptionBoost);
+        return new InvertedIndex(boosts);
+    }
+
+    private static String idOf(BsonDocument documentKey) {
+        BsonValue id = documentKey != null ? documentKey.get("_id") : null;
+        if (id == null) {
+            return null;
+        }
+        return id.isObjectId() ? id.asObjectId().getValue().toHexString() : id.asString().getValue();
+    }
+
+    private void pause() {
+        try {
+            Thread.sleep(retryDelayMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+}
@@ -4,11 +4,15 @@ import com.mynexjob.dto.common.PagedResponse;
 import com.mynexjob.dto.job.CreateJobRequest;
 import com.mynexjob.dto.job.JobDto;
 import com.mynexjob.dto.job.JobSearchRequest;
+import com.mynexjob.dto.job.JobSummary;
 import com.mynexjob.entity.Company;
 import com.mynexjob.entity.Job;
 
 import com.mynexjob.entity.User;
 import com.mynexjob.enums.JobCategory;
+import com.mynexjob.enums.SearchMode;
+import com.mynexjob.event.JobChangedEvent;
+import com.mynexjob.event.JobSnapshot;
 import com.mynexjob.exception.BadRequestException;
 import com.mynexjob.exception.ResourceNotFoundException;
 import com.mynexjob.mapper.JobMapper;
@@ -16,64 +20,249 @@ import com.mynexjob.repository.CompanyRepository;
 import com.mynexjob.repository.JobRepository;
 import com.mynexjob.repository.SkillRepository;
 import com.mynexjob.repository.UserRepository;
+import com.mynexjob.specification.JobKeysetCursor;
+import com.mynexjob.specification.JobSearchPipeline;
 import com.mynexjob.specification.JobSpecification;
+import com.mynexjob.util.InvertedIndex;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.TextQuery;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class JobService {
 
+    // Lookups of search index hits per page: the page itself, then replacements for stale hits
+    private static final int INDEX_BACKFILL_ROUNDS = 3;
+
+    private static final Document SUMMARY_PROJECTION = Document.parse(JobRepository.SUMMARY_FIELDS);
+
     private final JobRepository jobRepository;
     private final CompanyRepository companyRepository;
     private final SkillRepository skillRepository;
     private final UserRepository userRepository;
     private final JobMapper jobMapper;
     private final MongoTemplate mongoTemplate;
+    private final SkillDictionaryService skillDictionary;
+    private final MatchStoreService matchStoreService;
+    private final MatchFanOutService matchFanOutService;
+    private final JobSearchIndexService jobSearchIndexService;
+    private final CacheInvalidationService cacheInvalidationService;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${app.search.default-mode:REGEX}")
+    private SearchMode defaultSearchMode;
 
-    @Cacheable(value = "jobs", key = "#searchRequest.toString() + '_' + #pageable.toString()")
-    public PagedResponse<JobDto> searchJobs(JobSearchRequest searchRequest, Pageable pageable) {
+    @Value("${app.search.facets.salary-bands:0,300000,600000,1000000,1500000,2500000,5000000}")
+    private List<Long> salaryBands;
+
+    @Value("${app.search.facets.location-limit:20}")
+    private int facetLocationLimit;
+
+    @Cacheable(value = "jobs", key = "T(com.mynexjob.service.CacheInvalidationService).searchKey(#searchRequest, #pageable)")
+    public PagedResponse<JobSummary> searchJobs(JobSearchRequest searchRequest, Pageable pageable) {
         log.info("Searching jobs with criteria: {}", searchRequest);
 
-        Query query = JobSpecification.withCriteria(searchRequest);
-        query.with(pageable);
+        SearchMode mode = searchRequest.getSearchMode() != null ? searchRequest.getSearchMode() : defaultSearchMode;
+        boolean includeFacets = Boolean.TRUE.equals(searchRequest.getIncludeFacets());
+        if (searchRequest.getCursor() != null && !searchRequest.getCursor().isEmpty()) {
+            return searchAfter(searchRequest, pageable);
+        }
+        if (mode == SearchMode.INDEX) {
+            boolean hasKeyword = searchRequest.getKeyword() != null && !searchRequest.getKeyword().trim().isEmpty();
+            if (hasKeyword && jobSearchIndexService.isReady() && !includeFacets) {
+                return searchIndex(searchRequest, pageable);
+            }
+            // Nothing to rank, facets to count, or the index is still warming: MongoDB's text index serves it
+            mode = SearchMode.TEXT;
+        }
 
-        List<Job> jobs = mongoTemplate.find(query, Job.class);
-        long total = mongoTemplate.count(query.skip(0).limit(0), Job.class);
+        Query query = JobSpecification.withCriteria(searchRequest, mode);
+        // Sorts a cursor can continue are tie-broken by _id, so the next page picks up where this one ends
+        boolean keyset = !(query instanceof TextQuery) && JobKeysetCursor.supports(pageable.getSort());
+        Pageable ordered = keyset
+                ? PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), JobKeysetCursor.withTieBreaker(pageable.getSort()))
+                : pageable;
+
+        List<Job> jobs;
+        long total;
+        Map<String, Map<String, Long>> facets = null;
+        if (includeFacets) {
+            // Page, total and facets in one round trip
+            Document result = mongoTemplate.aggregate(
+                    JobSearchPipeline.build(query, ordered, includeFacets, salaryBands, facetLocationLimit, SUMMARY_PROJECTION),
+                    Document.class).getUniqueMappedResult();
+            jobs = JobSearchPipeline.pageOf(result).stream()
+                    .map(document -> mongoTemplate.getConverter().read(Job.class, document))
+                    .collect(java.util.stream.Collectors.toList());
+            total = JobSearchPipeline.totalOf(result);
+            facets = JobSearchPipeline.facetsOf(result, salaryBands);
+        } else {
+            // A find sorts and limits through the index on the sort key, which $sort inside $facet cannot;
+            // count before with() adds the page's skip and limit
+            total = mongoTemplate.count(query, Job.class);
+            jobs = mongoTemplate.find(withSummaryFields(query.with(ordered)), Job.class);
+        }
 
-        List<JobDto> jobDtos = jobs.stream()
-                .map(jobMapper::toDto)
+        List<JobSummary> summaries = jobs.stream()
+                .map(jobMapper::toSummary)
                 .collect(java.util.stream.Collectors.toList());
 
+        cacheInvalidationService.registerSearch(CacheInvalidationService.searchKey(searchRequest, pageable),
+                                                searchRequest, jobIdsOf(jobs));
+
         int totalPages = (int) Math.ceil((double) total / pageable.getPageSize());
+        boolean hasNext = pageable.getPageNumber() < totalPages - 1;
 
-        return PagedResponse.<JobDto>builder()
-                .content(jobDtos)
+        return PagedResponse.<JobSummary>builder()
+                .content(summaries)
                 .page(pageable.getPageNumber())
                 .size(pageable.getPageSize())
                 .totalElements(total)
                 .totalPages(totalPages)
                 .first(pageable.getPageNumber() == 0)
                 .last(pageable.getPageNumber() >= totalPages - 1)
-                .hasNext(pageable.getPageNumber() < totalPages - 1)
+                .hasNext(hasNext)
                 .hasPrevious(pageable.getPageNumber() > 0)
+                .nextCursor(keyset && hasNext && !jobs.isEmpty() ? nextCursor(jobs, pageable, pageable.getPageNumber() + 1) : null)
+                .facets(facets)
+                .build();
+    }
+
+    /**
+     * The page after a cursor, read by seeking past the last job served in (sort key, _id) order
+     * instead of skipping, so deep pages cost as much as the first. Relevance has no stable key to
+     * seek from, so keywords match as patterns and results follow the requested sort. Facets are
+     * not counted and the total only on request.
+     */
+    private PagedResponse<JobSummary> searchAfter(JobSearchRequest searchRequest, Pageable pageable) {
+        JobKeysetCursor cursor = JobKeysetCursor.decode(searchRequest.getCursor(), pageable.getSort());
+        Query filter = JobSpecification.withCriteria(searchRequest, SearchMode.REGEX);
+        long total = Boolean.TRUE.equals(searchRequest.getIncludeTotal()) ? mongoTemplate.count(filter, Job.class) : -1L;
+
+        List<Job> jobs = findAfter(filter, cursor, pageable);
+        boolean hasNext = jobs.size() > pageable.getPageSize();
+        if (hasNext) {
+            jobs = jobs.subList(0, pageable.getPageSize());
+        }
+
+        cacheInvalidationService.registerSearch(CacheInvalidationService.searchKey(searchRequest, pageable),
+                                                searchRequest, jobIdsOf(jobs));
+        return cursorPage(jobs, hasNext, cursor.getPage(), pageable, total);
+    }
+
+    /**
+     * Up to one job more than the page size after the cursor; the extra one only tells whether a next page exists
+     */
+    private List<Job> findAfter(Query filter, JobKeysetCursor cursor, Pageable pageable) {
+        Query query = filter.addCriteria(cursor.criteria())
+                .with(JobKeysetCursor.withTieBreaker(pageable.getSort()))
+                .limit(pageable.getPageSize() + 1);
+        return mongoTemplate.find(withSummaryFields(query), Job.class);
+    }
+
+    private static Query withSummaryFields(Query query) {
+        SUMMARY_PROJECTION.keySet().forEach(query.fields()::include);
+        return query;
+    }
+
+    private PagedResponse<JobSummary> cursorPage(List<Job> jobs, boolean hasNext, int page, Pageable pageable, long total) {
+        List<JobSummary> summaries = jobs.stream()
+                .map(jobMapper::toSummary)
+                .collect(java.util.stream.Collectors.toList());
+
+        return PagedResponse.<JobSummary>builder()
+                .content(summaries)
+                .page(page)
+                .size(pageable.getPageSize())
+                .totalElements(total)
+                .totalPages(total >= 0 ? (int) Math.ceil((double) total / pageable.getPageSize()) : -1)
+                .first(page == 0)
+                .last(!hasNext)
+                .hasNext(hasNext)
+                .hasPrevious(page > 0)
+                .nextCursor(hasNext && !jobs.isEmpty() ? nextCursor(jobs, pageable, page + 1) : null)
                 .build();
     }
 
+    private static String nextCursor(List<Job> jobs, Pageable pageable, int nextPage) {
+        return JobKeysetCursor.after(jobs.get(jobs.size() - 1), pageable.getSort(), nextPage).encode();
+    }
+
+    /**
+     * Rank with the in-process full-text index, then load the jobs of the requested page by ID.
+     * Results are ordered by relevance; the requested sort does not apply.
+     */
+    private PagedResponse<JobSummary> searchIndex(JobSearchRequest searchRequest, Pageable pageable) {
+        int offset = (int) pageable.getOffset();
+        int size = pageable.getPageSize();
+
+        // The index may still list jobs MongoDB has deactivated or deleted until its change stream
+        // catches up: skip those and fill the page from the hits after it, fetching more when they run out
+        int limit = offset + size + Math.max(1, size / 2);
+        InvertedIndex.Result result = jobSearchIndexService.search(searchRequest, limit);
+        List<Job> jobs = new ArrayList<>();
+        int stale = 0;
+        int next = offset;
+        for (int round = 0; jobs.size() < size && round < INDEX_BACKFILL_ROUNDS; round++) {
+            if (next + size - jobs.size() > result.getHits().size() && result.getHits().size() == limit) {
+                limit *= 2;
+                result = jobSearchIndexService.search(searchRequest, limit);
+            }
+            List<InvertedIndex.Hit> hits = result.getHits();
+            int end = Math.min(hits.size(), next + size - jobs.size());
+            if (next >= end) {
+                break;
+            }
+
+            List<String> hitIds = hits.subList(next, end).stream()
+                    .map(InvertedIndex.Hit::getKey)
+                    .collect(java.util.stream.Collectors.toList());
+            Map<String, Job> jobsById = new HashMap<>();
+            mongoTemplate.find(withSummaryFields(new Query(Criteria.where("id").in(hitIds))), Job.class)
+                    .forEach(job -> jobsById.put(job.getId(), job));
+            for (String jobId : hitIds) {
+                Job job = jobsById.get(jobId);
+                if (job != null && Boolean.TRUE.equals(job.getIsActive())) {
+                    jobs.add(job);
+                } else {
+                    stale++;
+                }
+            }
+            next = end;
+        }
+
+        cacheInvalidationService.registerSearch(CacheInvalidationService.searchKey(searchRequest, pageable),
+                                                searchRequest, jobIdsOf(jobs));
+
+        List<JobSummary> summaries = jobs.stream()
+                .map(jobMapper::toSummary)
+                .collect(java.util.stream.Collectors.toList());
+        // Stale hits ahead of the page are not checked, so the total may still count a few
+        return PagedResponse.ofOffset(summaries, offset, size, Math.max(0, result.getTotal() - stale), null);
+    }
+
     public JobDto getJobById(String jobId) {
         Job job = jobRepository.findByIdAndIsActiveTrue(jobId)
                 .orElseThrow(() -> new ResourceNotFoundException("Job not found with ID: " + jobId));
@@ -136,6 +325,7 @@ public class JobService {
                     .map(String::valueOf)
                     .collect(java.util.stream.Collectors.toList());
             job.setRequiredSkills(skillIds);
+            job.setSkills(skillDictionary.namesOf(skillIds));
 
             // Increment usage count for skills
             skillIds.forEach(skillId -> {
@@ -149,6 +339,14 @@ public class JobService {
         job = jobRepository.save(job);
         log.info("Job created successfully with ID: {}", job.getId());
 
+        if (Boolean.TRUE.equals(job.getAutoMatchCandidates())) {
+            matchFanOutService.enqueue(job);
+        } else {
+            matchStoreService.refreshForJob(job);
+        }
+        eventPublisher.publishEvent(new JobChangedEvent(JobChangedEvent.Type.CREATED, job.getId(),
+                                                        null, JobSnapshot.of(job)));
+
         return jobMapper.toDto(job);
     }
 
@@ -169,6 +367,7 @@ public class JobService {
         if (!company.getUserId().equals(user.getId())) {
             throw new BadRequestException("You don't have permission to update this job");
         }
+        JobSnapshot before = JobSnapshot.of(job);
 
         // Update job fields
         job.setTitle(request.getTitle());
@@ -199,11 +398,16 @@ public class JobService {
                     .map(String::valueOf)
                     .collect(java.util.stream.Collectors.toList());
             job.setRequiredSkills(skillIds);
+            job.setSkills(skillDictionary.namesOf(skillIds));
         }
 
         job = jobRepository.save(job);
         log.info("Job updated successfully with ID: {}", job.getId());
 
+        matchStoreService.refreshForJob(job);
+        eventPublisher.publishEvent(new JobChangedEvent(JobChangedEvent.Type.UPDATED, job.getId(),
+                                                        before, JobSnapshot.of(job)));
+
         return jobMapper.toDto(job);
     }
 
@@ -226,22 +430,42 @@ public class JobService {
         }
 
         // Soft delete
+        JobSnapshot before = JobSnapshot.of(job);
         job.setIsActive(false);
         jobRepository.save(job);
+        matchStoreService.removeForJob(job.getId());
+        eventPublisher.publishEvent(new JobChangedEvent(JobChangedEvent.Type.DELETED, job.getId(), before, null));
 
         log.info("Job deleted successfully with ID: {}", job.getId());
     }
 
     @Transactional(readOnly = true)
-    public PagedResponse<JobDto> getJobsByCompany(String companyId, Pageable pageable) {
-        Page<Job> jobPage = jobRepository.findByCompanyIdAndIsActiveTrue(companyId, pageable);
+    public PagedResponse<JobSummary> getJobsByCompany(String companyId, Pageable pageable, String cursor, boolean includeTotal) {
+        if (cursor != null && !cursor.isEmpty()) {
+            JobKeysetCursor position = JobKeysetCursor.decode(cursor, pageable.getSort());
+            Query filter = new Query(Criteria.where("companyId").is(companyId).and("isActive").is(true));
+            long total = includeTotal ? mongoTemplate.count(filter, Job.class) : -1L;
+
+            List<Job> jobs = findAfter(filter, position, pageable);
+            boolean hasNext = jobs.size() > pageable.getPageSize();
+            if (hasNext) {
+                jobs = jobs.subList(0, pageable.getPageSize());
+            }
+            return cursorPage(jobs, hasNext, position.getPage(), pageable, total);
+        }
+
+        boolean keyset = JobKeysetCursor.supports(pageable.getSort());
+        if (keyset) {
+            pageable = PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), JobKeysetCursor.withTieBreaker(pageable.getSort()));
+        }
+        Page<Job> jobPage = jobRepository.findSummariesByCompanyId(companyId, pageable);
 
-        List<JobDto> jobDtos = jobPage.getContent().stream()
-                .map(jobMapper::toDto)
+        List<JobSummary> summaries = jobPage.getContent().stream()
+                .map(jobMapper::toSummary)
                 .collect(java.util.stream.Collectors.toList());
 
-        return PagedResponse.<JobDto>builder()
-                .content(jobDtos)
+        return PagedResponse.<JobSummary>builder()
+                .content(summaries)
                 .page(jobPage.getNumber())
                 .size(jobPage.getSize())
                 .totalElements(jobPage.getTotalElements())
@@ -250,22 +474,30 @@ public class JobService {
                 .last(jobPage.isLast())
                 .hasNext(jobPage.hasNext())
                 .hasPrevious(jobPage.hasPrevious())
+                .nextCursor(keyset && jobPage.hasNext() && jobPage.hasContent()
+                        ? nextCursor(jobPage.getContent(), pageable, jobPage.getNumber() + 1) : null)
                 .build();
     }
 
-    @Cacheable(value = "jobs", key = "'featured'")
+    @Cacheable(value = "jobs", key = "T(com.mynexjob.service.CacheInvalidationService).FEATURED_KEY")
     @Transactional(readOnly = true)
-    public List<JobDto> getFeaturedJobs() {
+    public List<JobSummary> getFeaturedJobs() {
         Pageable pageable = PageRequest.of(0, 10, Sort.by("postedAt").descending());
         List<Job> jobs = jobRepository.findFeaturedJobs(pageable);
-        return jobs.stream().map(jobMapper::toDto).collect(java.util.stream.Collectors.toList());
+        cacheInvalidationService.registerListing(CacheInvalidationService.FEATURED_KEY, jobIdsOf(jobs));
+        return jobs.stream().map(jobMapper::toSummary).collect(java.util.stream.Collectors.toList());
     }
 
-    @Cacheable(value = "jobs", key = "'latest'")
+    @Cacheable(value = "jobs", key = "T(com.mynexjob.service.CacheInvalidationService).LATEST_KEY")
     @Transactional(readOnly = true)
-    public List<JobDto> getLatestJobs() {
+    public List<JobSummary> getLatestJobs() {
         Pageable pageable = PageRequest.of(0, 10, Sort.by("postedAt").descending());
         List<Job> jobs = jobRepository.findLatestJobs(pageable);
-        return jobs.stream().map(jobMapper::toDto).collect(java.util.stream.Collectors.toList());
+        cacheInvalidationService.registerListing(CacheInvalidationService.LATEST_KEY, jobIdsOf(jobs));
+        return jobs.stream().map(jobMapper::toSummary).collect(java.util.stream.Collectors.toList());
+    }
+
+    private static List<String> jobIdsOf(List<Job> jobs) {
+        return jobs.stream().map(Job::getId).collect(java.util.stream.Collectors.toList());
     }
 }
@@ -0,0 +1,201 @@
+package com.mynexjob.service;
+
+import com.mynexjob.entity.Job;
+import com.mynexjob.entity.UserProfile;
+import com.mynexjob.event.JobChangedEvent;
+import com.mynexjob.repository.JobRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory inverted index from normalized skill to the IDs of active, matching-enabled jobs.
+ * Lets candidate discovery score only the jobs that share at least one skill with a profile
+ * instead of every active job. The index follows the job change events of every node, relayed by
+ * ClusterEventBus.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class JobSkillIndexService {
+
+    private final JobRepository jobRepository;
+
+    private final Map<String, Set<String>> jobIdsBySkill = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> skillsByJobId = new ConcurrentHashMap<>();
+
+    // Jobs without required skills score 100% on skills for everyone, so they are always candidates
+    private final Set<String> jobIdsWithoutSkills = ConcurrentHashMap.newKeySet();
+
+    private volatile boolean ready = false;
+
+    @Value("${app.matching.skill-index.enabled:true}")
+    private Boolean skillIndexEnabled;
+
+    @Value("${app.matching.skill-index.score-all-when-no-skills:true}")
+    private Boolean scoreAllWhenNoSkills;
+
+    /**
+     * Build the index from all active, matching-enabled jobs
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        try {
+            List<Job> jobs = jobRepository.findByIsActiveTrueAndMatchingEnabledTrue();
+
+            synchronized (this) {
+                jobIdsBySkill.clear();
+                skillsByJobId.clear();
+                jobIdsWithoutSkills.clear();
+                jobs.forEach(this::addJob);
+                ready = true;
+            }
+
+            log.info("Job skill index built: {} jobs, {} distinct skills", jobs.size(), jobIdsBySkill.size());
+        } catch (Exception e) {
+            log.error("Failed to build job skill index, discovery will scan all jobs", e);
+        }
+    }
+
+    /**
+     * Re-index a job created, updated or deleted on this node or on another one, as it is stored now
+     */
+    @EventListener
+    public void onJobChanged(JobChangedEvent event) {
+        if (event.getJobId() == null) {
+            return;
+        }
+
+        Job job = jobRepository.findById(event.getJobId()).orElse(null);
+        if (job != null) {
+            indexJob(job);
+        } else {
+            removeJob(event.getJobId());
+        }
+    }
+
+    /**
+     * Add or refresh a job in the index. Inactive or non-matching jobs are removed.
+     */
+    private synchronized void indexJob(Job job) {
+        if (job == null || job.getId() == null) {
+            return;
+        }
+
+        removeJobEntries(job.getId());
+
+        if (Boolean.TRUE.equals(job.getIsActive()) && Boolean.TRUE.equals(job.getMatchingEnabled())) {
+            addJob(job);
+        }
+    }
+
+    /**
+     * Remove a job from the index
+     */
+    private synchronized void removeJob(String jobId) {
+        if (jobId != null) {
+            removeJobEntries(jobId);
+        }
+    }
+
+    /**
+     * Find the IDs of jobs that share at least one skill with the given skills,
+     * plus the jobs that do not require any skill.
+     */
+    public Set<String> findJobIdsBySkills(Collection<String> skills) {
+        Set<String> jobIds = new HashSet<>(jobIdsWithoutSkills);
+
+        if (skills != null) {
+            for (String skill : skills) {
+                String normalized = normalizeSkill(skill);
+                if (normalized.isEmpty()) {
+                    continue;
+                }
+                jobIds.addAll(jobIdsBySkill.getOrDefault(normalized, Collections.emptySet()));
+            }
+        }
+
+        return jobIds;
+    }
+
+    /**
+     * Resolve the active jobs worth scoring for a profile, falling back to
+     * all active jobs while the index is warming up
+     */
+    public List<Job> findCandidateJobs(UserProfile profile) {
+        if (!skillIndexEnabled || !ready) {
+            return jobRepository.findByIsActiveTrueAndMatchingEnabledTrue();
+        }
+
+        if (profile.getSkills() == null || profile.getSkills().isEmpty()) {
+            return scoreAllWhenNoSkills ? jobRepository.findByIsActiveTrueAndMatchingEnabledTrue() : new ArrayList<>();
+        }
+
+        Set<String> jobIds = findJobIdsBySkills(profile.getSkills());
+        if (jobIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        return jobRepository.findByIdInAndIsActiveTrueAndMatchingEnabledTrue(jobIds);
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public static String normalizeSkill(String skill) {
+        return skill == null ? "" : skill.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private void addJob(Job job) {
+        Set<String> skills = new HashSet<>();
+        for (String skill : job.getRequiredSkills()) {
+            String normalized = normalizeSkill(skill);
+            if (!normalized.isEmpty()) {
+                skills.add(normalized);
+            }
+        }
+
+        if (skills.isEmpty()) {
+            jobIdsWithoutSkills.add(job.getId());
+            return;
+        }
+
+        skillsByJobId.put(job.getId(), skills);
+        for (String skill : skills) {
+            jobIdsBySkill.computeIfAbsent(skill, key -> ConcurrentHashMap.newKeySet()).add(job.getId());
+        }
+    }
+
+    private void removeJobEntries(String jobId) {
+        jobIdsWithoutSkills.remove(jobId);
+
+        Set<String> skills = skillsByJobId.remove(jobId);
+        if (skills == null) {
+            return;
+        }
+
+        for (String skill : skills) {
+            Set<String> jobIds = jobIdsBySkill.get(skill);
+            if (jobIds != null) {
+                jobIds.remove(jobId);
+                if (jobIds.isEmpty()) {
+                    jobIdsBySkill.remove(skill);
+                }
+            }
+        }
+    }
+}
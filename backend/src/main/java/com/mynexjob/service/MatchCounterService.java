@@ -0,0 +1,91 @@
+package com.mynexjob.service;
+
+import com.mynexjob.entity.JobMatch;
+import com.mynexjob.entity.MatchCounter;
+import com.mynexjob.repository.MatchCounterRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Per-candidate and per-job counts of qualifying stored matches. The entity a refresh ran for is
+ * recounted outright; the entities on the other side of the changed rows are adjusted in place,
+ * so a refresh costs one bulk write however many counters it touches.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class MatchCounterService {
+
+    private final MatchCounterRepository matchCounterRepository;
+    private final MongoTemplate mongoTemplate;
+
+    public Optional<MatchCounter> find(String key) {
+        return matchCounterRepository.findById(key);
+    }
+
+    /**
+     * Store an exact count
+     */
+    public MatchCounter recount(String key, long count) {
+        MatchCounter counter = MatchCounter.builder()
+                .count(count)
+                .countedAt(LocalDateTime.now())
+                .build();
+        counter.setId(key);
+        return matchCounterRepository.save(counter);
+    }
+
+    public void remove(String key) {
+        matchCounterRepository.deleteById(key);
+    }
+
+    /**
+     * Adjust the counters of the entities whose qualifying rows changed. Counters that do not
+     * exist yet are left alone; they are recounted from the store on first read.
+     *
+     * @param replaced   previous versions of the rows that were overwritten or deleted
+     * @param saved      rows that were written
+     * @param counterKey counter each row counts towards
+     */
+    public void applyChanges(Collection<JobMatch> replaced, Collection<JobMatch> saved,
+                             Function<JobMatch, String> counterKey) {
+        Map<String, Long> deltas = new HashMap<>();
+        replaced.stream()
+                .filter(match -> Boolean.TRUE.equals(match.getQualifies()))
+                .forEach(match -> deltas.merge(counterKey.apply(match), -1L, Long::sum));
+        saved.stream()
+                .filter(match -> Boolean.TRUE.equals(match.getQualifies()))
+                .forEach(match -> deltas.merge(counterKey.apply(match), 1L, Long::sum));
+        deltas.values().removeIf(delta -> delta == 0);
+
+        if (deltas.isEmpty()) {
+            return;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        BulkOperations operations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, MatchCounter.class);
+        deltas.forEach((key, delta) -> operations.updateOne(
+                new Query(Criteria.where("_id").is(key)),
+                new Update().inc("count", delta).set("countedAt", now)));
+
+        try {
+            operations.execute();
+        } catch (Exception e) {
+            // Counters are derived data; a failed adjustment is corrected by the owner's next recount
+            log.warn("Failed to adjust {} match counters", deltas.size(), e);
+        }
+    }
+}
@@ -0,0 +1,413 @@
+package com.mynexjob.service;
+
+import com.mynexjob.dto.matching.MatchPair;
+import com.mynexjob.entity.Job;
+import com.mynexjob.entity.JobMatch;
+import com.mynexjob.entity.MatchFanOutTask;
+import com.mynexjob.entity.MatchNotification;
+import com.mynexjob.entity.User;
+import com.mynexjob.entity.UserProfile;
+import com.mynexjob.enums.FanOutStatus;
+import com.mynexjob.enums.NotificationStatus;
+import com.mynexjob.repository.JobRepository;
+import com.mynexjob.repository.MatchFanOutTaskRepository;
+import com.mynexjob.repository.UserRepository;
+import com.mynexjob.specification.CandidateSpecification;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.util.CloseableIterator;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Reverse match fan-out for newly posted jobs with autoMatchCandidates set. A task streams the
+ * matching-enabled candidates passing the job's strict filters through a cursor, scores them in
+ * batches, stores the qualifying matches for the recruiter and queues notifications for strong
+ * matches. Progress is checkpointed in match_fanout_tasks after every batch, and tasks run on a
+ * small low-priority pool paced to a candidate rate that backs off while requests are scoring.
+ * A failed task is retried from its checkpoint with exponential backoff. Once a task has visited
+ * every candidate, the job's stored matches are complete; the candidates' are not, since each of
+ * them only gained this one job.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class MatchFanOutService {
+
+    private final MatchFanOutTaskRepository taskRepository;
+    private final JobRepository jobRepository;
+    private final UserRepository userRepository;
+    private final MatchStoreService matchStoreService;
+    private final MatchScoringEngine matchScoringEngine;
+    private final MongoTemplate mongoTemplate;
+
+    @Value("${app.matching.fanout.enabled:true}")
+    private Boolean fanOutEnabled;
+
+    @Value("${app.matching.fanout.workers:1}")
+    private int workers;
+
+    @Value("${app.matching.fanout.batch-size:200}")
+    private int batchSize;
+
+    @Value("${app.matching.fanout.candidates-per-second:500}")
+    private int candidatesPerSecond;
+
+    @Value("${app.matching.fanout.yield-above-inflight-pairs:0}")
+    private int yieldAboveInFlightPairs;
+
+    @Value("${app.matching.fanout.max-yield-ms:5000}")
+    private long maxYieldMillis;
+
+    @Value("${app.matching.fanout.lease-seconds:120}")
+    private long leaseSeconds;
+
+    @Value("${app.matching.fanout.notify-threshold:85.0}")
+    private Double notifyThreshold;
+
+    @Value("${app.matching.fanout.ai-scoring:false}")
+    private Boolean aiScoring;
+
+    @Value("${app.matching.fanout.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${app.matching.fanout.retry-backoff-ms:30000}")
+    private long retryBackoffMillis;
+
+    @Value("${app.matching.fanout.retry-backoff-max-ms:900000}")
+    private long maxRetryBackoffMillis;
+
+    private final String nodeId = UUID.randomUUID().toString();
+    private ThreadPoolExecutor executor;
+    private ScheduledExecutorService retryScheduler;
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "match-fanout-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        };
+        // Unbounded queue: tasks are persisted, so queued work costs only a job ID
+        executor = new ThreadPoolExecutor(workers, workers, 60L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), threadFactory);
+        retryScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "match-fanout-retry");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // Running tasks stop at their next checkpoint and resume on the next start
+        retryScheduler.shutdownNow();
+        executor.shutdownNow();
+    }
+
+    /**
+     * Record a fan-out task for a newly posted job and start it in the background. With fan-out
+     * disabled the job gets the one-shot match refresh instead.
+     */
+    public void enqueue(Job job) {
+        if (!fanOutEnabled) {
+            matchStoreService.refreshForJob(job);
+            return;
+        }
+
+        MatchFanOutTask task = MatchFanOutTask.builder()
+                .status(FanOutStatus.PENDING)
+                .jobVersion(versionOf(job.getUpdatedAt()))
+                .build();
+        task.setId(job.getId());
+        taskRepository.save(task);
+        executor.execute(() -> run(job.getId()));
+    }
+
+    /**
+     * Pick up tasks left pending or running by a previous process, and failed tasks that still
+     * have attempts left (for instance after max-attempts was raised)
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeUnfinished() {
+        List<MatchFanOutTask> unfinished = taskRepository.findByStatusIn(
+                List.of(FanOutStatus.PENDING, FanOutStatus.RUNNING, FanOutStatus.FAILED));
+        int resumed = 0;
+        for (MatchFanOutTask task : unfinished) {
+            if (task.getStatus() == FanOutStatus.FAILED) {
+                if (attemptsOf(task) >= maxAttempts) {
+                    continue;
+                }
+                Query failed = new Query(Criteria.where("id").is(task.getId()).and("status").is(FanOutStatus.FAILED));
+                mongoTemplate.updateFirst(failed, new Update().set("status", FanOutStatus.PENDING).set("retryAt", null),
+                        MatchFanOutTask.class);
+                task.setRetryAt(null);
+            }
+            schedule(task.getId(), task.getRetryAt());
+            resumed++;
+        }
+        if (resumed > 0) {
+            log.info("Resuming {} unfinished match fan-out tasks", resumed);
+        }
+    }
+
+    private void run(String jobId) {
+        MatchFanOutTask task = claim(jobId);
+        if (task == null) {
+            return;
+        }
+
+        try {
+            Job job = jobRepository.findById(jobId).orElse(null);
+            if (job == null || !Boolean.TRUE.equals(job.getIsActive()) || !Boolean.TRUE.equals(job.getMatchingEnabled())) {
+                finish(task, FanOutStatus.COMPLETED, null);
+                return;
+            }
+
+            if (fanOut(job, task)) {
+                matchStoreService.recountForJob(jobId);
+                matchStoreService.markCompleteForJob(job);
+                finish(task, FanOutStatus.COMPLETED, null);
+                log.info("Match fan-out for job {} done: {} candidates scanned, {} qualified, {} notified",
+                        jobId, task.getScannedCount(), task.getQualifiedCount(), task.getNotifiedCount());
+            }
+        } catch (Exception e) {
+            log.error("Match fan-out for job {} failed after {} candidates", jobId, task.getScannedCount(), e);
+            fail(task, e.getMessage());
+        }
+    }
+
+    /**
+     * Stream and score the remaining candidates. Returns false when the task stopped early
+     * (shutdown or a lost lease) and should be resumed later.
+     */
+    private boolean fanOut(Job job, MatchFanOutTask task) {
+        Query query = CandidateSpecification.matchingCandidates(job);
+        if (task.getLastProfileId() != null) {
+            query.addCriteria(Criteria.where("id").gt(task.getLastProfileId()));
+        }
+        query.with(Sort.by(Sort.Direction.ASC, "id"));
+        query.cursorBatchSize(batchSize);
+
+        long startedAt = System.nanoTime();
+        long scannedThisRun = 0;
+        List<UserProfile> batch = new ArrayList<>(batchSize);
+
+        try (CloseableIterator<UserProfile> profiles = mongoTemplate.stream(query, UserProfile.class)) {
+            while (profiles.hasNext()) {
+                batch.add(profiles.next());
+                if (batch.size() < batchSize && profiles.hasNext()) {
+                    continue;
+                }
+
+                if (Thread.currentThread().isInterrupted() || !yieldToRequests()) {
+                    return false;
+                }
+                storeBatch(job, batch, task);
+                if (!checkpoint(task)) {
+                    log.warn("Lost the lease on match fan-out for job {}, stopping", job.getId());
+                    return false;
+                }
+
+                scannedThisRun += batch.size();
+                batch = new ArrayList<>(batchSize);
+                if (!pace(startedAt, scannedThisRun)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private void storeBatch(Job job, List<UserProfile> batch, MatchFanOutTask task) {
+        Map<String, User> candidates = userRepository.findAllById(batch.stream()
+                        .map(UserProfile::getUserId)
+                        .collect(Collectors.toList()))
+                .stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+
+        List<MatchPair> pairs = new ArrayList<>(batch.size());
+        for (UserProfile profile : batch) {
+            User candidate = candidates.get(profile.getUserId());
+            if (candidate != null) {
+                pairs.add(new MatchPair(candidate, profile, job));
+            }
+        }
+
+        List<JobMatch> stored = matchStoreService.storeFanOutBatch(pairs, aiScoring);
+
+        // Upserts on the pair-derived ID: a retried batch leaves queued or sent notifications as they are
+        LocalDateTime now = LocalDateTime.now();
+        BulkOperations notifications = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, MatchNotification.class);
+        int qualifying = 0;
+        for (JobMatch match : stored) {
+            if (match.getMatchPercentage() < notifyThreshold) {
+                continue;
+            }
+            notifications.upsert(new Query(Criteria.where("id").is(match.getId())), new Update()
+                    .setOnInsert("candidateId", match.getCandidateId())
+                    .setOnInsert("jobId", match.getJobId())
+                    .setOnInsert("matchPercentage", match.getMatchPercentage())
+                    .setOnInsert("status", NotificationStatus.PENDING)
+                    .setOnInsert("createdAt", now)
+                    .setOnInsert("updatedAt", now));
+            qualifying++;
+        }
+        int notified = qualifying > 0 ? notifications.execute().getUpserts().size() : 0;
+
+        task.setLastProfileId(batch.get(batch.size() - 1).getId());
+        task.setScannedCount(task.getScannedCount() + batch.size());
+        task.setQualifiedCount(task.getQualifiedCount() + stored.size());
+        task.setNotifiedCount(task.getNotifiedCount() + notified);
+    }
+
+    /**
+     * Claim a task that is pending and due, or running under a lease that expired, for this node
+     */
+    private MatchFanOutTask claim(String jobId) {
+        LocalDateTime now = LocalDateTime.now();
+        Query claimable = new Query(new Criteria().andOperator(
+                Criteria.where("id").is(jobId),
+                new Criteria().orOperator(
+                        Criteria.where("status").is(FanOutStatus.PENDING).and("retryAt").not().gt(now),
+                        Criteria.where("status").is(FanOutStatus.RUNNING).and("heartbeatAt").lt(now.minusSeconds(leaseSeconds)),
+                        Criteria.where("status").is(FanOutStatus.RUNNING).and("owner").is(nodeId))));
+        Update update = new Update()
+                .set("status", FanOutStatus.RUNNING)
+                .set("owner", nodeId)
+                .set("heartbeatAt", now);
+        return mongoTemplate.findAndModify(claimable, update, FindAndModifyOptions.options().returnNew(true),
+                MatchFanOutTask.class);
+    }
+
+    /**
+     * Save the progress of the task, provided this node still holds it
+     */
+    private boolean checkpoint(MatchFanOutTask task) {
+        Query owned = new Query(Criteria.where("id").is(task.getId()).and("owner").is(nodeId));
+        Update update = new Update()
+                .set("lastProfileId", task.getLastProfileId())
+                .set("scannedCount", task.getScannedCount())
+                .set("qualifiedCount", task.getQualifiedCount())
+                .set("notifiedCount", task.getNotifiedCount())
+                .set("heartbeatAt", LocalDateTime.now());
+        return mongoTemplate.updateFirst(owned, update, MatchFanOutTask.class).getModifiedCount() > 0;
+    }
+
+    private void finish(MatchFanOutTask task, FanOutStatus status, String error) {
+        Query owned = new Query(Criteria.where("id").is(task.getId()).and("owner").is(nodeId));
+        Update update = new Update()
+                .set("status", status)
+                .set("error", error)
+                .set("completedAt", LocalDateTime.now());
+        mongoTemplate.updateFirst(owned, update, MatchFanOutTask.class);
+    }
+
+    /**
+     * Record a failed run. The task goes back to pending and is retried from its checkpoint after
+     * an exponential backoff, or stays failed once it has used up its attempts.
+     */
+    private void fail(MatchFanOutTask task, String error) {
+        int attempts = attemptsOf(task) + 1;
+        Query owned = new Query(Criteria.where("id").is(task.getId()).and("owner").is(nodeId));
+        Update update = new Update()
+                .set("attempts", attempts)
+                .set("error", error);
+
+        if (attempts >= maxAttempts) {
+            update.set("status", FanOutStatus.FAILED).set("retryAt", null).set("completedAt", LocalDateTime.now());
+            mongoTemplate.updateFirst(owned, update, MatchFanOutTask.class);
+            log.error("Match fan-out for job {} gave up after {} attempts", task.getId(), attempts);
+            return;
+        }
+
+        long backoffMillis = Math.min(maxRetryBackoffMillis, retryBackoffMillis << Math.min(attempts - 1, 20));
+        LocalDateTime retryAt = LocalDateTime.now().plusNanos(TimeUnit.MILLISECONDS.toNanos(backoffMillis));
+        update.set("status", FanOutStatus.PENDING).set("retryAt", retryAt);
+        if (mongoTemplate.updateFirst(owned, update, MatchFanOutTask.class).getModifiedCount() > 0) {
+            log.info("Retrying match fan-out for job {} in {} ms (attempt {} of {})",
+                    task.getId(), backoffMillis, attempts + 1, maxAttempts);
+            schedule(task.getId(), retryAt);
+        }
+    }
+
+    // Run the task on the pool once its retry time, if any, has come
+    private void schedule(String jobId, LocalDateTime retryAt) {
+        long delayMillis = retryAt != null ? Duration.between(LocalDateTime.now(), retryAt).toMillis() : 0;
+        if (delayMillis <= 0) {
+            executor.execute(() -> run(jobId));
+        } else {
+            retryScheduler.schedule(() -> executor.execute(() -> run(jobId)), delayMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private static int attemptsOf(MatchFanOutTask task) {
+        return task.getAttempts() != null ? task.getAttempts() : 0;
+    }
+
+    /**
+     * Wait while requests are scoring, up to the yield limit. Returns false if interrupted.
+     */
+    private boolean yieldToRequests() {
+        long deadline = System.currentTimeMillis() + maxYieldMillis;
+        while (matchScoringEngine.getInFlightPairs() > yieldAboveInFlightPairs && System.currentTimeMillis() < deadline) {
+            if (!sleep(50)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Sleep as needed to keep this run at the configured candidate rate. Returns false if interrupted.
+     */
+    private boolean pace(long startedAt, long scanned) {
+        long targetMillis = scanned * 1000 / Math.max(1, candidatesPerSecond);
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
+        return targetMillis <= elapsedMillis || sleep(targetMillis - elapsedMillis);
+    }
+
+    private static boolean sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static Long versionOf(LocalDateTime updatedAt) {
+        return updatedAt != null ? updatedAt.toInstant(ZoneOffset.UTC).toEpochMilli() : 0L;
+    }
+}
@@ -0,0 +1,199 @@
+package com.mynexjob.service;
+
+import com.mynexjob.dto.matching.MatchingCriteria;
+import com.mynexjob.util.TokenEstimator;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Renders the candidate and job sections of match prompts in compact form. Free-text fields have
+ * their whitespace normalized, sentences already given by an earlier field of the same side
+ * dropped, and are truncated to a per-field token budget. Job sections are cached by job and
+ * version, so scoring one job against many candidates renders it once.
+ */
+@Service
+@RequiredArgsConstructor
+public class MatchPromptBuilder {
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern SENTENCE_BREAK = Pattern.compile("(?<=[.!?;])\\s+|\\s*[\\r\\n]+\\s*");
+    private static final Pattern NON_ALPHANUMERIC = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.openai.prompt.budget.description:300}")
+    private int descriptionBudget;
+
+    @Value("${app.openai.prompt.budget.requirements:250}")
+    private int requirementsBudget;
+
+    @Value("${app.openai.prompt.budget.responsibilities:200}")
+    private int responsibilitiesBudget;
+
+    @Value("${app.openai.prompt.budget.skills:120}")
+    private int skillsBudget;
+
+    @Value("${app.openai.prompt.budget.education:80}")
+    private int educationBudget;
+
+    @Value("${app.openai.prompt.budget.experience-summary:250}")
+    private int experienceSummaryBudget;
+
+    @Value("${app.openai.prompt.job-section-cache-size:1000}")
+    private int jobSectionCacheSize;
+
+    private Map<String, String> jobSections;
+    private DistributionSummary rawCandidateTokens;
+    private DistributionSummary compactCandidateTokens;
+    private DistributionSummary rawJobTokens;
+    private DistributionSummary compactJobTokens;
+    private Counter jobSectionHits;
+
+    @PostConstruct
+    public void init() {
+        jobSections = Collections.synchronizedMap(new LinkedHashMap<String, String>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                return size() > jobSectionCacheSize;
+            }
+        });
+
+        rawCandidateTokens = tokenSummary("candidate", "raw");
+        compactCandidateTokens = tokenSummary("candidate", "compacted");
+        rawJobTokens = tokenSummary("job", "raw");
+        compactJobTokens = tokenSummary("job", "compacted");
+        jobSectionHits = Counter.builder("ai.prompt.job.section.reused")
+                .description("Job prompt sections served from the precomputed cache")
+                .register(meterRegistry);
+    }
+
+    public String candidateSection(MatchingCriteria criteria) {
+        Set<String> seen = new HashSet<>();
+        String skills = compact(criteria.getCandidateSkills(), skillsBudget, seen);
+        String education = compact(criteria.getCandidateEducation(), educationBudget, seen);
+        String experienceSummary = compact(criteria.getCandidateExperienceSummary(), experienceSummaryBudget, seen);
+
+        rawCandidateTokens.record(TokenEstimator.estimate(criteria.getCandidateSkills())
+                + TokenEstimator.estimate(criteria.getCandidateEducation())
+                + TokenEstimator.estimate(criteria.getCandidateExperienceSummary()));
+        compactCandidateTokens.record(TokenEstimator.estimate(skills)
+                + TokenEstimator.estimate(education)
+                + TokenEstimator.estimate(experienceSummary));
+
+        return String.format(
+            "- Skills: %s\n" +
+            "- Education: %s\n" +
+            "- Experience Summary: %s\n" +
+            "- Years of Experience: %d\n" +
+            "- Location: %s\n" +
+            "- Open to Remote: %s\n",
+            skills,
+            education,
+            experienceSummary,
+            criteria.getCandidateExperience() != null ? criteria.getCandidateExperience() : 0,
+            criteria.getCandidateLocation(),
+            criteria.getCandidateOpenToRemote()
+        );
+    }
+
+    public String jobSection(MatchingCriteria criteria) {
+        if (criteria.getJobKey() == null) {
+            return renderJobSection(criteria);
+        }
+
+        String section = jobSections.get(criteria.getJobKey());
+        if (section != null) {
+            jobSectionHits.increment();
+            return section;
+        }
+
+        section = renderJobSection(criteria);
+        jobSections.put(criteria.getJobKey(), section);
+        return section;
+    }
+
+    private String renderJobSection(MatchingCriteria criteria) {
+        // Most specific fields first, so the description loses what they already say
+        Set<String> seen = new HashSet<>();
+        String requiredSkills = compact(criteria.getRequiredSkills(), skillsBudget, seen);
+        String requirements = compact(criteria.getJobRequirements(), requirementsBudget, seen);
+        String responsibilities = compact(criteria.getJobResponsibilities(), responsibilitiesBudget, seen);
+        String description = compact(criteria.getJobDescription(), descriptionBudget, seen);
+
+        rawJobTokens.record(TokenEstimator.estimate(criteria.getRequiredSkills())
+                + TokenEstimator.estimate(criteria.getJobRequirements())
+                + TokenEstimator.estimate(criteria.getJobResponsibilities())
+                + TokenEstimator.estimate(criteria.getJobDescription()));
+        compactJobTokens.record(TokenEstimator.estimate(requiredSkills)
+                + TokenEstimator.estimate(requirements)
+                + TokenEstimator.estimate(responsibilities)
+                + TokenEstimator.estimate(description));
+
+        return String.format(
+            "- Title: %s\n" +
+            "- Description: %s\n" +
+            "- Requirements: %s\n" +
+            "- Responsibilities: %s\n" +
+            "- Required Skills: %s\n" +
+            "- Location: %s\n" +
+            "- Remote Available: %s\n" +
+            "- Job Type: %s\n",
+            normalizeWhitespace(criteria.getJobTitle()),
+            description,
+            requirements,
+            responsibilities,
+            requiredSkills,
+            criteria.getJobLocation(),
+            criteria.getIsRemoteJob(),
+            criteria.getJobType()
+        );
+    }
+
+    /**
+     * Drop sentences already seen in an earlier field, normalize whitespace and cut to the token budget
+     */
+    private static String compact(String text, int budget, Set<String> seen) {
+        if (text == null || text.isEmpty()) {
+            return text;
+        }
+
+        StringBuilder kept = new StringBuilder();
+        for (String sentence : SENTENCE_BREAK.split(text)) {
+            String key = NON_ALPHANUMERIC.matcher(sentence.toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+            if (key.isEmpty() || !seen.add(key)) {
+                continue;
+            }
+            if (kept.length() > 0) {
+                kept.append(' ');
+            }
+            kept.append(normalizeWhitespace(sentence));
+        }
+
+        return TokenEstimator.truncate(kept.toString(), budget);
+    }
+
+    private static String normalizeWhitespace(String text) {
+        return text != null ? WHITESPACE.matcher(text).replaceAll(" ").trim() : null;
+    }
+
+    private DistributionSummary tokenSummary(String side, String stage) {
+        return DistributionSummary.builder("ai.prompt.section.tokens")
+                .tag("side", side)
+                .tag("stage", stage)
+                .description("Estimated tokens of the free-text fields of a prompt section")
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,256 @@
+package com.mynexjob.service;
+
+import com.mynexjob.dto.matching.MatchResult;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Function;
+
+/**
+ * Fans match scoring out over dedicated, bounded thread pools instead of the request thread.
+ * Rule-based scoring runs on a CPU-sized pool and AI scoring on a separate I/O pool. Each request
+ * is capped to a fixed number of concurrent workers and a deadline, after which the remaining
+ * work is cancelled and the results scored so far are returned, flagged as partial.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class MatchScoringEngine {
+
+    private final MatchingService matchingService;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.matching.engine.rule-pool-size:0}")
+    private int rulePoolSize;
+
+    @Value("${app.matching.engine.ai-pool-size:32}")
+    private int aiPoolSize;
+
+    @Value("${app.matching.engine.queue-capacity:1000}")
+    private int queueCapacity;
+
+    @Value("${app.matching.engine.per-request-concurrency:8}")
+    private int perRequestConcurrency;
+
+    @Value("${app.matching.engine.deadline-ms:10000}")
+    private long deadlineMillis;
+
+    private final AtomicInteger inFlightPairs = new AtomicInteger();
+
+    private ThreadPoolExecutor ruleExecutor;
+    private ThreadPoolExecutor aiExecutor;
+    private Counter rejectedCounter;
+    private Counter deadlineExceededCounter;
+    private Timer requestTimer;
+
+    @PostConstruct
+    public void init() {
+        int ruleThreads = rulePoolSize > 0 ? rulePoolSize : Runtime.getRuntime().availableProcessors();
+        ruleExecutor = newExecutor("match-rule-", ruleThreads);
+        aiExecutor = newExecutor("match-ai-", aiPoolSize);
+
+        Gauge.builder("matching.engine.queue.depth", ruleExecutor, executor -> executor.getQueue().size())
+                .tag("pool", "rule")
+                .description("Scoring tasks waiting for a worker thread")
+                .register(meterRegistry);
+        Gauge.builder("matching.engine.queue.depth", aiExecutor, executor -> executor.getQueue().size())
+                .tag("pool", "ai")
+                .description("Scoring tasks waiting for a worker thread")
+                .register(meterRegistry);
+        Gauge.builder("matching.engine.inflight.pairs", inFlightPairs, AtomicInteger::get)
+                .description("Candidate-job pairs currently being scored")
+                .register(meterRegistry);
+
+        rejectedCounter = Counter.builder("matching.engine.rejected")
+                .description("Scoring workers rejected because the pool queue was full")
+                .register(meterRegistry);
+        deadlineExceededCounter = Counter.builder("matching.engine.deadline.exceeded")
+                .description("Scoring requests cut short by their deadline")
+                .register(meterRegistry);
+        requestTimer = Timer.builder("matching.engine.request")
+                .description("Wall time to score all pairs of a request")
+                .register(meterRegistry);
+
+        log.info("Match scoring engine started: {} rule threads, {} AI threads, {} workers per request",
+                ruleThreads, aiPoolSize, perRequestConcurrency);
+    }
+
+    /**
+     * Candidate-job pairs being scored for requests right now, so background work can back off
+     */
+    public int getInFlightPairs() {
+        return inFlightPairs.get();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        ruleExecutor.shutdownNow();
+        aiExecutor.shutdownNow();
+    }
+
+    /**
+     * Score every item and return the non-null results in input order. Items that fail,
+     * or are not reached before the deadline, are left out and make the result partial.
+     */
+    public <T> Scored scoreAll(List<T> items, Function<T, MatchResult> scorer) {
+        return scoreInBatches(items, 1, batch -> Collections.singletonList(scorer.apply(batch.get(0))));
+    }
+
+    /**
+     * Score items in batches of {@code batchSize}, each batch handled by one call of the batch scorer,
+     * which must return one result (or null) per item of the batch. Returns the non-null results
+     * in input order; batches that fail, or are not reached before the deadline, are left out and
+     * make the result partial.
+     */
+    public <T> Scored scoreInBatches(List<T> items, int batchSize,
+                                                Function<List<T>, List<MatchResult>> batchScorer) {
+        if (items.isEmpty()) {
+            return new Scored(new ArrayList<>(), false);
+        }
+
+        List<List<T>> batches = new ArrayList<>();
+        int size = Math.max(1, batchSize);
+        for (int start = 0; start < items.size(); start += size) {
+            batches.add(items.subList(start, Math.min(start + size, items.size())));
+        }
+
+        ThreadPoolExecutor executor = matchingService.isRequestScoringAiBound() ? aiExecutor : ruleExecutor;
+        AtomicReferenceArray<List<MatchResult>> results = new AtomicReferenceArray<>(batches.size());
+        AtomicInteger nextIndex = new AtomicInteger();
+        AtomicBoolean cancelled = new AtomicBoolean(false);
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(deadlineMillis);
+        Timer.Sample sample = Timer.start(meterRegistry);
+
+        int workers = Math.min(Math.max(1, perRequestConcurrency), batches.size());
+        List<Future<?>> futures = new ArrayList<>(workers);
+
+        try {
+            for (int i = 0; i < workers; i++) {
+                try {
+                    futures.add(executor.submit(() -> drain(batches, batchScorer, results, nextIndex, cancelled, deadline)));
+                } catch (RejectedExecutionException e) {
+                    rejectedCounter.increment();
+                    break;
+                }
+            }
+
+            // Pool saturated: score on the calling thread rather than failing the request
+            if (futures.isEmpty()) {
+                drain(batches, batchScorer, results, nextIndex, cancelled, deadline);
+            }
+
+            awaitWorkers(futures, deadline);
+        } finally {
+            cancelled.set(true);
+            futures.forEach(future -> future.cancel(true));
+            sample.stop(requestTimer);
+        }
+
+        List<MatchResult> scored = new ArrayList<>(items.size());
+        boolean partial = false;
+        for (int i = 0; i < results.length(); i++) {
+            List<MatchResult> batchResults = results.get(i);
+            if (batchResults == null) {
+                partial = true;
+                continue;
+            }
+            for (MatchResult result : batchResults) {
+                if (result != null) {
+                    scored.add(result);
+                }
+            }
+        }
+        return new Scored(scored, partial);
+    }
+
+    private void awaitWorkers(List<Future<?>> futures, long deadline) {
+        for (Future<?> future : futures) {
+            try {
+                future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                deadlineExceededCounter.increment();
+                log.warn("Match scoring exceeded its {} ms deadline, returning partial results", deadlineMillis);
+                return;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ExecutionException e) {
+                log.error("Match scoring worker failed", e.getCause());
+            }
+        }
+    }
+
+    private <T> void drain(List<List<T>> batches, Function<List<T>, List<MatchResult>> batchScorer,
+                           AtomicReferenceArray<List<MatchResult>> results, AtomicInteger nextIndex,
+                           AtomicBoolean cancelled, long deadline) {
+        int index;
+        while (!cancelled.get() && !Thread.currentThread().isInterrupted() && System.nanoTime() < deadline
+                && (index = nextIndex.getAndIncrement()) < batches.size()) {
+            List<T> batch = batches.get(index);
+            inFlightPairs.addAndGet(batch.size());
+            try {
+                results.set(index, batchScorer.apply(batch));
+            } catch (Exception e) {
+                log.error("Error scoring batch of {} match pairs", batch.size(), e);
+            } finally {
+                inFlightPairs.addAndGet(-batch.size());
+            }
+        }
+    }
+
+    private ThreadPoolExecutor newExecutor(String namePrefix, int threads) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, namePrefix + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+
+        return new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), threadFactory, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * Results of one scoring request. Partial when some batches failed or were cut off by the
+     * deadline, so a ranking built from it may miss better matches and should not be reused.
+     */
+    public static final class Scored {
+        private final List<MatchResult> results;
+        private final boolean partial;
+
+        Scored(List<MatchResult> results, boolean partial) {
+            this.results = results;
+            this.partial = partial;
+        }
+
+        public List<MatchResult> getResults() {
+            return results;
+        }
+
+        public boolean isPartial() {
+            return partial;
+        }
+    }
+}
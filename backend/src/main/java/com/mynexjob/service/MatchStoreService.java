@@ -0,0 +1,504 @@
+package com.mynexjob.service;
+
+import com.mynexjob.dto.matching.MatchPair;
+import com.mynexjob.dto.matching.MatchResult;
+import com.mynexjob.entity.Job;
+import com.mynexjob.entity.JobMatch;
+import com.mynexjob.entity.MatchCounter;
+import com.mynexjob.entity.MatchStoreState;
+import com.mynexjob.entity.User;
+import com.mynexjob.entity.UserProfile;
+import com.mynexjob.enums.ScoreSource;
+import com.mynexjob.repository.JobMatchRepository;
+import com.mynexjob.repository.MatchStoreStateRepository;
+import com.mynexjob.repository.UserRepository;
+import com.mynexjob.specification.CandidateSpecification;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Maintains the materialized job_matches collection. Scores are recomputed only for the rows
+ * whose inputs changed, so discovery can read ranked matches instead of scoring every pair.
+ * It is also where AI refinement lands in two-phase scoring: requests answer with rule-based
+ * scores and queue a refresh here, and later requests read the refined rows. A candidate or job
+ * is read from the store only once a full refresh for its current version has completed
+ * (match_store_state); until then discovery scores it live.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class MatchStoreService {
+
+    private static final Sort BY_SCORE = Sort.by(Sort.Direction.DESC, "matchPercentage");
+
+    private final JobMatchRepository jobMatchRepository;
+    private final MatchStoreStateRepository matchStoreStateRepository;
+    private final UserRepository userRepository;
+    private final MatchingService matchingService;
+    private final JobSkillIndexService jobSkillIndexService;
+    private final MatchCounterService matchCounterService;
+    private final MongoTemplate mongoTemplate;
+
+    // Refreshes running per entity (or refined pair) and input version, so repeated page loads do not repeat the AI work
+    private final Set<String> refreshesInFlight = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Recompute the stored matches of a job against every matching-enabled candidate
+     */
+    @Async
+    public void refreshForJob(Job job) {
+        if (!Boolean.TRUE.equals(job.getIsActive()) || !Boolean.TRUE.equals(job.getMatchingEnabled())) {
+            removeForJob(job.getId());
+            return;
+        }
+
+        String refreshKey = "job:" + job.getId() + ":" + versionOf(job.getUpdatedAt());
+        if (!refreshesInFlight.add(refreshKey)) {
+            log.debug("Refresh already in flight for job {}", job.getId());
+            return;
+        }
+
+        try {
+            doRefreshForJob(job);
+        } finally {
+            refreshesInFlight.remove(refreshKey);
+        }
+    }
+
+    private void doRefreshForJob(Job job) {
+        // Candidates failing the strict filters never qualify, so only viable ones are loaded and scored
+        List<UserProfile> profiles = mongoTemplate.find(CandidateSpecification.matchingCandidates(job), UserProfile.class);
+        Map<String, User> candidates = userRepository.findAllById(profiles.stream()
+                        .map(UserProfile::getUserId)
+                        .collect(Collectors.toList()))
+                .stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+        Map<String, JobMatch> existing = jobMatchRepository.findByJobId(job.getId()).stream()
+                .collect(Collectors.toMap(JobMatch::getCandidateId, Function.identity(), (a, b) -> a));
+
+        Long jobVersion = versionOf(job.getUpdatedAt());
+        List<MatchPair> stalePairs = new ArrayList<>();
+
+        for (UserProfile profile : profiles) {
+            User candidate = candidates.get(profile.getUserId());
+            if (candidate == null) {
+                continue;
+            }
+
+            JobMatch current = existing.get(candidate.getId());
+            if (isUpToDate(current, jobVersion, versionOf(profile.getUpdatedAt()))) {
+                continue;
+            }
+
+            stalePairs.add(new MatchPair(candidate, profile, job));
+        }
+
+        List<JobMatch> updated = score(stalePairs);
+        boolean complete = updated.size() == stalePairs.size();
+
+        // Candidates that no longer pass the strict filters drop out of the store
+        Set<String> viableCandidateIds = candidates.keySet();
+        List<JobMatch> stale = existing.values().stream()
+                .filter(match -> !viableCandidateIds.contains(match.getCandidateId()))
+                .collect(Collectors.toList());
+
+        jobMatchRepository.deleteAll(stale);
+        jobMatchRepository.saveAll(updated);
+        log.info("Refreshed {} stored matches for job {} ({} removed)", updated.size(), job.getId(), stale.size());
+
+        matchCounterService.applyChanges(replacedBy(updated, stale, existing, JobMatch::getCandidateId), updated,
+                match -> MatchCounter.candidateKey(match.getCandidateId()));
+        matchCounterService.recount(MatchCounter.jobKey(job.getId()), jobMatchRepository.countByJobIdAndQualifiesTrue(job.getId()));
+        if (complete) {
+            markComplete(MatchCounter.jobKey(job.getId()), jobVersion);
+        }
+    }
+
+    /**
+     * Recompute the stored matches of a candidate against the jobs sharing their skills
+     */
+    @Async
+    public void refreshForCandidate(User candidate, UserProfile profile) {
+        if (!Boolean.TRUE.equals(profile.getMatchingEnabled())) {
+            removeForCandidate(candidate.getId());
+            return;
+        }
+
+        String refreshKey = "candidate:" + candidate.getId() + ":" + versionOf(profile.getUpdatedAt());
+        if (!refreshesInFlight.add(refreshKey)) {
+            log.debug("Refresh already in flight for candidate {}", candidate.getId());
+            return;
+        }
+
+        try {
+            doRefreshForCandidate(candidate, profile);
+        } finally {
+            refreshesInFlight.remove(refreshKey);
+        }
+    }
+
+    private void doRefreshForCandidate(User candidate, UserProfile profile) {
+        List<Job> jobs = jobSkillIndexService.findCandidateJobs(profile);
+        Map<String, JobMatch> existing = jobMatchRepository.findByCandidateId(candidate.getId()).stream()
+                .collect(Collectors.toMap(JobMatch::getJobId, Function.identity(), (a, b) -> a));
+
+        Long profileVersion = versionOf(profile.getUpdatedAt());
+        List<MatchPair> stalePairs = new ArrayList<>();
+        Set<String> currentJobIds = new HashSet<>();
+
+        for (Job job : jobs) {
+            currentJobIds.add(job.getId());
+
+            JobMatch current = existing.get(job.getId());
+            if (isUpToDate(current, versionOf(job.getUpdatedAt()), profileVersion)) {
+                continue;
+            }
+
+            stalePairs.add(new MatchPair(candidate, profile, job));
+        }
+
+        List<JobMatch> updated = score(stalePairs);
+        boolean complete = updated.size() == stalePairs.size();
+
+        // Jobs that no longer share a skill with the profile drop out of the store
+        List<JobMatch> stale = existing.values().stream()
+                .filter(match -> !currentJobIds.contains(match.getJobId()))
+                .collect(Collectors.toList());
+
+        jobMatchRepository.deleteAll(stale);
+        jobMatchRepository.saveAll(updated);
+        log.info("Refreshed {} stored matches for candidate {} ({} removed)",
+                updated.size(), candidate.getId(), stale.size());
+
+        matchCounterService.applyChanges(replacedBy(updated, stale, existing, JobMatch::getJobId), updated,
+                match -> MatchCounter.jobKey(match.getJobId()));
+        matchCounterService.recount(MatchCounter.candidateKey(candidate.getId()),
+                jobMatchRepository.countByCandidateIdAndQualifiesTrue(candidate.getId()));
+        if (complete) {
+            markComplete(MatchCounter.candidateKey(candidate.getId()), profileVersion);
+        }
+    }
+
+    /**
+     * Re-score with AI the pairs of stored rows that still hold a rule-based score, such as the
+     * RULE rows of a page discovery just served from the store. A pair already being refined by
+     * an earlier page load is skipped; rows AI could not score are left as they are.
+     */
+    @Async
+    public void refineRuleScored(List<MatchPair> pairs) {
+        if (!matchingService.isAiScoringEnabled()) {
+            return;
+        }
+
+        List<MatchPair> claimed = new ArrayList<>();
+        List<String> refreshKeys = new ArrayList<>();
+        for (MatchPair pair : pairs) {
+            String refreshKey = "pair:" + JobMatch.idFor(pair.getCandidate().getId(), pair.getJob().getId()) + ":" +
+                                versionOf(pair.getJob().getUpdatedAt()) + ":" + versionOf(pair.getProfile().getUpdatedAt());
+            if (refreshesInFlight.add(refreshKey)) {
+                claimed.add(pair);
+                refreshKeys.add(refreshKey);
+            }
+        }
+        if (claimed.isEmpty()) {
+            return;
+        }
+
+        try {
+            List<JobMatch> refined = score(claimed).stream()
+                    .filter(match -> match.getScoreSource() == ScoreSource.AI)
+                    .collect(Collectors.toList());
+            if (refined.isEmpty()) {
+                return;
+            }
+
+            List<JobMatch> replaced = new ArrayList<>();
+            jobMatchRepository.findAllById(refined.stream().map(JobMatch::getId).collect(Collectors.toList()))
+                    .forEach(replaced::add);
+
+            jobMatchRepository.saveAll(refined);
+            matchCounterService.applyChanges(replaced, refined, match -> MatchCounter.candidateKey(match.getCandidateId()));
+            matchCounterService.applyChanges(replaced, refined, match -> MatchCounter.jobKey(match.getJobId()));
+            log.debug("Refined {} of {} rule-scored stored matches with AI", refined.size(), claimed.size());
+        } finally {
+            refreshKeys.forEach(refreshesInFlight::remove);
+        }
+    }
+
+    /**
+     * Score one batch of a job's fan-out and store the qualifying matches. Rule-based scoring
+     * keeps the fan-out off the AI budget; with AI scoring on, candidate refreshes upgrade the
+     * rows later. Returns the stored matches.
+     */
+    public List<JobMatch> storeFanOutBatch(List<MatchPair> pairs, boolean useAI) {
+        if (pairs.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        List<MatchResult> results = useAI ? matchingService.calculateMatches(pairs) : matchingService.calculateRuleMatches(pairs);
+        List<JobMatch> qualifying = new ArrayList<>();
+        for (int i = 0; i < pairs.size(); i++) {
+            JobMatch match = toJobMatch(pairs.get(i), results.get(i));
+            if (match.getQualifies()) {
+                qualifying.add(match);
+            }
+        }
+
+        // Rows a concurrent refresh already wrote for these pairs are replaced, not double counted
+        List<JobMatch> replaced = new ArrayList<>();
+        jobMatchRepository.findAllById(qualifying.stream().map(JobMatch::getId).collect(Collectors.toList()))
+                .forEach(replaced::add);
+
+        jobMatchRepository.saveAll(qualifying);
+        matchCounterService.applyChanges(replaced, qualifying, match -> MatchCounter.candidateKey(match.getCandidateId()));
+        return qualifying;
+    }
+
+    /**
+     * Recount a job's qualifying stored matches into its counter
+     */
+    public void recountForJob(String jobId) {
+        matchCounterService.recount(MatchCounter.jobKey(jobId), jobMatchRepository.countByJobIdAndQualifiesTrue(jobId));
+    }
+
+    public void removeForJob(String jobId) {
+        List<JobMatch> qualifying = jobMatchRepository.findByJobIdAndQualifiesTrue(jobId);
+        jobMatchRepository.deleteByJobId(jobId);
+
+        matchCounterService.applyChanges(qualifying, new ArrayList<>(), match -> MatchCounter.candidateKey(match.getCandidateId()));
+        matchCounterService.remove(MatchCounter.jobKey(jobId));
+        matchStoreStateRepository.deleteById(MatchCounter.jobKey(jobId));
+    }
+
+    public void removeForCandidate(String candidateId) {
+        List<JobMatch> qualifying = jobMatchRepository.findByCandidateIdAndQualifiesTrue(candidateId);
+        jobMatchRepository.deleteByCandidateId(candidateId);
+
+        matchCounterService.applyChanges(qualifying, new ArrayList<>(), match -> MatchCounter.jobKey(match.getJobId()));
+        matchCounterService.remove(MatchCounter.candidateKey(candidateId));
+        matchStoreStateRepository.deleteById(MatchCounter.candidateKey(candidateId));
+    }
+
+    /**
+     * Maintained count of a candidate's qualifying stored matches, recounted from the store when
+     * the counter is missing. Empty until the candidate's stored matches are complete for their
+     * current profile, since a count over partial rows is not exact.
+     */
+    public Optional<MatchCounter> findMatchCountForCandidate(String candidateId, UserProfile profile) {
+        if (!isCompleteForCandidate(candidateId, profile)) {
+            return Optional.empty();
+        }
+        String key = MatchCounter.candidateKey(candidateId);
+        Optional<MatchCounter> counter = matchCounterService.find(key);
+        if (counter.isPresent()) {
+            return counter;
+        }
+        return Optional.of(matchCounterService.recount(key, jobMatchRepository.countByCandidateIdAndQualifiesTrue(candidateId)));
+    }
+
+    /**
+     * Maintained count of a job's qualifying stored matches, recounted from the store when
+     * the counter is missing. Empty until the job's stored matches are complete for its current version.
+     */
+    public Optional<MatchCounter> findMatchCountForJob(Job job) {
+        if (!isCompleteForJob(job)) {
+            return Optional.empty();
+        }
+        String key = MatchCounter.jobKey(job.getId());
+        Optional<MatchCounter> counter = matchCounterService.find(key);
+        if (counter.isPresent()) {
+            return counter;
+        }
+        return Optional.of(matchCounterService.recount(key, jobMatchRepository.countByJobIdAndQualifiesTrue(job.getId())));
+    }
+
+    /**
+     * Whether the candidate's stored matches are complete for their current profile, so
+     * discovery can read them instead of scoring
+     */
+    public boolean isCompleteForCandidate(String candidateId, UserProfile profile) {
+        return isComplete(MatchCounter.candidateKey(candidateId), versionOf(profile.getUpdatedAt()));
+    }
+
+    /**
+     * Whether the job's stored matches are complete for its current version
+     */
+    public boolean isCompleteForJob(Job job) {
+        return isComplete(MatchCounter.jobKey(job.getId()), versionOf(job.getUpdatedAt()));
+    }
+
+    /**
+     * Record that the job's stored matches are complete for its current version, after a fan-out
+     * visited every candidate. Fan-out rows never complete a candidate.
+     */
+    public void markCompleteForJob(Job job) {
+        markComplete(MatchCounter.jobKey(job.getId()), versionOf(job.getUpdatedAt()));
+    }
+
+    private boolean isComplete(String key, Long inputVersion) {
+        return matchStoreStateRepository.findById(key)
+                .map(state -> inputVersion.equals(state.getInputVersion()))
+                .orElse(false);
+    }
+
+    private void markComplete(String key, Long inputVersion) {
+        MatchStoreState state = MatchStoreState.builder()
+                .inputVersion(inputVersion)
+                .completedAt(LocalDateTime.now())
+                .build();
+        state.setId(key);
+        matchStoreStateRepository.save(state);
+    }
+
+    /**
+     * Qualifying matches of a candidate, highest score first
+     */
+    public List<JobMatch> findQualifyingMatchesForCandidate(String candidateId, long offset, int limit) {
+        Query query = new Query(Criteria.where("candidateId").is(candidateId).and("qualifies").is(true))
+                .with(BY_SCORE)
+                .skip(offset)
+                .limit(limit);
+        return mongoTemplate.find(query, JobMatch.class);
+    }
+
+    public long countQualifyingMatchesForCandidate(String candidateId) {
+        return jobMatchRepository.countByCandidateIdAndQualifiesTrue(candidateId);
+    }
+
+    public long countQualifyingMatchesForJob(String jobId) {
+        return jobMatchRepository.countByJobIdAndQualifiesTrue(jobId);
+    }
+
+    /**
+     * Qualifying matches of a job, highest score first, with the prioritized candidates
+     * (e.g. applicants) ranked ahead of everyone else
+     */
+    public List<JobMatch> findQualifyingMatchesForJob(String jobId, Collection<String> prioritizedCandidateIds,
+                                                      long offset, int limit) {
+        List<JobMatch> matches = new ArrayList<>();
+
+        long prioritizedCount = 0;
+        if (!prioritizedCandidateIds.isEmpty()) {
+            Criteria prioritized = qualifyingForJob(jobId).and("candidateId").in(prioritizedCandidateIds);
+            prioritizedCount = mongoTemplate.count(new Query(prioritized), JobMatch.class);
+
+            if (offset < prioritizedCount) {
+                Query query = new Query(prioritized).with(BY_SCORE).skip(offset).limit(limit);
+                matches.addAll(mongoTemplate.find(query, JobMatch.class));
+            }
+        }
+
+        int remaining = limit - matches.size();
+        if (remaining > 0) {
+            Criteria others = qualifyingForJob(jobId);
+            if (!prioritizedCandidateIds.isEmpty()) {
+                others = others.and("candidateId").nin(prioritizedCandidateIds);
+            }
+
+            Query query = new Query(others).with(BY_SCORE)
+                    .skip(Math.max(0, offset - prioritizedCount))
+                    .limit(remaining);
+            matches.addAll(mongoTemplate.find(query, JobMatch.class));
+        }
+
+        return matches;
+    }
+
+    /**
+     * Score pairs in batches so AI scoring can pack several pairs into one prompt
+     */
+    private List<JobMatch> score(List<MatchPair> pairs) {
+        List<JobMatch> matches = new ArrayList<>(pairs.size());
+        int batchSize = matchingService.getScoringBatchSize();
+
+        for (int start = 0; start < pairs.size(); start += batchSize) {
+            List<MatchPair> batch = pairs.subList(start, Math.min(start + batchSize, pairs.size()));
+            try {
+                List<MatchResult> results = matchingService.calculateMatches(batch);
+                for (int i = 0; i < batch.size(); i++) {
+                    matches.add(toJobMatch(batch.get(i), results.get(i)));
+                }
+            } catch (Exception e) {
+                log.error("Error calculating {} stored matches starting at candidate {} and job {}",
+                         batch.size(), batch.get(0).getCandidate().getId(), batch.get(0).getJob().getId(), e);
+            }
+        }
+
+        return matches;
+    }
+
+    private JobMatch toJobMatch(MatchPair pair, MatchResult result) {
+        String candidateId = pair.getCandidate().getId();
+        Job job = pair.getJob();
+        boolean passesStrictFilters = Boolean.TRUE.equals(result.getPassesStrictFilters());
+        boolean meetsThreshold = Boolean.TRUE.equals(result.getMeetsMinimumThreshold());
+
+        JobMatch match = JobMatch.builder()
+                .candidateId(candidateId)
+                .jobId(job.getId())
+                .matchPercentage(result.getMatchPercentage())
+                .passesStrictFilters(passesStrictFilters)
+                .meetsMinimumThreshold(meetsThreshold)
+                .qualifies(passesStrictFilters && meetsThreshold)
+                .breakdown(result.getBreakdown())
+                .scoreSource(result.getScoreSource())
+                .filterReasons(result.getFilterReasons())
+                .jobVersion(versionOf(job.getUpdatedAt()))
+                .profileVersion(versionOf(pair.getProfile().getUpdatedAt()))
+                .computedAt(LocalDateTime.now())
+                .build();
+        match.setId(JobMatch.idFor(candidateId, job.getId()));
+        return match;
+    }
+
+    /**
+     * A stored row is current when its inputs are unchanged and, with AI scoring on,
+     * it already holds the AI score rather than a rule-based fallback
+     */
+    private boolean isUpToDate(JobMatch current, Long jobVersion, Long profileVersion) {
+        if (current == null || !current.isComputedFrom(jobVersion, profileVersion)) {
+            return false;
+        }
+        return current.getScoreSource() == ScoreSource.AI || !matchingService.isAiScoringEnabled();
+    }
+
+    // Previous versions of the rows a refresh overwrote or deleted
+    private static List<JobMatch> replacedBy(List<JobMatch> updated, List<JobMatch> removed,
+                                             Map<String, JobMatch> existing, Function<JobMatch, String> existingKey) {
+        List<JobMatch> replaced = new ArrayList<>(removed);
+        for (JobMatch match : updated) {
+            JobMatch previous = existing.get(existingKey.apply(match));
+            if (previous != null) {
+                replaced.add(previous);
+            }
+        }
+        return replaced;
+    }
+
+    private static Criteria qualifyingForJob(String jobId) {
+        return Criteria.where("jobId").is(jobId).and("qualifies").is(true);
+    }
+
+    private static Long versionOf(LocalDateTime updatedAt) {
+        return updatedAt != null ? updatedAt.toInstant(ZoneOffset.UTC).toEpochMilli() : 0L;
+    }
+}
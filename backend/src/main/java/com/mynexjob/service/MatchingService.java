@@ -1,10 +1,14 @@
 package com.mynexjob.service;
 
+import com.mynexjob.dto.matching.MatchPair;
 import com.mynexjob.dto.matching.MatchResult;
 import com.mynexjob.dto.matching.MatchingCriteria;
 import com.mynexjob.entity.Job;
 import com.mynexjob.entity.User;
 import com.mynexjob.entity.UserProfile;
+import com.mynexjob.enums.ScoreSource;
+import com.mynexjob.exception.AiServiceUnavailableException;
+import com.mynexjob.specification.CandidateSpecification;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
@@ -12,6 +16,7 @@ import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.UUID;
 import java.util.stream.Collectors;
@@ -22,6 +27,7 @@ import java.util.stream.Collectors;
 public class MatchingService {
 
     private final AIMatchingService aiMatchingService;
+    private final SkillDictionaryService skillDictionaryService;
 
     @Value("${app.matching.minimum-threshold:70.0}")
     private Double minimumMatchThreshold;
@@ -29,14 +35,44 @@ public class MatchingService {
     @Value("${app.matching.enable-ai:true}")
     private Boolean enableAI;
 
+    @Value("${app.matching.two-phase-enabled:true}")
+    private Boolean twoPhaseEnabled;
+
+    /**
+     * Whether scoring may call the AI service, which makes it I/O-bound
+     */
+    public boolean isAiScoringEnabled() {
+        return enableAI && aiMatchingService.isAvailable();
+    }
+
+    /**
+     * Whether request-path scoring is rule-based only, with the AI refinement done in the background
+     */
+    public boolean isTwoPhaseScoringEnabled() {
+        return twoPhaseEnabled && isAiScoringEnabled();
+    }
+
+    /**
+     * Whether request-path scoring calls the AI service and so belongs on the I/O-bound pool
+     */
+    public boolean isRequestScoringAiBound() {
+        return isAiScoringEnabled() && !twoPhaseEnabled;
+    }
+
     /**
      * Calculate match between a candidate and a job
      */
     public MatchResult calculateMatch(User candidate, Job job) {
+        return calculateMatch(candidate, candidate.getUserProfile(), job);
+    }
+
+    /**
+     * Calculate match between a candidate and a job using an already loaded profile
+     */
+    public MatchResult calculateMatch(User candidate, UserProfile profile, Job job) {
         log.debug("Calculating match between candidate {} and job {}", 
                  candidate.getId(), job.getId());
 
-        UserProfile profile = candidate.getUserProfile();
         if (profile == null) {
             log.warn("Candidate {} has no profile", candidate.getId());
             return createNoMatchResult(candidate.getId(), job.getId(),
@@ -55,53 +91,140 @@ public class MatchingService {
 
         // Step 2: Calculate AI-powered match percentage
         MatchingCriteria criteria = buildMatchingCriteria(candidate, profile, job);
-        MatchResult.MatchBreakdown breakdown = calculateMatchBreakdown(criteria);
+        if (enableAI && !aiMatchingService.isCircuitOpen()) {
+            try {
+                return createScoredResult(candidate.getId(), job.getId(), aiMatchingService.calculateAIMatch(criteria),
+                                          aiSource());
+            } catch (AiServiceUnavailableException e) {
+                log.warn("AI matching unavailable, falling back to rule-based matching: {}", e.getMessage());
+            } catch (Exception e) {
+                log.error("AI matching failed, falling back to rule-based matching", e);
+            }
+        }
 
+        return createScoredResult(candidate.getId(), job.getId(), calculateRuleBasedMatch(criteria), ScoreSource.RULE);
+    }
+
+    private MatchResult createScoredResult(String candidateId, String jobId, MatchResult.MatchBreakdown breakdown,
+                                           ScoreSource scoreSource) {
         double overallMatch = breakdown.getOverallMatch();
         boolean meetsThreshold = overallMatch >= minimumMatchThreshold;
 
         log.debug("Match calculated: {}% for candidate {} and job {}", 
-                 overallMatch, candidate.getId(), job.getId());
+                 overallMatch, candidateId, jobId);
 
         return MatchResult.builder()
-                .candidateId(candidate.getId())
-                .jobId(job.getId())
+                .candidateId(candidateId)
+                .jobId(jobId)
                 .matchPercentage(overallMatch)
                 .passesStrictFilters(true)
                 .meetsMinimumThreshold(meetsThreshold)
+                .scoreSource(scoreSource)
                 .breakdown(breakdown)
                 .filterReasons(new ArrayList<>())
                 .build();
     }
 
     /**
-     * Apply strict filtering rules (salary and experience)
+     * Calculate matches for several candidate-job pairs. Pairs passing the strict filters are
+     * scored together with batched AI prompts; only the pairs the AI could not score fall back
+     * to rule-based matching. Results are returned in input order.
      */
-    private boolean applyStrictFilters(UserProfile profile, Job job, List<String> reasons) {
-        boolean passes = true;
+    public List<MatchResult> calculateMatches(List<MatchPair> pairs) {
+        return calculateMatches(pairs, enableAI);
+    }
+
+    /**
+     * Calculate matches on the request path. In two-phase mode only rule-based scores are
+     * computed here and the AI refinement is left to the background match store refresh.
+     */
+    public List<MatchResult> calculateRequestMatches(List<MatchPair> pairs) {
+        return calculateMatches(pairs, enableAI && !isTwoPhaseScoringEnabled());
+    }
+
+    /**
+     * Calculate matches with rule-based scoring only, for cheap estimates such as approximate counts
+     */
+    public List<MatchResult> calculateRuleMatches(List<MatchPair> pairs) {
+        return calculateMatches(pairs, false);
+    }
+
+    private List<MatchResult> calculateMatches(List<MatchPair> pairs, boolean useAI) {
+        List<MatchResult> results = new ArrayList<>(Collections.nCopies(pairs.size(), null));
+        List<Integer> scoredIndexes = new ArrayList<>();
+        List<MatchingCriteria> criteriaList = new ArrayList<>();
+
+        for (int i = 0; i < pairs.size(); i++) {
+            MatchPair pair = pairs.get(i);
+            User candidate = pair.getCandidate();
+            Job job = pair.getJob();
+
+            if (pair.getProfile() == null) {
+                log.warn("Candidate {} has no profile", candidate.getId());
+                results.set(i, createNoMatchResult(candidate.getId(), job.getId(),
+                                                   List.of("Candidate profile not complete")));
+                continue;
+            }
 
-        // Salary filter: job offered salary >= candidate expected salary
-        if (profile.getExpectedSalary() != null && job.getSalaryMax() != null) {
-            if (job.getSalaryMax().compareTo(profile.getExpectedSalary()) < 0) {
-                reasons.add("Offered salary below expectation");
-                passes = false;
+            List<String> filterReasons = new ArrayList<>();
+            if (!applyStrictFilters(pair.getProfile(), job, filterReasons)) {
+                results.set(i, createFilteredResult(candidate.getId(), job.getId(), filterReasons));
+                continue;
             }
-        } else if (profile.getExpectedSalary() != null && job.getSalaryMin() != null) {
-            if (job.getSalaryMin().compareTo(profile.getExpectedSalary()) < 0) {
-                reasons.add("Offered salary below expectation");
-                passes = false;
+
+            scoredIndexes.add(i);
+            criteriaList.add(buildMatchingCriteria(candidate, pair.getProfile(), job));
+        }
+
+        List<MatchResult.MatchBreakdown> breakdowns = new ArrayList<>(Collections.nCopies(criteriaList.size(), null));
+        // With the circuit open, skip straight to rule-based scoring instead of building prompts
+        if (useAI && !criteriaList.isEmpty() && !aiMatchingService.isCircuitOpen()) {
+            try {
+                breakdowns = aiMatchingService.calculateAIMatchBatch(criteriaList);
+            } catch (Exception e) {
+                log.error("Batched AI matching failed, falling back to rule-based matching", e);
             }
         }
 
-        // Experience filter: candidate experience >= required experience
-        if (profile.getExperienceYears() != null && job.getExperienceMin() != null) {
-            if (profile.getExperienceYears() < job.getExperienceMin()) {
-                reasons.add("Insufficient experience");
-                passes = false;
+        for (int i = 0; i < scoredIndexes.size(); i++) {
+            MatchPair pair = pairs.get(scoredIndexes.get(i));
+            MatchResult.MatchBreakdown breakdown = breakdowns.get(i);
+            ScoreSource scoreSource = aiSource();
+            if (breakdown == null) {
+                breakdown = calculateRuleBasedMatch(criteriaList.get(i));
+                scoreSource = ScoreSource.RULE;
             }
+            results.set(scoredIndexes.get(i),
+                        createScoredResult(pair.getCandidate().getId(), pair.getJob().getId(), breakdown, scoreSource));
         }
 
-        return passes;
+        return results;
+    }
+
+    /**
+     * Number of pairs worth handing to {@link #calculateMatches(List)} at once
+     */
+    public int getScoringBatchSize() {
+        return isAiScoringEnabled() ? aiMatchingService.getBatchSize() : 1;
+    }
+
+    /**
+     * Number of pairs worth handing to {@link #calculateRequestMatches(List)} at once
+     */
+    public int getRequestBatchSize() {
+        return isRequestScoringAiBound() ? aiMatchingService.getBatchSize() : 1;
+    }
+
+    // Without an OpenAI client the AI service answers with a fixed fallback, which is not an AI score
+    private ScoreSource aiSource() {
+        return aiMatchingService.isAvailable() ? ScoreSource.AI : ScoreSource.RULE;
+    }
+
+    /**
+     * Apply strict filtering rules (salary and experience)
+     */
+    private boolean applyStrictFilters(UserProfile profile, Job job, List<String> reasons) {
+        return CandidateSpecification.passesStrictFilters(profile, job, reasons);
     }
 
     /**
@@ -110,7 +233,7 @@ public class MatchingService {
     private MatchingCriteria buildMatchingCriteria(User candidate, UserProfile profile, Job job) {
         return MatchingCriteria.builder()
                 .expectedSalary(profile.getExpectedSalary())
-                .offeredSalary(job.getSalaryMax() != null ? job.getSalaryMax() : job.getSalaryMin())
+                .offeredSalary(CandidateSpecification.offeredSalary(job))
                 .candidateExperience(profile.getExperienceYears())
                 .requiredExperience(job.getExperienceMin())
                 
@@ -121,12 +244,15 @@ public class MatchingService {
                         .collect(Collectors.joining("; ")))
                 .candidateSummary(profile.getSummary())
                 
+                .jobKey(job.getId() != null ? job.getId() + ":" + job.getUpdatedAt() : null)
                 .jobTitle(job.getTitle())
                 .jobDescription(job.getDescription())
                 .jobRequirements(job.getRequirements())
                 .jobResponsibilities(job.getResponsibilities())
                 .requiredSkills(job.getRequiredSkills().stream()
                         .collect(Collectors.joining(", ")))
+                .candidateSkillCodes(skillDictionaryService.skillCodesOf(profile))
+                .requiredSkillCodes(skillDictionaryService.skillCodesOf(job))
                 
                 .jobLocation(job.getLocation())
                 .candidateLocation(candidate.getLocation())
@@ -136,27 +262,11 @@ public class MatchingService {
                 .build();
     }
 
-    /**
-     * Calculate detailed match breakdown
-     */
-    private MatchResult.MatchBreakdown calculateMatchBreakdown(MatchingCriteria criteria) {
-        if (enableAI) {
-            try {
-                return aiMatchingService.calculateAIMatch(criteria);
-            } catch (Exception e) {
-                log.error("AI matching failed, falling back to rule-based matching", e);
-            }
-        }
-
-        // Fallback to rule-based matching
-        return calculateRuleBasedMatch(criteria);
-    }
-
     /**
      * Rule-based matching as fallback
      */
     private MatchResult.MatchBreakdown calculateRuleBasedMatch(MatchingCriteria criteria) {
-        double skillsMatch = calculateSkillsMatch(criteria.getCandidateSkills(), criteria.getRequiredSkills());
+        double skillsMatch = calculateSkillsMatch(criteria.getCandidateSkillCodes(), criteria.getRequiredSkillCodes());
         double experienceMatch = calculateExperienceMatch(criteria.getCandidateExperience(), criteria.getRequiredExperience());
         double locationMatch = calculateLocationMatch(criteria);
         
@@ -170,7 +280,7 @@ public class MatchingService {
                 .responsibilitiesMatch(70.0) // Default value
                 .locationMatch(locationMatch)
                 .overallMatch(overallMatch)
-                .skillsExplanation("Skills match based on keyword overlap")
+                .skillsExplanation("Skills match based on shared skills")
                 .experienceExplanation("Experience match based on years")
                 .educationExplanation("Education match estimated")
                 .responsibilitiesExplanation("Responsibilities match estimated")
@@ -178,23 +288,21 @@ public class MatchingService {
                 .build();
     }
 
-    private double calculateSkillsMatch(String candidateSkills, String requiredSkills) {
+    /**
+     * Percentage of the job's required skills the candidate has. Skills match when they are the
+     * same skill (by ID or case-insensitive name), not when one name contains the other as the
+     * comma-joined string comparison used to, so "Java" no longer satisfies "JavaScript". A
+     * candidate without skills scores 0; the string comparison scored it 100, since the empty
+     * name was contained in every required one. Missing skill data on either side scores 50 and a job
+     * without required skills 100, as before. Package-private and static so the benchmarks can
+     * measure it in isolation.
+     */
+    static double calculateSkillsMatch(int[] candidateSkills, int[] requiredSkills) {
         if (candidateSkills == null || requiredSkills == null) return 50.0;
-        
-        String[] candidateSkillArray = candidateSkills.toLowerCase().split(",\\s*");
-        String[] requiredSkillArray = requiredSkills.toLowerCase().split(",\\s*");
-        
-        int matches = 0;
-        for (String required : requiredSkillArray) {
-            for (String candidate : candidateSkillArray) {
-                if (candidate.contains(required.trim()) || required.trim().contains(candidate)) {
-                    matches++;
-                    break;
-                }
-            }
-        }
-        
-        return Math.min(100.0, (matches * 100.0) / requiredSkillArray.length);
+        if (requiredSkills.length == 0) return 100.0;
+
+        int matches = SkillDictionaryService.intersectionSize(candidateSkills, requiredSkills);
+        return (matches * 100.0) / requiredSkills.length;
     }
 
     private double calculateExperienceMatch(Integer candidateExp, Integer requiredExp) {
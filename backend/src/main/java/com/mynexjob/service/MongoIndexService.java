@@ -1,21 +1,50 @@
 package com.mynexjob.service;
 
+import com.mongodb.client.result.UpdateResult;
+import com.mynexjob.entity.Skill;
+import com.mynexjob.enums.JobCategory;
+import org.bson.Document;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.BulkOperations;
 import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.aggregation.ConvertOperators;
 import org.springframework.data.mongodb.core.index.IndexInfo;
 import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.TextIndexDefinition;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.util.CloseableIterator;
 import org.springframework.stereotype.Service;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.HashMap;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class MongoIndexService {
 
+    private static final int RECATEGORIZE_BATCH_SIZE = 1000;
+
+    private static final String JOB_TEXT_INDEX = "Job_TextIndex";
+
+    // Text index weights: a keyword in the title outranks one in the skills, then the body
+    private static final Map<String, Integer> JOB_TEXT_WEIGHTS = Map.of(
+            "title", 10,
+            "skills", 5,
+            "requirements", 2,
+            "description", 1
+    );
+
     private final MongoTemplate mongoTemplate;
 
     /**
@@ -197,4 +226,206 @@ public class MongoIndexService {
         
         log.info("=== End Index Information ===");
     }
+
+    /**
+     * Create the weighted jobs text index on startup
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensureJobTextIndexOnStartup() {
+        try {
+            ensureJobTextIndex(mongoTemplate);
+        } catch (Exception e) {
+            log.error("Failed to create the jobs text index, text search fails until it exists", e);
+        }
+    }
+
+    /**
+     * Create the weighted jobs text index that searchMode=TEXT ranks with. A collection holds only
+     * one text index, so an older one with another name or other weights is dropped and replaced
+     * instead of failing the creation. Public for the search benchmark, which builds its own database.
+     */
+    public static void ensureJobTextIndex(MongoTemplate mongoTemplate) {
+        IndexOperations indexOps = mongoTemplate.indexOps("jobs");
+        for (Document index : mongoTemplate.getCollection("jobs").listIndexes().into(new ArrayList<>())) {
+            // Text indexes are the ones with weights
+            if (!(index.get("weights") instanceof Document)) {
+                continue;
+            }
+            String name = index.getString("name");
+            if (JOB_TEXT_INDEX.equals(name) && hasJobTextWeights(index.get("weights", Document.class))) {
+                return;
+            }
+            log.warn("Replacing text index '{}' on jobs (weights {}) with '{}'", name, index.get("weights"), JOB_TEXT_INDEX);
+            indexOps.dropIndex(name);
+        }
+
+        TextIndexDefinition.TextIndexDefinitionBuilder textIndex = TextIndexDefinition.builder().named(JOB_TEXT_INDEX);
+        JOB_TEXT_WEIGHTS.forEach((field, weight) -> textIndex.onField(field, weight.floatValue()));
+        indexOps.ensureIndex(textIndex.build());
+        log.info("Created text index '{}' on jobs", JOB_TEXT_INDEX);
+    }
+
+    private static boolean hasJobTextWeights(Document weights) {
+        return weights.size() == JOB_TEXT_WEIGHTS.size() && JOB_TEXT_WEIGHTS.entrySet().stream()
+                .allMatch(weight -> weights.get(weight.getKey()) instanceof Number &&
+                                    ((Number) weights.get(weight.getKey())).intValue() == weight.getValue());
+    }
+
+    /**
+     * Convert any string expected salaries left from before the field was stored as Decimal128,
+     * so the strict salary filter sees them. Only string values are touched, so running it on
+     * every start is cheap and safe.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrateExpectedSalariesOnStartup() {
+        try {
+            migrateExpectedSalaryToDecimal();
+        } catch (Exception e) {
+            log.error("Expected salaries were not migrated, string values stay invisible to the salary filter", e);
+        }
+    }
+
+    /**
+     * Convert user_profiles.expectedSalary values written as strings to Decimal128,
+     * so the strict salary filter can range-compare them in queries. Strings that are not
+     * numbers are left as they are.
+     */
+    public long migrateExpectedSalaryToDecimal() {
+        try {
+            Query stringSalaries = new Query(Criteria.where("expectedSalary").type(2)); // BSON string
+            AggregationUpdate toDecimal = AggregationUpdate.update()
+                    .set("expectedSalary").toValue(ConvertOperators.Convert.convertValueOf("expectedSalary")
+                            .to("decimal")
+                            .onErrorReturnValueOf("expectedSalary"));
+
+            UpdateResult result = mongoTemplate.updateMulti(stringSalaries, toDecimal, "user_profiles");
+            long unconverted = mongoTemplate.count(stringSalaries, "user_profiles");
+            if (unconverted > 0) {
+                log.warn("{} expected salaries are not numbers and stay strings", unconverted);
+            }
+            log.info("Converted {} expected salaries to Decimal128", result.getModifiedCount());
+            return result.getModifiedCount();
+        } catch (Exception e) {
+            log.error("Error migrating expected salaries: {}", e.getMessage());
+            throw new RuntimeException("Failed to migrate expected salaries", e);
+        }
+    }
+
+    /**
+     * Replace skill IDs left in jobs.skills with the skill names on startup. Only jobs holding a
+     * known skill ID are touched, so repeated runs do nothing.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrateJobSkillNamesOnStartup() {
+        try {
+            migrateJobSkillNames();
+        } catch (Exception e) {
+            log.error("Job skills were not migrated, skill IDs stay invisible to the text index", e);
+        }
+    }
+
+    /**
+     * Replace the skill IDs jobs.skills held before it stored names with those names, so the text
+     * index weighs the skills a keyword names, in one streaming pass with batched updates
+     */
+    @CacheEvict(value = "jobs", allEntries = true)
+    public long migrateJobSkillNames() {
+        Map<String, String> names = new HashMap<>();
+        for (Skill skill : mongoTemplate.findAll(Skill.class)) {
+            if (skill.getId() != null && skill.getName() != null) {
+                names.put(skill.getId(), skill.getName());
+            }
+        }
+        if (names.isEmpty()) {
+            return 0;
+        }
+
+        Query query = new Query(Criteria.where("skills").in(names.keySet()));
+        query.fields().include("skills");
+        query.cursorBatchSize(RECATEGORIZE_BATCH_SIZE);
+
+        long updated = 0;
+        BulkOperations operations = null;
+        int pending = 0;
+        try (CloseableIterator<Document> jobs = mongoTemplate.stream(query, Document.class, "jobs")) {
+            while (jobs.hasNext()) {
+                Document job = jobs.next();
+                List<String> skills = job.getList("skills", String.class).stream()
+                        .map(skill -> names.getOrDefault(skill, skill))
+                        .distinct()
+                        .collect(Collectors.toList());
+
+                if (operations == null) {
+                    operations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, "jobs");
+                }
+                operations.updateOne(new Query(Criteria.where("_id").is(job.get("_id"))),
+                                     new Update().set("skills", skills));
+                if (++pending == RECATEGORIZE_BATCH_SIZE) {
+                    updated += operations.execute().getModifiedCount();
+                    operations = null;
+                    pending = 0;
+                }
+            }
+            if (operations != null) {
+                updated += operations.execute().getModifiedCount();
+            }
+        } catch (Exception e) {
+            log.error("Error migrating job skills after {} updated: {}", updated, e.getMessage());
+            throw new RuntimeException("Failed to migrate job skills", e);
+        }
+
+        log.info("Replaced skill IDs with names in {} jobs", updated);
+        return updated;
+    }
+
+    /**
+     * Re-categorize every job with the current IT keyword list, in one streaming pass over the
+     * jobs collection with batched updates of the jobs whose category changed. With includeText
+     * the description and requirements are scanned too, not just the title.
+     */
+    @CacheEvict(value = "jobs", allEntries = true)
+    public long recategorizeJobs(boolean includeText) {
+        Query query = new Query();
+        query.fields().include("title", "description", "requirements", "jobCategory");
+        query.cursorBatchSize(RECATEGORIZE_BATCH_SIZE);
+
+        long scanned = 0;
+        long updated = 0;
+        BulkOperations operations = null;
+        int pending = 0;
+        try (CloseableIterator<Document> jobs = mongoTemplate.stream(query, Document.class, "jobs")) {
+            while (jobs.hasNext()) {
+                Document job = jobs.next();
+                scanned++;
+
+                JobCategory category = includeText
+                        ? JobCategory.categorizeJob(job.getString("title"), job.getString("description"),
+                                                    job.getString("requirements"))
+                        : JobCategory.categorizeJob(job.getString("title"));
+                if (category.name().equals(job.getString("jobCategory"))) {
+                    continue;
+                }
+
+                if (operations == null) {
+                    operations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, "jobs");
+                }
+                operations.updateOne(new Query(Criteria.where("_id").is(job.get("_id"))),
+                                     new Update().set("jobCategory", category.name()));
+                if (++pending == RECATEGORIZE_BATCH_SIZE) {
+                    updated += operations.execute().getModifiedCount();
+                    operations = null;
+                    pending = 0;
+                }
+            }
+            if (operations != null) {
+                updated += operations.execute().getModifiedCount();
+            }
+        } catch (Exception e) {
+            log.error("Error re-categorizing jobs after {} scanned: {}", scanned, e.getMessage());
+            throw new RuntimeException("Failed to re-categorize jobs", e);
+        }
+
+        log.info("Re-categorized jobs: {} scanned, {} updated", scanned, updated);
+        return updated;
+    }
 }
@@ -0,0 +1,155 @@
+package com.mynexjob.service;
+
+import com.mynexjob.dto.matching.MatchResult;
+import com.mynexjob.exception.BadRequestException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Predicate;
+
+/**
+ * Short-lived snapshots of a computed match ranking, so the pages of one listing are sliced from
+ * the same ranking instead of re-scoring and re-sorting every pair per page. Clients move through
+ * a listing with opaque cursor tokens naming the snapshot and the next offset. Snapshots live in
+ * process memory; a cursor whose snapshot expired or lives on another node starts a new one.
+ */
+@Service
+@Slf4j
+public class RankingSnapshotService {
+
+    private static final String CURSOR_VERSION = "1";
+
+    @Value("${app.matching.snapshot.ttl-seconds:300}")
+    private long ttlSeconds;
+
+    @Value("${app.matching.snapshot.max-snapshots:1000}")
+    private int maxSnapshots;
+
+    @Value("${app.matching.snapshot.max-entries:1000}")
+    private int maxEntries;
+
+    private Map<String, Snapshot> snapshots;
+
+    @PostConstruct
+    public void init() {
+        snapshots = Collections.synchronizedMap(new LinkedHashMap<String, Snapshot>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Snapshot> eldest) {
+                return size() > maxSnapshots || eldest.getValue().isExpired();
+            }
+        });
+    }
+
+    /**
+     * Largest number of ranked matches a snapshot keeps
+     */
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    /**
+     * Store a ranking for one owner (user and listing) and return the snapshot ID
+     */
+    public String create(String owner, List<MatchResult> ranking) {
+        String snapshotId = UUID.randomUUID().toString();
+        snapshots.put(snapshotId, new Snapshot(owner, ranking, System.currentTimeMillis() + ttlSeconds * 1000));
+        return snapshotId;
+    }
+
+    /**
+     * The ranking of a live snapshot, provided it belongs to the given owner
+     */
+    public Optional<List<MatchResult>> find(String snapshotId, String owner) {
+        Snapshot snapshot = snapshots.get(snapshotId);
+        if (snapshot == null || snapshot.isExpired() || !snapshot.owner.equals(owner)) {
+            return Optional.empty();
+        }
+        return Optional.of(snapshot.ranking);
+    }
+
+    /**
+     * Drop the snapshots whose owner matches, or that rank a matching entry, so listings affected
+     * by a job or profile change are ranked afresh. Returns the number dropped.
+     */
+    public int evictWhere(Predicate<String> owner, Predicate<MatchResult> entry) {
+        synchronized (snapshots) {
+            int before = snapshots.size();
+            snapshots.values().removeIf(snapshot ->
+                    owner.test(snapshot.owner) || snapshot.ranking.stream().anyMatch(entry));
+            return before - snapshots.size();
+        }
+    }
+
+    /**
+     * Opaque cursor for the page starting at offset. The snapshot ID may be null for listings
+     * read straight from the match store.
+     */
+    public String encodeCursor(String snapshotId, long offset) {
+        String value = CURSOR_VERSION + "|" + (snapshotId != null ? snapshotId : "") + "|" + offset;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public Cursor decodeCursor(String token) {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8).split("\\|", -1);
+            if (parts.length != 3 || !CURSOR_VERSION.equals(parts[0])) {
+                throw new BadRequestException("Invalid cursor");
+            }
+
+            long offset = Long.parseLong(parts[2]);
+            if (offset < 0) {
+                throw new BadRequestException("Invalid cursor");
+            }
+            return new Cursor(parts[1].isEmpty() ? null : parts[1], offset);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Invalid cursor");
+        }
+    }
+
+    /**
+     * Decoded cursor: the snapshot to read from, if any, and the offset of the page
+     */
+    public static final class Cursor {
+        private final String snapshotId;
+        private final long offset;
+
+        Cursor(String snapshotId, long offset) {
+            this.snapshotId = snapshotId;
+            this.offset = offset;
+        }
+
+        public String getSnapshotId() {
+            return snapshotId;
+        }
+
+        public long getOffset() {
+            return offset;
+        }
+    }
+
+    private static final class Snapshot {
+        final String owner;
+        final List<MatchResult> ranking;
+        final long expiresAt;
+
+        Snapshot(String owner, List<MatchResult> ranking, long expiresAt) {
+            this.owner = owner;
+            this.ranking = Collections.unmodifiableList(ranking);
+            this.expiresAt = expiresAt;
+        }
+
+        boolean isExpired() {
+            return System.currentTimeMillis() > expiresAt;
+        }
+    }
+}
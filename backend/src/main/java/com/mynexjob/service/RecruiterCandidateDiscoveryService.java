@@ -2,26 +2,38 @@ package com.mynexjob.service;
 
 import com.mynexjob.dto.common.PagedResponse;
 import com.mynexjob.dto.matching.CandidateMatchDto;
+import com.mynexjob.dto.matching.MatchCountDto;
+import com.mynexjob.dto.matching.MatchPair;
 import com.mynexjob.dto.matching.MatchResult;
 import com.mynexjob.entity.*;
 import com.mynexjob.enums.ApplicationStatus;
+import com.mynexjob.enums.ScoreSource;
 import com.mynexjob.exception.BadRequestException;
 import com.mynexjob.exception.ResourceNotFoundException;
 import com.mynexjob.mapper.UserMapper;
 import com.mynexjob.repository.*;
+import com.mynexjob.specification.CandidateSpecification;
+import com.mynexjob.util.TopKCollector;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -35,15 +47,25 @@ public class RecruiterCandidateDiscoveryService {
     private final JobApplicationRepository jobApplicationRepository;
     private final CompanyRepository companyRepository;
     private final MatchingService matchingService;
+    private final MatchScoringEngine matchScoringEngine;
+    private final MatchStoreService matchStoreService;
     private final UserMapper userMapper;
     private final JobAccessControlService jobAccessControlService;
+    private final MongoTemplate mongoTemplate;
+    private final SemanticIndexService semanticIndexService;
+    private final RankingSnapshotService rankingSnapshotService;
 
     @Value("${app.matching.minimum-threshold:70.0}")
     private Double minimumMatchThreshold;
 
-    @Cacheable(value = "recruiter-candidate-matches", key = "#userEmail + '_' + #jobId + '_' + #pageable.toString()")
+    /**
+     * Candidates matching a job, applicants first and then best match first. The first request
+     * ranks the candidates once and keeps the ranking as a short-lived snapshot; following pages
+     * pass the returned cursor and are sliced from that snapshot.
+     */
     @Transactional(readOnly = true)
-    public PagedResponse<CandidateMatchDto> getMatchingCandidates(String userEmail, UUID jobId, Pageable pageable) {
+    public PagedResponse<CandidateMatchDto> getMatchingCandidates(String userEmail, UUID jobId, Pageable pageable,
+                                                                  String cursor) {
         log.info("Getting matching candidates for recruiter: {} and job: {}", userEmail, jobId);
 
         User recruiter = userRepository.findByEmail(userEmail)
@@ -57,79 +79,176 @@ public class RecruiterCandidateDiscoveryService {
             throw new BadRequestException("You don't have permission to view candidates for this job");
         }
 
-        // Get all candidates with matching enabled
-        List<UserProfile> candidateProfiles = userProfileRepository.findByMatchingEnabledTrue(Pageable.unpaged()).getContent();
+        RankingSnapshotService.Cursor position = cursor != null ? rankingSnapshotService.decodeCursor(cursor) : null;
+        long offset = position != null ? position.getOffset() : pageable.getOffset();
+        int pageSize = pageable.getPageSize();
+        String owner = "matching-candidates:" + recruiter.getId() + ":" + job.getId();
+
+        if (position != null && position.getSnapshotId() != null) {
+            Optional<List<MatchResult>> ranking = rankingSnapshotService.find(position.getSnapshotId(), owner);
+            if (ranking.isPresent()) {
+                return getSnapshotMatchingCandidates(job, ranking.get(), position.getSnapshotId(), offset, pageSize);
+            }
+            // The snapshot expired or lives on another node: rank again and continue from the same offset
+        }
+
+        // Serve from the materialized match store once a full refresh has completed for this job version
+        if (matchStoreService.isCompleteForJob(job)) {
+            return getStoredMatchingCandidates(job, offset, pageSize);
+        }
+
+        // Only candidates passing the strict salary/experience filters leave the database
+        List<UserProfile> candidateProfiles = findCandidatesToScore(job);
         
-        List<CandidateMatchDto> matchingCandidates = new ArrayList<>();
-
-        for (UserProfile profile : candidateProfiles) {
-            try {
-                User candidate = profile.getUser();
-                MatchResult matchResult = matchingService.calculateMatch(candidate, job);
-                
-                // Only include candidates that pass strict filters and meet minimum threshold
-                if (matchResult.getPassesStrictFilters() && matchResult.getMeetsMinimumThreshold()) {
-                    
-                    // Check if candidate has already applied
-                    boolean hasApplied = jobApplicationRepository.existsByUserIdAndJobId(candidate.getId(), jobId.toString());
-                    String applicationStatus = null;
-                    
-                    if (hasApplied) {
-                        applicationStatus = jobApplicationRepository.findByUserIdAndJobId(candidate.getId(), jobId.toString())
-                                .map(app -> app.getStatus().name())
-                                .orElse(null);
-                    }
-                    
-                    CandidateMatchDto candidateMatch = CandidateMatchDto.builder()
-                            .candidate(userMapper.toDto(candidate))
+        MatchScoringEngine.Scored scored = matchScoringEngine.scoreInBatches(candidateProfiles, matchingService.getRequestBatchSize(),
+                batch -> calculateMatchesSafely(batch, job));
+        List<MatchResult> matchResults = scored.getResults();
+        Map<String, UserProfile> profilesByCandidateId = candidateProfiles.stream()
+                .collect(Collectors.toMap(UserProfile::getUserId, Function.identity(), (a, b) -> a));
+
+        // Only include candidates that pass strict filters and meet minimum threshold
+        List<MatchResult> qualifyingMatches = matchResults.stream()
+                .filter(matchResult -> matchResult.getPassesStrictFilters() && matchResult.getMeetsMinimumThreshold())
+                .collect(Collectors.toList());
+
+        // One applications query for every qualifying candidate, since applicants rank first
+        Map<String, String> applicationStatuses = findApplicationStatuses(job.getId(), qualifyingMatches);
+
+        // Sort by application status (applicants first), then by match percentage (highest first)
+        qualifyingMatches.sort((a, b) -> {
+            boolean aApplied = applicationStatuses.containsKey(a.getCandidateId());
+            boolean bApplied = applicationStatuses.containsKey(b.getCandidateId());
+            if (aApplied != bApplied) return aApplied ? -1 : 1;
+
+            return Double.compare(b.getMatchPercentage(), a.getMatchPercentage());
+        });
+
+        // Snapshot the ranking and build DTOs for the requested page only; a partial ranking is
+        // not snapshotted, so the next page ranks again
+        List<MatchResult> rankedMatches = qualifyingMatches.subList(0,
+                Math.min(qualifyingMatches.size(), rankingSnapshotService.getMaxEntries()));
+        String snapshotId = scored.isPartial() ? null : rankingSnapshotService.create(owner, new ArrayList<>(rankedMatches));
+        List<CandidateMatchDto> paginatedCandidates = slice(rankedMatches, offset, pageSize).stream()
+                .map(matchResult -> {
+                    UserProfile profile = profilesByCandidateId.get(matchResult.getCandidateId());
+                    String applicationStatus = applicationStatuses.get(matchResult.getCandidateId());
+
+                    return CandidateMatchDto.builder()
+                            .candidate(userMapper.toDto(profile.getUser()))
                             .matchPercentage(matchResult.getMatchPercentage())
                             .breakdown(matchResult.getBreakdown())
                             .matchExplanation(matchResult.getBreakdown() != null ? 
                                     matchResult.getBreakdown().getOverallExplanation() : "Match calculated")
+                            .scoreSource(matchResult.getScoreSource())
                             .expectedSalary(profile.getExpectedSalary())
                             .experienceYears(profile.getExperienceYears())
-                            .hasApplied(hasApplied)
+                            .hasApplied(applicationStatus != null)
                             .applicationStatus(applicationStatus)
                             .build();
-                    
-                    matchingCandidates.add(candidateMatch);
-                }
-            } catch (Exception e) {
-                log.error("Error calculating match for candidate {} and job {}", 
-                         profile.getUser().getId(), jobId, e);
-            }
-        }
+                })
+                .collect(Collectors.toList());
 
-        // Sort by match percentage (highest first), then by application status (applicants first)
-        matchingCandidates.sort((a, b) -> {
-            // Prioritize applicants
-            if (a.getHasApplied() && !b.getHasApplied()) return -1;
-            if (!a.getHasApplied() && b.getHasApplied()) return 1;
-            
-            // Then by match percentage
-            return Double.compare(b.getMatchPercentage(), a.getMatchPercentage());
-        });
+        log.info("Found {} matching candidates for job: {}{}", qualifyingMatches.size(), jobId,
+                 scored.isPartial() ? " (partial)" : "");
 
-        // Apply pagination
-        int start = (int) pageable.getOffset();
-        int end = Math.min(start + pageable.getPageSize(), matchingCandidates.size());
-        List<CandidateMatchDto> paginatedCandidates = matchingCandidates.subList(start, end);
+        // Populate the match store so later requests are served by an indexed read
+        matchStoreService.refreshForJob(job);
 
-        Page<CandidateMatchDto> candidatePage = new PageImpl<>(paginatedCandidates, pageable, matchingCandidates.size());
+        PagedResponse<CandidateMatchDto> response = PagedResponse.ofOffset(paginatedCandidates, offset, pageSize,
+                rankedMatches.size(), rankingSnapshotService.encodeCursor(snapshotId, offset + pageSize));
+        response.setPartial(scored.isPartial());
+        return response;
+    }
 
-        log.info("Found {} matching candidates for job: {}", matchingCandidates.size(), jobId);
+    /**
+     * A page sliced from a ranking snapshot. Only the page's candidates and application statuses are loaded.
+     */
+    private PagedResponse<CandidateMatchDto> getSnapshotMatchingCandidates(Job job, List<MatchResult> ranking,
+                                                                           String snapshotId, long offset, int pageSize) {
+        List<MatchResult> pageMatches = slice(ranking, offset, pageSize);
+        Map<String, String> applicationStatuses = findApplicationStatuses(job.getId(), pageMatches);
+
+        List<String> candidateIds = pageMatches.stream().map(MatchResult::getCandidateId).collect(Collectors.toList());
+        Map<String, User> candidatesById = userRepository.findAllById(candidateIds).stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+        Map<String, UserProfile> profilesByUserId = userProfileRepository.findByUserIdIn(candidateIds).stream()
+                .collect(Collectors.toMap(UserProfile::getUserId, Function.identity(), (a, b) -> a));
+
+        List<CandidateMatchDto> content = pageMatches.stream()
+                .filter(match -> candidatesById.containsKey(match.getCandidateId()))
+                .map(match -> {
+                    UserProfile profile = profilesByUserId.get(match.getCandidateId());
+                    String applicationStatus = applicationStatuses.get(match.getCandidateId());
 
-        return PagedResponse.<CandidateMatchDto>builder()
-                .content(candidatePage.getContent())
-                .page(candidatePage.getNumber())
-                .size(candidatePage.getSize())
-                .totalElements(candidatePage.getTotalElements())
-                .totalPages(candidatePage.getTotalPages())
-                .first(candidatePage.isFirst())
-                .last(candidatePage.isLast())
-                .hasNext(candidatePage.hasNext())
-                .hasPrevious(candidatePage.hasPrevious())
-                .build();
+                    return CandidateMatchDto.builder()
+                            .candidate(userMapper.toDto(candidatesById.get(match.getCandidateId())))
+                            .matchPercentage(match.getMatchPercentage())
+                            .breakdown(match.getBreakdown())
+                            .matchExplanation(match.getBreakdown() != null ?
+                                    match.getBreakdown().getOverallExplanation() : "Match calculated")
+                            .scoreSource(match.getScoreSource())
+                            .expectedSalary(profile != null ? profile.getExpectedSalary() : null)
+                            .experienceYears(profile != null ? profile.getExperienceYears() : null)
+                            .hasApplied(applicationStatus != null)
+                            .applicationStatus(applicationStatus)
+                            .build();
+                })
+                .collect(Collectors.toList());
+
+        return PagedResponse.ofOffset(content, offset, pageSize, ranking.size(),
+                rankingSnapshotService.encodeCursor(snapshotId, offset + pageSize));
+    }
+
+    private PagedResponse<CandidateMatchDto> getStoredMatchingCandidates(Job job, long offset, int pageSize) {
+        // Applicants are ranked ahead of everyone else, as in the live ranking
+        Map<String, String> applicationStatuses = findApplicationStatuses(job.getId());
+
+        long total = matchStoreService.countQualifyingMatchesForJob(job.getId());
+        List<JobMatch> matches = matchStoreService.findQualifyingMatchesForJob(
+                job.getId(), applicationStatuses.keySet(), offset, pageSize);
+
+        List<String> candidateIds = matches.stream().map(JobMatch::getCandidateId).collect(Collectors.toList());
+        Map<String, User> candidatesById = userRepository.findAllById(candidateIds).stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+        Map<String, UserProfile> profilesByUserId = userProfileRepository.findByUserIdIn(candidateIds).stream()
+                .collect(Collectors.toMap(UserProfile::getUserId, Function.identity(), (a, b) -> a));
+
+        List<CandidateMatchDto> content = matches.stream()
+                .filter(match -> candidatesById.containsKey(match.getCandidateId()))
+                .map(match -> {
+                    UserProfile profile = profilesByUserId.get(match.getCandidateId());
+                    String applicationStatus = applicationStatuses.get(match.getCandidateId());
+
+                    return CandidateMatchDto.builder()
+                            .candidate(userMapper.toDto(candidatesById.get(match.getCandidateId())))
+                            .matchPercentage(match.getMatchPercentage())
+                            .breakdown(match.getBreakdown())
+                            .matchExplanation(match.getBreakdown() != null ?
+                                    match.getBreakdown().getOverallExplanation() : "Match calculated")
+                            .scoreSource(match.getScoreSource())
+                            .expectedSalary(profile != null ? profile.getExpectedSalary() : null)
+                            .experienceYears(profile != null ? profile.getExperienceYears() : null)
+                            .hasApplied(applicationStatus != null)
+                            .applicationStatus(applicationStatus)
+                            .build();
+                })
+                .collect(Collectors.toList());
+
+        // Rows still holding a rule-based score are refined with AI for later page loads
+        List<MatchPair> ruleScored = matches.stream()
+                .filter(match -> match.getScoreSource() == ScoreSource.RULE &&
+                                 candidatesById.containsKey(match.getCandidateId()) &&
+                                 profilesByUserId.containsKey(match.getCandidateId()))
+                .map(match -> new MatchPair(candidatesById.get(match.getCandidateId()),
+                                            profilesByUserId.get(match.getCandidateId()), job))
+                .collect(Collectors.toList());
+        if (!ruleScored.isEmpty()) {
+            matchStoreService.refineRuleScored(ruleScored);
+        }
+
+        // Stored rankings are read by index, so the cursor only carries the offset
+        return PagedResponse.ofOffset(content, offset, pageSize, total,
+                rankingSnapshotService.encodeCursor(null, offset + pageSize));
     }
 
     @Transactional(readOnly = true)
@@ -193,6 +312,7 @@ public class RecruiterCandidateDiscoveryService {
                             .breakdown(matchResult != null ? matchResult.getBreakdown() : null)
                             .matchExplanation(matchResult != null && matchResult.getBreakdown() != null ?
                                     matchResult.getBreakdown().getOverallExplanation() : "Match not calculated")
+                            .scoreSource(matchResult != null ? matchResult.getScoreSource() : null)
                             .expectedSalary(profile != null ? profile.getExpectedSalary() : null)
                             .experienceYears(profile != null ? profile.getExperienceYears() : null)
                             .hasApplied(true)
@@ -229,45 +349,55 @@ public class RecruiterCandidateDiscoveryService {
             throw new BadRequestException("You don't have permission to view candidates for this job");
         }
 
-        List<UserProfile> candidateProfiles = userProfileRepository.findByMatchingEnabledTrue(Pageable.unpaged()).getContent();
+        List<UserProfile> candidateProfiles = findCandidatesToScore(job);
         
-        List<CandidateMatchDto> topCandidates = new ArrayList<>();
-
-        for (UserProfile profile : candidateProfiles) {
-            try {
-                User candidate = profile.getUser();
-                MatchResult matchResult = matchingService.calculateMatch(candidate, job);
-                
-                if (matchResult.getPassesStrictFilters() && matchResult.getMeetsMinimumThreshold()) {
-                    boolean hasApplied = jobApplicationRepository.existsByUserIdAndJobId(candidate.getId(), jobId.toString());
-                    
-                    CandidateMatchDto candidateMatch = CandidateMatchDto.builder()
+        TopKCollector<MatchResult> topMatches = TopKCollector.forMatches(limit);
+
+        List<MatchResult> matchResults = matchScoringEngine.scoreInBatches(candidateProfiles, matchingService.getRequestBatchSize(),
+                batch -> calculateMatchesSafely(batch, job)).getResults();
+
+        for (MatchResult matchResult : matchResults) {
+            if (matchResult.getPassesStrictFilters() && matchResult.getMeetsMinimumThreshold()) {
+                topMatches.offer(matchResult);
+            }
+        }
+
+        // Build DTOs, and look up applications in one query, for the top candidates only
+        List<MatchResult> rankedMatches = topMatches.toSortedList();
+        Set<String> candidateIds = rankedMatches.stream().map(MatchResult::getCandidateId).collect(Collectors.toSet());
+        Map<String, UserProfile> profilesByCandidateId = candidateProfiles.stream()
+                .filter(profile -> candidateIds.contains(profile.getUserId()))
+                .collect(Collectors.toMap(UserProfile::getUserId, Function.identity(), (a, b) -> a));
+        Map<String, String> applicationStatuses = findApplicationStatuses(job.getId(), rankedMatches);
+
+        return rankedMatches.stream()
+                .map(matchResult -> {
+                    UserProfile profile = profilesByCandidateId.get(matchResult.getCandidateId());
+                    User candidate = profile.getUser();
+                    boolean hasApplied = applicationStatuses.containsKey(matchResult.getCandidateId());
+
+                    return CandidateMatchDto.builder()
                             .candidate(userMapper.toDto(candidate))
                             .matchPercentage(matchResult.getMatchPercentage())
                             .breakdown(matchResult.getBreakdown())
                             .matchExplanation(matchResult.getBreakdown() != null ? 
                                     matchResult.getBreakdown().getOverallExplanation() : "Match calculated")
+                            .scoreSource(matchResult.getScoreSource())
                             .expectedSalary(profile.getExpectedSalary())
                             .experienceYears(profile.getExperienceYears())
                             .hasApplied(hasApplied)
                             .build();
-                    
-                    topCandidates.add(candidateMatch);
-                }
-            } catch (Exception e) {
-                log.error("Error calculating match for candidate {} and job {}", 
-                         profile.getUser().getId(), jobId, e);
-            }
-        }
-
-        return topCandidates.stream()
-                .sorted((a, b) -> Double.compare(b.getMatchPercentage(), a.getMatchPercentage()))
-                .limit(limit)
+                })
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Number of candidates matching the job. Served from the maintained match counter; when the
+     * match store is not complete for the job version, or an approximate count is asked for, the
+     * count is estimated from the strict filters and rule-based scores instead.
+     */
     @Transactional(readOnly = true)
-    public long getMatchingCandidatesCount(String userEmail, UUID jobId) {
+    public MatchCountDto getMatchingCandidatesCount(String userEmail, UUID jobId, boolean approximate) {
         User recruiter = userRepository.findByEmail(userEmail)
                 .orElseThrow(() -> new ResourceNotFoundException("User not found"));
 
@@ -278,17 +408,87 @@ public class RecruiterCandidateDiscoveryService {
             throw new BadRequestException("You don't have permission to view candidates for this job");
         }
 
-        List<UserProfile> candidateProfiles = userProfileRepository.findByMatchingEnabledTrue(Pageable.unpaged()).getContent();
-        
-        return candidateProfiles.stream()
-                .mapToLong(profile -> {
-                    try {
-                        MatchResult matchResult = matchingService.calculateMatch(profile.getUser(), job);
-                        return (matchResult.getPassesStrictFilters() && matchResult.getMeetsMinimumThreshold()) ? 1 : 0;
-                    } catch (Exception e) {
-                        return 0;
-                    }
-                })
-                .sum();
+        if (!approximate) {
+            Optional<MatchCounter> counter = matchStoreService.findMatchCountForJob(job);
+            if (counter.isPresent()) {
+                return MatchCountDto.builder()
+                        .count(counter.get().getCount())
+                        .approximate(false)
+                        .asOf(counter.get().getCountedAt())
+                        .build();
+            }
+
+            // Populate the match store so the next count is served by the counter
+            matchStoreService.refreshForJob(job);
+        }
+
+        List<MatchPair> pairs = findViableCandidates(job).stream()
+                .map(profile -> new MatchPair(profile.getUser(), profile, job))
+                .collect(Collectors.toList());
+        long count = matchingService.calculateRuleMatches(pairs).stream()
+                .filter(matchResult -> matchResult.getPassesStrictFilters() && matchResult.getMeetsMinimumThreshold())
+                .count();
+
+        return MatchCountDto.builder().count(count).approximate(true).asOf(LocalDateTime.now()).build();
+    }
+
+    /**
+     * Application status by candidate ID for the candidates of the given matches that applied to the job
+     */
+    private Map<String, String> findApplicationStatuses(String jobId, List<MatchResult> matches) {
+        if (matches.isEmpty()) {
+            return new HashMap<>();
+        }
+
+        Set<String> candidateIds = matches.stream().map(MatchResult::getCandidateId).collect(Collectors.toSet());
+        return statusesByCandidate(jobApplicationRepository.findStatusesByJobIdAndUserIdIn(jobId, candidateIds));
+    }
+
+    /**
+     * Application status by candidate ID for every candidate that applied to the job
+     */
+    private Map<String, String> findApplicationStatuses(String jobId) {
+        return statusesByCandidate(jobApplicationRepository.findStatusesByJobId(jobId));
+    }
+
+    private static Map<String, String> statusesByCandidate(List<JobApplication> applications) {
+        return applications.stream()
+                .collect(Collectors.toMap(JobApplication::getUserId, app -> app.getStatus().name(), (a, b) -> a));
+    }
+
+    private List<UserProfile> findViableCandidates(Job job) {
+        return mongoTemplate.find(CandidateSpecification.matchingCandidates(job), UserProfile.class);
+    }
+
+    /**
+     * Viable candidates worth scoring for a job: limited to its semantic nearest neighbours
+     * once that index is warm
+     */
+    private List<UserProfile> findCandidatesToScore(Job job) {
+        if (!semanticIndexService.isReady()) {
+            return findViableCandidates(job);
+        }
+
+        Query query = CandidateSpecification.matchingCandidates(job)
+                .addCriteria(Criteria.where("_id").in(semanticIndexService.findNearestProfileIds(job)));
+        return mongoTemplate.find(query, UserProfile.class);
+    }
+
+    private List<MatchResult> calculateMatchesSafely(List<UserProfile> profiles, Job job) {
+        List<MatchPair> pairs = profiles.stream()
+                .map(profile -> new MatchPair(profile.getUser(), profile, job))
+                .collect(Collectors.toList());
+        try {
+            return matchingService.calculateRequestMatches(pairs);
+        } catch (Exception e) {
+            log.error("Error calculating matches for {} candidates and job {}", 
+                     profiles.size(), job.getId(), e);
+            return new ArrayList<>();
+        }
+    }
+
+    private static <T> List<T> slice(List<T> ranking, long offset, int pageSize) {
+        int start = (int) Math.min(offset, ranking.size());
+        return ranking.subList(start, Math.min(start + pageSize, ranking.size()));
     }
 }
@@ -0,0 +1,474 @@
+package com.mynexjob.service;
+
+import com.mynexjob.exception.AiServiceUnavailableException;
+import com.mynexjob.util.TokenEstimator;
+import com.theokanning.openai.completion.chat.ChatCompletionRequest;
+import com.theokanning.openai.completion.chat.ChatCompletionResult;
+import com.theokanning.openai.completion.chat.ChatMessage;
+import com.theokanning.openai.service.OpenAiService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Guards every OpenAI call so a degraded LLM cannot hold request threads hostage:
+ * <ul>
+ *   <li>a bulkhead caps concurrent calls; a permit is held until the underlying HTTP call ends,
+ *       even when the caller has stopped waiting for it</li>
+ *   <li>a tokens-per-minute governor keeps estimated prompt and completion tokens under the account limit</li>
+ *   <li>a circuit breaker opens on a high failure rate and rejects calls immediately, so callers
+ *       go straight to rule-based scoring, then lets a few trial calls through once it cools down</li>
+ *   <li>an optional hedge sends a second copy of a slow call and takes whichever answers first</li>
+ * </ul>
+ * Callers get {@link AiServiceUnavailableException} whenever a call is rejected, fails or times out.
+ */
+@Service
+@Slf4j
+public class ResilientOpenAiClient {
+
+    private final OpenAiService openAiService;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.openai.resilience.max-concurrent-calls:16}")
+    private int maxConcurrentCalls;
+
+    @Value("${app.openai.resilience.acquire-timeout-ms:2000}")
+    private long acquireTimeoutMillis;
+
+    @Value("${app.openai.resilience.call-timeout-ms:20000}")
+    private long callTimeoutMillis;
+
+    @Value("${app.openai.resilience.tokens-per-minute:90000}")
+    private long tokensPerMinute;
+
+    @Value("${app.openai.resilience.circuit.failure-rate-threshold:50}")
+    private int failureRateThreshold;
+
+    @Value("${app.openai.resilience.circuit.window-size:20}")
+    private int windowSize;
+
+    @Value("${app.openai.resilience.circuit.minimum-calls:10}")
+    private int minimumCalls;
+
+    @Value("${app.openai.resilience.circuit.open-duration-ms:30000}")
+    private long openDurationMillis;
+
+    @Value("${app.openai.resilience.circuit.half-open-calls:3}")
+    private int halfOpenCalls;
+
+    @Value("${app.openai.resilience.hedging.enabled:false}")
+    private Boolean hedgingEnabled;
+
+    @Value("${app.openai.resilience.hedging.delay-ms:3000}")
+    private long hedgeDelayMillis;
+
+    private Semaphore bulkhead;
+    private TokenGovernor tokenGovernor;
+    private CircuitBreaker circuitBreaker;
+    private ExecutorService executor;
+
+    private Timer successTimer;
+    private Timer failureTimer;
+    private Timer timeoutTimer;
+    private Timer openCircuitTimer;
+    private Counter bulkheadRejections;
+    private Counter rateRejections;
+    private Counter circuitRejections;
+    private Counter hedgedCalls;
+
+    public ResilientOpenAiClient(@Autowired(required = false) OpenAiService openAiService, MeterRegistry meterRegistry) {
+        this.openAiService = openAiService;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    public void init() {
+        bulkhead = new Semaphore(maxConcurrentCalls, true);
+        tokenGovernor = new TokenGovernor(tokensPerMinute);
+        circuitBreaker = new CircuitBreaker();
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        // Unbounded on purpose: the bulkhead already caps how many calls run at once
+        executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "openai-call-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        successTimer = Timer.builder("openai.call").tag("outcome", "success")
+                .description("Latency of OpenAI calls").register(meterRegistry);
+        failureTimer = Timer.builder("openai.call").tag("outcome", "failure")
+                .description("Latency of OpenAI calls").register(meterRegistry);
+        timeoutTimer = Timer.builder("openai.call").tag("outcome", "timeout")
+                .description("Latency of OpenAI calls").register(meterRegistry);
+        openCircuitTimer = Timer.builder("openai.circuit.open")
+                .description("Time the OpenAI circuit breaker spent open before closing again")
+                .register(meterRegistry);
+
+        bulkheadRejections = rejectionCounter("bulkhead");
+        rateRejections = rejectionCounter("rate-limit");
+        circuitRejections = rejectionCounter("circuit-open");
+        hedgedCalls = Counter.builder("openai.call.hedged")
+                .description("OpenAI calls for which a hedged duplicate was sent")
+                .register(meterRegistry);
+
+        Gauge.builder("openai.circuit.state", circuitBreaker, breaker -> breaker.getState().ordinal())
+                .description("OpenAI circuit breaker state: 0 closed, 1 open, 2 half-open")
+                .register(meterRegistry);
+        Gauge.builder("openai.bulkhead.available", bulkhead, Semaphore::availablePermits)
+                .description("OpenAI calls that may still start right now")
+                .register(meterRegistry);
+        Gauge.builder("openai.tokens.available", tokenGovernor, TokenGovernor::available)
+                .description("Tokens left in the current tokens-per-minute budget")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public boolean isAvailable() {
+        return openAiService != null;
+    }
+
+    /**
+     * Whether the circuit breaker is rejecting calls, in which case callers should not even
+     * build prompts and go straight to rule-based scoring
+     */
+    public boolean isCircuitOpen() {
+        return circuitBreaker.getState() == CircuitState.OPEN && !circuitBreaker.isCoolDownOver();
+    }
+
+    public ChatCompletionResult createChatCompletion(ChatCompletionRequest request) {
+        if (openAiService == null) {
+            throw new AiServiceUnavailableException("OpenAI client is not configured");
+        }
+        if (isCircuitOpen()) {
+            circuitRejections.increment();
+            throw new AiServiceUnavailableException("OpenAI circuit breaker is open");
+        }
+
+        acquireBulkhead();
+        // From execute() on, the permit is released when the HTTP call ends
+        boolean permitHandedOver = false;
+        try {
+            long tokens = estimateTokens(request);
+            if (!tokenGovernor.tryAcquire(tokens, acquireTimeoutMillis)) {
+                rateRejections.increment();
+                throw new AiServiceUnavailableException("OpenAI tokens-per-minute budget exhausted");
+            }
+            if (!circuitBreaker.tryAcquire()) {
+                circuitRejections.increment();
+                throw new AiServiceUnavailableException("OpenAI circuit breaker is open");
+            }
+
+            permitHandedOver = true;
+            return execute(request, tokens);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AiServiceUnavailableException("Interrupted while waiting for OpenAI token budget", e);
+        } finally {
+            if (!permitHandedOver) {
+                bulkhead.release();
+            }
+        }
+    }
+
+    /**
+     * Run the call under the bulkhead permit already held, hedging it if enabled, and wait
+     * at most the call timeout for the first successful answer
+     */
+    private ChatCompletionResult execute(ChatCompletionRequest request, long tokens) {
+        long startNanos = System.nanoTime();
+        CompletableFuture<ChatCompletionResult> primary = submit(request);
+
+        try {
+            CompletableFuture<ChatCompletionResult> answer = primary;
+            if (hedgingEnabled && hedgeDelayMillis < callTimeoutMillis) {
+                answer = hedgeIfSlow(request, tokens, primary);
+            }
+
+            long remaining = TimeUnit.MILLISECONDS.toNanos(callTimeoutMillis) - (System.nanoTime() - startNanos);
+            ChatCompletionResult result = answer.get(Math.max(0, remaining), TimeUnit.NANOSECONDS);
+
+            circuitBreaker.onSuccess();
+            successTimer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+            return result;
+        } catch (TimeoutException e) {
+            circuitBreaker.onFailure();
+            timeoutTimer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+            throw new AiServiceUnavailableException("OpenAI call timed out after " + callTimeoutMillis + " ms", e);
+        } catch (InterruptedException e) {
+            circuitBreaker.onIgnored();
+            Thread.currentThread().interrupt();
+            throw new AiServiceUnavailableException("Interrupted while waiting for OpenAI", e);
+        } catch (ExecutionException e) {
+            circuitBreaker.onFailure();
+            failureTimer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+            throw new AiServiceUnavailableException("OpenAI call failed", e.getCause());
+        }
+    }
+
+    // Wait up to the hedge delay for the primary call, then race it against a duplicate if resources allow
+    private CompletableFuture<ChatCompletionResult> hedgeIfSlow(ChatCompletionRequest request, long tokens,
+                                                                CompletableFuture<ChatCompletionResult> primary)
+            throws InterruptedException {
+        try {
+            primary.get(hedgeDelayMillis, TimeUnit.MILLISECONDS);
+            return primary;
+        } catch (TimeoutException e) {
+            // Still running: hedge below
+        } catch (ExecutionException e) {
+            return primary;
+        }
+
+        if (!bulkhead.tryAcquire()) {
+            return primary;
+        }
+        if (!tokenGovernor.tryAcquire(tokens, 0)) {
+            bulkhead.release();
+            return primary;
+        }
+
+        hedgedCalls.increment();
+        return firstSuccessful(primary, submit(request));
+    }
+
+    // Start a call; its bulkhead permit is released when the HTTP call itself ends
+    private CompletableFuture<ChatCompletionResult> submit(ChatCompletionRequest request) {
+        CompletableFuture<ChatCompletionResult> call;
+        try {
+            call = CompletableFuture.supplyAsync(() -> openAiService.createChatCompletion(request), executor);
+        } catch (RuntimeException e) {
+            bulkhead.release();
+            throw e;
+        }
+        call.whenComplete((result, error) -> bulkhead.release());
+        return call;
+    }
+
+    private void acquireBulkhead() {
+        try {
+            if (!bulkhead.tryAcquire(acquireTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                bulkheadRejections.increment();
+                throw new AiServiceUnavailableException("Too many concurrent OpenAI calls");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AiServiceUnavailableException("Interrupted while waiting for an OpenAI call slot", e);
+        }
+    }
+
+    private Counter rejectionCounter(String reason) {
+        return Counter.builder("openai.call.rejected")
+                .tag("reason", reason)
+                .description("OpenAI calls rejected before reaching the API")
+                .register(meterRegistry);
+    }
+
+    // Roughly four characters per token for the prompt, plus the completion budget
+    private static long estimateTokens(ChatCompletionRequest request) {
+        long promptTokens = 0;
+        for (ChatMessage message : request.getMessages()) {
+            promptTokens += TokenEstimator.estimate(message.getContent());
+        }
+        int completionTokens = request.getMaxTokens() != null ? request.getMaxTokens() : 0;
+        return promptTokens + completionTokens;
+    }
+
+    // Completes with the first of the two calls to succeed, or fails once both have failed
+    private static <T> CompletableFuture<T> firstSuccessful(CompletableFuture<T> first, CompletableFuture<T> second) {
+        CompletableFuture<T> winner = new CompletableFuture<>();
+        AtomicInteger failures = new AtomicInteger();
+        for (CompletableFuture<T> attempt : Arrays.asList(first, second)) {
+            attempt.whenComplete((result, error) -> {
+                if (error == null) {
+                    winner.complete(result);
+                } else if (failures.incrementAndGet() == 2) {
+                    winner.completeExceptionally(error);
+                }
+            });
+        }
+        return winner;
+    }
+
+    /**
+     * Token bucket refilled continuously at the per-minute rate, holding at most one minute of tokens
+     */
+    static final class TokenGovernor {
+        private final double capacity;
+        private final double tokensPerNano;
+        private double available;
+        private long lastRefill = System.nanoTime();
+
+        TokenGovernor(long tokensPerMinute) {
+            this.capacity = tokensPerMinute;
+            this.tokensPerNano = tokensPerMinute / (double) TimeUnit.MINUTES.toNanos(1);
+            this.available = tokensPerMinute;
+        }
+
+        /**
+         * Take the tokens, waiting up to the timeout for the bucket to refill. Calls larger than
+         * the whole budget only need a full bucket.
+         */
+        boolean tryAcquire(long tokens, long timeoutMillis) throws InterruptedException {
+            double needed = Math.min(tokens, capacity);
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+            while (true) {
+                long waitNanos;
+                synchronized (this) {
+                    refill();
+                    if (available >= needed) {
+                        available -= needed;
+                        return true;
+                    }
+                    waitNanos = (long) ((needed - available) / tokensPerNano);
+                }
+
+                if (System.nanoTime() + waitNanos > deadline) {
+                    return false;
+                }
+                TimeUnit.NANOSECONDS.sleep(waitNanos);
+            }
+        }
+
+        synchronized double available() {
+            refill();
+            return available;
+        }
+
+        private void refill() {
+            long now = System.nanoTime();
+            available = Math.min(capacity, available + (now - lastRefill) * tokensPerNano);
+            lastRefill = now;
+        }
+    }
+
+    enum CircuitState { CLOSED, OPEN, HALF_OPEN }
+
+    /**
+     * Count-based circuit breaker over the outcomes of the last calls
+     */
+    final class CircuitBreaker {
+
+        private CircuitState state = CircuitState.CLOSED;
+        private boolean[] failed;
+        private int nextSlot;
+        private int recorded;
+        private int failures;
+        private long openedAt;
+        private long firstOpenedAt;
+        private int trialPermits;
+        private int trialSuccesses;
+
+        synchronized CircuitState getState() {
+            return state;
+        }
+
+        synchronized boolean isCoolDownOver() {
+            return System.currentTimeMillis() - openedAt >= openDurationMillis;
+        }
+
+        synchronized boolean tryAcquire() {
+            if (state == CircuitState.OPEN && isCoolDownOver()) {
+                state = CircuitState.HALF_OPEN;
+                trialPermits = halfOpenCalls;
+                trialSuccesses = 0;
+                log.info("OpenAI circuit breaker half-open, letting {} trial calls through", halfOpenCalls);
+            }
+
+            switch (state) {
+                case CLOSED:
+                    return true;
+                case HALF_OPEN:
+                    if (trialPermits > 0) {
+                        trialPermits--;
+                        return true;
+                    }
+                    return false;
+                default:
+                    return false;
+            }
+        }
+
+        synchronized void onSuccess() {
+            if (state == CircuitState.HALF_OPEN) {
+                if (++trialSuccesses >= halfOpenCalls) {
+                    close();
+                }
+            } else if (state == CircuitState.CLOSED) {
+                record(false);
+            }
+        }
+
+        synchronized void onFailure() {
+            if (state == CircuitState.HALF_OPEN) {
+                open();
+            } else if (state == CircuitState.CLOSED) {
+                record(true);
+                if (recorded >= minimumCalls && failures * 100 >= failureRateThreshold * recorded) {
+                    open();
+                }
+            }
+        }
+
+        // The call ended without telling anything about the API's health; hand back its trial permit
+        synchronized void onIgnored() {
+            if (state == CircuitState.HALF_OPEN) {
+                trialPermits++;
+            }
+        }
+
+        private void record(boolean failure) {
+            if (failed == null) {
+                failed = new boolean[Math.max(1, windowSize)];
+            }
+            if (recorded == failed.length) {
+                failures -= failed[nextSlot] ? 1 : 0;
+            } else {
+                recorded++;
+            }
+            failed[nextSlot] = failure;
+            failures += failure ? 1 : 0;
+            nextSlot = (nextSlot + 1) % failed.length;
+        }
+
+        private void open() {
+            if (state == CircuitState.CLOSED) {
+                firstOpenedAt = System.currentTimeMillis();
+            }
+            state = CircuitState.OPEN;
+            openedAt = System.currentTimeMillis();
+            log.warn("OpenAI circuit breaker opened after {} failures in the last {} calls; " +
+                     "scoring falls back to rules for {} ms", failures, recorded, openDurationMillis);
+        }
+
+        private void close() {
+            state = CircuitState.CLOSED;
+            failed = null;
+            nextSlot = 0;
+            recorded = 0;
+            failures = 0;
+            openCircuitTimer.record(System.currentTimeMillis() - firstOpenedAt, TimeUnit.MILLISECONDS);
+            log.info("OpenAI circuit breaker closed");
+        }
+    }
+}
@@ -0,0 +1,333 @@
+package com.mynexjob.service;
+
+import com.mynexjob.entity.Job;
+import com.mynexjob.entity.UserProfile;
+import com.mynexjob.event.CandidateProfileChangedEvent;
+import com.mynexjob.event.JobChangedEvent;
+import com.mynexjob.repository.JobRepository;
+import com.mynexjob.repository.UserProfileRepository;
+import com.mynexjob.util.HashedTfIdfVectorizer;
+import com.mynexjob.util.HnswIndex;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * CPU-only semantic retrieval for discovery. Jobs and matching-enabled profiles are embedded as
+ * hashed TF-IDF vectors in one shared space and kept in in-process HNSW indexes, persisted to a
+ * local file. Discovery takes the few hundred nearest items from here and lets MatchingService
+ * re-rank them, so scoring cost stays flat as the corpus grows. The indexes follow the job and
+ * profile change events of every node, relayed by ClusterEventBus.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SemanticIndexService {
+
+    // "MNS2": skills embedded by name; files of the first format, "MNSI", are rebuilt
+    private static final int FILE_MAGIC = 0x4D4E5332;
+
+    private final JobRepository jobRepository;
+    private final UserProfileRepository userProfileRepository;
+    private final MongoTemplate mongoTemplate;
+    private final SkillDictionaryService skillDictionary;
+
+    @Value("${app.matching.semantic.enabled:true}")
+    private Boolean semanticEnabled;
+
+    @Value("${app.matching.semantic.dimensions:1024}")
+    private int dimensions;
+
+    @Value("${app.matching.semantic.max-connections:16}")
+    private int maxConnections;
+
+    @Value("${app.matching.semantic.ef-construction:100}")
+    private int efConstruction;
+
+    @Value("${app.matching.semantic.ef-search:400}")
+    private int efSearch;
+
+    @Value("${app.matching.semantic.top-k:300}")
+    private int topK;
+
+    @Value("${app.matching.semantic.index-file:./data/semantic-index.bin}")
+    private String indexFile;
+
+    private volatile HashedTfIdfVectorizer vectorizer;
+    private volatile HnswIndex jobIndex;
+    private volatile HnswIndex candidateIndex;
+    private volatile boolean ready = false;
+
+    /**
+     * Load the persisted index and catch up on changes made since it was saved,
+     * or build it from scratch when there is no usable file
+     */
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        if (!semanticEnabled) {
+            return;
+        }
+
+        try {
+            LocalDateTime savedAt = load();
+            if (savedAt != null) {
+                catchUp(savedAt);
+            } else {
+                rebuild();
+            }
+            ready = true;
+            log.info("Semantic index ready: {} jobs, {} candidates", jobIndex.size(), candidateIndex.size());
+        } catch (Exception e) {
+            log.error("Failed to initialize semantic index, discovery will use the skill index", e);
+        }
+    }
+
+    /**
+     * Rebuild both indexes from the database, refitting the IDF weights, and persist them
+     */
+    public synchronized void rebuild() {
+        List<Job> jobs = jobRepository.findByIsActiveTrueAndMatchingEnabledTrue();
+        List<UserProfile> profiles = userProfileRepository.findByMatchingEnabledTrue(Pageable.unpaged()).getContent();
+
+        HashedTfIdfVectorizer fitted = new HashedTfIdfVectorizer(dimensions);
+        jobs.forEach(job -> fitted.addDocument(textOf(job)));
+        profiles.forEach(profile -> fitted.addDocument(textOf(profile)));
+
+        HnswIndex jobVectors = new HnswIndex(dimensions, maxConnections, efConstruction);
+        jobs.forEach(job -> jobVectors.add(job.getId(), fitted.vectorize(textOf(job))));
+
+        HnswIndex candidateVectors = new HnswIndex(dimensions, maxConnections, efConstruction);
+        profiles.forEach(profile -> candidateVectors.add(profile.getId(), fitted.vectorize(textOf(profile))));
+
+        vectorizer = fitted;
+        jobIndex = jobVectors;
+        candidateIndex = candidateVectors;
+        save();
+    }
+
+    public boolean isReady() {
+        return semanticEnabled && ready;
+    }
+
+    /**
+     * Re-index a job created, updated or deleted on this node or on another one, as it is stored now
+     */
+    @EventListener
+    public void onJobChanged(JobChangedEvent event) {
+        if (!isReady() || event.getJobId() == null) {
+            return;
+        }
+
+        Job job = jobRepository.findById(event.getJobId()).orElse(null);
+        if (job != null) {
+            indexJob(job);
+        } else {
+            removeJob(event.getJobId());
+        }
+    }
+
+    /**
+     * Re-index a profile changed on this node or on another one, as it is stored now
+     */
+    @EventListener
+    public void onCandidateProfileChanged(CandidateProfileChangedEvent event) {
+        if (!isReady() || event.getProfileId() == null) {
+            return;
+        }
+
+        UserProfile profile = userProfileRepository.findById(event.getProfileId()).orElse(null);
+        if (profile != null) {
+            indexProfile(profile);
+        } else {
+            removeProfile(event.getProfileId());
+        }
+    }
+
+    /**
+     * Add or refresh a job. Inactive or non-matching jobs are removed.
+     */
+    private void indexJob(Job job) {
+        if (!isReady() || job == null || job.getId() == null) {
+            return;
+        }
+
+        if (Boolean.TRUE.equals(job.getIsActive()) && Boolean.TRUE.equals(job.getMatchingEnabled())) {
+            String text = textOf(job);
+            vectorizer.addDocument(text);
+            jobIndex.add(job.getId(), vectorizer.vectorize(text));
+        } else {
+            jobIndex.remove(job.getId());
+        }
+    }
+
+    private void removeJob(String jobId) {
+        if (isReady() && jobId != null) {
+            jobIndex.remove(jobId);
+        }
+    }
+
+    /**
+     * Add or refresh a profile. Profiles with matching disabled are removed.
+     */
+    private void indexProfile(UserProfile profile) {
+        if (!isReady() || profile == null || profile.getId() == null) {
+            return;
+        }
+
+        if (Boolean.TRUE.equals(profile.getMatchingEnabled())) {
+            String text = textOf(profile);
+            vectorizer.addDocument(text);
+            candidateIndex.add(profile.getId(), vectorizer.vectorize(text));
+        } else {
+            candidateIndex.remove(profile.getId());
+        }
+    }
+
+    private void removeProfile(String profileId) {
+        if (isReady() && profileId != null) {
+            candidateIndex.remove(profileId);
+        }
+    }
+
+    /**
+     * IDs of the jobs semantically closest to a profile, best first
+     */
+    public List<String> findNearestJobIds(UserProfile profile) {
+        return jobIndex.search(vectorizer.vectorize(textOf(profile)), topK, efSearch).stream()
+                .map(HnswIndex.Hit::getKey)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * IDs of the profiles semantically closest to a job, best first
+     */
+    public List<String> findNearestProfileIds(Job job) {
+        return candidateIndex.search(vectorizer.vectorize(textOf(job)), topK, efSearch).stream()
+                .map(HnswIndex.Hit::getKey)
+                .collect(Collectors.toList());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (isReady()) {
+            save();
+        }
+    }
+
+    private void catchUp(LocalDateTime savedAt) {
+        Query changedSince = new Query(Criteria.where("updatedAt").gt(savedAt));
+        List<Job> jobs = mongoTemplate.find(changedSince, Job.class);
+        List<UserProfile> profiles = mongoTemplate.find(changedSince, UserProfile.class);
+
+        // Flag ready first so the index methods apply the changes
+        ready = true;
+        jobs.forEach(this::indexJob);
+        profiles.forEach(this::indexProfile);
+        log.info("Semantic index caught up on {} jobs and {} profiles changed since {}",
+                jobs.size(), profiles.size(), savedAt);
+
+        // Deleted jobs leave tombstones behind; start over once they dominate the graph
+        if (jobIndex.getDeletedCount() > jobIndex.size() || candidateIndex.getDeletedCount() > candidateIndex.size()) {
+            rebuild();
+        }
+    }
+
+    private synchronized void save() {
+        Path target = Paths.get(indexFile);
+        try {
+            if (target.getParent() != null) {
+                Files.createDirectories(target.getParent());
+            }
+
+            Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(FILE_MAGIC);
+                out.writeLong(System.currentTimeMillis());
+                vectorizer.writeTo(out);
+                jobIndex.writeTo(out);
+                candidateIndex.writeTo(out);
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.info("Semantic index saved to {}", target);
+        } catch (IOException e) {
+            log.warn("Failed to save semantic index to {}", target, e);
+        }
+    }
+
+    /**
+     * Load the persisted index, returning when it was saved, or null when there is no usable file
+     */
+    private LocalDateTime load() {
+        Path source = Paths.get(indexFile);
+        if (!Files.exists(source)) {
+            return null;
+        }
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(source)))) {
+            if (in.readInt() != FILE_MAGIC) {
+                log.warn("Ignoring semantic index file {} with unexpected format", source);
+                return null;
+            }
+
+            long savedAt = in.readLong();
+            HashedTfIdfVectorizer loadedVectorizer = HashedTfIdfVectorizer.readFrom(in);
+            if (loadedVectorizer.getDimensions() != dimensions) {
+                log.info("Semantic index dimensions changed, rebuilding");
+                return null;
+            }
+
+            vectorizer = loadedVectorizer;
+            jobIndex = HnswIndex.readFrom(in);
+            candidateIndex = HnswIndex.readFrom(in);
+            return LocalDateTime.ofInstant(Instant.ofEpochMilli(savedAt), ZoneId.systemDefault());
+        } catch (IOException e) {
+            log.warn("Failed to load semantic index from {}, rebuilding", source, e);
+            return null;
+        }
+    }
+
+    // Titles are repeated to weigh them above long free-text fields; skills are embedded by name, not ID
+    private String textOf(Job job) {
+        return String.join(" ",
+                nullToEmpty(job.getTitle()), nullToEmpty(job.getTitle()),
+                String.join(" ", skillDictionary.namesOf(job.getRequiredSkills())),
+                nullToEmpty(job.getRequirements()),
+                nullToEmpty(job.getDescription()));
+    }
+
+    private String textOf(UserProfile profile) {
+        return String.join(" ",
+                nullToEmpty(profile.getTitle()), nullToEmpty(profile.getTitle()),
+                String.join(" ", skillDictionary.namesOf(profile.getSkills())),
+                nullToEmpty(profile.getSummary()));
+    }
+
+    private static String nullToEmpty(String value) {
+        return value != null ? value : "";
+    }
+}
@@ -0,0 +1,175 @@
+package com.mynexjob.service;
+
+import com.mynexjob.entity.Job;
+import com.mynexjob.entity.Skill;
+import com.mynexjob.entity.UserProfile;
+import com.mynexjob.repository.SkillRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.mongodb.core.mapping.event.AbstractMongoEventListener;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Process-wide dictionary from normalized skill reference (skill ID or name) to a dense int code.
+ * Profiles and jobs carry their skills as sorted, de-duplicated code arrays, so rule-based skill
+ * overlap is a merge intersection instead of string splitting and substring scans. Codes are
+ * never reassigned, so encoded arrays stay valid as new skills are added.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SkillDictionaryService extends AbstractMongoEventListener<Skill> {
+
+    private static final int[] NO_SKILLS = new int[0];
+
+    private final SkillRepository skillRepository;
+
+    private final Map<String, Integer> codes = new ConcurrentHashMap<>();
+    // Normalized skill ID to the skill's name
+    private final Map<String, String> namesById = new ConcurrentHashMap<>();
+    private final AtomicInteger nextCode = new AtomicInteger();
+
+    /**
+     * Load every known skill, giving its ID and its name the same code. Runs ahead of the other
+     * startup listeners, so the search indexes built there see skill names.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void load() {
+        try {
+            List<Skill> skills = skillRepository.findAll();
+            skills.forEach(this::register);
+            log.info("Skill dictionary loaded: {} skills, {} codes", skills.size(), nextCode.get());
+        } catch (Exception e) {
+            log.error("Failed to load skill dictionary, skills will be coded as they are seen", e);
+        }
+    }
+
+    /**
+     * Pick up skills as they are created or renamed
+     */
+    @Override
+    public void onAfterSave(AfterSaveEvent<Skill> event) {
+        register(event.getSource());
+    }
+
+    /**
+     * Add a skill to the dictionary, aliasing its ID to its name
+     */
+    public void register(Skill skill) {
+        int code = codeOf(skill.getName());
+        if (skill.getId() != null) {
+            codes.putIfAbsent(JobSkillIndexService.normalizeSkill(skill.getId()), code);
+            if (skill.getName() != null) {
+                namesById.put(JobSkillIndexService.normalizeSkill(skill.getId()), skill.getName());
+            }
+        }
+    }
+
+    /**
+     * Names of a list of skill references for text search: IDs of known skills become their
+     * names, anything else is kept as given
+     */
+    public List<String> namesOf(Collection<String> skills) {
+        if (skills == null) {
+            return new ArrayList<>();
+        }
+        return skills.stream()
+                .filter(skill -> !JobSkillIndexService.normalizeSkill(skill).isEmpty())
+                .map(skill -> namesById.getOrDefault(JobSkillIndexService.normalizeSkill(skill), skill))
+                .distinct()
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Code of a skill reference, assigning a new one the first time it is seen
+     */
+    public int codeOf(String skill) {
+        return codes.computeIfAbsent(JobSkillIndexService.normalizeSkill(skill), key -> nextCode.getAndIncrement());
+    }
+
+    /**
+     * Sorted, de-duplicated codes of a list of skill references
+     */
+    public int[] encode(Collection<String> skills) {
+        if (skills == null || skills.isEmpty()) {
+            return NO_SKILLS;
+        }
+
+        int[] encoded = new int[skills.size()];
+        int size = 0;
+        for (String skill : skills) {
+            if (!JobSkillIndexService.normalizeSkill(skill).isEmpty()) {
+                encoded[size++] = codeOf(skill);
+            }
+        }
+
+        Arrays.sort(encoded, 0, size);
+        int unique = 0;
+        for (int i = 0; i < size; i++) {
+            if (unique == 0 || encoded[i] != encoded[unique - 1]) {
+                encoded[unique++] = encoded[i];
+            }
+        }
+        return unique == encoded.length ? encoded : Arrays.copyOf(encoded, unique);
+    }
+
+    /**
+     * Encoded required skills of a job, computed once per loaded entity
+     */
+    public int[] skillCodesOf(Job job) {
+        int[] skillCodes = job.getSkillCodes();
+        if (skillCodes == null) {
+            skillCodes = encode(job.getRequiredSkills());
+            job.setSkillCodes(skillCodes);
+        }
+        return skillCodes;
+    }
+
+    /**
+     * Encoded skills of a profile, computed once per loaded entity
+     */
+    public int[] skillCodesOf(UserProfile profile) {
+        int[] skillCodes = profile.getSkillCodes();
+        if (skillCodes == null) {
+            skillCodes = encode(profile.getSkills());
+            profile.setSkillCodes(skillCodes);
+        }
+        return skillCodes;
+    }
+
+    /**
+     * Number of codes present in both sorted arrays, without allocating
+     */
+    public static int intersectionSize(int[] a, int[] b) {
+        int i = 0;
+        int j = 0;
+        int count = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                count++;
+                i++;
+                j++;
+            }
+        }
+        return count;
+    }
+}
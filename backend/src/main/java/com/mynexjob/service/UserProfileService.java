@@ -3,6 +3,7 @@ package com.mynexjob.service;
 import com.mynexjob.dto.profile.CreateProfileRequest;
 import com.mynexjob.dto.profile.UserProfileDto;
 import com.mynexjob.entity.*;
+import com.mynexjob.event.CandidateProfileChangedEvent;
 import com.mynexjob.exception.BadRequestException;
 import com.mynexjob.exception.ResourceNotFoundException;
 import com.mynexjob.mapper.UserProfileMapper;
@@ -11,6 +12,7 @@ import com.mynexjob.repository.UserProfileRepository;
 import com.mynexjob.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -28,6 +30,8 @@ public class UserProfileService {
     private final UserRepository userRepository;
     private final SkillRepository skillRepository;
     private final UserProfileMapper userProfileMapper;
+    private final MatchStoreService matchStoreService;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Transactional(readOnly = true)
     public UserProfileDto getUserProfile(String userEmail) {
@@ -149,6 +153,10 @@ public class UserProfileService {
         log.info("Profile updated for user: {}. Completion: {}%, Matching enabled: {}", 
                 userEmail, profile.getProfileCompletionPercentage(), profile.getMatchingEnabled());
 
+        matchStoreService.refreshForCandidate(user, profile);
+        eventPublisher.publishEvent(new CandidateProfileChangedEvent(
+                CandidateProfileChangedEvent.Type.PROFILE_UPDATED, user.getId(), profile.getId()));
+
         return userProfileMapper.toDto(profile);
     }
 
@@ -186,7 +194,10 @@ public class UserProfileService {
         }
 
         profile.setMatchingEnabled(true);
-        userProfileRepository.save(profile);
+        profile = userProfileRepository.save(profile);
+        matchStoreService.refreshForCandidate(user, profile);
+        eventPublisher.publishEvent(new CandidateProfileChangedEvent(
+                CandidateProfileChangedEvent.Type.MATCHING_ENABLED, user.getId(), profile.getId()));
 
         log.info("Matching enabled for user: {}", userEmail);
     }
@@ -201,6 +212,9 @@ public class UserProfileService {
 
         profile.setMatchingEnabled(false);
         userProfileRepository.save(profile);
+        matchStoreService.removeForCandidate(user.getId());
+        eventPublisher.publishEvent(new CandidateProfileChangedEvent(
+                CandidateProfileChangedEvent.Type.MATCHING_DISABLED, user.getId(), profile.getId()));
 
         log.info("Matching disabled for user: {}", userEmail);
     }
@@ -0,0 +1,122 @@
+package com.mynexjob.specification;
+
+import com.mynexjob.entity.Job;
+import com.mynexjob.entity.UserProfile;
+import org.bson.types.Decimal128;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Strict matching filters (salary ceiling and minimum experience). Each rule is defined once and
+ * evaluated either in memory against a loaded profile or compiled into a user_profiles query, so
+ * the two cannot drift apart. A rule only applies when both sides have a value.
+ */
+public class CandidateSpecification {
+
+    private enum StrictFilter {
+
+        // Job offered salary >= candidate expected salary
+        SALARY("expectedSalary", "Offered salary below expectation") {
+            @Override
+            Object limit(Job job) {
+                return offeredSalary(job);
+            }
+
+            @Override
+            boolean passes(UserProfile profile, Job job) {
+                BigDecimal offered = offeredSalary(job);
+                return offered == null || profile.getExpectedSalary() == null
+                        || profile.getExpectedSalary().compareTo(offered) <= 0;
+            }
+
+            @Override
+            Criteria bound(Object limit) {
+                return Criteria.where(field).lte(new Decimal128((BigDecimal) limit));
+            }
+        },
+
+        // Candidate experience >= required experience
+        EXPERIENCE("experienceYears", "Insufficient experience") {
+            @Override
+            Object limit(Job job) {
+                return job.getExperienceMin();
+            }
+
+            @Override
+            boolean passes(UserProfile profile, Job job) {
+                return job.getExperienceMin() == null || profile.getExperienceYears() == null
+                        || profile.getExperienceYears() >= job.getExperienceMin();
+            }
+
+            @Override
+            Criteria bound(Object limit) {
+                return Criteria.where(field).gte(limit);
+            }
+        };
+
+        final String field;
+        final String reason;
+
+        StrictFilter(String field, String reason) {
+            this.field = field;
+            this.reason = reason;
+        }
+
+        abstract Object limit(Job job);
+
+        abstract boolean passes(UserProfile profile, Job job);
+
+        abstract Criteria bound(Object limit);
+
+        Criteria toCriteria(Job job) {
+            Object limit = limit(job);
+            if (limit == null) {
+                return null;
+            }
+            // Profiles without a value are not filtered, matching the in-memory rule
+            return new Criteria().orOperator(Criteria.where(field).is(null), bound(limit));
+        }
+    }
+
+    /**
+     * Apply the strict filters to a loaded profile, collecting the reasons it fails
+     */
+    public static boolean passesStrictFilters(UserProfile profile, Job job, List<String> reasons) {
+        boolean passes = true;
+        for (StrictFilter filter : StrictFilter.values()) {
+            if (!filter.passes(profile, job)) {
+                reasons.add(filter.reason);
+                passes = false;
+            }
+        }
+        return passes;
+    }
+
+    /**
+     * Query for the matching-enabled profiles that pass the strict filters of a job
+     */
+    public static Query matchingCandidates(Job job) {
+        List<Criteria> criteriaList = new ArrayList<>();
+        criteriaList.add(Criteria.where("matchingEnabled").is(true));
+
+        for (StrictFilter filter : StrictFilter.values()) {
+            Criteria criteria = filter.toCriteria(job);
+            if (criteria != null) {
+                criteriaList.add(criteria);
+            }
+        }
+
+        return new Query(new Criteria().andOperator(criteriaList.toArray(new Criteria[0])));
+    }
+
+    /**
+     * Salary a job offers for matching: the top of its range, or the bottom when no top is set
+     */
+    public static BigDecimal offeredSalary(Job job) {
+        return job.getSalaryMax() != null ? job.getSalaryMax() : job.getSalaryMin();
+    }
+}
@@ -0,0 +1,133 @@
+package com.mynexjob.specification;
+
+import com.mynexjob.entity.Job;
+import com.mynexjob.exception.BadRequestException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.query.Criteria;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Search-after position in a job listing sorted by one key with _id as the tie-breaker. The next
+ * page is the jobs after the last one served in (key, _id) order, read through the index on the
+ * key, so page 500 costs the same as page 2 and concurrent inserts do not shift pages.
+ * <p>
+ * Only postedAt can be seeked on. Salaries are BigDecimals, which are stored as strings, so a
+ * range seek on them compares lexicographically ("90000" after "100000") and skips or repeats
+ * jobs; salary-sorted listings page by offset.
+ */
+public final class JobKeysetCursor {
+
+    private static final String CURSOR_VERSION = "k1";
+
+    private static final Map<String, Function<Job, Object>> SORT_KEYS = Map.of(
+            "postedAt", Job::getPostedAt
+    );
+
+    private static final Map<String, Function<String, Object>> PARSERS = Map.of(
+            "postedAt", LocalDateTime::parse
+    );
+
+    private final Sort.Order order;
+    private final Object value;
+    private final String id;
+    private final int page;
+
+    private JobKeysetCursor(Sort.Order order, Object value, String id, int page) {
+        this.order = order;
+        this.value = value;
+        this.id = id;
+        this.page = page;
+    }
+
+    /**
+     * Whether a listing in this order can be paged by cursor: a single postedAt sort
+     */
+    public static boolean supports(Sort sort) {
+        return sort.stream().count() == 1 && SORT_KEYS.containsKey(sort.iterator().next().getProperty());
+    }
+
+    /**
+     * The order a keyset-paged listing is read in: the sort key, then _id in the same direction
+     */
+    public static Sort withTieBreaker(Sort sort) {
+        Sort.Order order = sort.iterator().next();
+        return sort.and(Sort.by(order.getDirection(), "id"));
+    }
+
+    /**
+     * Cursor for the page after the given job, which is the last one on page {@code page - 1}
+     */
+    public static JobKeysetCursor after(Job last, Sort sort, int page) {
+        Sort.Order order = sort.iterator().next();
+        return new JobKeysetCursor(order, SORT_KEYS.get(order.getProperty()).apply(last), last.getId(), page);
+    }
+
+    public static JobKeysetCursor decode(String token, Sort sort) {
+        if (!supports(sort)) {
+            throw new BadRequestException("Cursor pagination needs a single postedAt sort");
+        }
+
+        Sort.Order order = sort.iterator().next();
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8).split("\\|", -1);
+            if (parts.length != 6 || !CURSOR_VERSION.equals(parts[0])) {
+                throw new BadRequestException("Invalid cursor");
+            }
+            if (!order.getProperty().equals(parts[1]) || !order.getDirection().name().equals(parts[2])) {
+                throw new BadRequestException("Cursor does not match the requested sort");
+            }
+
+            Object value = parts[3].isEmpty() ? null : PARSERS.get(parts[1]).apply(parts[3]);
+            int page = Integer.parseInt(parts[5]);
+            if (parts[4].isEmpty() || page < 0) {
+                throw new BadRequestException("Invalid cursor");
+            }
+            return new JobKeysetCursor(order, value, parts[4], page);
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new BadRequestException("Invalid cursor");
+        }
+    }
+
+    public String encode() {
+        String token = String.join("|", CURSOR_VERSION, order.getProperty(), order.getDirection().name(),
+                                   value != null ? value.toString() : "", id, String.valueOf(page));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(token.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Criteria selecting the jobs after this position. Jobs without the key sort before all others
+     * ascending and after them descending, and range operators never match them, so they are
+     * selected explicitly. Always a single $or, so it adds to the $and of a search query.
+     */
+    public Criteria criteria() {
+        String key = order.getProperty();
+        if (order.isAscending()) {
+            return value == null
+                    ? new Criteria().orOperator(
+                            Criteria.where(key).is(null).and("id").gt(id),
+                            Criteria.where(key).ne(null))
+                    : new Criteria().orOperator(
+                            Criteria.where(key).gt(value),
+                            Criteria.where(key).is(value).and("id").gt(id));
+        }
+        return value == null
+                ? new Criteria().orOperator(Criteria.where(key).is(null).and("id").lt(id))
+                : new Criteria().orOperator(
+                        Criteria.where(key).lt(value),
+                        Criteria.where(key).is(value).and("id").lt(id),
+                        Criteria.where(key).is(null));
+    }
+
+    /**
+     * Zero-based number of the page this cursor starts
+     */
+    public int getPage() {
+        return page;
+    }
+}
@@ -0,0 +1,165 @@
+package com.mynexjob.specification;
+
+import com.mynexjob.entity.Job;
+import org.bson.Document;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.FacetOperation;
+import org.springframework.data.mongodb.core.aggregation.TypedAggregation;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.TextQuery;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A job search as one $facet aggregation: the requested page, the total and, optionally, facet
+ * counts by job type, location, remote, hybrid and salary band, all over the same $match, so a
+ * search costs a single round trip and a single pass over the matching jobs. The page's $sort runs
+ * inside $facet and cannot use an index, so searches without facets are better served by a find
+ * and a count.
+ */
+public class JobSearchPipeline {
+
+    public static final String JOB_TYPE_FACET = "jobType";
+    public static final String LOCATION_FACET = "location";
+    public static final String REMOTE_FACET = "remote";
+    public static final String HYBRID_FACET = "hybrid";
+    public static final String SALARY_FACET = "salary";
+
+    private static final String PAGE = "page";
+    private static final String TOTAL = "total";
+    private static final String UNSPECIFIED = "unspecified";
+    private static final String OTHER_BAND = "other";
+
+    /**
+     * @param query        criteria from {@link JobSpecification#withCriteria}; a text query also ranks by relevance
+     * @param salaryBands  ascending lower bounds of the salary bands; the last one closes the highest band
+     * @param locationLimit number of most frequent locations to count
+     * @param pageFields   projection of the page's jobs, such as JobRepository.SUMMARY_FIELDS; null for whole jobs
+     */
+    public static TypedAggregation<Job> build(Query query, Pageable pageable, boolean includeFacets,
+                                              List<Long> salaryBands, int locationLimit, Document pageFields) {
+        boolean textSearch = query instanceof TextQuery;
+        Document match = query.getQueryObject();
+
+        List<AggregationOperation> pipeline = new ArrayList<>();
+        pipeline.add(context -> new Document("$match", context.getMappedObject(match)));
+        if (textSearch) {
+            pipeline.add(context -> new Document("$addFields",
+                    new Document("score", new Document("$meta", "textScore"))));
+        }
+
+        List<AggregationOperation> page = new ArrayList<>();
+        Document sort = new Document();
+        if (textSearch) {
+            sort.append("score", -1);
+        }
+        for (Sort.Order order : pageable.getSort()) {
+            String field = "id".equals(order.getProperty()) ? "_id" : order.getProperty();
+            sort.append(field, order.isAscending() ? 1 : -1);
+        }
+        if (!sort.isEmpty()) {
+            page.add(context -> new Document("$sort", sort));
+        }
+        page.add(Aggregation.skip(pageable.getOffset()));
+        page.add(Aggregation.limit(pageable.getPageSize()));
+        if (pageFields != null) {
+            page.add(context -> new Document("$project", context.getMappedObject(pageFields)));
+        }
+
+        FacetOperation facets = Aggregation.facet(page.toArray(new AggregationOperation[0])).as(PAGE)
+                .and(Aggregation.count().as("count")).as(TOTAL);
+        if (includeFacets) {
+            facets = facets
+                    .and(countBy("jobType", 0)).as(JOB_TYPE_FACET)
+                    .and(countBy("location", locationLimit)).as(LOCATION_FACET)
+                    .and(countBy("isRemote", 0)).as(REMOTE_FACET)
+                    .and(countBy("isHybrid", 0)).as(HYBRID_FACET)
+                    .and(salaryBands(salaryBands)).as(SALARY_FACET);
+        }
+        pipeline.add(facets);
+
+        return Aggregation.newAggregation(Job.class, pipeline);
+    }
+
+    /**
+     * Total of the aggregation result
+     */
+    public static long totalOf(Document result) {
+        List<Document> total = listOf(result, TOTAL);
+        return total.isEmpty() ? 0L : ((Number) total.get(0).get("count")).longValue();
+    }
+
+    /**
+     * Job documents of the requested page, in order
+     */
+    public static List<Document> pageOf(Document result) {
+        return listOf(result, PAGE);
+    }
+
+    /**
+     * Facet counts of the aggregation result, most frequent value first; salary bands in band order
+     */
+    public static Map<String, Map<String, Long>> facetsOf(Document result, List<Long> salaryBands) {
+        Map<String, Map<String, Long>> facets = new LinkedHashMap<>();
+        for (String facet : List.of(JOB_TYPE_FACET, LOCATION_FACET, REMOTE_FACET, HYBRID_FACET)) {
+            Map<String, Long> counts = new LinkedHashMap<>();
+            for (Document bucket : listOf(result, facet)) {
+                Object value = bucket.get("_id");
+                counts.put(value != null ? value.toString() : UNSPECIFIED, ((Number) bucket.get("count")).longValue());
+            }
+            facets.put(facet, counts);
+        }
+
+        Map<String, Long> bands = new LinkedHashMap<>();
+        for (Document bucket : listOf(result, SALARY_FACET)) {
+            Object lowerBound = bucket.get("_id");
+            bands.put(lowerBound instanceof Number ? bandLabel(((Number) lowerBound).longValue(), salaryBands) : OTHER_BAND,
+                      ((Number) bucket.get("count")).longValue());
+        }
+        facets.put(SALARY_FACET, bands);
+        return facets;
+    }
+
+    private static AggregationOperation[] countBy(String field, int limit) {
+        List<AggregationOperation> operations = new ArrayList<>();
+        operations.add(Aggregation.group(field).count().as("count"));
+        operations.add(Aggregation.sort(Sort.by(Sort.Direction.DESC, "count").and(Sort.by("_id"))));
+        if (limit > 0) {
+            operations.add(Aggregation.limit(limit));
+        }
+        return operations.toArray(new AggregationOperation[0]);
+    }
+
+    // Salaries may be stored as strings or numbers; $convert reads both and sends the rest to the default band
+    private static AggregationOperation salaryBands(List<Long> salaryBands) {
+        return context -> new Document("$bucket", new Document()
+                .append("groupBy", new Document("$convert", new Document("input", "$salaryMin")
+                        .append("to", "decimal")
+                        .append("onError", null)
+                        .append("onNull", null)))
+                .append("boundaries", salaryBands)
+                .append("default", OTHER_BAND)
+                .append("output", new Document("count", new Document("$sum", 1))));
+    }
+
+    /**
+     * Label of the band starting at the given bound, such as "300000-600000"; just the bound for the last one
+     */
+    static String bandLabel(long lowerBound, List<Long> salaryBands) {
+        int i = salaryBands.indexOf(lowerBound);
+        return i >= 0 && i + 1 < salaryBands.size() ? lowerBound + "-" + salaryBands.get(i + 1) : String.valueOf(lowerBound);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Document> listOf(Document result, String field) {
+        Object value = result != null ? result.get(field) : null;
+        return value instanceof List ? (List<Document>) value : Collections.emptyList();
+    }
+}
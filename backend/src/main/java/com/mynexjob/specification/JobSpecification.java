@@ -1,22 +1,50 @@
 package com.mynexjob.specification;
 
 import com.mynexjob.dto.job.JobSearchRequest;
+import com.mynexjob.enums.SearchMode;
+import com.mynexjob.event.JobSnapshot;
 import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.TextCriteria;
+import org.springframework.data.mongodb.core.query.TextQuery;
 
+import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
 
 public class JobSpecification {
 
+    // Characters a regex may read from one value before its match counts as undecided
+    private static final int MAX_MATCH_STEPS = 1_000_000;
+
     public static Query withCriteria(JobSearchRequest searchRequest) {
+        return withCriteria(searchRequest, SearchMode.REGEX);
+    }
+
+    /**
+     * Query for the criteria with the keyword matched in the given mode. In TEXT mode the
+     * keyword goes to the weighted text index and results are ordered by relevance first,
+     * ahead of any sort the caller adds.
+     */
+    public static Query withCriteria(JobSearchRequest searchRequest, SearchMode mode) {
         List<Criteria> criteriaList = new ArrayList<>();
+        boolean hasKeyword = searchRequest.getKeyword() != null && !searchRequest.getKeyword().trim().isEmpty();
 
         // Always filter active jobs
         criteriaList.add(Criteria.where("isActive").is(true));
 
+        // Text search, ordered by relevance
+        boolean textSearch = hasKeyword && mode == SearchMode.TEXT;
+        Query query = textSearch
+                ? TextQuery.queryText(TextCriteria.forDefaultLanguage().matching(searchRequest.getKeyword().trim())).sortByScore()
+                : new Query();
+
         // Keyword search
-        if (searchRequest.getKeyword() != null && !searchRequest.getKeyword().trim().isEmpty()) {
+        if (hasKeyword && !textSearch) {
             String keyword = searchRequest.getKeyword();
             Criteria keywordCriteria = new Criteria().orOperator(
                 Criteria.where("title").regex(keyword, "i"),
@@ -76,11 +104,209 @@ public class JobSpecification {
             criteriaList.add(Criteria.where("isFeatured").is(searchRequest.getIsFeatured()));
         }
 
-        Query query = new Query();
         if (!criteriaList.isEmpty()) {
             query.addCriteria(new Criteria().andOperator(criteriaList.toArray(new Criteria[0])));
         }
 
         return query;
     }
+
+    /**
+     * In-memory checks of the criteria of withCriteria against jobs, with the search's regexes
+     * compiled once
+     */
+    public static Matcher matcher(JobSearchRequest searchRequest) {
+        return new Matcher(searchRequest);
+    }
+
+    /**
+     * The criteria of one search, ready to check many jobs. A keyword or location regex that does
+     * not compile, or that backtracks past a bounded number of steps on a value, cannot be evaluated.
+     */
+    public static final class Matcher {
+        private final JobSearchRequest searchRequest;
+        private final boolean hasKeyword;
+        private final Pattern keywordPattern;
+        private final Pattern locationPattern;
+
+        private Matcher(JobSearchRequest searchRequest) {
+            this.searchRequest = searchRequest;
+            this.hasKeyword = searchRequest.getKeyword() != null && !searchRequest.getKeyword().trim().isEmpty();
+            this.keywordPattern = hasKeyword ? compile(searchRequest.getKeyword()) : null;
+            this.locationPattern = hasText(searchRequest.getLocation()) ? compile(searchRequest.getLocation()) : null;
+        }
+
+        /**
+         * Whether a job may satisfy the criteria. Used to find the cached searches a job change
+         * affects, so it errs on the side of matching: a criterion it cannot evaluate counts as met.
+         */
+        public boolean matches(JobSnapshot job) {
+            if (!Boolean.TRUE.equals(job.getIsActive())) {
+                return false;
+            }
+
+            // A search without a mode ran in the configured default, which is not known here
+            if (hasKeyword
+                    && !(searchRequest.getSearchMode() != SearchMode.TEXT && matchesPattern(job))
+                    && !(searchRequest.getSearchMode() != SearchMode.REGEX && matchesText(searchRequest.getKeyword(), job))) {
+                return false;
+            }
+
+            return JobSpecification.matchesFilters(searchRequest, locationPattern, job, true);
+        }
+
+        /**
+         * Exact check of the criteria other than the keyword, for searches whose keyword is
+         * matched outside MongoDB
+         */
+        public boolean matchesFilters(JobSnapshot job) {
+            return Boolean.TRUE.equals(job.getIsActive())
+                    && JobSpecification.matchesFilters(searchRequest, locationPattern, job, false);
+        }
+
+        private boolean matchesPattern(JobSnapshot job) {
+            return containsPattern(keywordPattern, job.getTitle(), true)
+                    || containsPattern(keywordPattern, job.getDescription(), true);
+        }
+    }
+
+    // Lenient: a criterion that cannot be evaluated counts as met
+    private static boolean matchesFilters(JobSearchRequest searchRequest, Pattern location, JobSnapshot job,
+                                          boolean lenient) {
+        if (hasText(searchRequest.getLocation()) && !containsPattern(location, job.getLocation(), lenient)) {
+            return false;
+        }
+
+        if (searchRequest.getJobTypes() != null && !searchRequest.getJobTypes().isEmpty()
+                && !searchRequest.getJobTypes().contains(job.getJobType())) {
+            return false;
+        }
+
+        if (searchRequest.getCompanyIds() != null && !searchRequest.getCompanyIds().isEmpty()
+                && searchRequest.getCompanyIds().stream().map(UUID::toString).noneMatch(id -> id.equals(job.getCompanyId()))) {
+            return false;
+        }
+
+        if (searchRequest.getSkillIds() != null && !searchRequest.getSkillIds().isEmpty()
+                && (job.getRequiredSkills() == null ? !lenient
+                    : searchRequest.getSkillIds().stream().map(UUID::toString).noneMatch(job.getRequiredSkills()::contains))) {
+            return false;
+        }
+
+        if (!atLeast(job.getSalaryMax(), searchRequest.getSalaryMin(), lenient)
+                || !atMost(job.getSalaryMin(), searchRequest.getSalaryMax(), lenient)) {
+            return false;
+        }
+
+        if (!atLeast(job.getExperienceMax(), searchRequest.getExperienceMin(), lenient)
+                || !atMost(job.getExperienceMin(), searchRequest.getExperienceMax(), lenient)) {
+            return false;
+        }
+
+        return (searchRequest.getIsRemote() == null || searchRequest.getIsRemote().equals(job.getIsRemote()))
+                && (searchRequest.getIsHybrid() == null || searchRequest.getIsHybrid().equals(job.getIsHybrid()))
+                && (searchRequest.getIsFeatured() == null || searchRequest.getIsFeatured().equals(job.getIsFeatured()));
+    }
+
+    // Approximates $text: any term whose first letters, as a stand-in for its stem, occur in an indexed field
+    private static boolean matchesText(String keyword, JobSnapshot job) {
+        String text = String.join(" ", nullToEmpty(job.getTitle()), nullToEmpty(job.getDescription()),
+                                  nullToEmpty(job.getRequirements()),
+                                  job.getSkills() != null ? String.join(" ", job.getSkills()) : "")
+                .toLowerCase(Locale.ROOT);
+        for (String term : keyword.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}-]+")) {
+            if (!term.isEmpty() && !term.startsWith("-") && text.contains(term.substring(0, Math.min(term.length(), 4)))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String nullToEmpty(String value) {
+        return value != null ? value : "";
+    }
+
+    private static boolean hasText(String value) {
+        return value != null && !value.trim().isEmpty();
+    }
+
+    // Case-insensitive, as MongoDB applies the regex; null when it does not compile
+    private static Pattern compile(String regex) {
+        try {
+            return Pattern.compile(regex, Pattern.CASE_INSENSITIVE);
+        } catch (PatternSyntaxException e) {
+            return null;
+        }
+    }
+
+    // Regex search; a pattern that did not compile or runs out of steps is met only when lenient
+    private static boolean containsPattern(Pattern pattern, String value, boolean lenient) {
+        if (value == null) {
+            return false;
+        }
+        if (pattern == null) {
+            return lenient;
+        }
+        try {
+            return pattern.matcher(new BoundedCharSequence(value)).find();
+        } catch (MatchStepsExceededException e) {
+            return lenient;
+        }
+    }
+
+    // Counts the characters a regex reads, so a catastrophically backtracking one gives up
+    private static final class BoundedCharSequence implements CharSequence {
+        private final String value;
+        private int steps = 0;
+
+        BoundedCharSequence(String value) {
+            this.value = value;
+        }
+
+        @Override
+        public char charAt(int index) {
+            if (++steps > MAX_MATCH_STEPS) {
+                throw new MatchStepsExceededException();
+            }
+            return value.charAt(index);
+        }
+
+        @Override
+        public int length() {
+            return value.length();
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return value.subSequence(start, end);
+        }
+
+        @Override
+        public String toString() {
+            return value;
+        }
+    }
+
+    private static final class MatchStepsExceededException extends RuntimeException {
+        MatchStepsExceededException() {
+            super(null, null, false, false);
+        }
+    }
+
+    // A missing bound is met; a missing value, which MongoDB never matches, is met only when lenient
+    private static boolean atLeast(BigDecimal value, BigDecimal bound, boolean lenient) {
+        return bound == null || (value == null ? lenient : value.compareTo(bound) >= 0);
+    }
+
+    private static boolean atLeast(Integer value, Integer bound, boolean lenient) {
+        return bound == null || (value == null ? lenient : value >= bound);
+    }
+
+    private static boolean atMost(BigDecimal value, BigDecimal bound, boolean lenient) {
+        return bound == null || (value == null ? lenient : value.compareTo(bound) <= 0);
+    }
+
+    private static boolean atMost(Integer value, Integer bound, boolean lenient) {
+        return bound == null || (value == null ? lenient : value <= bound);
+    }
 }
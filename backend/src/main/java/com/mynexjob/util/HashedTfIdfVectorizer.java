@@ -0,0 +1,124 @@
+package com.mynexjob.util;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Turns free text into fixed-size, L2-normalized TF-IDF vectors using the hashing trick, so no
+ * vocabulary has to be stored. Document frequencies are tracked per hash bucket and updated as
+ * documents are added. Thread-safe.
+ */
+public class HashedTfIdfVectorizer {
+
+    private static final Set<String> STOP_WORDS = new HashSet<>(Arrays.asList(
+            "a", "an", "and", "are", "as", "at", "be", "by", "for", "from", "in", "is", "it", "of",
+            "on", "or", "our", "the", "to", "we", "will", "with", "you", "your"));
+
+    private final int dimensions;
+    private final int[] documentFrequency;
+    private int documentCount;
+
+    public HashedTfIdfVectorizer(int dimensions) {
+        this.dimensions = dimensions;
+        this.documentFrequency = new int[dimensions];
+    }
+
+    public int getDimensions() {
+        return dimensions;
+    }
+
+    /**
+     * Count a document towards the document frequencies used for IDF weighting
+     */
+    public synchronized void addDocument(String text) {
+        Set<Integer> buckets = new HashSet<>();
+        for (String token : tokenize(text)) {
+            buckets.add(bucket(hash(token)));
+        }
+        buckets.forEach(bucket -> documentFrequency[bucket]++);
+        documentCount++;
+    }
+
+    /**
+     * Sublinear TF times smoothed IDF, hashed into the vector with a sign bit, then L2-normalized
+     */
+    public float[] vectorize(String text) {
+        Map<String, Integer> termCounts = new HashMap<>();
+        for (String token : tokenize(text)) {
+            termCounts.merge(token, 1, Integer::sum);
+        }
+
+        float[] vector = new float[dimensions];
+        synchronized (this) {
+            for (Map.Entry<String, Integer> term : termCounts.entrySet()) {
+                int hash = hash(term.getKey());
+                int bucket = bucket(hash);
+                double tf = 1.0 + Math.log(term.getValue());
+                double idf = Math.log((documentCount + 1.0) / (documentFrequency[bucket] + 1.0)) + 1.0;
+                vector[bucket] += (float) (((hash & 1) == 0 ? 1 : -1) * tf * idf);
+            }
+        }
+
+        double norm = 0;
+        for (float value : vector) {
+            norm += value * value;
+        }
+        if (norm > 0) {
+            float scale = (float) (1.0 / Math.sqrt(norm));
+            for (int i = 0; i < vector.length; i++) {
+                vector[i] *= scale;
+            }
+        }
+        return vector;
+    }
+
+    public synchronized void writeTo(DataOutput out) throws IOException {
+        out.writeInt(dimensions);
+        out.writeInt(documentCount);
+        for (int frequency : documentFrequency) {
+            out.writeInt(frequency);
+        }
+    }
+
+    public static HashedTfIdfVectorizer readFrom(DataInput in) throws IOException {
+        HashedTfIdfVectorizer vectorizer = new HashedTfIdfVectorizer(in.readInt());
+        vectorizer.documentCount = in.readInt();
+        for (int i = 0; i < vectorizer.dimensions; i++) {
+            vectorizer.documentFrequency[i] = in.readInt();
+        }
+        return vectorizer;
+    }
+
+    private static String[] tokenize(String text) {
+        if (text == null || text.isEmpty()) {
+            return new String[0];
+        }
+
+        // Keep '+' and '#' so skills like C++ and C# survive tokenization
+        return Arrays.stream(text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}+#]+"))
+                .filter(token -> token.length() > 1 && !STOP_WORDS.contains(token))
+                .toArray(String[]::new);
+    }
+
+    private int bucket(int hash) {
+        return (hash >>> 1) % dimensions;
+    }
+
+    // String.hashCode with a murmur3 finalizer so nearby strings spread across buckets
+    private static int hash(String token) {
+        int h = token.hashCode();
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+}
@@ -0,0 +1,384 @@
+package com.mynexjob.util;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-process approximate nearest neighbour index over L2-normalized vectors (cosine similarity),
+ * using a Hierarchical Navigable Small World graph. Updating a key adds a new node and tombstones
+ * the old one; tombstoned nodes still route searches but are never returned. Searches may run
+ * concurrently; writes are exclusive.
+ */
+public class HnswIndex {
+
+    private static final int FORMAT_VERSION = 1;
+
+    private final int dimensions;
+    private final int maxConnections;
+    private final int maxConnectionsLevel0;
+    private final int efConstruction;
+    private final double levelMultiplier;
+    private final Random random = new Random(42);
+
+    private final List<Node> nodes = new ArrayList<>();
+    private final Map<String, Integer> nodeByKey = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private int entryPoint = -1;
+    private int maxLevel = -1;
+    private int deletedCount;
+
+    public HnswIndex(int dimensions, int maxConnections, int efConstruction) {
+        this.dimensions = dimensions;
+        this.maxConnections = maxConnections;
+        this.maxConnectionsLevel0 = maxConnections * 2;
+        this.efConstruction = efConstruction;
+        this.levelMultiplier = 1.0 / Math.log(maxConnections);
+    }
+
+    /**
+     * A search hit: the key of an indexed vector and its cosine similarity to the query
+     */
+    public static final class Hit {
+        private final String key;
+        private final float similarity;
+
+        Hit(String key, float similarity) {
+            this.key = key;
+            this.similarity = similarity;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public float getSimilarity() {
+            return similarity;
+        }
+    }
+
+    private static final class Node {
+        final String key;
+        final float[] vector;
+        final int[][] links;
+        final int[] linkCounts;
+        boolean deleted;
+
+        Node(String key, float[] vector, int level, int maxConnections, int maxConnectionsLevel0) {
+            this.key = key;
+            this.vector = vector;
+            this.links = new int[level + 1][];
+            this.linkCounts = new int[level + 1];
+            for (int l = 0; l <= level; l++) {
+                links[l] = new int[l == 0 ? maxConnectionsLevel0 : maxConnections];
+            }
+        }
+
+        int level() {
+            return links.length - 1;
+        }
+    }
+
+    // Candidate node with its distance to the current query
+    private static final class Candidate {
+        final int node;
+        final float distance;
+
+        Candidate(int node, float distance) {
+            this.node = node;
+            this.distance = distance;
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return nodeByKey.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int getDeletedCount() {
+        lock.readLock().lock();
+        try {
+            return deletedCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Add a vector under a key, replacing any vector previously stored for it
+     */
+    public void add(String key, float[] vector) {
+        if (vector.length != dimensions) {
+            throw new IllegalArgumentException("Expected " + dimensions + " dimensions, got " + vector.length);
+        }
+
+        lock.writeLock().lock();
+        try {
+            tombstone(key);
+
+            int level = (int) (-Math.log(1.0 - random.nextDouble()) * levelMultiplier);
+            int id = nodes.size();
+            nodes.add(new Node(key, vector, level, maxConnections, maxConnectionsLevel0));
+            nodeByKey.put(key, id);
+
+            if (entryPoint < 0) {
+                entryPoint = id;
+                maxLevel = level;
+                return;
+            }
+
+            int current = greedyDescend(vector, entryPoint, maxLevel, level);
+            for (int l = Math.min(level, maxLevel); l >= 0; l--) {
+                List<Candidate> nearest = searchLayer(vector, current, efConstruction, l);
+                int capacity = l == 0 ? maxConnectionsLevel0 : maxConnections;
+                for (Candidate neighbour : nearest.subList(0, Math.min(maxConnections, nearest.size()))) {
+                    link(id, neighbour.node, l);
+                    link(neighbour.node, id, l);
+                    if (nodes.get(neighbour.node).linkCounts[l] > capacity) {
+                        prune(neighbour.node, l, capacity);
+                    }
+                }
+                current = nearest.get(0).node;
+            }
+
+            if (level > maxLevel) {
+                entryPoint = id;
+                maxLevel = level;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(String key) {
+        lock.writeLock().lock();
+        try {
+            tombstone(key);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * The k live vectors most similar to the query, best first
+     */
+    public List<Hit> search(float[] query, int k, int ef) {
+        lock.readLock().lock();
+        try {
+            if (entryPoint < 0) {
+                return new ArrayList<>();
+            }
+
+            int current = greedyDescend(query, entryPoint, maxLevel, 0);
+            List<Candidate> nearest = searchLayer(query, current, Math.max(ef, k), 0);
+
+            List<Hit> hits = new ArrayList<>(Math.min(k, nearest.size()));
+            for (Candidate candidate : nearest) {
+                Node node = nodes.get(candidate.node);
+                if (!node.deleted) {
+                    hits.add(new Hit(node.key, 1.0f - candidate.distance));
+                    if (hits.size() == k) {
+                        break;
+                    }
+                }
+            }
+            return hits;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void writeTo(DataOutput out) throws IOException {
+        lock.readLock().lock();
+        try {
+            out.writeInt(FORMAT_VERSION);
+            out.writeInt(dimensions);
+            out.writeInt(maxConnections);
+            out.writeInt(efConstruction);
+            out.writeInt(entryPoint);
+            out.writeInt(maxLevel);
+            out.writeInt(nodes.size());
+            for (Node node : nodes) {
+                out.writeUTF(node.key);
+                out.writeBoolean(node.deleted);
+                for (float value : node.vector) {
+                    out.writeFloat(value);
+                }
+                out.writeInt(node.level());
+                for (int l = 0; l <= node.level(); l++) {
+                    out.writeInt(node.linkCounts[l]);
+                    for (int i = 0; i < node.linkCounts[l]; i++) {
+                        out.writeInt(node.links[l][i]);
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public static HnswIndex readFrom(DataInput in) throws IOException {
+        int version = in.readInt();
+        if (version != FORMAT_VERSION) {
+            throw new IOException("Unsupported HNSW index format version " + version);
+        }
+
+        HnswIndex index = new HnswIndex(in.readInt(), in.readInt(), in.readInt());
+        index.entryPoint = in.readInt();
+        index.maxLevel = in.readInt();
+
+        int nodeCount = in.readInt();
+        for (int id = 0; id < nodeCount; id++) {
+            String key = in.readUTF();
+            boolean deleted = in.readBoolean();
+            float[] vector = new float[index.dimensions];
+            for (int i = 0; i < vector.length; i++) {
+                vector[i] = in.readFloat();
+            }
+
+            Node node = new Node(key, vector, in.readInt(), index.maxConnections, index.maxConnectionsLevel0);
+            for (int l = 0; l <= node.level(); l++) {
+                node.linkCounts[l] = in.readInt();
+                for (int i = 0; i < node.linkCounts[l]; i++) {
+                    node.links[l][i] = in.readInt();
+                }
+            }
+
+            node.deleted = deleted;
+            index.nodes.add(node);
+            if (deleted) {
+                index.deletedCount++;
+            } else {
+                index.nodeByKey.put(key, id);
+            }
+        }
+        return index;
+    }
+
+    private void tombstone(String key) {
+        Integer existing = nodeByKey.remove(key);
+        if (existing != null) {
+            nodes.get(existing).deleted = true;
+            deletedCount++;
+        }
+    }
+
+    // Walk down from the top layer to just above targetLevel, always moving to the closest neighbour
+    private int greedyDescend(float[] query, int start, int fromLevel, int targetLevel) {
+        int current = start;
+        float currentDistance = distance(query, nodes.get(current).vector);
+        for (int l = fromLevel; l > targetLevel; l--) {
+            boolean improved = true;
+            while (improved) {
+                improved = false;
+                Node node = nodes.get(current);
+                for (int i = 0; i < node.linkCounts[l]; i++) {
+                    int neighbour = node.links[l][i];
+                    float neighbourDistance = distance(query, nodes.get(neighbour).vector);
+                    if (neighbourDistance < currentDistance) {
+                        current = neighbour;
+                        currentDistance = neighbourDistance;
+                        improved = true;
+                    }
+                }
+            }
+        }
+        return current;
+    }
+
+    // Best-first search of one layer, returning up to ef nodes closest first
+    private List<Candidate> searchLayer(float[] query, int start, int ef, int level) {
+        BitSet visited = new BitSet(nodes.size());
+        PriorityQueue<Candidate> toVisit = new PriorityQueue<>(Comparator.comparingDouble((Candidate c) -> c.distance));
+        PriorityQueue<Candidate> nearest = new PriorityQueue<>(Comparator.comparingDouble((Candidate c) -> c.distance).reversed());
+
+        Candidate first = new Candidate(start, distance(query, nodes.get(start).vector));
+        visited.set(start);
+        toVisit.add(first);
+        nearest.add(first);
+
+        while (!toVisit.isEmpty()) {
+            Candidate closest = toVisit.poll();
+            if (closest.distance > nearest.peek().distance && nearest.size() >= ef) {
+                break;
+            }
+
+            Node node = nodes.get(closest.node);
+            if (level > node.level()) {
+                continue;
+            }
+            for (int i = 0; i < node.linkCounts[level]; i++) {
+                int neighbour = node.links[level][i];
+                if (visited.get(neighbour)) {
+                    continue;
+                }
+                visited.set(neighbour);
+
+                float neighbourDistance = distance(query, nodes.get(neighbour).vector);
+                if (nearest.size() < ef || neighbourDistance < nearest.peek().distance) {
+                    Candidate candidate = new Candidate(neighbour, neighbourDistance);
+                    toVisit.add(candidate);
+                    nearest.add(candidate);
+                    if (nearest.size() > ef) {
+                        nearest.poll();
+                    }
+                }
+            }
+        }
+
+        List<Candidate> result = new ArrayList<>(nearest);
+        result.sort(Comparator.comparingDouble((Candidate c) -> c.distance));
+        return result;
+    }
+
+    private void link(int from, int to, int level) {
+        Node node = nodes.get(from);
+        if (node.linkCounts[level] == node.links[level].length) {
+            node.links[level] = Arrays.copyOf(node.links[level], node.links[level].length + 1);
+        }
+        node.links[level][node.linkCounts[level]++] = to;
+    }
+
+    // Keep only the closest links of a node that went over capacity
+    private void prune(int id, int level, int capacity) {
+        Node node = nodes.get(id);
+        List<Candidate> linked = new ArrayList<>(node.linkCounts[level]);
+        for (int i = 0; i < node.linkCounts[level]; i++) {
+            int neighbour = node.links[level][i];
+            linked.add(new Candidate(neighbour, distance(node.vector, nodes.get(neighbour).vector)));
+        }
+        linked.sort(Comparator.comparingDouble((Candidate c) -> c.distance));
+
+        int kept = Math.min(capacity, linked.size());
+        int[] links = new int[capacity];
+        for (int i = 0; i < kept; i++) {
+            links[i] = linked.get(i).node;
+        }
+        node.links[level] = links;
+        node.linkCounts[level] = kept;
+    }
+
+    private static float distance(float[] a, float[] b) {
+        float dot = 0;
+        for (int i = 0; i < a.length; i++) {
+            dot += a[i] * b[i];
+        }
+        return 1.0f - dot;
+    }
+}
@@ -0,0 +1,425 @@
+package com.mynexjob.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+
+/**
+ * In-process full-text index over documents with a fixed set of weighted fields. Postings keep
+ * the positions of every term in every field, so quoted phrases can be matched, and the sorted
+ * term dictionary expands prefix queries. Hits are ranked with BM25 over the boosted fields
+ * (BM25F with shared document frequencies). Searches may run concurrently; writes are exclusive.
+ *
+ * Query syntax: words are optional and ranked, as with MongoDB $text; "quoted phrases" are
+ * required; a trailing * makes a word a prefix.
+ */
+public class InvertedIndex {
+
+    private static final float K1 = 1.2f;
+    private static final float B = 0.75f;
+    private static final int MAX_PREFIX_EXPANSIONS = 64;
+
+    private final String[] fields;
+    private final float[] boosts;
+
+    // Term to document to the sorted positions of the term in each field (null where absent)
+    private final TreeMap<String, Map<Integer, int[][]>> postings = new TreeMap<>();
+
+    // Per document slot: its key, field lengths and distinct terms; null once removed
+    private final Map<String, Integer> docByKey = new HashMap<>();
+    private final List<String> keys = new ArrayList<>();
+    private final List<int[]> lengths = new ArrayList<>();
+    private final List<String[]> docTerms = new ArrayList<>();
+    private final Deque<Integer> freeDocs = new ArrayDeque<>();
+    private final long[] totalLengths;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * @param fieldBoosts field names and their weights, in the order texts are passed to {@link #put}
+     */
+    public InvertedIndex(LinkedHashMap<String, Float> fieldBoosts) {
+        this.fields = fieldBoosts.keySet().toArray(new String[0]);
+        this.boosts = new float[fields.length];
+        for (int f = 0; f < fields.length; f++) {
+            boosts[f] = fieldBoosts.get(fields[f]);
+        }
+        this.totalLengths = new long[fields.length];
+    }
+
+    /**
+     * A search hit: the key of a document and its relevance score
+     */
+    public static final class Hit {
+        private final String key;
+        private final float score;
+
+        Hit(String key, float score) {
+            this.key = key;
+            this.score = score;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public float getScore() {
+            return score;
+        }
+    }
+
+    /**
+     * The best hits of a search and the number of documents that matched in total
+     */
+    public static final class Result {
+        private final List<Hit> hits;
+        private final int total;
+
+        Result(List<Hit> hits, int total) {
+            this.hits = hits;
+            this.total = total;
+        }
+
+        public List<Hit> getHits() {
+            return hits;
+        }
+
+        public int getTotal() {
+            return total;
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return docByKey.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int termCount() {
+        lock.readLock().lock();
+        try {
+            return postings.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Index a document under a key, replacing any document previously stored for it.
+     * Field texts are given in the order of the field boosts; null texts are empty.
+     */
+    public void put(String key, String... texts) {
+        if (texts.length != fields.length) {
+            throw new IllegalArgumentException("Expected " + fields.length + " fields, got " + texts.length);
+        }
+
+        // Analyze outside the lock; only the postings update is exclusive
+        Map<String, int[][]> positions = new HashMap<>();
+        int[] fieldLengths = new int[fields.length];
+        for (int f = 0; f < fields.length; f++) {
+            List<TextAnalyzer.Token> tokens = TextAnalyzer.analyze(texts[f]);
+            fieldLengths[f] = tokens.size();
+
+            Map<String, List<Integer>> fieldPositions = new HashMap<>();
+            for (TextAnalyzer.Token token : tokens) {
+                fieldPositions.computeIfAbsent(token.getTerm(), term -> new ArrayList<>()).add(token.getPosition());
+            }
+            for (Map.Entry<String, List<Integer>> term : fieldPositions.entrySet()) {
+                positions.computeIfAbsent(term.getKey(), t -> new int[fields.length][])[f] =
+                        term.getValue().stream().mapToInt(Integer::intValue).toArray();
+            }
+        }
+
+        lock.writeLock().lock();
+        try {
+            removeDoc(key);
+
+            int doc = freeDocs.isEmpty() ? keys.size() : freeDocs.pop();
+            String[] terms = positions.keySet().toArray(new String[0]);
+            if (doc == keys.size()) {
+                keys.add(key);
+                lengths.add(fieldLengths);
+                docTerms.add(terms);
+            } else {
+                keys.set(doc, key);
+                lengths.set(doc, fieldLengths);
+                docTerms.set(doc, terms);
+            }
+            docByKey.put(key, doc);
+            for (int f = 0; f < fields.length; f++) {
+                totalLengths[f] += fieldLengths[f];
+            }
+
+            for (Map.Entry<String, int[][]> term : positions.entrySet()) {
+                postings.computeIfAbsent(term.getKey(), t -> new HashMap<>()).put(doc, term.getValue());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(String key) {
+        lock.writeLock().lock();
+        try {
+            removeDoc(key);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Rank the documents matching a query and keep the best ones
+     *
+     * @param queryText  query in the syntax of this index
+     * @param prefixLast treat the last word as a prefix unless the query ends in whitespace,
+     *                   for search-as-you-type
+     * @param accept     further filter on document keys; rejected documents do not count
+     * @param limit      number of hits to return, best first
+     */
+    public Result search(String queryText, boolean prefixLast, Predicate<String> accept, int limit) {
+        List<Clause> clauses = parse(queryText, prefixLast);
+
+        lock.readLock().lock();
+        try {
+            int documentCount = docByKey.size();
+            if (clauses.isEmpty() || documentCount == 0) {
+                return new Result(new ArrayList<>(), 0);
+            }
+
+            float[] averageLengths = new float[fields.length];
+            for (int f = 0; f < fields.length; f++) {
+                averageLengths[f] = Math.max(1f, (float) totalLengths[f] / documentCount);
+            }
+
+            Map<Integer, Float> scores = new HashMap<>();
+            Set<Integer> required = null;
+            for (Clause clause : clauses) {
+                Map<Integer, Float> clauseScores = clause.phrase
+                        ? scorePhrase(clause.terms, clause.offsets, documentCount, averageLengths)
+                        : scoreTerms(clause.prefix ? expand(clause.terms) : clause.terms, documentCount, averageLengths);
+                if (clause.phrase) {
+                    if (required == null) {
+                        required = new HashSet<>(clauseScores.keySet());
+                    } else {
+                        required.retainAll(clauseScores.keySet());
+                    }
+                }
+                clauseScores.forEach((doc, score) -> scores.merge(doc, score, Float::sum));
+            }
+
+            TopKCollector<Hit> best = new TopKCollector<>(limit,
+                    Comparator.comparingDouble(Hit::getScore).thenComparing(Hit::getKey, Comparator.reverseOrder()));
+            int total = 0;
+            for (Map.Entry<Integer, Float> scored : scores.entrySet()) {
+                String key = keys.get(scored.getKey());
+                if ((required == null || required.contains(scored.getKey())) && accept.test(key)) {
+                    total++;
+                    best.offer(new Hit(key, scored.getValue()));
+                }
+            }
+            return new Result(best.toSortedList(), total);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Per document, the best score of any of the terms (a word, or the expansions of a prefix)
+    private Map<Integer, Float> scoreTerms(List<String> terms, int documentCount, float[] averageLengths) {
+        Map<Integer, Float> scores = new HashMap<>();
+        for (String term : terms) {
+            Map<Integer, int[][]> docs = postings.get(term);
+            if (docs == null) {
+                continue;
+            }
+            float idf = idf(docs.size(), documentCount);
+            for (Map.Entry<Integer, int[][]> posting : docs.entrySet()) {
+                float score = idf * fieldWeight(posting.getKey(), posting.getValue(), averageLengths);
+                scores.merge(posting.getKey(), score, Math::max);
+            }
+        }
+        return scores;
+    }
+
+    // Documents where the terms occur in one field at the given relative offsets, scored by all terms
+    private Map<Integer, Float> scorePhrase(List<String> terms, int[] offsets, int documentCount, float[] averageLengths) {
+        Map<Integer, Float> scores = new HashMap<>();
+        List<Map<Integer, int[][]>> termDocs = new ArrayList<>(terms.size());
+        for (String term : terms) {
+            Map<Integer, int[][]> docs = postings.get(term);
+            if (docs == null) {
+                return scores;
+            }
+            termDocs.add(docs);
+        }
+
+        for (Map.Entry<Integer, int[][]> first : termDocs.get(0).entrySet()) {
+            int doc = first.getKey();
+            if (!containsPhrase(doc, termDocs, offsets)) {
+                continue;
+            }
+            float score = 0f;
+            for (Map<Integer, int[][]> docs : termDocs) {
+                score += idf(docs.size(), documentCount) * fieldWeight(doc, docs.get(doc), averageLengths);
+            }
+            scores.put(doc, score);
+        }
+        return scores;
+    }
+
+    private boolean containsPhrase(int doc, List<Map<Integer, int[][]>> termDocs, int[] offsets) {
+        int[][][] perTerm = new int[termDocs.size()][][];
+        for (int t = 0; t < termDocs.size(); t++) {
+            perTerm[t] = termDocs.get(t).get(doc);
+            if (perTerm[t] == null) {
+                return false;
+            }
+        }
+
+        for (int f = 0; f < fields.length; f++) {
+            if (perTerm[0][f] == null) {
+                continue;
+            }
+            for (int start : perTerm[0][f]) {
+                boolean all = true;
+                for (int t = 1; t < perTerm.length && all; t++) {
+                    int[] positions = perTerm[t][f];
+                    all = positions != null && Arrays.binarySearch(positions, start - offsets[0] + offsets[t]) >= 0;
+                }
+                if (all) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private float fieldWeight(int doc, int[][] perField, float[] averageLengths) {
+        int[] docLengths = lengths.get(doc);
+        float weight = 0f;
+        for (int f = 0; f < fields.length; f++) {
+            if (perField[f] == null) {
+                continue;
+            }
+            int tf = perField[f].length;
+            float norm = K1 * (1 - B + B * docLengths[f] / averageLengths[f]);
+            weight += boosts[f] * tf * (K1 + 1) / (tf + norm);
+        }
+        return weight;
+    }
+
+    private static float idf(int documentFrequency, int documentCount) {
+        return (float) Math.log(1 + (documentCount - documentFrequency + 0.5) / (documentFrequency + 0.5));
+    }
+
+    private List<String> expand(List<String> prefixes) {
+        Set<String> terms = new LinkedHashSet<>();
+        for (String prefix : prefixes) {
+            for (String term : postings.subMap(prefix, true, prefix + Character.MAX_VALUE, false).keySet()) {
+                if (terms.size() == MAX_PREFIX_EXPANSIONS) {
+                    break;
+                }
+                terms.add(term);
+            }
+        }
+        return new ArrayList<>(terms);
+    }
+
+    private void removeDoc(String key) {
+        Integer doc = docByKey.remove(key);
+        if (doc == null) {
+            return;
+        }
+
+        for (String term : docTerms.get(doc)) {
+            Map<Integer, int[][]> docs = postings.get(term);
+            if (docs != null && docs.remove(doc) != null && docs.isEmpty()) {
+                postings.remove(term);
+            }
+        }
+        int[] fieldLengths = lengths.get(doc);
+        for (int f = 0; f < fields.length; f++) {
+            totalLengths[f] -= fieldLengths[f];
+        }
+
+        keys.set(doc, null);
+        lengths.set(doc, null);
+        docTerms.set(doc, null);
+        freeDocs.push(doc);
+    }
+
+    private static final class Clause {
+        final List<String> terms;
+        final int[] offsets;
+        final boolean phrase;
+        final boolean prefix;
+
+        Clause(List<String> terms, int[] offsets, boolean phrase, boolean prefix) {
+            this.terms = terms;
+            this.offsets = offsets;
+            this.phrase = phrase;
+            this.prefix = prefix;
+        }
+    }
+
+    private static List<Clause> parse(String queryText, boolean prefixLast) {
+        List<Clause> clauses = new ArrayList<>();
+        if (queryText == null) {
+            return clauses;
+        }
+
+        boolean trailingSpace = !queryText.isEmpty() && Character.isWhitespace(queryText.charAt(queryText.length() - 1));
+        String[] parts = queryText.split("\"", -1);
+        for (int p = 0; p < parts.length; p++) {
+            // Odd parts are inside quotes; an unclosed quote counts as closed at the end
+            if (p % 2 == 1) {
+                List<TextAnalyzer.Token> tokens = TextAnalyzer.analyze(parts[p]);
+                if (!tokens.isEmpty()) {
+                    List<String> terms = new ArrayList<>(tokens.size());
+                    int[] offsets = new int[tokens.size()];
+                    for (int t = 0; t < tokens.size(); t++) {
+                        terms.add(tokens.get(t).getTerm());
+                        offsets[t] = tokens.get(t).getPosition();
+                    }
+                    clauses.add(new Clause(terms, offsets, true, false));
+                }
+                continue;
+            }
+
+            String[] words = parts[p].trim().split("\\s+");
+            for (int w = 0; w < words.length; w++) {
+                String word = words[w];
+                boolean last = p == parts.length - 1 && w == words.length - 1;
+                if (word.endsWith("*") || prefixLast && last && !trailingSpace) {
+                    for (String prefix : TextAnalyzer.words(word)) {
+                        // Match the prefix as typed and, if it is a plural, in its stemmed form
+                        String stemmed = TextAnalyzer.normalize(prefix);
+                        List<String> prefixes = stemmed == null || stemmed.equals(prefix)
+                                ? List.of(prefix) : List.of(prefix, stemmed);
+                        clauses.add(new Clause(prefixes, null, false, true));
+                    }
+                } else {
+                    for (TextAnalyzer.Token token : TextAnalyzer.analyze(word)) {
+                        clauses.add(new Clause(List.of(token.getTerm()), null, false, false));
+                    }
+                }
+            }
+        }
+        return clauses;
+    }
+}
@@ -0,0 +1,136 @@
+package com.mynexjob.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Aho-Corasick automaton over a fixed set of keywords, matched case-insensitively as substrings.
+ * It is built once and then tells in a single pass over a text whether any keyword occurs in it,
+ * without lowercasing or copying the text. Instances are immutable and safe to share.
+ */
+public final class KeywordAutomaton {
+
+    // Per state: sorted outgoing characters and their target states
+    private final char[][] labels;
+    private final int[][] targets;
+    private final int[] fail;
+    // Whether a keyword ends at the state, directly or through its failure chain
+    private final boolean[] terminal;
+
+    private KeywordAutomaton(char[][] labels, int[][] targets, int[] fail, boolean[] terminal) {
+        this.labels = labels;
+        this.targets = targets;
+        this.fail = fail;
+        this.terminal = terminal;
+    }
+
+    public static KeywordAutomaton of(Collection<String> keywords) {
+        List<Map<Character, Integer>> trie = new ArrayList<>();
+        List<Boolean> ends = new ArrayList<>();
+        trie.add(new TreeMap<>());
+        ends.add(false);
+
+        for (String keyword : keywords) {
+            String lower = keyword.toLowerCase(Locale.ROOT);
+            if (lower.isEmpty()) {
+                continue;
+            }
+
+            int state = 0;
+            for (int i = 0; i < lower.length(); i++) {
+                Integer next = trie.get(state).get(lower.charAt(i));
+                if (next == null) {
+                    next = trie.size();
+                    trie.get(state).put(lower.charAt(i), next);
+                    trie.add(new TreeMap<>());
+                    ends.add(false);
+                }
+                state = next;
+            }
+            ends.set(state, true);
+        }
+
+        int size = trie.size();
+        char[][] labels = new char[size][];
+        int[][] targets = new int[size][];
+        boolean[] terminal = new boolean[size];
+        for (int state = 0; state < size; state++) {
+            Map<Character, Integer> edges = trie.get(state);
+            labels[state] = new char[edges.size()];
+            targets[state] = new int[edges.size()];
+            int i = 0;
+            for (Map.Entry<Character, Integer> edge : edges.entrySet()) {
+                labels[state][i] = edge.getKey();
+                targets[state][i++] = edge.getValue();
+            }
+            terminal[state] = ends.get(state);
+        }
+
+        // Breadth-first, so the failure target of every state is final before its children need it
+        int[] fail = new int[size];
+        Deque<Integer> queue = new ArrayDeque<>();
+        for (int child : targets[0]) {
+            queue.add(child);
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            for (int i = 0; i < labels[state].length; i++) {
+                int child = targets[state][i];
+                int fallback = fail[state];
+                int next;
+                while ((next = edge(labels, targets, fallback, labels[state][i])) < 0 && fallback != 0) {
+                    fallback = fail[fallback];
+                }
+                fail[child] = next >= 0 ? next : 0;
+                terminal[child] |= terminal[fail[child]];
+                queue.add(child);
+            }
+        }
+
+        return new KeywordAutomaton(labels, targets, fail, terminal);
+    }
+
+    /**
+     * Whether any keyword occurs in any of the texts. Null texts are skipped.
+     */
+    public boolean containsAny(CharSequence... texts) {
+        for (CharSequence text : texts) {
+            if (text != null && containsAny(text)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public boolean containsAny(CharSequence text) {
+        if (text == null) {
+            return false;
+        }
+
+        int state = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = Character.toLowerCase(text.charAt(i));
+            int next;
+            while ((next = edge(labels, targets, state, c)) < 0 && state != 0) {
+                state = fail[state];
+            }
+            state = next >= 0 ? next : 0;
+            if (terminal[state]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int edge(char[][] labels, int[][] targets, int state, char c) {
+        int i = Arrays.binarySearch(labels[state], c);
+        return i >= 0 ? targets[state][i] : -1;
+    }
+}
@@ -0,0 +1,123 @@
+package com.mynexjob.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Splits text into lowercased, lightly stemmed terms with their positions, for the full-text
+ * job index. Documents and queries go through the same analysis so their terms line up.
+ * Stop words are dropped but keep their position, so phrases match across them.
+ */
+public final class TextAnalyzer {
+
+    private static final Set<String> STOP_WORDS = new HashSet<>(Arrays.asList(
+            "a", "an", "and", "are", "as", "at", "be", "by", "for", "from", "in", "is", "it", "of",
+            "on", "or", "our", "the", "to", "we", "will", "with", "you", "your"));
+
+    private TextAnalyzer() {
+    }
+
+    /**
+     * A term and its position in the analyzed text
+     */
+    public static final class Token {
+        private final String term;
+        private final int position;
+
+        Token(String term, int position) {
+            this.term = term;
+            this.position = position;
+        }
+
+        public String getTerm() {
+            return term;
+        }
+
+        public int getPosition() {
+            return position;
+        }
+    }
+
+    public static List<Token> analyze(String text) {
+        List<Token> tokens = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return tokens;
+        }
+
+        int position = 0;
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            if (i < text.length() && isTermChar(text.charAt(i))) {
+                if (start < 0) {
+                    start = i;
+                }
+            } else if (start >= 0) {
+                String term = normalize(text.substring(start, i));
+                if (term != null) {
+                    tokens.add(new Token(term, position));
+                }
+                position++;
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * The lowercased words of a text, unstemmed and with stop words kept, for matching as prefixes
+     */
+    public static List<String> words(String text) {
+        List<String> words = new ArrayList<>();
+        if (text == null) {
+            return words;
+        }
+
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            if (i < text.length() && isTermChar(text.charAt(i))) {
+                if (start < 0) {
+                    start = i;
+                }
+            } else if (start >= 0) {
+                words.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+                start = -1;
+            }
+        }
+        return words;
+    }
+
+    /**
+     * The term a single word analyzes to, or null for stop words and words too short to index
+     */
+    public static String normalize(String word) {
+        String lower = word.toLowerCase(Locale.ROOT);
+        if (lower.length() < 2 || STOP_WORDS.contains(lower)) {
+            return null;
+        }
+        return stem(lower);
+    }
+
+    // Keep '+' and '#' so skills like C++ and C# survive tokenization
+    private static boolean isTermChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '+' || c == '#';
+    }
+
+    // Harman's S-stemmer: folds plurals onto their singular and nothing else
+    private static String stem(String term) {
+        int length = term.length();
+        if (length > 3 && term.endsWith("ies") && !term.endsWith("eies") && !term.endsWith("aies")) {
+            return term.substring(0, length - 3) + "y";
+        }
+        if (length > 3 && term.endsWith("es") && !term.endsWith("aes") && !term.endsWith("ees") && !term.endsWith("oes")) {
+            return term.substring(0, length - 1);
+        }
+        if (length > 3 && term.endsWith("s") && !term.endsWith("us") && !term.endsWith("ss")) {
+            return term.substring(0, length - 1);
+        }
+        return term;
+    }
+}
@@ -0,0 +1,61 @@
+package com.mynexjob.util;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Local estimate of how many tokens a text costs an OpenAI model, close enough to budget prompts
+ * without shipping the model's tokenizer. Words count one token per four characters (at least one),
+ * numbers one per three digits, and every other non-space character one token.
+ */
+public final class TokenEstimator {
+
+    private static final Pattern PIECE = Pattern.compile("\\p{L}+|\\p{N}+|[^\\s\\p{L}\\p{N}]");
+
+    private TokenEstimator() {
+    }
+
+    public static int estimate(String text) {
+        if (text == null || text.isEmpty()) {
+            return 0;
+        }
+
+        int tokens = 0;
+        Matcher matcher = PIECE.matcher(text);
+        while (matcher.find()) {
+            tokens += tokensOf(matcher);
+        }
+        return tokens;
+    }
+
+    /**
+     * Cut the text after the last piece that fits in the token budget, marking the cut with an ellipsis
+     */
+    public static String truncate(String text, int maxTokens) {
+        if (text == null || maxTokens <= 0) {
+            return text == null ? null : "";
+        }
+
+        int tokens = 0;
+        Matcher matcher = PIECE.matcher(text);
+        while (matcher.find()) {
+            tokens += tokensOf(matcher);
+            if (tokens > maxTokens) {
+                return text.substring(0, matcher.start()).trim() + "…";
+            }
+        }
+        return text;
+    }
+
+    private static int tokensOf(Matcher piece) {
+        int length = piece.end() - piece.start();
+        char first = piece.group().charAt(0);
+        if (Character.isLetter(first)) {
+            return Math.max(1, (length + 3) / 4);
+        }
+        if (Character.isDigit(first)) {
+            return Math.max(1, (length + 2) / 3);
+        }
+        return 1;
+    }
+}
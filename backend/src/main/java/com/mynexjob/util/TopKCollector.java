@@ -0,0 +1,68 @@
+package com.mynexjob.util;
+
+import com.mynexjob.dto.matching.MatchResult;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Keeps the K best items offered to it in a bounded min-heap, so ranking N items
+ * costs O(N log K) time and O(K) memory instead of sorting all N.
+ */
+public class TopKCollector<T> {
+
+    private final int capacity;
+    private final Comparator<? super T> comparator;
+    private final PriorityQueue<T> heap;
+    private long offeredCount = 0;
+
+    /**
+     * @param capacity   number of items to keep
+     * @param comparator ordering where greater means better
+     */
+    public TopKCollector(int capacity, Comparator<? super T> comparator) {
+        this.capacity = Math.max(0, capacity);
+        this.comparator = comparator;
+        this.heap = new PriorityQueue<>(Math.max(1, this.capacity), comparator);
+    }
+
+    /**
+     * Collector for match results ranked by match percentage
+     */
+    public static TopKCollector<MatchResult> forMatches(int capacity) {
+        return new TopKCollector<>(capacity, Comparator.comparingDouble(MatchResult::getMatchPercentage));
+    }
+
+    public void offer(T item) {
+        offeredCount++;
+
+        if (capacity == 0) {
+            return;
+        }
+
+        if (heap.size() < capacity) {
+            heap.add(item);
+        } else if (comparator.compare(item, heap.peek()) > 0) {
+            heap.poll();
+            heap.add(item);
+        }
+    }
+
+    /**
+     * Total number of items offered, including the ones that were discarded
+     */
+    public long getOfferedCount() {
+        return offeredCount;
+    }
+
+    /**
+     * The kept items, best first
+     */
+    public List<T> toSortedList() {
+        List<T> items = new ArrayList<>(heap);
+        items.sort(comparator.reversed());
+        return items;
+    }
+}
@@ -0,0 +1,63 @@
+package com.mynexjob.enums;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JobCategoryTest {
+
+    @Test
+    void categorizesTitlesAsTheKeywordScanDid() {
+        List<String> titles = new ArrayList<>(Arrays.asList(
+                "Senior Java Developer", "JAVASCRIPT ENGINEER", "Full-Stack dev", "React Native lead",
+                "UI/UX Designer", "QA analyst", "NoSQL DBA", "Sales Manager", "Accountant", "Chef",
+                "Marketing lead", "Nurse", "Teacher", "", "Data Engineer", "Head of Technical Sales"));
+
+        // Titles stitched from keyword fragments and filler hit partial matches and failure links
+        Random random = new Random(42);
+        List<String> fragments = new ArrayList<>(Arrays.asList("sales", "manager", "data ", "engin", "jav",
+                "re", "act", " nat", "ui/", "q", "no", "sq", "Full ", "stack", "ops", "dev", " "));
+        fragments.addAll(JobCategory.IT_JOB_KEYWORDS);
+        for (int i = 0; i < 2000; i++) {
+            StringBuilder title = new StringBuilder();
+            int parts = 1 + random.nextInt(4);
+            for (int p = 0; p < parts; p++) {
+                String fragment = fragments.get(random.nextInt(fragments.size()));
+                title.append(random.nextBoolean() ? fragment.toUpperCase() : fragment);
+            }
+            titles.add(title.toString());
+        }
+        titles.addAll(JobCategory.IT_JOB_KEYWORDS);
+
+        for (String title : titles) {
+            assertThat(JobCategory.categorizeJob(title)).as(title).isEqualTo(scanned(title));
+        }
+    }
+
+    @Test
+    void categorizesANullTitleAsNonIt() {
+        assertThat(JobCategory.categorizeJob(null)).isEqualTo(JobCategory.NON_IT);
+        assertThat(JobCategory.categorizeJob(null, null, null)).isEqualTo(JobCategory.NON_IT);
+    }
+
+    @Test
+    void categorizesOnAnyOfTheThreeFields() {
+        assertThat(JobCategory.categorizeJob("Analyst", "Builds dashboards in SQL", null)).isEqualTo(JobCategory.IT);
+        assertThat(JobCategory.categorizeJob("Analyst", null, "Kubernetes experience")).isEqualTo(JobCategory.IT);
+        assertThat(JobCategory.categorizeJob("Python Developer", null, null)).isEqualTo(JobCategory.IT);
+        assertThat(JobCategory.categorizeJob("Analyst", "Retail reports", "Excel")).isEqualTo(JobCategory.NON_IT);
+    }
+
+    // The categorization before the automaton: lowercase the title and test each keyword in turn
+    private static JobCategory scanned(String jobTitle) {
+        String lowerTitle = jobTitle.toLowerCase();
+        boolean isIT = JobCategory.IT_JOB_KEYWORDS.stream()
+                .anyMatch(keyword -> lowerTitle.contains(keyword.toLowerCase()));
+        return isIT ? JobCategory.IT : JobCategory.NON_IT;
+    }
+}
@@ -0,0 +1,52 @@
+package com.mynexjob.mapper;
+
+import com.mynexjob.dto.job.JobSummary;
+import com.mynexjob.entity.Job;
+import org.junit.jupiter.api.Test;
+import org.mapstruct.factory.Mappers;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JobMapperTest {
+
+    private final JobMapper jobMapper = Mappers.getMapper(JobMapper.class);
+
+    @Test
+    void keepsAShortDescriptionWhole() {
+        assertThat(summaryOf("Build and run our Java services.").getDescription())
+                .isEqualTo("Build and run our Java services.");
+        assertThat(summaryOf(null).getDescription()).isNull();
+    }
+
+    @Test
+    void cutsALongDescriptionAtTheLastWordThatFits() {
+        StringBuilder description = new StringBuilder();
+        while (description.length() < 1000) {
+            description.append("microservices ");
+        }
+
+        String excerpt = summaryOf(description.toString()).getDescription();
+
+        assertThat(excerpt).endsWith("microservices...");
+        assertThat(excerpt.length()).isLessThanOrEqualTo(JobSummary.DESCRIPTION_EXCERPT_LENGTH + 3);
+        assertThat(description.toString()).startsWith(excerpt.substring(0, excerpt.length() - 3));
+    }
+
+    @Test
+    void cutsADescriptionWithoutSpacesAtTheLimit() {
+        StringBuilder description = new StringBuilder("x");
+        while (description.length() < 300) {
+            description.append("😀");
+        }
+
+        String excerpt = summaryOf(description.toString()).getDescription();
+
+        // Never splits a surrogate pair
+        assertThat(excerpt).hasSize(JobSummary.DESCRIPTION_EXCERPT_LENGTH - 1 + 3);
+        assertThat(Character.isHighSurrogate(excerpt.charAt(excerpt.length() - 4))).isFalse();
+    }
+
+    private JobSummary summaryOf(String description) {
+        return jobMapper.toSummary(Job.builder().title("Backend developer").description(description).build());
+    }
+}
@@ -0,0 +1,234 @@
+package com.mynexjob.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mynexjob.dto.matching.MatchResult;
+import com.mynexjob.dto.matching.MatchingCriteria;
+import com.theokanning.openai.completion.chat.ChatCompletionChoice;
+import com.theokanning.openai.completion.chat.ChatCompletionRequest;
+import com.theokanning.openai.completion.chat.ChatCompletionResult;
+import com.theokanning.openai.completion.chat.ChatMessage;
+import com.theokanning.openai.service.OpenAiService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AIMatchingServiceTest {
+
+    private static final Pattern CANDIDATE = Pattern.compile("candidate-(\\d+)");
+
+    private OpenAiService openAiService;
+    private ResilientOpenAiClient openAiClient;
+    private AIMatchingService service;
+
+    @BeforeEach
+    void setUp() {
+        openAiService = mock(OpenAiService.class);
+        openAiClient = client(openAiService);
+        service = service(openAiClient, 3);
+    }
+
+    @AfterEach
+    void tearDown() {
+        openAiClient.shutdown();
+    }
+
+    @Test
+    void sendsOneCallPerChunkOfBatchSizePairs() {
+        when(openAiService.createChatCompletion(any())).thenAnswer(invocation -> scoreByCandidate(invocation.getArgument(0)));
+
+        service.calculateAIMatchBatch(criteria(7));
+
+        List<String> prompts = sentPrompts(3);
+        assertThat(prompts.get(0)).contains("PAIR 0:", "PAIR 2:").doesNotContain("PAIR 3:");
+        assertThat(candidatesIn(prompts.get(0))).containsExactly(0, 1, 2);
+        assertThat(candidatesIn(prompts.get(1))).containsExactly(3, 4, 5);
+        assertThat(candidatesIn(prompts.get(2))).containsExactly(6);
+    }
+
+    @Test
+    void mapsEachPairToItsScoreByPairNumber() {
+        when(openAiService.createChatCompletion(any())).thenAnswer(invocation -> scoreByCandidate(invocation.getArgument(0)));
+
+        List<MatchResult.MatchBreakdown> breakdowns = service.calculateAIMatchBatch(criteria(7));
+
+        assertThat(breakdowns).hasSize(7);
+        for (int i = 0; i < breakdowns.size(); i++) {
+            assertThat(breakdowns.get(i).getOverallMatch()).isEqualTo(i * 10.0);
+        }
+    }
+
+    @Test
+    void leavesPairsMissingOrInvalidInTheResponseNull() {
+        service = service(openAiClient, 10);
+        when(openAiService.createChatCompletion(any())).thenReturn(result(
+                "```json\n[" + entry(0, 80) + ", {\"pair\": 1, \"skillsMatch\": 50}, " + entry(7, 90) + "]\n```"));
+
+        List<MatchResult.MatchBreakdown> breakdowns = service.calculateAIMatchBatch(criteria(3));
+
+        assertThat(breakdowns).hasSize(3);
+        assertThat(breakdowns.get(0).getOverallMatch()).isEqualTo(80.0);
+        assertThat(breakdowns.get(1)).isNull();
+        assertThat(breakdowns.get(2)).isNull();
+    }
+
+    @Test
+    void leavesTheWholeChunkNullWhenTheResponseIsNotJson() {
+        when(openAiService.createChatCompletion(any())).thenReturn(result("[{\"pair\": 0, \"skillsMatch\": "));
+
+        List<MatchResult.MatchBreakdown> breakdowns = service.calculateAIMatchBatch(criteria(3));
+
+        assertThat(breakdowns).containsExactly(null, null, null);
+    }
+
+    @Test
+    void leavesTheWholeChunkNullWhenTheCallFails() {
+        when(openAiService.createChatCompletion(any())).thenThrow(new IllegalStateException("boom"));
+
+        List<MatchResult.MatchBreakdown> breakdowns = service.calculateAIMatchBatch(criteria(3));
+
+        assertThat(breakdowns).containsExactly(null, null, null);
+    }
+
+    @Test
+    void scoresALoneRemainingPairWithTheSinglePairPrompt() {
+        when(openAiService.createChatCompletion(any())).thenAnswer(invocation -> scoreByCandidate(invocation.getArgument(0)));
+
+        List<MatchResult.MatchBreakdown> breakdowns = service.calculateAIMatchBatch(criteria(4));
+
+        List<String> prompts = sentPrompts(2);
+        assertThat(prompts.get(1)).doesNotContain("PAIR").contains("CANDIDATE PROFILE:", "candidate-3");
+        assertThat(breakdowns.get(3).getOverallMatch()).isEqualTo(30.0);
+    }
+
+    @Test
+    void fallsBackToRuleScoresForEveryPairWhenOpenAiIsNotConfigured() {
+        ResilientOpenAiClient unconfigured = client(null);
+        try {
+            List<MatchResult.MatchBreakdown> breakdowns = service(unconfigured, 3).calculateAIMatchBatch(criteria(4));
+
+            assertThat(breakdowns).hasSize(4).allSatisfy(breakdown -> {
+                assertThat(breakdown.getOverallMatch()).isEqualTo(77.0);
+                assertThat(breakdown.getOverallExplanation()).contains("AI matching unavailable");
+            });
+        } finally {
+            unconfigured.shutdown();
+        }
+    }
+
+    private static ResilientOpenAiClient client(OpenAiService openAiService) {
+        ResilientOpenAiClient client = new ResilientOpenAiClient(openAiService, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(client, "maxConcurrentCalls", 4);
+        ReflectionTestUtils.setField(client, "acquireTimeoutMillis", 1000L);
+        ReflectionTestUtils.setField(client, "callTimeoutMillis", 5000L);
+        ReflectionTestUtils.setField(client, "tokensPerMinute", 1_000_000L);
+        ReflectionTestUtils.setField(client, "failureRateThreshold", 50);
+        ReflectionTestUtils.setField(client, "windowSize", 20);
+        ReflectionTestUtils.setField(client, "minimumCalls", 10);
+        ReflectionTestUtils.setField(client, "openDurationMillis", 30000L);
+        ReflectionTestUtils.setField(client, "halfOpenCalls", 3);
+        ReflectionTestUtils.setField(client, "hedgingEnabled", false);
+        ReflectionTestUtils.setField(client, "hedgeDelayMillis", 3000L);
+        client.init();
+        return client;
+    }
+
+    private static AIMatchingService service(ResilientOpenAiClient client, int batchSize) {
+        // Every prompt is a distinct cache key and nothing is cached yet
+        AiMatchCacheService cache = mock(AiMatchCacheService.class);
+        when(cache.keyFor(any(), anyString(), anyString())).thenAnswer(invocation -> invocation.getArgument(1));
+
+        MatchPromptBuilder promptBuilder = mock(MatchPromptBuilder.class);
+        when(promptBuilder.candidateSection(any())).thenAnswer(
+                invocation -> ((MatchingCriteria) invocation.getArgument(0)).getCandidateSummary() + "\n");
+        when(promptBuilder.jobSection(any())).thenAnswer(
+                invocation -> ((MatchingCriteria) invocation.getArgument(0)).getJobTitle() + "\n");
+
+        AIMatchingService service = new AIMatchingService(client, new ObjectMapper(), cache,
+                                                          new SimpleMeterRegistry(), promptBuilder);
+        ReflectionTestUtils.setField(service, "model", "gpt-test");
+        ReflectionTestUtils.setField(service, "batchSize", batchSize);
+        service.init();
+        return service;
+    }
+
+    // Pairs for distinct candidates against one job, so batched prompts list one candidate per pair
+    private static List<MatchingCriteria> criteria(int count) {
+        List<MatchingCriteria> criteria = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            criteria.add(MatchingCriteria.builder()
+                    .candidateSummary("candidate-" + i)
+                    .jobTitle("Backend Engineer")
+                    .build());
+        }
+        return criteria;
+    }
+
+    private List<String> sentPrompts(int calls) {
+        ArgumentCaptor<ChatCompletionRequest> requests = ArgumentCaptor.forClass(ChatCompletionRequest.class);
+        verify(openAiService, times(calls)).createChatCompletion(requests.capture());
+        List<String> prompts = new ArrayList<>();
+        requests.getAllValues().forEach(request -> prompts.add(request.getMessages().get(1).getContent()));
+        return prompts;
+    }
+
+    private static List<Integer> candidatesIn(String prompt) {
+        List<Integer> candidates = new ArrayList<>();
+        Matcher matcher = CANDIDATE.matcher(prompt);
+        while (matcher.find()) {
+            candidates.add(Integer.parseInt(matcher.group(1)));
+        }
+        return candidates;
+    }
+
+    // Answers every pair with ten times its candidate number, listing batched pairs in reverse order
+    private static ChatCompletionResult scoreByCandidate(ChatCompletionRequest request) {
+        String prompt = request.getMessages().get(1).getContent();
+        List<Integer> candidates = candidatesIn(prompt);
+        if (!prompt.contains("PAIR 0:")) {
+            return result(breakdown(candidates.get(0) * 10));
+        }
+
+        List<String> entries = new ArrayList<>();
+        for (int pair = 0; pair < candidates.size(); pair++) {
+            entries.add(entry(pair, candidates.get(pair) * 10));
+        }
+        Collections.reverse(entries);
+        return result("[" + String.join(", ", entries) + "]");
+    }
+
+    private static String entry(int pair, int overall) {
+        return "{\"pair\": " + pair + ", " + breakdown(overall).substring(1);
+    }
+
+    private static String breakdown(int overall) {
+        return "{\"skillsMatch\": 70, \"experienceMatch\": 70, \"educationMatch\": 70, " +
+               "\"responsibilitiesMatch\": 70, \"locationMatch\": 70, \"overallMatch\": " + overall + ", " +
+               "\"skillsExplanation\": \"s\", \"experienceExplanation\": \"e\", \"educationExplanation\": \"d\", " +
+               "\"responsibilitiesExplanation\": \"r\", \"overallExplanation\": \"o\"}";
+    }
+
+    private static ChatCompletionResult result(String content) {
+        ChatCompletionChoice choice = new ChatCompletionChoice();
+        choice.setMessage(new ChatMessage("assistant", content));
+        ChatCompletionResult result = new ChatCompletionResult();
+        result.setChoices(Collections.singletonList(choice));
+        return result;
+    }
+}
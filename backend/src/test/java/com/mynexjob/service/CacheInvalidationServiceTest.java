@@ -0,0 +1,153 @@
+package com.mynexjob.service;
+
+import com.mynexjob.dto.job.JobSearchRequest;
+import com.mynexjob.enums.SearchMode;
+import com.mynexjob.event.JobChangedEvent;
+import com.mynexjob.event.JobSnapshot;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class CacheInvalidationServiceTest {
+
+    private Cache cache;
+    private CacheInvalidationService cacheInvalidation;
+
+    @BeforeEach
+    void setUp() {
+        ConcurrentMapCacheManager cacheManager = new ConcurrentMapCacheManager(CacheInvalidationService.JOBS_CACHE);
+        cache = cacheManager.getCache(CacheInvalidationService.JOBS_CACHE);
+        cacheInvalidation = new CacheInvalidationService(cacheManager, mock(RankingSnapshotService.class));
+        ReflectionTestUtils.setField(cacheInvalidation, "maxIndexedKeys", 3);
+    }
+
+    @Test
+    void evictsTheListingsTaggedWithTheJob() {
+        listing("page-a", "job-1", "job-2");
+        listing("page-b", "job-3");
+
+        updated("job-2", job("Nurse", "London"), job("Nurse", "Leeds"));
+
+        assertThat(cached("page-a")).isFalse();
+        assertThat(cached("page-b")).isTrue();
+    }
+
+    @Test
+    void evictsASearchTheJobEnters() {
+        search("java", regex("java"));
+
+        updated("job-1", job("Sales manager", "London"), job("Java developer", "London"));
+
+        assertThat(cached("java")).isFalse();
+    }
+
+    @Test
+    void evictsASearchTheJobLeaves() {
+        search("london", JobSearchRequest.builder().location("london").build());
+
+        updated("job-1", job("Nurse", "London"), job("Nurse", "Leeds"));
+
+        assertThat(cached("london")).isFalse();
+    }
+
+    @Test
+    void keepsASearchTheJobMatchesNeitherBeforeNorAfter() {
+        search("java", regex("java"));
+        search("london", JobSearchRequest.builder().location("london").build());
+
+        updated("job-1", job("Nurse", "Leeds"), job("Chef", "York"));
+
+        assertThat(cached("java")).isTrue();
+        assertThat(cached("london")).isTrue();
+    }
+
+    @Test
+    void treatsAnInvalidPatternAsMatching() {
+        search("broken", regex("java("));
+
+        updated("job-1", job("Nurse", "Leeds"), job("Chef", "York"));
+
+        assertThat(cached("broken")).isFalse();
+    }
+
+    @Test
+    void evictsTheFixedListingsAJobNewlyQualifiesFor() {
+        cacheInvalidation.registerListing(CacheInvalidationService.FEATURED_KEY, Collections.emptyList());
+        cache.put(CacheInvalidationService.FEATURED_KEY, "cached");
+        cacheInvalidation.registerListing(CacheInvalidationService.LATEST_KEY, Collections.emptyList());
+        cache.put(CacheInvalidationService.LATEST_KEY, "cached");
+
+        JobSnapshot featured = job("Nurse", "Leeds");
+        featured.setIsFeatured(true);
+        cacheInvalidation.onJobChanged(new JobChangedEvent(JobChangedEvent.Type.CREATED, "job-1", null, featured));
+
+        assertThat(cached(CacheInvalidationService.FEATURED_KEY)).isFalse();
+        assertThat(cached(CacheInvalidationService.LATEST_KEY)).isFalse();
+    }
+
+    @Test
+    void evictsTheOldestSearchesPastTheBound() {
+        for (int i = 0; i < 5; i++) {
+            search("search-" + i, regex("keyword-" + i));
+        }
+
+        assertThat(cached("search-0")).isFalse();
+        assertThat(cached("search-1")).isFalse();
+        assertThat(cached("search-2")).isTrue();
+        assertThat(cached("search-4")).isTrue();
+
+        // A re-registered search counts as the newest
+        search("search-2", regex("keyword-2"));
+        search("search-5", regex("keyword-5"));
+
+        assertThat(cached("search-2")).isTrue();
+        assertThat(cached("search-3")).isFalse();
+    }
+
+    @Test
+    void forgetsAnEvictedSearchSoItIsNotEvictedAgain() {
+        search("java", regex("java"));
+        updated("job-1", null, job("Java developer", "London"));
+
+        // Cached again by a caller that did not register it; only registered entries are tracked
+        cache.put("java", "untracked");
+        updated("job-2", null, job("Java developer", "London"));
+
+        assertThat(cached("java")).isTrue();
+    }
+
+    private void search(String key, JobSearchRequest searchRequest) {
+        cacheInvalidation.registerSearch(key, searchRequest, Collections.emptyList());
+        cache.put(key, "cached");
+    }
+
+    private void listing(String key, String... jobIds) {
+        cacheInvalidation.registerListing(key, Arrays.asList(jobIds));
+        cache.put(key, "cached");
+    }
+
+    private void updated(String jobId, JobSnapshot before, JobSnapshot after) {
+        JobChangedEvent.Type type = before == null ? JobChangedEvent.Type.CREATED : JobChangedEvent.Type.UPDATED;
+        cacheInvalidation.onJobChanged(new JobChangedEvent(type, jobId, before, after));
+    }
+
+    private boolean cached(String key) {
+        return cache.get(key) != null;
+    }
+
+    private static JobSearchRequest regex(String keyword) {
+        return JobSearchRequest.builder().keyword(keyword).searchMode(SearchMode.REGEX).build();
+    }
+
+    private static JobSnapshot job(String title, String location) {
+        return JobSnapshot.builder().title(title).location(location).isActive(true).build();
+    }
+}
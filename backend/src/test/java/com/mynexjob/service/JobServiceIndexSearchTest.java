@@ -0,0 +1,152 @@
+package com.mynexjob.service;
+
+import com.mynexjob.dto.common.PagedResponse;
+import com.mynexjob.dto.job.JobSearchRequest;
+import com.mynexjob.dto.job.JobSummary;
+import com.mynexjob.entity.Job;
+import com.mynexjob.enums.SearchMode;
+import com.mynexjob.mapper.JobMapper;
+import com.mynexjob.repository.CompanyRepository;
+import com.mynexjob.repository.JobRepository;
+import com.mynexjob.repository.SkillRepository;
+import com.mynexjob.repository.UserRepository;
+import com.mynexjob.util.InvertedIndex;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class JobServiceIndexSearchTest {
+
+    private final InvertedIndex index = newIndex();
+    private final Map<String, Job> stored = new HashMap<>();
+    private final List<List<String>> lookups = new ArrayList<>();
+
+    private JobService jobService;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+        when(mongoTemplate.find(any(Query.class), eq(Job.class))).thenAnswer(invocation -> {
+            Query query = invocation.getArgument(0);
+            List<String> ids = new ArrayList<>((Collection<String>) ((Document) query.getQueryObject().get("id")).get("$in"));
+            lookups.add(ids);
+            return ids.stream().map(stored::get).filter(job -> job != null).collect(Collectors.toList());
+        });
+
+        JobSearchIndexService jobSearchIndexService = mock(JobSearchIndexService.class);
+        when(jobSearchIndexService.isReady()).thenReturn(true);
+        when(jobSearchIndexService.search(any(JobSearchRequest.class), anyInt())).thenAnswer(invocation ->
+                index.search(((JobSearchRequest) invocation.getArgument(0)).getKeyword(), false, key -> true,
+                             invocation.getArgument(1)));
+
+        JobMapper jobMapper = mock(JobMapper.class);
+        when(jobMapper.toSummary(any(Job.class))).thenAnswer(invocation ->
+                JobSummary.builder().title(((Job) invocation.getArgument(0)).getTitle()).build());
+
+        jobService = new JobService(mock(JobRepository.class), mock(CompanyRepository.class), mock(SkillRepository.class),
+                                    mock(UserRepository.class), jobMapper, mongoTemplate, mock(SkillDictionaryService.class),
+                                    mock(MatchStoreService.class),
+                                    mock(MatchFanOutService.class), jobSearchIndexService,
+                                    mock(CacheInvalidationService.class), mock(ApplicationEventPublisher.class));
+    }
+
+    @Test
+    void servesAFullPageWhenNothingIsStale() {
+        addJobs(6);
+
+        PagedResponse<JobSummary> page = search(0, 3);
+
+        assertThat(titles(page)).containsExactly("job-0", "job-1", "job-2");
+        assertThat(page.getTotalElements()).isEqualTo(6);
+        assertThat(lookups).hasSize(1);
+    }
+
+    @Test
+    void backfillsThePagePastJobsDeactivatedOrDeletedInMongo() {
+        addJobs(8);
+        stored.get("job-1").setIsActive(false);
+        stored.remove("job-2");
+
+        PagedResponse<JobSummary> page = search(0, 3);
+
+        assertThat(titles(page)).containsExactly("job-0", "job-3", "job-4");
+        assertThat(page.getTotalElements()).isEqualTo(6);
+        assertThat(page.isHasNext()).isTrue();
+    }
+
+    @Test
+    void searchesTheIndexFurtherWhenItsExtraHitsRunOut() {
+        addJobs(12);
+        for (int i = 3; i < 7; i++) {
+            stored.get("job-" + i).setIsActive(false);
+        }
+
+        PagedResponse<JobSummary> page = search(1, 3);
+
+        assertThat(titles(page)).containsExactly("job-7", "job-8", "job-9");
+        assertThat(page.getTotalElements()).isEqualTo(8);
+    }
+
+    @Test
+    void returnsAShortLastPageWhenTheHitsEnd() {
+        addJobs(4);
+        stored.get("job-3").setIsActive(false);
+
+        PagedResponse<JobSummary> page = search(1, 2);
+
+        assertThat(titles(page)).containsExactly("job-2");
+        assertThat(page.getTotalElements()).isEqualTo(3);
+        assertThat(page.isHasNext()).isFalse();
+    }
+
+    private PagedResponse<JobSummary> search(int page, int size) {
+        JobSearchRequest request = JobSearchRequest.builder().keyword("java").searchMode(SearchMode.INDEX).build();
+        return jobService.searchJobs(request, PageRequest.of(page, size));
+    }
+
+    // Job i has i filler words in its title, so the hits rank in index order
+    private void addJobs(int count) {
+        for (int i = 0; i < count; i++) {
+            String id = "job-" + i;
+            StringBuilder title = new StringBuilder("java");
+            for (int w = 0; w < i; w++) {
+                title.append(" filler");
+            }
+            index.put(id, title.toString());
+
+            Job job = Job.builder().title(id).isActive(true).build();
+            job.setId(id);
+            stored.put(id, job);
+        }
+    }
+
+    private static List<String> titles(PagedResponse<JobSummary> page) {
+        return page.getContent().stream().map(JobSummary::getTitle).collect(Collectors.toList());
+    }
+
+    private static InvertedIndex newIndex() {
+        LinkedHashMap<String, Float> boosts = new LinkedHashMap<>();
+        boosts.put("title", 1f);
+        return new InvertedIndex(boosts);
+    }
+}
@@ -0,0 +1,91 @@
+package com.mynexjob.service;
+
+import com.mynexjob.dto.matching.MatchResult;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class MatchScoringEngineTest {
+
+    private MatchScoringEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        engine = new MatchScoringEngine(mock(MatchingService.class), new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(engine, "rulePoolSize", 2);
+        ReflectionTestUtils.setField(engine, "aiPoolSize", 2);
+        ReflectionTestUtils.setField(engine, "queueCapacity", 10);
+        ReflectionTestUtils.setField(engine, "perRequestConcurrency", 1);
+        ReflectionTestUtils.setField(engine, "deadlineMillis", 200L);
+        engine.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        engine.shutdown();
+    }
+
+    @Test
+    void returnsEveryResultInOrderWhenAllBatchesFinish() {
+        MatchScoringEngine.Scored scored = engine.scoreInBatches(Arrays.asList("a", "b", "c"), 2, MatchScoringEngineTest::score);
+
+        assertThat(scored.isPartial()).isFalse();
+        assertThat(scored.getResults()).extracting(MatchResult::getJobId).containsExactly("a", "b", "c");
+    }
+
+    @Test
+    void flagsResultsCutShortByTheDeadlineAsPartial() {
+        MatchScoringEngine.Scored scored = engine.scoreInBatches(Arrays.asList("a", "b", "c"), 1, batch -> {
+            sleep(150);
+            return score(batch);
+        });
+
+        // The batch running at the deadline may still land; the one after it never starts
+        assertThat(scored.isPartial()).isTrue();
+        assertThat(scored.getResults()).extracting(MatchResult::getJobId).startsWith("a").doesNotContain("c");
+    }
+
+    @Test
+    void flagsResultsMissingAFailedBatchAsPartial() {
+        MatchScoringEngine.Scored scored = engine.scoreInBatches(Arrays.asList("a", "b"), 1, batch -> {
+            if (batch.contains("a")) {
+                throw new IllegalStateException("boom");
+            }
+            return score(batch);
+        });
+
+        assertThat(scored.isPartial()).isTrue();
+        assertThat(scored.getResults()).extracting(MatchResult::getJobId).containsExactly("b");
+    }
+
+    @Test
+    void returnsAnEmptyCompleteResultForNoItems() {
+        MatchScoringEngine.Scored scored = engine.scoreInBatches(Arrays.<String>asList(), 2, MatchScoringEngineTest::score);
+
+        assertThat(scored.isPartial()).isFalse();
+        assertThat(scored.getResults()).isEmpty();
+    }
+
+    private static List<MatchResult> score(List<String> jobIds) {
+        return jobIds.stream()
+                .map(jobId -> MatchResult.builder().jobId(jobId).build())
+                .collect(Collectors.toList());
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.mynexjob.service;
+
+import com.mynexjob.entity.UserProfile;
+import com.mynexjob.repository.SkillRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class MatchingServiceTest {
+
+    private SkillDictionaryService skillDictionary;
+
+    @BeforeEach
+    void setUp() {
+        skillDictionary = new SkillDictionaryService(mock(SkillRepository.class));
+    }
+
+    @Test
+    void scoresTheShareOfRequiredSkillsTheCandidateHas() {
+        assertThat(skillsMatch(Arrays.asList("Java", "Spring", "MongoDB"), Arrays.asList("Java", "Kafka"))).isEqualTo(50.0);
+        assertThat(skillsMatch(Arrays.asList("Java", "Spring"), Arrays.asList("Java", "Spring"))).isEqualTo(100.0);
+        assertThat(skillsMatch(Arrays.asList("Python"), Arrays.asList("Java", "Spring", "Kafka", "Docker"))).isEqualTo(0.0);
+    }
+
+    @Test
+    void matchesSkillsIgnoringCaseAndSurroundingSpaces() {
+        assertThat(skillsMatch(Arrays.asList(" java ", "SPRING"), Arrays.asList("Java", "Spring"))).isEqualTo(100.0);
+    }
+
+    @Test
+    void countsRepeatedSkillsOnce() {
+        assertThat(skillsMatch(Arrays.asList("Java", "java"), Arrays.asList("Java", "Java", "Kafka"))).isEqualTo(50.0);
+    }
+
+    @Test
+    void doesNotMatchOneSkillNameContainedInAnother() {
+        assertThat(skillsMatch(Arrays.asList("Java"), Arrays.asList("JavaScript"))).isEqualTo(0.0);
+        assertThat(skillsMatch(Arrays.asList("Spring Boot"), Arrays.asList("Spring"))).isEqualTo(0.0);
+    }
+
+    @Test
+    void scoresACandidateWithoutSkillsZero() {
+        assertThat(skillsMatch(Collections.emptyList(), Arrays.asList("Java", "Spring"))).isEqualTo(0.0);
+    }
+
+    @Test
+    void scoresAJobWithoutRequiredSkillsFull() {
+        assertThat(skillsMatch(Arrays.asList("Java"), Collections.emptyList())).isEqualTo(100.0);
+        assertThat(skillsMatch(Collections.emptyList(), Collections.emptyList())).isEqualTo(100.0);
+    }
+
+    @Test
+    void scoresMissingSkillDataHalf() {
+        assertThat(MatchingService.calculateSkillsMatch(null, new int[]{1})).isEqualTo(50.0);
+        assertThat(MatchingService.calculateSkillsMatch(new int[]{1}, null)).isEqualTo(50.0);
+    }
+
+    @Test
+    void recodesAProfileAfterItsSkillsChange() {
+        UserProfile profile = new UserProfile();
+        profile.setSkills(Arrays.asList("Java"));
+        int[] before = skillDictionary.skillCodesOf(profile);
+
+        profile.setSkills(Arrays.asList("Java", "Kafka"));
+
+        assertThat(skillDictionary.skillCodesOf(profile)).hasSize(2).isNotSameAs(before);
+        assertThat(MatchingService.calculateSkillsMatch(skillDictionary.skillCodesOf(profile),
+                                                        skillDictionary.encode(Arrays.asList("Kafka")))).isEqualTo(100.0);
+    }
+
+    private double skillsMatch(List<String> candidateSkills, List<String> requiredSkills) {
+        return MatchingService.calculateSkillsMatch(skillDictionary.encode(candidateSkills),
+                                                    skillDictionary.encode(requiredSkills));
+    }
+}
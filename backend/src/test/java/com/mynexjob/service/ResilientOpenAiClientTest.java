@@ -0,0 +1,298 @@
+package com.mynexjob.service;
+
+import com.mynexjob.exception.AiServiceUnavailableException;
+import com.theokanning.openai.client.OpenAiApi;
+import com.theokanning.openai.completion.chat.ChatCompletionRequest;
+import com.theokanning.openai.completion.chat.ChatCompletionResult;
+import com.theokanning.openai.completion.chat.ChatMessage;
+import com.theokanning.openai.service.OpenAiService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import okhttp3.OkHttpClient;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ResilientOpenAiClientTest {
+
+    private static final String COMPLETION = "{\"id\": \"chatcmpl-1\", \"object\": \"chat.completion\", \"created\": 1, " +
+            "\"model\": \"gpt-test\", \"choices\": [{\"index\": 0, \"message\": {\"role\": \"assistant\", " +
+            "\"content\": \"ok\"}, \"finish_reason\": \"stop\"}]}";
+
+    private static final String SERVER_ERROR = "{\"error\": {\"message\": \"overloaded\", \"type\": \"server_error\"}}";
+
+    private MockWebServer server;
+    private SimpleMeterRegistry meterRegistry;
+    private ResilientOpenAiClient client;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new MockWebServer();
+        server.start();
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        if (client != null) {
+            client.shutdown();
+        }
+        server.shutdown();
+    }
+
+    @Test
+    void opensTheCircuitOnceTheFailureRateReachesTheThreshold() {
+        client = client(settings());
+        server.enqueue(success());
+        server.enqueue(success());
+        server.enqueue(serverError());
+        assertThat(client.createChatCompletion(request()).getChoices()).hasSize(1);
+        assertThat(client.createChatCompletion(request()).getChoices()).hasSize(1);
+        assertThatThrownBy(() -> client.createChatCompletion(request())).isInstanceOf(AiServiceUnavailableException.class);
+        assertThat(client.isCircuitOpen()).isFalse();
+
+        server.enqueue(serverError());
+        assertThatThrownBy(() -> client.createChatCompletion(request())).isInstanceOf(AiServiceUnavailableException.class);
+
+        // 2 failures in 4 calls is the 50% threshold; the next call never reaches the API
+        assertThat(client.isCircuitOpen()).isTrue();
+        assertThatThrownBy(() -> client.createChatCompletion(request()))
+                .isInstanceOf(AiServiceUnavailableException.class)
+                .hasMessageContaining("circuit breaker is open");
+        assertThat(server.getRequestCount()).isEqualTo(4);
+        assertThat(rejected("circuit-open")).isEqualTo(1.0);
+        assertThat(gauge("openai.circuit.state")).isEqualTo(1.0);
+    }
+
+    @Test
+    void closesAfterTheHalfOpenTrialCallsSucceed() throws InterruptedException {
+        Settings settings = settings();
+        settings.openDurationMillis = 200;
+        client = client(settings);
+        openCircuit();
+
+        Thread.sleep(300);
+        assertThat(client.isCircuitOpen()).isFalse();
+
+        server.enqueue(success());
+        client.createChatCompletion(request());
+        assertThat(gauge("openai.circuit.state")).isEqualTo(2.0);
+
+        server.enqueue(success());
+        client.createChatCompletion(request());
+        assertThat(gauge("openai.circuit.state")).isEqualTo(0.0);
+        assertThat(meterRegistry.get("openai.circuit.open").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void reopensWhenAHalfOpenTrialCallFails() throws InterruptedException {
+        Settings settings = settings();
+        settings.openDurationMillis = 200;
+        client = client(settings);
+        openCircuit();
+
+        Thread.sleep(300);
+        server.enqueue(serverError());
+        assertThatThrownBy(() -> client.createChatCompletion(request())).isInstanceOf(AiServiceUnavailableException.class);
+
+        assertThat(client.isCircuitOpen()).isTrue();
+        assertThat(gauge("openai.circuit.state")).isEqualTo(1.0);
+    }
+
+    @Test
+    void rejectsCallsThatFindNoBulkheadPermitWithinTheAcquireTimeout() throws InterruptedException {
+        Settings settings = settings();
+        settings.maxConcurrentCalls = 1;
+        settings.acquireTimeoutMillis = 150;
+        client = client(settings);
+        server.enqueue(success().setHeadersDelay(1, TimeUnit.SECONDS));
+
+        CompletableFuture<ChatCompletionResult> slow = CompletableFuture.supplyAsync(() -> client.createChatCompletion(request()));
+        assertThat(server.takeRequest(5, TimeUnit.SECONDS)).isNotNull();
+        assertThat(gauge("openai.bulkhead.available")).isEqualTo(0.0);
+
+        long startNanos = System.nanoTime();
+        assertThatThrownBy(() -> client.createChatCompletion(request()))
+                .isInstanceOf(AiServiceUnavailableException.class)
+                .hasMessageContaining("Too many concurrent");
+        long waitedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+
+        assertThat(waitedMillis).isBetween(150L, 900L);
+        assertThat(rejected("bulkhead")).isEqualTo(1.0);
+        assertThat(slow.join().getChoices()).hasSize(1);
+        awaitGauge("openai.bulkhead.available", 1.0);
+    }
+
+    @Test
+    void hedgesACallStillRunningAfterTheHedgeDelay() {
+        Settings settings = settings();
+        settings.hedgingEnabled = true;
+        settings.hedgeDelayMillis = 100;
+        client = client(settings);
+        AtomicInteger requests = new AtomicInteger();
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                // Only the first copy is slow
+                return requests.incrementAndGet() == 1 ? success().setHeadersDelay(3, TimeUnit.SECONDS) : success();
+            }
+        });
+
+        long startNanos = System.nanoTime();
+        assertThat(client.createChatCompletion(request()).getChoices()).hasSize(1);
+
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos)).isLessThan(2000);
+        assertThat(server.getRequestCount()).isEqualTo(2);
+        assertThat(meterRegistry.get("openai.call.hedged").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void doesNotHedgeACallAnsweredWithinTheHedgeDelay() {
+        Settings settings = settings();
+        settings.hedgingEnabled = true;
+        settings.hedgeDelayMillis = 1000;
+        client = client(settings);
+        server.enqueue(success());
+
+        client.createChatCompletion(request());
+
+        assertThat(server.getRequestCount()).isEqualTo(1);
+        assertThat(meterRegistry.get("openai.call.hedged").counter().count()).isZero();
+    }
+
+    @Test
+    void recordsCallLatencyByOutcome() {
+        Settings settings = settings();
+        settings.callTimeoutMillis = 200;
+        client = client(settings);
+        server.enqueue(success());
+        server.enqueue(serverError());
+        server.enqueue(success().setHeadersDelay(1, TimeUnit.SECONDS));
+
+        client.createChatCompletion(request());
+        assertThatThrownBy(() -> client.createChatCompletion(request())).isInstanceOf(AiServiceUnavailableException.class);
+        assertThatThrownBy(() -> client.createChatCompletion(request()))
+                .isInstanceOf(AiServiceUnavailableException.class)
+                .hasMessageContaining("timed out");
+
+        assertThat(meterRegistry.get("openai.call").tag("outcome", "success").timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("openai.call").tag("outcome", "failure").timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("openai.call").tag("outcome", "timeout").timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("openai.call").tag("outcome", "timeout").timer().totalTime(TimeUnit.MILLISECONDS))
+                .isGreaterThanOrEqualTo(200.0);
+    }
+
+    @Test
+    void rejectsCallsOverTheTokensPerMinuteBudget() {
+        Settings settings = settings();
+        settings.tokensPerMinute = 20;
+        settings.acquireTimeoutMillis = 0;
+        client = client(settings);
+        server.enqueue(success());
+
+        client.createChatCompletion(request());
+        assertThatThrownBy(() -> client.createChatCompletion(request()))
+                .isInstanceOf(AiServiceUnavailableException.class)
+                .hasMessageContaining("tokens-per-minute");
+
+        assertThat(server.getRequestCount()).isEqualTo(1);
+        assertThat(rejected("rate-limit")).isEqualTo(1.0);
+    }
+
+    private void openCircuit() {
+        server.enqueue(serverError());
+        server.enqueue(serverError());
+        server.enqueue(serverError());
+        server.enqueue(serverError());
+        for (int i = 0; i < 4; i++) {
+            assertThatThrownBy(() -> client.createChatCompletion(request())).isInstanceOf(AiServiceUnavailableException.class);
+        }
+        assertThat(client.isCircuitOpen()).isTrue();
+    }
+
+    private ResilientOpenAiClient client(Settings settings) {
+        OkHttpClient http = OpenAiService.defaultClient("test-key", Duration.ofSeconds(10));
+        OpenAiApi api = OpenAiService.defaultRetrofit(http, OpenAiService.defaultObjectMapper()).newBuilder()
+                .baseUrl(server.url("/"))
+                .build()
+                .create(OpenAiApi.class);
+
+        ResilientOpenAiClient client = new ResilientOpenAiClient(
+                new OpenAiService(api, http.dispatcher().executorService()), meterRegistry);
+        ReflectionTestUtils.setField(client, "maxConcurrentCalls", settings.maxConcurrentCalls);
+        ReflectionTestUtils.setField(client, "acquireTimeoutMillis", settings.acquireTimeoutMillis);
+        ReflectionTestUtils.setField(client, "callTimeoutMillis", settings.callTimeoutMillis);
+        ReflectionTestUtils.setField(client, "tokensPerMinute", settings.tokensPerMinute);
+        ReflectionTestUtils.setField(client, "failureRateThreshold", 50);
+        ReflectionTestUtils.setField(client, "windowSize", 4);
+        ReflectionTestUtils.setField(client, "minimumCalls", 4);
+        ReflectionTestUtils.setField(client, "openDurationMillis", settings.openDurationMillis);
+        ReflectionTestUtils.setField(client, "halfOpenCalls", 2);
+        ReflectionTestUtils.setField(client, "hedgingEnabled", settings.hedgingEnabled);
+        ReflectionTestUtils.setField(client, "hedgeDelayMillis", settings.hedgeDelayMillis);
+        client.init();
+        return client;
+    }
+
+    private static Settings settings() {
+        return new Settings();
+    }
+
+    private static ChatCompletionRequest request() {
+        return ChatCompletionRequest.builder()
+                .model("gpt-test")
+                .messages(Collections.singletonList(new ChatMessage("user", "Score this pair")))
+                .maxTokens(10)
+                .build();
+    }
+
+    private static MockResponse success() {
+        return new MockResponse().setHeader("Content-Type", "application/json").setBody(COMPLETION);
+    }
+
+    private static MockResponse serverError() {
+        return new MockResponse().setResponseCode(500).setHeader("Content-Type", "application/json").setBody(SERVER_ERROR);
+    }
+
+    private double rejected(String reason) {
+        return meterRegistry.get("openai.call.rejected").tag("reason", reason).counter().count();
+    }
+
+    private double gauge(String name) {
+        return meterRegistry.get(name).gauge().value();
+    }
+
+    // The permit of a finished call is released by a completion callback that may run just after the caller returns
+    private void awaitGauge(String name, double expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+        while (gauge(name) != expected && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(gauge(name)).isEqualTo(expected);
+    }
+
+    // Resilience settings the tests vary; the circuit always opens at 50% of a 4-call window
+    private static final class Settings {
+        int maxConcurrentCalls = 4;
+        long acquireTimeoutMillis = 1000;
+        long callTimeoutMillis = 5000;
+        long tokensPerMinute = 1_000_000;
+        long openDurationMillis = 30000;
+        boolean hedgingEnabled;
+        long hedgeDelayMillis = 3000;
+    }
+}
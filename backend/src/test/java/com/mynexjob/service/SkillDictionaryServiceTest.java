@@ -0,0 +1,53 @@
+package com.mynexjob.service;
+
+import com.mynexjob.entity.Skill;
+import com.mynexjob.repository.SkillRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class SkillDictionaryServiceTest {
+
+    private SkillDictionaryService skillDictionary;
+
+    @BeforeEach
+    void setUp() {
+        skillDictionary = new SkillDictionaryService(mock(SkillRepository.class));
+        skillDictionary.register(skill("skill-1", "Java"));
+        skillDictionary.register(skill("skill-2", "Spring Boot"));
+    }
+
+    @Test
+    void namesKnownSkillIdsAndKeepsOtherReferences() {
+        assertThat(skillDictionary.namesOf(Arrays.asList("skill-1", "Kafka", "SKILL-2")))
+                .containsExactly("Java", "Kafka", "Spring Boot");
+    }
+
+    @Test
+    void dropsBlankAndRepeatedSkills() {
+        assertThat(skillDictionary.namesOf(Arrays.asList("skill-1", " ", null, "skill-1"))).containsExactly("Java");
+        assertThat(skillDictionary.namesOf(null)).isEmpty();
+    }
+
+    @Test
+    void followsARenamedSkill() {
+        skillDictionary.register(skill("skill-1", "Java SE"));
+
+        assertThat(skillDictionary.namesOf(Arrays.asList("skill-1"))).containsExactly("Java SE");
+    }
+
+    @Test
+    void codesASkillIdAndItsNameAlike() {
+        assertThat(skillDictionary.encode(Arrays.asList("skill-1"))).isEqualTo(skillDictionary.encode(Arrays.asList("java")));
+    }
+
+    private static Skill skill(String id, String name) {
+        Skill skill = Skill.builder().name(name).build();
+        skill.setId(id);
+        return skill;
+    }
+}
@@ -0,0 +1,138 @@
+package com.mynexjob.specification;
+
+import com.mynexjob.entity.Job;
+import com.mynexjob.exception.BadRequestException;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JobKeysetCursorTest {
+
+    private static final Sort NEWEST_FIRST = Sort.by(Sort.Direction.DESC, "postedAt");
+    private static final Sort OLDEST_FIRST = Sort.by(Sort.Direction.ASC, "postedAt");
+    private static final LocalDateTime POSTED_AT = LocalDateTime.of(2024, 3, 1, 9, 30, 15);
+
+    @Test
+    void supportsOnlyASinglePostedAtSort() {
+        assertThat(JobKeysetCursor.supports(NEWEST_FIRST)).isTrue();
+        assertThat(JobKeysetCursor.supports(OLDEST_FIRST)).isTrue();
+        assertThat(JobKeysetCursor.supports(Sort.by("salaryMin"))).isFalse();
+        assertThat(JobKeysetCursor.supports(Sort.by("salaryMax"))).isFalse();
+        assertThat(JobKeysetCursor.supports(Sort.by("postedAt", "title"))).isFalse();
+        assertThat(JobKeysetCursor.supports(Sort.unsorted())).isFalse();
+    }
+
+    @Test
+    void breaksTiesByIdInTheSortDirection() {
+        assertThat(JobKeysetCursor.withTieBreaker(NEWEST_FIRST))
+                .isEqualTo(Sort.by(Sort.Direction.DESC, "postedAt").and(Sort.by(Sort.Direction.DESC, "id")));
+    }
+
+    @Test
+    void decodesWhatItEncodes() {
+        JobKeysetCursor cursor = JobKeysetCursor.after(job("job-7", POSTED_AT), NEWEST_FIRST, 3);
+
+        JobKeysetCursor decoded = JobKeysetCursor.decode(cursor.encode(), NEWEST_FIRST);
+
+        assertThat(decoded.getPage()).isEqualTo(3);
+        assertThat(decoded.encode()).isEqualTo(cursor.encode());
+        assertThat(decoded.criteria().getCriteriaObject()).isEqualTo(cursor.criteria().getCriteriaObject());
+    }
+
+    @Test
+    void decodesAPositionWithoutAPostedAt() {
+        JobKeysetCursor cursor = JobKeysetCursor.after(job("job-7", null), OLDEST_FIRST, 1);
+
+        JobKeysetCursor decoded = JobKeysetCursor.decode(cursor.encode(), OLDEST_FIRST);
+
+        assertThat(decoded.criteria().getCriteriaObject()).isEqualTo(cursor.criteria().getCriteriaObject());
+    }
+
+    @Test
+    void rejectsACursorForAnotherSort() {
+        String token = JobKeysetCursor.after(job("job-7", POSTED_AT), NEWEST_FIRST, 1).encode();
+
+        assertThatThrownBy(() -> JobKeysetCursor.decode(token, OLDEST_FIRST))
+                .isInstanceOf(BadRequestException.class)
+                .hasMessage("Cursor does not match the requested sort");
+        assertThatThrownBy(() -> JobKeysetCursor.decode(token, Sort.by("salaryMin")))
+                .isInstanceOf(BadRequestException.class)
+                .hasMessage("Cursor pagination needs a single postedAt sort");
+    }
+
+    @Test
+    void rejectsMalformedCursors() {
+        for (String token : Arrays.asList("not base64!", encode("k0|postedAt|DESC||job-7|1"),
+                                          encode("k1|postedAt|DESC|yesterday|job-7|1"),
+                                          encode("k1|postedAt|DESC||job-7"), encode("k1|postedAt|DESC|||1"),
+                                          encode("k1|postedAt|DESC||job-7|-1"), encode("k1|postedAt|DESC||job-7|x"))) {
+            assertThatThrownBy(() -> JobKeysetCursor.decode(token, NEWEST_FIRST))
+                    .as(token)
+                    .isInstanceOf(BadRequestException.class)
+                    .hasMessage("Invalid cursor");
+        }
+    }
+
+    @Test
+    void seeksPastTheKeyThenTheIdAscending() {
+        Document criteria = JobKeysetCursor.after(job("job-7", POSTED_AT), OLDEST_FIRST, 1).criteria().getCriteriaObject();
+
+        assertThat(branches(criteria)).containsExactly(
+                new Document("postedAt", new Document("$gt", POSTED_AT)),
+                new Document("postedAt", POSTED_AT).append("id", new Document("$gt", "job-7")));
+    }
+
+    @Test
+    void seeksPastTheKeyThenTheIdDescendingAndKeepsJobsWithoutOne() {
+        Document criteria = JobKeysetCursor.after(job("job-7", POSTED_AT), NEWEST_FIRST, 1).criteria().getCriteriaObject();
+
+        // Jobs without a postedAt sort last descending, so they all still follow
+        assertThat(branches(criteria)).containsExactly(
+                new Document("postedAt", new Document("$lt", POSTED_AT)),
+                new Document("postedAt", POSTED_AT).append("id", new Document("$lt", "job-7")),
+                new Document("postedAt", null));
+    }
+
+    @Test
+    void continuesAmongJobsWithoutAKeyThenTheRestAscending() {
+        Document criteria = JobKeysetCursor.after(job("job-7", null), OLDEST_FIRST, 1).criteria().getCriteriaObject();
+
+        // Jobs without a postedAt sort first ascending: finish them, then every job that has one
+        assertThat(branches(criteria)).containsExactly(
+                new Document("postedAt", null).append("id", new Document("$gt", "job-7")),
+                new Document("postedAt", new Document("$ne", null)));
+    }
+
+    @Test
+    void continuesOnlyAmongJobsWithoutAKeyDescending() {
+        Document criteria = JobKeysetCursor.after(job("job-7", null), NEWEST_FIRST, 1).criteria().getCriteriaObject();
+
+        assertThat(branches(criteria)).containsExactly(
+                new Document("postedAt", null).append("id", new Document("$lt", "job-7")));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Document> branches(Document criteria) {
+        assertThat(criteria).containsOnlyKeys("$or");
+        return (List<Document>) criteria.get("$or");
+    }
+
+    private static Job job(String id, LocalDateTime postedAt) {
+        Job job = Job.builder().postedAt(postedAt).build();
+        job.setId(id);
+        return job;
+    }
+
+    private static String encode(String token) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(token.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,81 @@
+package com.mynexjob.specification;
+
+import org.bson.Document;
+import org.bson.types.Decimal128;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JobSearchPipelineTest {
+
+    private static final List<Long> BANDS = Arrays.asList(0L, 300000L, 600000L, 1000000L);
+
+    @Test
+    void labelsABandByItsBoundsAndTheLastBoundAlone() {
+        assertThat(JobSearchPipeline.bandLabel(0L, BANDS)).isEqualTo("0-300000");
+        assertThat(JobSearchPipeline.bandLabel(600000L, BANDS)).isEqualTo("600000-1000000");
+        assertThat(JobSearchPipeline.bandLabel(1000000L, BANDS)).isEqualTo("1000000");
+    }
+
+    @Test
+    void labelsAnUnknownBoundByItself() {
+        assertThat(JobSearchPipeline.bandLabel(450000L, BANDS)).isEqualTo("450000");
+    }
+
+    @Test
+    void readsFacetCountsInBucketOrder() {
+        Document result = new Document()
+                .append("jobType", Arrays.asList(bucket("FULL_TIME", 7), bucket("CONTRACT", 2), bucket(null, 1)))
+                .append("location", Arrays.asList(bucket("Dhaka", 5), bucket("Chittagong", 3)))
+                .append("remote", Arrays.asList(bucket(false, 6), bucket(true, 4)))
+                .append("hybrid", Arrays.asList(bucket(false, 10)));
+
+        Map<String, Map<String, Long>> facets = JobSearchPipeline.facetsOf(result, BANDS);
+
+        assertThat(facets).containsOnlyKeys("jobType", "location", "remote", "hybrid", "salary");
+        assertThat(facets.get("jobType")).containsExactly(
+                Map.entry("FULL_TIME", 7L), Map.entry("CONTRACT", 2L), Map.entry("unspecified", 1L));
+        assertThat(facets.get("location")).containsExactly(Map.entry("Dhaka", 5L), Map.entry("Chittagong", 3L));
+        assertThat(facets.get("remote")).containsExactly(Map.entry("false", 6L), Map.entry("true", 4L));
+        assertThat(facets.get("hybrid")).containsExactly(Map.entry("false", 10L));
+    }
+
+    @Test
+    void labelsSalaryBucketsAndSendsTheDefaultBucketToOther() {
+        Document result = new Document("salary", Arrays.asList(
+                bucket(0L, 3), bucket(300000, 4), bucket(new Decimal128(600000L), 2), bucket("other", 5)));
+
+        Map<String, Long> bands = JobSearchPipeline.facetsOf(result, BANDS).get("salary");
+
+        assertThat(bands).containsExactly(
+                Map.entry("0-300000", 3L), Map.entry("300000-600000", 4L),
+                Map.entry("600000-1000000", 2L), Map.entry("other", 5L));
+    }
+
+    @Test
+    void readsMissingFacetsAsEmpty() {
+        Map<String, Map<String, Long>> facets = JobSearchPipeline.facetsOf(null, BANDS);
+
+        assertThat(facets).hasSize(5).allSatisfy((facet, counts) -> assertThat(counts).isEmpty());
+    }
+
+    @Test
+    void readsTheTotalAndPage() {
+        Document job = new Document("_id", "job-1");
+        Document result = new Document("total", Arrays.asList(new Document("count", 42)))
+                .append("page", Arrays.asList(job));
+
+        assertThat(JobSearchPipeline.totalOf(result)).isEqualTo(42L);
+        assertThat(JobSearchPipeline.pageOf(result)).containsExactly(job);
+        assertThat(JobSearchPipeline.totalOf(new Document("total", Arrays.asList()))).isZero();
+        assertThat(JobSearchPipeline.pageOf(null)).isEmpty();
+    }
+
+    private static Document bucket(Object id, long count) {
+        return new Document("_id", id).append("count", count);
+    }
+}
@@ -0,0 +1,90 @@
+package com.mynexjob.util;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class HashedTfIdfVectorizerTest {
+
+    private HashedTfIdfVectorizer vectorizer;
+
+    @BeforeEach
+    void setUp() {
+        vectorizer = new HashedTfIdfVectorizer(1024);
+        vectorizer.addDocument("Java developer Spring Boot microservices");
+        vectorizer.addDocument("Java developer Kafka streaming");
+        vectorizer.addDocument("Java developer Android");
+        vectorizer.addDocument("Registered nurse intensive care");
+    }
+
+    @Test
+    void producesUnitLengthVectors() {
+        float[] vector = vectorizer.vectorize("Senior Java developer, Spring and Kafka");
+
+        assertThat(vector).hasSize(1024);
+        assertThat(dot(vector, vector)).isCloseTo(1.0f, within(1e-5f));
+    }
+
+    @Test
+    void producesAZeroVectorForTextWithoutTerms() {
+        assertThat(vectorizer.vectorize(null)).containsOnly(0f);
+        assertThat(vectorizer.vectorize("the and of a")).containsOnly(0f);
+    }
+
+    @Test
+    void ranksRelatedTextAboveUnrelatedText() {
+        float[] query = vectorizer.vectorize("Spring Boot developer");
+
+        assertThat(dot(query, vectorizer.vectorize("Java developer Spring Boot microservices")))
+                .isGreaterThan(dot(query, vectorizer.vectorize("Registered nurse intensive care")));
+    }
+
+    @Test
+    void weighsRareTermsAboveCommonOnes() {
+        float[] query = vectorizer.vectorize("java kafka");
+
+        // Every developer document says Java, only one says Kafka
+        assertThat(dot(query, vectorizer.vectorize("kafka"))).isGreaterThan(dot(query, vectorizer.vectorize("java")));
+    }
+
+    @Test
+    void ignoresCaseStopWordsAndPunctuation() {
+        assertThat(vectorizer.vectorize("The JAVA developer, with Kafka!"))
+                .containsExactly(vectorizer.vectorize("java developer kafka"));
+    }
+
+    @Test
+    void keepsPlusAndHashInTerms() {
+        assertThat(vectorizer.vectorize("C++")).isNotEqualTo(vectorizer.vectorize("C#"));
+        assertThat(dot(vectorizer.vectorize("C++"), vectorizer.vectorize("C++"))).isCloseTo(1.0f, within(1e-5f));
+    }
+
+    @Test
+    void vectorizesTheSameAfterAWriteAndReadRoundTrip() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            vectorizer.writeTo(out);
+        }
+        HashedTfIdfVectorizer copy = HashedTfIdfVectorizer.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+        assertThat(copy.getDimensions()).isEqualTo(1024);
+        assertThat(copy.vectorize("Java developer Kafka")).containsExactly(vectorizer.vectorize("Java developer Kafka"));
+        assertThat(copy.vectorize("nurse")).containsExactly(vectorizer.vectorize("nurse"));
+    }
+
+    private static float dot(float[] a, float[] b) {
+        float dot = 0;
+        for (int i = 0; i < a.length; i++) {
+            dot += a[i] * b[i];
+        }
+        return dot;
+    }
+}
@@ -0,0 +1,184 @@
+package com.mynexjob.util;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+class HnswIndexTest {
+
+    private static final int DIMENSIONS = 32;
+
+    private final Random random = new Random(7);
+    private final Map<String, float[]> vectors = new HashMap<>();
+
+    private HnswIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new HnswIndex(DIMENSIONS, 8, 100);
+        for (int i = 0; i < 1000; i++) {
+            put("item-" + i, randomVector());
+        }
+    }
+
+    @Test
+    void findsNearlyAllOfTheTrueNearestNeighbours() {
+        int found = 0;
+        for (int q = 0; q < 100; q++) {
+            float[] query = randomVector();
+            Set<String> exact = new HashSet<>(bruteForce(query, 10));
+            found += (int) keys(index.search(query, 10, 100)).stream().filter(exact::contains).count();
+        }
+
+        assertThat(found / 1000.0).isGreaterThanOrEqualTo(0.95);
+    }
+
+    @Test
+    void returnsHitsBestFirstWithTheirCosineSimilarity() {
+        float[] query = vectors.get("item-3");
+
+        List<HnswIndex.Hit> hits = index.search(query, 5, 50);
+
+        assertThat(hits.get(0).getKey()).isEqualTo("item-3");
+        assertThat(hits.get(0).getSimilarity()).isCloseTo(1.0f, within(1e-5f));
+        for (int i = 1; i < hits.size(); i++) {
+            assertThat(hits.get(i).getSimilarity()).isLessThanOrEqualTo(hits.get(i - 1).getSimilarity());
+            assertThat(hits.get(i).getSimilarity())
+                    .isCloseTo(dot(query, vectors.get(hits.get(i).getKey())), within(1e-5f));
+        }
+    }
+
+    @Test
+    void neverReturnsARemovedKey() {
+        for (int i = 0; i < 1000; i += 2) {
+            index.remove("item-" + i);
+            vectors.remove("item-" + i);
+        }
+
+        assertThat(index.size()).isEqualTo(500);
+        assertThat(index.getDeletedCount()).isEqualTo(500);
+        for (int q = 0; q < 50; q++) {
+            assertThat(keys(index.search(randomVector(), 20, 100))).allMatch(vectors::containsKey);
+        }
+        // Asking for more than is live returns each live key once
+        assertThat(keys(index.search(randomVector(), 2000, 2000))).doesNotHaveDuplicates().hasSize(500);
+    }
+
+    @Test
+    void returnsAReplacedKeyOnlyForItsNewVector() {
+        float[] old = vectors.get("item-5");
+        float[] replacement = negate(old);
+        put("item-5", replacement);
+
+        assertThat(index.size()).isEqualTo(1000);
+        assertThat(index.getDeletedCount()).isEqualTo(1);
+        assertThat(keys(index.search(old, 50, 100))).doesNotContain("item-5");
+
+        List<HnswIndex.Hit> hits = index.search(replacement, 50, 100);
+        assertThat(hits.get(0).getKey()).isEqualTo("item-5");
+        assertThat(keys(hits)).containsOnlyOnce("item-5");
+    }
+
+    @Test
+    void searchesTheSameAfterAWriteAndReadRoundTrip() throws IOException {
+        index.remove("item-1");
+        put("item-2", randomVector());
+
+        HnswIndex copy = roundTrip(index);
+
+        assertThat(copy.size()).isEqualTo(index.size());
+        assertThat(copy.getDeletedCount()).isEqualTo(index.getDeletedCount());
+        for (int q = 0; q < 50; q++) {
+            float[] query = randomVector();
+            List<HnswIndex.Hit> expected = index.search(query, 10, 100);
+            List<HnswIndex.Hit> actual = copy.search(query, 10, 100);
+
+            assertThat(keys(actual)).isEqualTo(keys(expected));
+            for (int i = 0; i < expected.size(); i++) {
+                assertThat(actual.get(i).getSimilarity()).isEqualTo(expected.get(i).getSimilarity());
+            }
+        }
+    }
+
+    @Test
+    void returnsNothingWhenEmpty() {
+        assertThat(new HnswIndex(DIMENSIONS, 8, 100).search(randomVector(), 10, 100)).isEmpty();
+    }
+
+    @Test
+    void rejectsAVectorOfTheWrongSize() {
+        assertThatThrownBy(() -> index.add("bad", new float[DIMENSIONS + 1]))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private void put(String key, float[] vector) {
+        index.add(key, vector);
+        vectors.put(key, vector);
+    }
+
+    private List<String> bruteForce(float[] query, int k) {
+        return vectors.entrySet().stream()
+                .sorted(Comparator.comparingDouble((Map.Entry<String, float[]> e) -> -dot(query, e.getValue())))
+                .limit(k)
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toList());
+    }
+
+    private float[] randomVector() {
+        float[] vector = new float[DIMENSIONS];
+        double norm = 0;
+        for (int i = 0; i < DIMENSIONS; i++) {
+            vector[i] = (float) random.nextGaussian();
+            norm += vector[i] * vector[i];
+        }
+        for (int i = 0; i < DIMENSIONS; i++) {
+            vector[i] /= (float) Math.sqrt(norm);
+        }
+        return vector;
+    }
+
+    private static float[] negate(float[] vector) {
+        float[] negated = new float[vector.length];
+        for (int i = 0; i < vector.length; i++) {
+            negated[i] = -vector[i];
+        }
+        return negated;
+    }
+
+    private static float dot(float[] a, float[] b) {
+        float dot = 0;
+        for (int i = 0; i < a.length; i++) {
+            dot += a[i] * b[i];
+        }
+        return dot;
+    }
+
+    private static List<String> keys(List<HnswIndex.Hit> hits) {
+        return hits.stream().map(HnswIndex.Hit::getKey).collect(Collectors.toList());
+    }
+
+    private static HnswIndex roundTrip(HnswIndex index) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            index.writeTo(out);
+        }
+        return HnswIndex.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+    }
+}
@@ -0,0 +1,162 @@
+package com.mynexjob.util;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class InvertedIndexTest {
+
+    private InvertedIndex index;
+
+    @BeforeEach
+    void setUp() {
+        LinkedHashMap<String, Float> boosts = new LinkedHashMap<>();
+        boosts.put("title", 2f);
+        boosts.put("body", 1f);
+        index = new InvertedIndex(boosts);
+    }
+
+    @Test
+    void scoresAMatchWithBm25AndTheFieldBoost() {
+        index.put("java", "Java developer", null);
+        index.put("python", "Python developer", null);
+        index.put("sales", "Sales manager", null);
+
+        List<InvertedIndex.Hit> hits = search("java").getHits();
+
+        // idf = ln(1 + (3 - 1 + 0.5) / (1 + 0.5)); a title of average length gives tf (k1 + 1) / (tf + k1) = 1, times boost 2
+        assertThat(hits).hasSize(1);
+        assertThat(hits.get(0).getScore()).isCloseTo((float) (2 * Math.log(8.0 / 3)), within(1e-4f));
+    }
+
+    @Test
+    void ranksAMatchInABoostedFieldFirst() {
+        index.put("in-body", "Backend developer", "Kafka pipelines");
+        index.put("in-title", "Kafka engineer", "Backend services");
+
+        assertThat(keys(search("kafka"))).containsExactly("in-title", "in-body");
+    }
+
+    @Test
+    void ranksARareTermAboveACommonOne() {
+        index.put("common", "Developer", null);
+        index.put("rare", "Rust", null);
+        index.put("other", "Developer", null);
+
+        assertThat(keys(search("developer rust"))).first().isEqualTo("rare");
+    }
+
+    @Test
+    void ranksAShorterFieldFirstAndSaturatesRepeatedTerms() {
+        index.put("short", "Java", null);
+        index.put("long", "Java developer for payments platform team", null);
+        index.put("repeated", "Java java java java", null);
+        index.put("filler", "Accountant", null);
+
+        InvertedIndex.Result result = search("java");
+
+        assertThat(keys(result)).containsExactly("repeated", "short", "long");
+        // Four occurrences score less than twice one
+        assertThat(result.getHits().get(0).getScore()).isLessThan(2 * result.getHits().get(1).getScore());
+    }
+
+    @Test
+    void requiresPhrasesInOrderWithinOneField() {
+        index.put("phrase", "Senior Java developer", null);
+        index.put("reversed", "Java senior developer", null);
+        index.put("split", "Senior engineer", "Java services");
+
+        InvertedIndex.Result result = search("\"senior java\"");
+
+        assertThat(keys(result)).containsExactly("phrase");
+        assertThat(result.getTotal()).isEqualTo(1);
+    }
+
+    @Test
+    void matchesPhrasesAcrossStopWordsAtTheirPosition() {
+        index.put("head", "Head of sales", null);
+
+        assertThat(keys(search("\"head of sales\""))).containsExactly("head");
+        assertThat(keys(search("\"head sales\""))).isEmpty();
+    }
+
+    @Test
+    void keepsOnlyPhraseMatchesAndRanksThemByTheOptionalWords() {
+        index.put("both", "Java developer", "Spring Boot");
+        index.put("phrase", "Java developer", "Jakarta EE");
+        index.put("word", "Spring developer", null);
+
+        InvertedIndex.Result result = search("\"java developer\" spring");
+
+        assertThat(keys(result)).containsExactly("both", "phrase");
+        assertThat(result.getTotal()).isEqualTo(2);
+    }
+
+    @Test
+    void expandsWordsEndingInAStarAsPrefixes() {
+        index.put("developer", "Developer", null);
+        index.put("devops", "DevOps engineer", null);
+        index.put("designer", "Designer", null);
+
+        assertThat(keys(search("dev*"))).containsExactlyInAnyOrder("developer", "devops");
+        assertThat(keys(search("dev"))).isEmpty();
+    }
+
+    @Test
+    void treatsTheLastWordAsAPrefixWhileTyping() {
+        index.put("java", "Java developer", null);
+
+        assertThat(keys(index.search("jav", true, key -> true, 10))).containsExactly("java");
+        assertThat(keys(index.search("jav ", true, key -> true, 10))).isEmpty();
+    }
+
+    @Test
+    void matchesAPluralPrefixInItsStemmedForm() {
+        index.put("engineer", "Software engineer", null);
+
+        assertThat(keys(search("engineers*"))).containsExactly("engineer");
+    }
+
+    @Test
+    void countsEveryAcceptedMatchButReturnsTheBest() {
+        index.put("a", "Java", null);
+        index.put("b", "Java developer", null);
+        index.put("c", "Java backend developer", null);
+        index.put("rejected", "Java", null);
+
+        InvertedIndex.Result result = index.search("java", false, key -> !key.equals("rejected"), 2);
+
+        assertThat(keys(result)).containsExactly("a", "b");
+        assertThat(result.getTotal()).isEqualTo(3);
+    }
+
+    @Test
+    void replacesAndRemovesDocuments() {
+        index.put("job", "Java developer", null);
+        index.put("job", "Python developer", null);
+
+        assertThat(keys(search("java"))).isEmpty();
+        assertThat(keys(search("python"))).containsExactly("job");
+        assertThat(index.size()).isEqualTo(1);
+
+        index.remove("job");
+
+        assertThat(keys(search("python"))).isEmpty();
+        assertThat(index.size()).isZero();
+        assertThat(index.termCount()).isZero();
+    }
+
+    private InvertedIndex.Result search(String query) {
+        return index.search(query, false, key -> true, 10);
+    }
+
+    private static List<String> keys(InvertedIndex.Result result) {
+        return result.getHits().stream().map(InvertedIndex.Hit::getKey).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,64 @@
+package com.mynexjob.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class KeywordAutomatonTest {
+
+    @Test
+    void findsAKeywordReachedOnlyThroughAFailureLink() {
+        KeywordAutomaton automaton = KeywordAutomaton.of(Arrays.asList("she", "he", "hers"));
+
+        // "sh" leads down the "she" branch; "he" ends at its failure target
+        assertThat(automaton.containsAny("ushe")).isTrue();
+        assertThat(automaton.containsAny("shx he")).isTrue();
+        assertThat(automaton.containsAny("ahex")).isTrue();
+        assertThat(automaton.containsAny("sh e")).isFalse();
+    }
+
+    @Test
+    void findsAShortKeywordInsideALongerPartialMatch() {
+        KeywordAutomaton automaton = KeywordAutomaton.of(Arrays.asList("data engineer", "engineer"));
+
+        assertThat(automaton.containsAny("data enginee engineer")).isTrue();
+        assertThat(automaton.containsAny("data engineering")).isTrue();
+        assertThat(automaton.containsAny("data engine")).isFalse();
+    }
+
+    @Test
+    void restartsAfterAMismatchWithinAKeyword() {
+        KeywordAutomaton automaton = KeywordAutomaton.of(Arrays.asList("aab"));
+
+        assertThat(automaton.containsAny("aaab")).isTrue();
+        assertThat(automaton.containsAny("abaab")).isTrue();
+        assertThat(automaton.containsAny("abab")).isFalse();
+    }
+
+    @Test
+    void matchesIgnoringCase() {
+        KeywordAutomaton automaton = KeywordAutomaton.of(Arrays.asList("React Native", "sql"));
+
+        assertThat(automaton.containsAny("Senior REACT native Developer")).isTrue();
+        assertThat(automaton.containsAny("NoSQL admin")).isTrue();
+        assertThat(automaton.containsAny("Reactive systems")).isFalse();
+    }
+
+    @Test
+    void skipsNullAndEmptyTexts() {
+        KeywordAutomaton automaton = KeywordAutomaton.of(Arrays.asList("java"));
+
+        assertThat(automaton.containsAny((CharSequence) null)).isFalse();
+        assertThat(automaton.containsAny("")).isFalse();
+        assertThat(automaton.containsAny(null, "", "Java")).isTrue();
+        assertThat(automaton.containsAny(null, null)).isFalse();
+    }
+
+    @Test
+    void matchesNothingWithoutKeywords() {
+        assertThat(KeywordAutomaton.of(Collections.emptyList()).containsAny("anything")).isFalse();
+    }
+}